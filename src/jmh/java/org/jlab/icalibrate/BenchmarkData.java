@@ -0,0 +1,95 @@
+package org.jlab.icalibrate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.jlab.icalibrate.model.DoseRateMeasurement;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamber;
+import org.jlab.icalibrate.model.IonChamberDataset;
+
+/**
+ * Synthetic data shared by the benchmarks. A fixed random seed keeps runs comparable.
+ *
+ * @author ryans
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+        // Not instantiable
+    }
+
+    /**
+     * Load the application properties from the classpath if they have not been loaded already.
+     * Parsing an HCD file requires the hall PV suffixes.
+     *
+     * @throws IOException If unable to load the properties
+     */
+    public static void loadAppProperties() throws IOException {
+        if (!ICalibrateApp.APP_PROPERTIES.isEmpty()) {
+            return;
+        }
+
+        try (InputStream propStream = BenchmarkData.class.getClassLoader().getResourceAsStream(
+                "icalibrate.properties")) {
+            if (propStream == null) {
+                throw new IOException(
+                        "File Not Found; Configuration File: icalibrate.properties");
+            }
+
+            ICalibrateApp.APP_PROPERTIES.load(propStream);
+        }
+    }
+
+    /**
+     * Create an ion chamber dataset with a noisy linear dose rate response.
+     *
+     * @param name The ion chamber EPICS name
+     * @param measurements The number of measurements
+     * @param random The random number generator
+     * @return The dataset
+     */
+    public static IonChamberDataset createIonChamberDataset(String name, int measurements,
+            Random random) {
+        IonChamber ic = new IonChamber(name, null, name + " friendly", name + "Pk", name + "MAx",
+                name + "MAX", null);
+
+        double slope = 1 + random.nextDouble() * 100;
+        double intercept = random.nextDouble() * 10;
+        List<DoseRateMeasurement> measurementList = new ArrayList<>(measurements);
+
+        for (int i = 0; i < measurements; i++) {
+            double current = 150.0d * (i + 1) / measurements;
+            double doseRate = slope * current + intercept;
+
+            measurementList.add(new DoseRateMeasurement(current, doseRate
+                    + doseRate * 0.02 * random.nextGaussian()));
+        }
+
+        return new IonChamberDataset(ic, measurementList);
+    }
+
+    /**
+     * Create a hall calibration dataset.
+     *
+     * @param ionChambers The number of ion chambers
+     * @param measurements The number of measurements per ion chamber
+     * @return The dataset
+     */
+    public static HallCalibrationDataset createHallDataset(int ionChambers, int measurements) {
+        Random random = new Random(42);
+        List<IonChamberDataset> datasetList = new ArrayList<>(ionChambers);
+
+        for (int i = 0; i < ionChambers; i++) {
+            datasetList.add(createIonChamberDataset(String.format("IC%03d", i), measurements,
+                    random));
+        }
+
+        return new HallCalibrationDataset(Hall.A, "Benchmark Target", "1", "Synthetic",
+                new Date(), "benchmark", datasetList);
+    }
+}
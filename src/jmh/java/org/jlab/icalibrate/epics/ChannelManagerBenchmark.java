@@ -0,0 +1,96 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the ChannelManager client path against the simulated backend. With zero latency
+ * this measures the overhead of the manager itself; with latency it shows how well batching
+ * hides round trips.
+ *
+ * @author ryans
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelManagerBenchmark {
+
+    private static final int PV_COUNT = 50;
+
+    @Param({"0", "1"})
+    public long latencyMillis;
+
+    private ChannelManager manager;
+    private final List<String> pvList = new ArrayList<>();
+
+    /**
+     * Create the simulated PVs and manager.
+     */
+    @Setup
+    public void setup() {
+        SimulatedBackend backend = new SimulatedBackend(42);
+
+        for (int i = 0; i < PV_COUNT; i++) {
+            String pv = "BENCH:PV" + i;
+            backend.addPv(pv, i).setLatency(latencyMillis, 0);
+            pvList.add(pv);
+        }
+
+        manager = new ChannelManager(backend);
+    }
+
+    /**
+     * Close the manager.
+     *
+     * @throws IOException If unable to close
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+    }
+
+    /**
+     * A single blocking CA-GET.
+     *
+     * @return The value
+     * @throws CAException If unable to get
+     * @throws TimeoutException If unable to get in time
+     */
+    @Benchmark
+    public DBR get() throws CAException, TimeoutException {
+        return manager.get(pvList.get(0));
+    }
+
+    /**
+     * A batched CA-GET of every PV.
+     *
+     * @return The result
+     * @throws InterruptedException If interrupted
+     * @throws ExecutionException If the batch fails
+     */
+    @Benchmark
+    public BatchGetResult getAll() throws InterruptedException, ExecutionException {
+        return manager.getAll(pvList, ChannelManager.PEND_TIMEOUT_SECONDS).get();
+    }
+}
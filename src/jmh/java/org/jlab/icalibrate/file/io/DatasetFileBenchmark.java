@@ -0,0 +1,173 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+import org.jlab.icalibrate.BenchmarkData;
+import org.jlab.icalibrate.exception.MissingDataException;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamberDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading and writing large synthetic HCD files in the text and binary formats.
+ *
+ * @author ryans
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatasetFileBenchmark {
+
+    @Param({"50"})
+    public int ionChambers;
+
+    @Param({"100", "1000"})
+    public int measurements;
+
+    private final DatasetFileReader reader = new DatasetFileReader();
+    private final DatasetFileWriter writer = new DatasetFileWriter();
+    private final BinaryDatasetFileWriter binaryWriter = new BinaryDatasetFileWriter(false);
+    private final BinaryDatasetFileWriter compressedWriter = new BinaryDatasetFileWriter(true);
+    private HallCalibrationDataset dataset;
+    private File readFile;
+    private File binaryReadFile;
+    private File compressedReadFile;
+    private File writeFile;
+
+    /**
+     * Create the synthetic dataset and write it once so there is a file to read.
+     *
+     * @throws IOException If unable to write the file
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkData.loadAppProperties();
+
+        dataset = BenchmarkData.createHallDataset(ionChambers, measurements);
+
+        readFile = File.createTempFile("benchmark-read", ".hcd");
+        binaryReadFile = File.createTempFile("benchmark-read-binary", ".hcd");
+        compressedReadFile = File.createTempFile("benchmark-read-compressed", ".hcd");
+        writeFile = File.createTempFile("benchmark-write", ".hcd");
+
+        writer.write(readFile, dataset);
+        binaryWriter.write(binaryReadFile, dataset);
+        compressedWriter.write(compressedReadFile, dataset);
+    }
+
+    /**
+     * Remove the temporary files.
+     */
+    @TearDown
+    public void tearDown() {
+        readFile.delete();
+        binaryReadFile.delete();
+        compressedReadFile.delete();
+        writeFile.delete();
+    }
+
+    /**
+     * Read the HCD file.
+     *
+     * @return The dataset
+     * @throws IOException If unable to read
+     * @throws ParseException If unable to parse
+     * @throws MissingDataException If the configuration is incomplete
+     */
+    @Benchmark
+    public HallCalibrationDataset read() throws IOException, ParseException,
+            MissingDataException {
+        return reader.read(readFile);
+    }
+
+    /**
+     * Write the HCD file.
+     *
+     * @return The file written
+     * @throws IOException If unable to write
+     */
+    @Benchmark
+    public File write() throws IOException {
+        writer.write(writeFile, dataset);
+        return writeFile;
+    }
+
+    /**
+     * Open a binary HCD file and materialise one chamber, as when the operator opens a file.
+     *
+     * @return The first chamber's first measurement
+     * @throws IOException If unable to read
+     * @throws ParseException If unable to parse
+     * @throws MissingDataException If the configuration is incomplete
+     */
+    @Benchmark
+    public Object readBinaryOneChamber() throws IOException, ParseException,
+            MissingDataException {
+        return reader.read(binaryReadFile).getMeasuredDoseRateDataset().get(0)
+                .getMeasurementList().get(0);
+    }
+
+    /**
+     * Open a binary HCD file and materialise every chamber.
+     *
+     * @return The dataset
+     * @throws IOException If unable to read
+     * @throws ParseException If unable to parse
+     * @throws MissingDataException If the configuration is incomplete
+     */
+    @Benchmark
+    public HallCalibrationDataset readBinaryAll() throws IOException, ParseException,
+            MissingDataException {
+        return materialise(reader.read(binaryReadFile));
+    }
+
+    /**
+     * Open a compressed binary HCD file and materialise every chamber.
+     *
+     * @return The dataset
+     * @throws IOException If unable to read
+     * @throws ParseException If unable to parse
+     * @throws MissingDataException If the configuration is incomplete
+     */
+    @Benchmark
+    public HallCalibrationDataset readCompressedAll() throws IOException, ParseException,
+            MissingDataException {
+        return materialise(reader.read(compressedReadFile));
+    }
+
+    /**
+     * Write the binary HCD file.
+     *
+     * @return The file written
+     * @throws IOException If unable to write
+     */
+    @Benchmark
+    public File writeBinary() throws IOException {
+        binaryWriter.write(writeFile, dataset);
+        return writeFile;
+    }
+
+    private static HallCalibrationDataset materialise(HallCalibrationDataset ds) {
+        for (IonChamberDataset ic : ds.getMeasuredDoseRateDataset()) {
+            ic.getMeasurementList().get(0);
+        }
+
+        return ds;
+    }
+}
@@ -0,0 +1,149 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.ParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.jlab.icalibrate.BenchmarkData;
+import org.jlab.icalibrate.exception.MissingDataException;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the streaming text HCD parser with the legacy Scanner based one on multi-megabyte
+ * synthetic files in both the Matrix and Independent ICs layouts. Values are formatted the way
+ * DatasetFileWriter formats them. Run with -prof gc to see the allocation per operation.
+ *
+ * @author ryans
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextParserBenchmark {
+
+    @Param({"MATRIX", "INDEPENDENT_ICS"})
+    public String layout;
+
+    @Param({"50"})
+    public int ionChambers;
+
+    @Param({"10000"})
+    public int measurements;
+
+    private final DatasetFileReader reader = new DatasetFileReader();
+    private final LegacyDatasetFileReader legacyReader = new LegacyDatasetFileReader();
+    private File file;
+
+    /**
+     * Write the synthetic file.
+     *
+     * @throws IOException If unable to write the file
+     */
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkData.loadAppProperties();
+
+        file = File.createTempFile("benchmark-text", ".hcd");
+
+        Random random = new Random(42);
+
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("--- Start HCD header");
+            writer.println("Hall: A");
+            writer.println("Target: Benchmark Target");
+            writer.println("Pass: 1");
+            writer.println("Note: Synthetic");
+            writer.println("Calibrated Date: 2020-01-01T00:00");
+            writer.println("Calibrated By: benchmark");
+
+            if ("MATRIX".equals(layout)) {
+                writer.println("--- End HCD header");
+                writer.print("#HALL CURR");
+
+                for (int i = 0; i < ionChambers; i++) {
+                    writer.print(",IC" + i);
+                }
+
+                writer.println();
+
+                for (int j = 0; j < measurements; j++) {
+                    writer.print(String.format("%.2f", j * 0.05d));
+
+                    for (int i = 0; i < ionChambers; i++) {
+                        writer.print(",");
+                        writer.print(random.nextInt(10000));
+                    }
+
+                    writer.println();
+                }
+            } else {
+                writer.println("File Format: Independent ICs");
+                writer.println("--- End HCD header");
+
+                for (int i = 0; i < ionChambers; i++) {
+                    writer.println("#IC: IC" + i + " Chamber " + i);
+
+                    for (int j = 0; j < measurements; j++) {
+                        writer.print(String.format("%.2f", j * 0.05d));
+                        writer.print(" ");
+                        writer.print(random.nextInt(10000));
+                        writer.print(" ");
+                        writer.println(random.nextInt(100) / 10.0d);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the temporary file.
+     */
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Parse with the streaming tokenizer.
+     *
+     * @return The dataset
+     * @throws IOException If unable to read
+     * @throws ParseException If unable to parse
+     * @throws MissingDataException If the configuration is incomplete
+     */
+    @Benchmark
+    public HallCalibrationDataset streaming() throws IOException, ParseException,
+            MissingDataException {
+        return reader.read(file);
+    }
+
+    /**
+     * Parse with the legacy Scanner reader.
+     *
+     * @return The dataset
+     * @throws IOException If unable to read
+     * @throws ParseException If unable to parse
+     * @throws MissingDataException If the configuration is incomplete
+     */
+    @Benchmark
+    public HallCalibrationDataset legacy() throws IOException, ParseException,
+            MissingDataException {
+        return legacyReader.read(file);
+    }
+}
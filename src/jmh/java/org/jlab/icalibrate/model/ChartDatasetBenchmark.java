@@ -0,0 +1,81 @@
+package org.jlab.icalibrate.model;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.jlab.icalibrate.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the fit computations performed as the user drags the fit range and setpoint
+ * controls.
+ *
+ * @author ryans
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartDatasetBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int measurements;
+
+    private IonChamberDataset measured;
+    private ChartDataset chartDataset;
+    private int step = 0;
+
+    /**
+     * Create the synthetic dataset.
+     */
+    @Setup
+    public void setup() {
+        measured = BenchmarkData.createIonChamberDataset("IC001", measurements, new Random(42));
+        chartDataset = new ChartDataset(measured, 100, 10);
+    }
+
+    /**
+     * Construct a chart dataset, which performs the initial linear and logarithmic fits.
+     *
+     * @return The chart dataset
+     */
+    @Benchmark
+    public ChartDataset construct() {
+        return new ChartDataset(measured, 100, 10);
+    }
+
+    /**
+     * Refit over a sliding sub-range as a range slider drag would.
+     *
+     * @return The chart dataset
+     */
+    @Benchmark
+    public ChartDataset updateFitParameters() {
+        int min = step++ % (measurements / 2);
+        chartDataset.updateFitParameters(min, measurements - 1);
+        return chartDataset;
+    }
+
+    /**
+     * Recompute the setpoint as the current and margin spinners change.
+     *
+     * @return The chart dataset
+     */
+    @Benchmark
+    public ChartDataset updateSetpointParameters() {
+        int current = 1 + step++ % 150;
+        chartDataset.updateSetpointParameters(current, 10);
+        return chartDataset;
+    }
+}
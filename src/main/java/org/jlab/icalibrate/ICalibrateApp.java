@@ -9,7 +9,10 @@ import java.text.ParseException;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
 import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.epics.ChannelManagerInstrumentation;
+import org.jlab.icalibrate.epics.ChannelMetricsReporter;
 import org.jlab.icalibrate.exception.InitializationException;
 import org.jlab.icalibrate.exception.MissingDataException;
 import org.jlab.icalibrate.file.io.DatasetFileReader;
@@ -54,40 +57,113 @@ public class ICalibrateApp {
         ICalibrateFrame frame;
 
         try (ChannelManager channelManager = new ChannelManager()) {
-            frame = new ICalibrateFrame(channelManager);
+            ChannelManagerInstrumentation instrumentation = createInstrumentation(channelManager);
+            ChannelMetricsReporter reporter = createReporter(channelManager);
 
-            if (current != null) {
-                frame.setCurrentParameter(current);
-            }
+            try {
+                frame = new ICalibrateFrame(channelManager);
+
+                if (current != null) {
+                    frame.setCurrentParameter(current);
+                }
+
+                if (file != null) {
+                    try {
+                        DatasetFileReader reader = new DatasetFileReader();
+                        HallCalibrationDataset ds = reader.read(file);
+                        frame.setDataset(ds, file.getName(), true);
+                    } catch (IOException | ParseException e) {
+                        throw new InitializationException("Unable to load file: "
+                                + e.getMessage(), e);
+                    } catch (MissingDataException e) {
+                        throw new InitializationException("Unable to load file " + file.getName()
+                                + ": Ion Chambers do not match current configuration", e);
+                    }
+                }
+
+                show(frame);
+
+                LOGGER.log(Level.FINEST, "Waiting for frame to close");
 
-            if (file != null) {
+                // Wait for frame to close
                 try {
-                    DatasetFileReader reader = new DatasetFileReader();
-                    HallCalibrationDataset ds = reader.read(file);
-                    frame.setDataset(ds, file.getName(), true);
-                } catch (IOException | ParseException e) {
-                    throw new InitializationException("Unable to load file: " + e.getMessage(), e);
-                } catch (MissingDataException e) {
-                    throw new InitializationException("Unable to load file " + file.getName()
-                            + ": Ion Chambers do not match current configuration", e);
+                    synchronized (frame) {
+                        frame.wait();
+                    }
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.WARNING, "wait interrupted");
+                }
+
+                LOGGER.log(Level.FINEST, "Frame has closed");
+
+                // Setpoint responsiveness: dropped UI events and EDT frame times
+                LOGGER.log(Level.INFO, "Setpoint recompute: {0}",
+                        frame.getRecomputeStatistics());
+            } finally {
+                if (reporter != null) {
+                    reporter.close();
+                }
+
+                if (instrumentation != null) {
+                    instrumentation.close();
                 }
             }
+        }
+    }
 
-            show(frame);
+    /**
+     * Publish the EPICS instrumentation over JMX if configured to.
+     *
+     * @param channelManager The channel manager
+     * @return The instrumentation, or null if disabled
+     */
+    private static ChannelManagerInstrumentation createInstrumentation(
+            ChannelManager channelManager) {
+        ChannelManagerInstrumentation instrumentation = null;
 
-            LOGGER.log(Level.FINEST, "Waiting for frame to close");
+        if ("true".equals(APP_PROPERTIES.getProperty("METRICS_JMX"))) {
+            instrumentation = new ChannelManagerInstrumentation(channelManager);
 
-            // Wait for frame to close
             try {
-                synchronized (frame) {
-                    frame.wait();
-                }
-            } catch (InterruptedException e) {
-                LOGGER.log(Level.WARNING, "wait interrupted");
+                instrumentation.register();
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Unable to register EPICS MXBean", e);
             }
+        }
 
-            LOGGER.log(Level.FINEST, "Frame has closed");
+        return instrumentation;
+    }
+
+    /**
+     * Start the periodic EPICS metrics report if configured to.
+     *
+     * @param channelManager The channel manager
+     * @return The reporter, or null if disabled
+     */
+    private static ChannelMetricsReporter createReporter(ChannelManager channelManager) {
+        String period = APP_PROPERTIES.getProperty("METRICS_REPORT_SECONDS", "0").trim();
+        long periodSeconds;
+
+        try {
+            periodSeconds = Long.parseLong(period);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.WARNING,
+                    "Invalid METRICS_REPORT_SECONDS: {0}; metrics report disabled", period);
+            return null;
+        }
+
+        if (periodSeconds <= 0) {
+            return null;
         }
+
+        String path = APP_PROPERTIES.getProperty("METRICS_CSV_FILE", "").trim();
+
+        ChannelMetricsReporter reporter = new ChannelMetricsReporter(channelManager,
+                path.isEmpty() ? null : new File(path));
+
+        reporter.start(periodSeconds);
+
+        return reporter;
     }
 
     private static void show(final Frame frame) {
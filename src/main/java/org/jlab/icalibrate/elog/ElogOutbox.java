@@ -0,0 +1,486 @@
+package org.jlab.icalibrate.elog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.json.Json;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+import org.jlab.elog.exception.LogCertificateException;
+import org.jlab.elog.exception.LogException;
+
+/**
+ * A durable queue of elog entries which are submitted to the logbook server in the background.
+ *
+ * Queuing an entry copies its attachments and writes it to a new directory in the spool directory,
+ * which is renamed into place only once complete, and returns immediately; the operator never
+ * waits on the logbook server. A single sender thread submits queued entries strictly in the order
+ * queued: while the oldest entry is failing, the entries behind it wait. A failed attempt is
+ * recorded in the entry and retried with exponential backoff, and a submitted entry is deleted
+ * from the spool.
+ *
+ * A failure which retrying can not fix, such as a bad client certificate, parks the entry instead:
+ * its directory is renamed with a .parked suffix, listeners are told, and the entries behind it
+ * proceed. A parked entry is never sent automatically; removing the suffix queues it again the
+ * next time an outbox is started. Entries left in the spool when the application exits are sent
+ * when the next outbox is started on the same directory.
+ *
+ * @author ryans
+ */
+public class ElogOutbox implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ElogOutbox.class.getName());
+
+    /**
+     * The delay before the first retry of a failed entry.
+     */
+    public static final long INITIAL_RETRY_MILLIS = 5000L;
+
+    /**
+     * The longest delay between retries.
+     */
+    public static final long MAX_RETRY_MILLIS = 10 * 60 * 1000L;
+
+    private static final String ENTRY_FILE = "entry.json";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String PARKED_SUFFIX = ".parked";
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final File spoolDirectory;
+    private final LogbookClient client;
+    private final long initialRetryMillis;
+    private final long maxRetryMillis;
+    private final ScheduledThreadPoolExecutor sender;
+    private final List<OutboxListener> listenerList = new CopyOnWriteArrayList<>();
+    private volatile boolean backingOff = false;
+
+    /**
+     * Create a new ElogOutbox with the default retry delays. Call start to send entries already
+     * in the spool.
+     *
+     * @param spoolDirectory The spool directory, created if necessary
+     * @param client The logbook client
+     */
+    public ElogOutbox(File spoolDirectory, LogbookClient client) {
+        this(spoolDirectory, client, INITIAL_RETRY_MILLIS, MAX_RETRY_MILLIS);
+    }
+
+    /**
+     * Create a new ElogOutbox. Call start to send entries already in the spool.
+     *
+     * @param spoolDirectory The spool directory, created if necessary
+     * @param client The logbook client
+     * @param initialRetryMillis The delay before the first retry of a failed entry
+     * @param maxRetryMillis The longest delay between retries
+     */
+    public ElogOutbox(File spoolDirectory, LogbookClient client, long initialRetryMillis,
+            long maxRetryMillis) {
+        this.spoolDirectory = spoolDirectory;
+        this.client = client;
+        this.initialRetryMillis = initialRetryMillis;
+        this.maxRetryMillis = maxRetryMillis;
+
+        sender = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "ElogOutbox");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // On close let a submission in progress finish but don't wait out a retry delay
+        sender.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Register a listener for submission status.
+     *
+     * @param listener The listener
+     */
+    public void addListener(OutboxListener listener) {
+        listenerList.add(listener);
+    }
+
+    /**
+     * Unregister a listener.
+     *
+     * @param listener The listener
+     */
+    public void removeListener(OutboxListener listener) {
+        listenerList.remove(listener);
+    }
+
+    /**
+     * Create the spool directory if necessary, discard incomplete entries, and start submitting
+     * queued entries in the order queued.
+     *
+     * @throws IOException If unable to create the spool directory
+     */
+    public void start() throws IOException {
+        Files.createDirectories(spoolDirectory.toPath());
+
+        int parked = 0;
+
+        for (File directory : listDirectories()) {
+            if (directory.getName().endsWith(TMP_SUFFIX)) { // Crashed while queuing
+                deleteDirectory(directory);
+            } else if (directory.getName().endsWith(PARKED_SUFFIX)) {
+                parked++;
+            }
+        }
+
+        if (parked > 0) {
+            LOGGER.log(Level.WARNING, "{0} parked elog(s) in outbox {1} need attention",
+                    new Object[]{parked, spoolDirectory});
+        }
+
+        requestDrain();
+    }
+
+    /**
+     * Queue an entry. The attachments are copied so the caller may delete them as soon as this
+     * method returns.
+     *
+     * @param title The title
+     * @param logbooks The logbooks as CSV
+     * @param body The HTML body
+     * @param attachmentList The attachments, in order
+     * @return The queued entry
+     * @throws IOException If unable to write the entry to the spool directory
+     */
+    public OutboxEntry enqueue(String title, String logbooks, String body,
+            List<File> attachmentList) throws IOException {
+        long now = System.currentTimeMillis();
+        String id = now + "-" + UUID.randomUUID().toString().substring(0, 8);
+        File tmpDirectory = new File(spoolDirectory, id + TMP_SUFFIX);
+        File directory = new File(spoolDirectory, id);
+        List<File> copyList = new ArrayList<>(attachmentList.size());
+
+        Files.createDirectories(tmpDirectory.toPath());
+
+        try {
+            for (int i = 0; i < attachmentList.size(); i++) {
+                File attachment = attachmentList.get(i);
+                String name = String.format("%02d-%s", i + 1, attachment.getName());
+
+                Files.copy(attachment.toPath(), new File(tmpDirectory, name).toPath());
+                copyList.add(new File(directory, name));
+            }
+
+            OutboxEntry entry = new OutboxEntry(id, title, logbooks, body, copyList, now, 0,
+                    null);
+
+            writeEntry(tmpDirectory, entry);
+
+            Files.move(tmpDirectory.toPath(), directory.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            LOGGER.log(Level.FINEST, "Queued elog: {0}", entry);
+
+            requestDrain();
+
+            return entry;
+        } catch (IOException e) {
+            deleteDirectory(tmpDirectory);
+            throw e;
+        }
+    }
+
+    /**
+     * Return every entry waiting in the spool, in the order queued. Parked entries are not
+     * included.
+     *
+     * @return The entries
+     */
+    public List<OutboxEntry> getPendingEntries() {
+        return readEntries(false);
+    }
+
+    /**
+     * Return every parked entry, in the order queued.
+     *
+     * @return The entries
+     */
+    public List<OutboxEntry> getParkedEntries() {
+        return readEntries(true);
+    }
+
+    /**
+     * Read the pending or parked entries of the spool.
+     *
+     * @param parked true for parked entries, false for pending ones
+     * @return The entries
+     */
+    private List<OutboxEntry> readEntries(boolean parked) {
+        List<OutboxEntry> entryList = new ArrayList<>();
+
+        for (File directory : listDirectories()) {
+            if (!directory.getName().endsWith(TMP_SUFFIX)
+                    && directory.getName().endsWith(PARKED_SUFFIX) == parked) {
+                try {
+                    entryList.add(readEntry(directory));
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Unable to read elog outbox entry: " + directory,
+                            e);
+                }
+            }
+        }
+
+        return entryList;
+    }
+
+    /**
+     * Ask the sender to submit queued entries, unless the oldest entry is waiting to be retried in
+     * which case everything waits for it.
+     */
+    private void requestDrain() {
+        if (!backingOff) {
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                LOGGER.log(Level.FINEST, "Outbox closed; elogs stay spooled");
+            }
+        }
+    }
+
+    /**
+     * Submit queued entries oldest first until the spool is empty or an entry fails. Runs on the
+     * sender thread.
+     */
+    private void drain() {
+        if (backingOff) { // Requested before the head failed; its retry will drain
+            return;
+        }
+
+        File directory;
+
+        while (!sender.isShutdown() && (directory = nextDirectory()) != null) {
+            if (!send(directory)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Attempt to submit an entry. Runs on the sender thread.
+     *
+     * @param directory The entry directory
+     * @return true if the entry left the queue (submitted or parked), false if it will be retried
+     */
+    private boolean send(File directory) {
+        OutboxEntry entry;
+
+        try {
+            entry = readEntry(directory);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Unable to read elog outbox entry: " + directory, e);
+            park(directory);
+            return true;
+        }
+
+        try {
+            long lognumber = client.submit(entry);
+
+            LOGGER.log(Level.FINEST, "Submitted elog {0} as log number {1}",
+                    new Object[]{entry, lognumber});
+
+            deleteDirectory(directory);
+
+            for (OutboxListener listener : listenerList) {
+                listener.entrySubmitted(entry, lognumber);
+            }
+
+            return true;
+        } catch (LogException | RuntimeException e) {
+            OutboxEntry failed = entry.withFailure(e.getMessage() == null ? e.getClass()
+                    .getSimpleName() : e.getMessage());
+
+            try {
+                writeEntry(directory, failed);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Unable to update elog outbox entry: " + directory, ex);
+            }
+
+            if (isPermanent(e)) {
+                LOGGER.log(Level.SEVERE, "Unable to submit elog " + failed + "; parked", e);
+
+                park(directory);
+
+                for (OutboxListener listener : listenerList) {
+                    listener.entryParked(failed);
+                }
+
+                return true;
+            }
+
+            long retryMillis = Math.min(maxRetryMillis, initialRetryMillis
+                    << Math.min(failed.getAttempts() - 1, 30));
+
+            LOGGER.log(Level.WARNING, "Unable to submit elog " + failed + "; retrying in "
+                    + retryMillis + " ms", e);
+
+            backingOff = true;
+
+            for (OutboxListener listener : listenerList) {
+                listener.entryFailed(failed, retryMillis);
+            }
+
+            try {
+                sender.schedule(() -> {
+                    backingOff = false;
+                    drain();
+                }, retryMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                LOGGER.log(Level.FINEST, "Outbox closed; elog {0} stays spooled", failed);
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Check whether a submission failure can not be fixed by retrying.
+     *
+     * @param e The failure
+     * @return true if permanent
+     */
+    private static boolean isPermanent(Exception e) {
+        return e instanceof LogCertificateException;
+    }
+
+    /**
+     * Take an entry out of the queue by renaming its directory with the parked suffix.
+     *
+     * @param directory The entry directory
+     */
+    private void park(File directory) {
+        try {
+            Files.move(directory.toPath(), new File(spoolDirectory, directory.getName()
+                    + PARKED_SUFFIX).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to park elog outbox entry: " + directory, e);
+            deleteDirectory(directory); // Else it would block the queue forever
+        }
+    }
+
+    /**
+     * Return the oldest queued entry directory.
+     *
+     * @return The directory, or null if the queue is empty
+     */
+    private File nextDirectory() {
+        for (File directory : listDirectories()) {
+            String name = directory.getName();
+
+            if (!name.endsWith(TMP_SUFFIX) && !name.endsWith(PARKED_SUFFIX)) {
+                return directory;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Read the entry in a spool directory.
+     *
+     * @param directory The entry directory
+     * @return The entry
+     * @throws IOException If unable to read
+     */
+    private OutboxEntry readEntry(File directory) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(new File(directory, ENTRY_FILE).toPath(),
+                StandardCharsets.UTF_8); JsonReader reader = Json.createReader(in)) {
+            return OutboxEntry.fromJson(reader.readObject(), directory);
+        }
+    }
+
+    /**
+     * Write the entry file of a spool directory, replacing any previous version atomically.
+     *
+     * @param directory The entry directory
+     * @param entry The entry
+     * @throws IOException If unable to write
+     */
+    private void writeEntry(File directory, OutboxEntry entry) throws IOException {
+        Path tmp = new File(directory, ENTRY_FILE + TMP_SUFFIX).toPath();
+
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+                JsonWriter writer = Json.createWriter(out)) {
+            writer.writeObject(entry.toJson());
+        }
+
+        Files.move(tmp, new File(directory, ENTRY_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * List the entry directories of the spool, oldest first.
+     *
+     * @return The directories
+     */
+    private List<File> listDirectories() {
+        File[] directoryArray = spoolDirectory.listFiles(File::isDirectory);
+
+        if (directoryArray == null) {
+            return new ArrayList<>();
+        }
+
+        Arrays.sort(directoryArray); // Ids start with the time queued
+
+        return Arrays.asList(directoryArray);
+    }
+
+    /**
+     * Delete an entry directory and its files.
+     *
+     * @param directory The directory
+     */
+    private static void deleteDirectory(File directory) {
+        File[] fileArray = directory.listFiles();
+
+        if (fileArray != null) {
+            for (File file : fileArray) {
+                if (!file.delete()) {
+                    LOGGER.log(Level.WARNING, "Unable to delete elog outbox file: {0}", file);
+                }
+            }
+        }
+
+        if (directory.exists() && !directory.delete()) {
+            LOGGER.log(Level.WARNING, "Unable to delete elog outbox directory: {0}", directory);
+        }
+    }
+
+    /**
+     * Stop the sender. A submission in progress is given a bounded time to finish; entries not
+     * yet submitted stay in the spool directory.
+     */
+    @Override
+    public void close() {
+        sender.shutdown();
+
+        try {
+            if (!sender.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.WARNING, "Elog submission still in progress; abandoning it");
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.jlab.icalibrate.elog;
+
+import java.io.File;
+import org.jlab.elog.Body;
+import org.jlab.elog.LogEntry;
+import org.jlab.elog.exception.LogException;
+
+/**
+ * The LogbookClient which submits entries to the JLab logbook server with the elog API.
+ *
+ * @author ryans
+ */
+public class JLogClient implements LogbookClient {
+
+    @Override
+    public long submit(OutboxEntry entry) throws LogException {
+        LogEntry logEntry = new LogEntry(entry.getTitle(), entry.getLogbooks());
+
+        for (File attachment : entry.getAttachmentList()) {
+            logEntry.addAttachment(attachment.getAbsolutePath(), "");
+        }
+
+        logEntry.setBody(entry.getBody(), Body.ContentType.HTML);
+
+        return logEntry.submitNow();
+    }
+}
@@ -0,0 +1,21 @@
+package org.jlab.icalibrate.elog;
+
+import org.jlab.elog.exception.LogException;
+
+/**
+ * Submits an outbox entry to the logbook server. The default client uses the JLab elog API; a
+ * stub may be supplied instead, for example to test the outbox without a logbook server.
+ *
+ * @author ryans
+ */
+public interface LogbookClient {
+
+    /**
+     * Submit an entry, blocking until the logbook server responds.
+     *
+     * @param entry The entry
+     * @return The log number
+     * @throws LogException If the server rejects the entry or can not be reached
+     */
+    long submit(OutboxEntry entry) throws LogException;
+}
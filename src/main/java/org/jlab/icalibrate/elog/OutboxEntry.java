@@ -0,0 +1,191 @@
+package org.jlab.icalibrate.elog;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+/**
+ * An elog entry waiting in the outbox: the title, logbooks, HTML body and attachments of the entry
+ * plus the history of attempts to submit it.
+ *
+ * Each entry lives in its own spool directory holding an entry.json file and copies of its
+ * attachments, so it survives an application restart. Instances are immutable; a failed attempt
+ * produces a new instance.
+ *
+ * @author ryans
+ */
+public final class OutboxEntry {
+
+    private final String id;
+    private final String title;
+    private final String logbooks;
+    private final String body;
+    private final List<File> attachmentList;
+    private final long createdMillis;
+    private final int attempts;
+    private final String lastError;
+
+    /**
+     * Create a new OutboxEntry.
+     *
+     * @param id The outbox id, which is also the spool directory name
+     * @param title The title
+     * @param logbooks The logbooks as CSV
+     * @param body The HTML body
+     * @param attachmentList The attachment files in the spool directory
+     * @param createdMillis The time the entry was queued
+     * @param attempts The number of failed submission attempts
+     * @param lastError The reason the last attempt failed, or null
+     */
+    OutboxEntry(String id, String title, String logbooks, String body, List<File> attachmentList,
+            long createdMillis, int attempts, String lastError) {
+        this.id = id;
+        this.title = title;
+        this.logbooks = logbooks;
+        this.body = body;
+        this.attachmentList = Collections.unmodifiableList(new ArrayList<>(attachmentList));
+        this.createdMillis = createdMillis;
+        this.attempts = attempts;
+        this.lastError = lastError;
+    }
+
+    /**
+     * Return the outbox id.
+     *
+     * @return The id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Return the title.
+     *
+     * @return The title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Return the logbooks.
+     *
+     * @return The logbooks as CSV
+     */
+    public String getLogbooks() {
+        return logbooks;
+    }
+
+    /**
+     * Return the HTML body.
+     *
+     * @return The body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Return the attachments, in the order they were added.
+     *
+     * @return The unmodifiable list of files in the spool directory
+     */
+    public List<File> getAttachmentList() {
+        return attachmentList;
+    }
+
+    /**
+     * Return the time the entry was queued.
+     *
+     * @return The milliseconds since the epoch
+     */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Return the number of failed submission attempts.
+     *
+     * @return The count
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Return the reason the last attempt failed.
+     *
+     * @return The reason, or null if never attempted or the reason is unknown
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Return a copy of this entry recording one more failed attempt.
+     *
+     * @param error The reason the attempt failed
+     * @return The updated entry
+     */
+    OutboxEntry withFailure(String error) {
+        return new OutboxEntry(id, title, logbooks, body, attachmentList, createdMillis,
+                attempts + 1, error);
+    }
+
+    /**
+     * Encode the entry as JSON. Attachments are stored by name relative to the spool directory.
+     *
+     * @return The JSON object
+     */
+    JsonObject toJson() {
+        JsonArrayBuilder attachments = Json.createArrayBuilder();
+
+        for (File attachment : attachmentList) {
+            attachments.add(attachment.getName());
+        }
+
+        return Json.createObjectBuilder()
+                .add("id", id)
+                .add("title", title)
+                .add("logbooks", logbooks)
+                .add("body", body)
+                .add("attachments", attachments)
+                .add("created", createdMillis)
+                .add("attempts", attempts)
+                .add("lastError", lastError == null ? "" : lastError)
+                .build();
+    }
+
+    /**
+     * Decode an entry from JSON.
+     *
+     * @param json The JSON object
+     * @param directory The spool directory of the entry
+     * @return The entry
+     */
+    static OutboxEntry fromJson(JsonObject json, File directory) {
+        JsonArray attachments = json.getJsonArray("attachments");
+        List<File> attachmentList = new ArrayList<>(attachments.size());
+
+        for (int i = 0; i < attachments.size(); i++) {
+            attachmentList.add(new File(directory, attachments.getString(i)));
+        }
+
+        String lastError = json.getString("lastError", "");
+
+        return new OutboxEntry(json.getString("id"), json.getString("title"),
+                json.getString("logbooks"), json.getString("body"), attachmentList,
+                json.getJsonNumber("created").longValue(), json.getInt("attempts"),
+                lastError.isEmpty() ? null : lastError);
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + title + "), attempts: " + attempts;
+    }
+}
@@ -0,0 +1,35 @@
+package org.jlab.icalibrate.elog;
+
+/**
+ * Receives notifications from an ElogOutbox sender. Notifications are made on the sender thread
+ * and must not block.
+ *
+ * @author ryans
+ */
+public interface OutboxListener {
+
+    /**
+     * An entry was accepted by the logbook server and removed from the outbox.
+     *
+     * @param entry The entry
+     * @param lognumber The log number
+     */
+    void entrySubmitted(OutboxEntry entry, long lognumber);
+
+    /**
+     * An attempt to submit an entry failed; it remains at the head of the outbox and will be
+     * retried, and the entries queued after it wait.
+     *
+     * @param entry The entry, with the attempt count and error updated
+     * @param retryMillis The number of milliseconds until the next attempt
+     */
+    void entryFailed(OutboxEntry entry, long retryMillis);
+
+    /**
+     * An entry failed in a way retrying can not fix, such as a bad client certificate. It was
+     * parked in the outbox and will not be sent until the operator intervenes.
+     *
+     * @param entry The entry, with the attempt count and error updated
+     */
+    void entryParked(OutboxEntry entry);
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides the iCalibrate elog outbox classes.
+ */
+package org.jlab.icalibrate.elog;
\ No newline at end of file
@@ -0,0 +1,210 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.event.GetEvent;
+import gov.aps.jca.event.GetListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Responsible for issuing asynchronous CA-GET requests for a batch of PVs and completing a single
+ * future once every PV has either been read, failed, or timed out.
+ *
+ * @author ryans
+ */
+final class BatchGetRequest {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchGetRequest.class.getName());
+
+    private final CAJContext context;
+    private final ChannelCache cache;
+    private final Map<String, ChannelCache.CachedChannel> pendingMap = new ConcurrentHashMap<>();
+    private final Map<String, DBR> dbrMap = new ConcurrentHashMap<>();
+    private final Map<String, Exception> failureMap = new ConcurrentHashMap<>();
+    private final Map<String, Long> latencyMap = new ConcurrentHashMap<>();
+    private final CompletableFuture<BatchGetResult> future = new CompletableFuture<>();
+    private volatile boolean issuing = true;
+    private ScheduledFuture<?> timeoutFuture;
+    private long startNanos;
+
+    /**
+     * Create a new BatchGetRequest.
+     *
+     * @param context The EPICS CA Context
+     * @param cache The channel cache
+     */
+    public BatchGetRequest(CAJContext context, ChannelCache cache) {
+        this.context = context;
+        this.cache = cache;
+    }
+
+    /**
+     * Issue the CA-GET requests. Channels which are already connected have their request issued
+     * immediately and all of those are flushed together; channels which are still connecting have
+     * their request issued and flushed from the connection callback.
+     *
+     * @param pvs The EPICS CA PV names
+     * @param executor The executor used to schedule the timeout
+     * @param timeoutSeconds The number of seconds to wait for the whole batch
+     * @return The future result
+     */
+    public CompletableFuture<BatchGetResult> execute(Collection<String> pvs,
+            ScheduledExecutorService executor, double timeoutSeconds) {
+        Collection<String> unique = new LinkedHashSet<>(pvs);
+        List<ChannelCache.CachedChannel> acquiredList = new ArrayList<>();
+
+        startNanos = System.nanoTime();
+
+        for (String pv : unique) {
+            try {
+                ChannelCache.CachedChannel cached = cache.acquire(pv);
+                pendingMap.put(pv, cached);
+                acquiredList.add(cached);
+            } catch (CAException e) {
+                failureMap.put(pv, e);
+            } catch (RuntimeException e) { // Bad PV name or destroyed context
+                failureMap.put(pv, new CAException("Unable to create channel for PV: " + pv, e));
+            }
+        }
+
+        if (!pendingMap.isEmpty()) {
+            timeoutFuture = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    expire();
+                }
+            }, (long) (timeoutSeconds * 1000), TimeUnit.MILLISECONDS);
+        }
+
+        for (ChannelCache.CachedChannel cached : acquiredList) {
+            cached.getConnection().thenAccept(new Consumer<CAJChannel>() {
+                @Override
+                public void accept(CAJChannel channel) {
+                    issue(cached, channel);
+                }
+            });
+        }
+
+        issuing = false;
+
+        try {
+            context.flushIO();
+        } catch (CAException e) {
+            LOGGER.log(Level.WARNING, "Unable to flush batch get", e);
+        }
+
+        completeIfDone();
+
+        return future;
+    }
+
+    /**
+     * Issue a CA-GET request on a connected channel.
+     *
+     * @param cached The cached channel
+     * @param channel The connected channel
+     */
+    private void issue(ChannelCache.CachedChannel cached, CAJChannel channel) {
+        String pv = cached.getPv();
+
+        if (!pendingMap.containsKey(pv)) { // Already timed out
+            return;
+        }
+
+        try {
+            channel.get(channel.getFieldType(), channel.getElementCount(), new GetListener() {
+                @Override
+                public void getCompleted(GetEvent ev) {
+                    if (ev.getStatus() != null && ev.getStatus().isSuccessful()) {
+                        succeed(pv, ev.getDBR());
+                    } else {
+                        String reason = ev.getStatus() == null ? "Unknown status"
+                                : ev.getStatus().getMessage();
+                        fail(pv, new CAException("Unable to perform EPICS CA Get of PV: " + pv
+                                + " - " + reason));
+                    }
+                }
+            });
+
+            if (!issuing) {
+                context.flushIO();
+            }
+        } catch (CAException e) {
+            fail(pv, e);
+        } catch (IllegalStateException e) {
+            fail(pv, new CAException("Channel Access disconnected during EPICS CA Get of PV: "
+                    + pv, e));
+        }
+    }
+
+    /**
+     * Record a successful read.
+     *
+     * @param pv The PV
+     * @param dbr The value
+     */
+    private void succeed(String pv, DBR dbr) {
+        ChannelCache.CachedChannel cached = pendingMap.remove(pv);
+
+        if (cached != null) {
+            dbrMap.put(pv, dbr);
+            latencyMap.put(pv, System.nanoTime() - startNanos);
+            cache.release(cached);
+            completeIfDone();
+        }
+    }
+
+    /**
+     * Record a failed read.
+     *
+     * @param pv The PV
+     * @param failure The reason
+     */
+    private void fail(String pv, Exception failure) {
+        ChannelCache.CachedChannel cached = pendingMap.remove(pv);
+
+        if (cached != null) {
+            failureMap.put(pv, failure);
+            latencyMap.put(pv, System.nanoTime() - startNanos);
+            cache.release(cached);
+            completeIfDone();
+        }
+    }
+
+    /**
+     * Fail all requests which have not yet completed.
+     */
+    private void expire() {
+        for (String pv : new ArrayList<>(pendingMap.keySet())) {
+            fail(pv, new TimeoutException("Timeout waiting for EPICS CA Get of PV: " + pv));
+        }
+    }
+
+    /**
+     * Complete the future if no requests are outstanding.
+     */
+    private void completeIfDone() {
+        if (!issuing && pendingMap.isEmpty() && !future.isDone()) {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+
+            future.complete(new BatchGetResult(dbrMap, failureMap, latencyMap));
+        }
+    }
+}
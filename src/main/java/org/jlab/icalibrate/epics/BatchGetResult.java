@@ -0,0 +1,133 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The outcome of a batched multi-PV CA-GET request. Each PV either has a value or a failure; a
+ * failure of one PV does not affect the others.
+ *
+ * @author ryans
+ */
+public final class BatchGetResult {
+
+    private final Map<String, DBR> dbrMap;
+    private final Map<String, Exception> failureMap;
+    private final Map<String, Long> latencyMap;
+
+    /**
+     * Create a new BatchGetResult.
+     *
+     * @param dbrMap The map of PVs to successfully read values
+     * @param failureMap The map of PVs to the reason they could not be read
+     * @param latencyMap The map of PVs to the nanoseconds from issue to completion
+     */
+    BatchGetResult(Map<String, DBR> dbrMap, Map<String, Exception> failureMap,
+            Map<String, Long> latencyMap) {
+        this.dbrMap = Collections.unmodifiableMap(new HashMap<>(dbrMap));
+        this.failureMap = Collections.unmodifiableMap(new HashMap<>(failureMap));
+        this.latencyMap = Collections.unmodifiableMap(new HashMap<>(latencyMap));
+    }
+
+    /**
+     * Return an unmodifiable map of PVs to successfully read values.
+     *
+     * @return The PV to DBR map
+     */
+    public Map<String, DBR> getDbrMap() {
+        return dbrMap;
+    }
+
+    /**
+     * Return an unmodifiable map of PVs to the reason they could not be read. The reason is either
+     * a CAException or a TimeoutException. PVs which were not requested because their IOC is
+     * unavailable have a PvUnavailableException.
+     *
+     * @return The PV to failure map
+     */
+    public Map<String, Exception> getFailureMap() {
+        return failureMap;
+    }
+
+    /**
+     * Return the time a PV took to be read or to fail, from the start of the batch. This includes
+     * connecting the channel if it was not already connected.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The latency in milliseconds, or NaN if unknown
+     */
+    public double getLatencyMillis(String pv) {
+        long nanos = getLatencyNanos(pv);
+
+        return nanos < 0 ? Double.NaN : nanos / 1000000.0d;
+    }
+
+    /**
+     * Return the time a PV took to be read or to fail, from the start of the batch.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The latency in nanoseconds, or -1 if unknown
+     */
+    long getLatencyNanos(String pv) {
+        Long nanos = latencyMap.get(pv);
+
+        return nanos == null ? -1 : nanos;
+    }
+
+    /**
+     * Return a copy of this result with additional failures, for PVs which were never requested.
+     *
+     * @param additionalFailureMap The map of PVs to the reason they could not be read
+     * @return The combined result
+     */
+    BatchGetResult withFailures(Map<String, Exception> additionalFailureMap) {
+        if (additionalFailureMap.isEmpty()) {
+            return this;
+        }
+
+        Map<String, Exception> combined = new HashMap<>(failureMap);
+        combined.putAll(additionalFailureMap);
+
+        return new BatchGetResult(dbrMap, combined, latencyMap);
+    }
+
+    /**
+     * Check whether every PV in the batch was read.
+     *
+     * @return true if there were no failures, false otherwise
+     */
+    public boolean isSuccessful() {
+        return failureMap.isEmpty();
+    }
+
+    /**
+     * Return the value of a PV in the batch, or throw the reason it could not be read. This
+     * mirrors the contract of ChannelManager.get so that callers can handle errors the same way.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The EPICS DataBaseRecord
+     * @throws CAException If unable to perform the CA-GET due to IO
+     * @throws TimeoutException If unable to perform the CA-GET in a timely fashion
+     */
+    public DBR get(String pv) throws CAException, TimeoutException {
+        Exception failure = failureMap.get(pv);
+
+        if (failure instanceof TimeoutException) {
+            throw (TimeoutException) failure;
+        } else if (failure instanceof CAException) {
+            throw (CAException) failure;
+        } else if (failure != null) {
+            throw new CAException(failure.getMessage(), failure);
+        }
+
+        if (!dbrMap.containsKey(pv)) {
+            throw new CAException("PV was not part of the batch: " + pv);
+        }
+
+        return dbrMap.get(pv);
+    }
+}
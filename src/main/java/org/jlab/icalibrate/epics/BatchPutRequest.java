@@ -0,0 +1,213 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.event.PutEvent;
+import gov.aps.jca.event.PutListener;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Responsible for issuing asynchronous CA-PUT requests with completion callbacks for a batch of
+ * PVs and completing a single future once every PV has either been confirmed, failed, or timed
+ * out.
+ *
+ * @author ryans
+ */
+final class BatchPutRequest {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchPutRequest.class.getName());
+
+    private final CAJContext context;
+    private final ChannelCache cache;
+    private final Map<String, ChannelCache.CachedChannel> pendingMap = new ConcurrentHashMap<>();
+    private final Set<String> confirmedSet = ConcurrentHashMap.newKeySet();
+    private final Map<String, Exception> failureMap = new ConcurrentHashMap<>();
+    private final Map<String, Long> latencyMap = new ConcurrentHashMap<>();
+    private final CompletableFuture<BatchPutResult> future = new CompletableFuture<>();
+    private volatile boolean issuing = true;
+    private ScheduledFuture<?> timeoutFuture;
+    private long startNanos;
+
+    /**
+     * Create a new BatchPutRequest.
+     *
+     * @param context The EPICS CA Context
+     * @param cache The channel cache
+     */
+    public BatchPutRequest(CAJContext context, ChannelCache cache) {
+        this.context = context;
+        this.cache = cache;
+    }
+
+    /**
+     * Issue the CA-PUT requests. Channels which are already connected have their request issued
+     * immediately and all of those are flushed together; channels which are still connecting have
+     * their request issued and flushed from the connection callback.
+     *
+     * @param values The map of EPICS CA PV names to values
+     * @param executor The executor used to schedule the timeout
+     * @param timeoutSeconds The number of seconds to wait for the whole batch
+     * @return The future result
+     */
+    public CompletableFuture<BatchPutResult> execute(Map<String, ? extends Number> values,
+            ScheduledExecutorService executor, double timeoutSeconds) {
+        Map<String, Number> unique = new LinkedHashMap<>(values);
+        List<ChannelCache.CachedChannel> acquiredList = new ArrayList<>();
+
+        startNanos = System.nanoTime();
+
+        for (String pv : unique.keySet()) {
+            try {
+                ChannelCache.CachedChannel cached = cache.acquire(pv);
+                pendingMap.put(pv, cached);
+                acquiredList.add(cached);
+            } catch (CAException e) {
+                failureMap.put(pv, e);
+            } catch (RuntimeException e) { // Bad PV name or destroyed context
+                failureMap.put(pv, new CAException("Unable to create channel for PV: " + pv, e));
+            }
+        }
+
+        if (!pendingMap.isEmpty()) {
+            timeoutFuture = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    expire();
+                }
+            }, (long) (timeoutSeconds * 1000), TimeUnit.MILLISECONDS);
+        }
+
+        for (ChannelCache.CachedChannel cached : acquiredList) {
+            double value = unique.get(cached.getPv()).doubleValue();
+
+            cached.getConnection().thenAccept(new Consumer<CAJChannel>() {
+                @Override
+                public void accept(CAJChannel channel) {
+                    issue(cached, channel, value);
+                }
+            });
+        }
+
+        issuing = false;
+
+        try {
+            context.flushIO();
+        } catch (CAException e) {
+            LOGGER.log(Level.WARNING, "Unable to flush batch put", e);
+        }
+
+        completeIfDone();
+
+        return future;
+    }
+
+    /**
+     * Issue a CA-PUT request with a completion callback on a connected channel.
+     *
+     * @param cached The cached channel
+     * @param channel The connected channel
+     * @param value The value
+     */
+    private void issue(ChannelCache.CachedChannel cached, CAJChannel channel, double value) {
+        String pv = cached.getPv();
+
+        if (!pendingMap.containsKey(pv)) { // Already timed out
+            return;
+        }
+
+        try {
+            channel.put(value, new PutListener() {
+                @Override
+                public void putCompleted(PutEvent ev) {
+                    if (ev.getStatus() != null && ev.getStatus().isSuccessful()) {
+                        succeed(pv);
+                    } else {
+                        String reason = ev.getStatus() == null ? "Unknown status"
+                                : ev.getStatus().getMessage();
+                        fail(pv, new CAException("Unable to perform EPICS CA Put of PV: " + pv
+                                + " - " + reason));
+                    }
+                }
+            });
+
+            if (!issuing) {
+                context.flushIO();
+            }
+        } catch (CAException e) {
+            fail(pv, e);
+        } catch (IllegalStateException e) {
+            fail(pv, new CAException("Channel Access disconnected during EPICS CA Put of PV: "
+                    + pv, e));
+        }
+    }
+
+    /**
+     * Record a confirmed write.
+     *
+     * @param pv The PV
+     */
+    private void succeed(String pv) {
+        ChannelCache.CachedChannel cached = pendingMap.remove(pv);
+
+        if (cached != null) {
+            confirmedSet.add(pv);
+            latencyMap.put(pv, System.nanoTime() - startNanos);
+            cache.release(cached);
+            completeIfDone();
+        }
+    }
+
+    /**
+     * Record a failed write.
+     *
+     * @param pv The PV
+     * @param failure The reason
+     */
+    private void fail(String pv, Exception failure) {
+        ChannelCache.CachedChannel cached = pendingMap.remove(pv);
+
+        if (cached != null) {
+            failureMap.put(pv, failure);
+            latencyMap.put(pv, System.nanoTime() - startNanos);
+            cache.release(cached);
+            completeIfDone();
+        }
+    }
+
+    /**
+     * Fail all requests which have not yet completed. A put which times out may still be applied
+     * by the IOC later; only a readback can tell.
+     */
+    private void expire() {
+        for (String pv : new ArrayList<>(pendingMap.keySet())) {
+            fail(pv, new TimeoutException("Timeout waiting for EPICS CA Put of PV: " + pv));
+        }
+    }
+
+    /**
+     * Complete the future if no requests are outstanding.
+     */
+    private void completeIfDone() {
+        if (!issuing && pendingMap.isEmpty() && !future.isDone()) {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+
+            future.complete(new BatchPutResult(confirmedSet, failureMap, latencyMap));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The outcome of a batched multi-PV CA-PUT request. Each PV was either confirmed written by its
+ * IOC, meaning the put callback reported success after the record processed, or has a failure; a
+ * failure of one PV does not affect the others.
+ *
+ * @author ryans
+ */
+public final class BatchPutResult {
+
+    private final Set<String> confirmedSet;
+    private final Map<String, Exception> failureMap;
+    private final Map<String, Long> latencyMap;
+
+    /**
+     * Create a new BatchPutResult.
+     *
+     * @param confirmedSet The set of PVs confirmed written
+     * @param failureMap The map of PVs to the reason they could not be written
+     * @param latencyMap The map of PVs to the nanoseconds from issue to completion
+     */
+    BatchPutResult(Set<String> confirmedSet, Map<String, Exception> failureMap,
+            Map<String, Long> latencyMap) {
+        this.confirmedSet = Collections.unmodifiableSet(new HashSet<>(confirmedSet));
+        this.failureMap = Collections.unmodifiableMap(new HashMap<>(failureMap));
+        this.latencyMap = Collections.unmodifiableMap(new HashMap<>(latencyMap));
+    }
+
+    /**
+     * Return an unmodifiable set of PVs confirmed written.
+     *
+     * @return The confirmed PVs
+     */
+    public Set<String> getConfirmedSet() {
+        return confirmedSet;
+    }
+
+    /**
+     * Return an unmodifiable map of PVs to the reason they could not be written. The reason is
+     * either a CAException or a TimeoutException.
+     *
+     * @return The PV to failure map
+     */
+    public Map<String, Exception> getFailureMap() {
+        return failureMap;
+    }
+
+    /**
+     * Return the time a PV took to be confirmed or to fail, from the start of the batch. This
+     * includes connecting the channel if it was not already connected.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The latency in milliseconds, or NaN if unknown
+     */
+    public double getLatencyMillis(String pv) {
+        long nanos = getLatencyNanos(pv);
+
+        return nanos < 0 ? Double.NaN : nanos / 1000000.0d;
+    }
+
+    /**
+     * Return the time a PV took to be confirmed or to fail, from the start of the batch.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The latency in nanoseconds, or -1 if unknown
+     */
+    long getLatencyNanos(String pv) {
+        Long nanos = latencyMap.get(pv);
+
+        return nanos == null ? -1 : nanos;
+    }
+
+    /**
+     * Check whether every PV in the batch was confirmed written.
+     *
+     * @return true if there were no failures, false otherwise
+     */
+    public boolean isSuccessful() {
+        return failureMap.isEmpty();
+    }
+
+    /**
+     * Return normally if a PV in the batch was confirmed written, or throw the reason it was not.
+     * This mirrors the contract of ChannelManager.put so that callers can handle errors the same
+     * way.
+     *
+     * @param pv The EPICS CA PV name
+     * @throws CAException If unable to perform the CA-PUT due to IO
+     * @throws TimeoutException If unable to perform the CA-PUT in a timely fashion
+     */
+    public void check(String pv) throws CAException, TimeoutException {
+        Exception failure = failureMap.get(pv);
+
+        if (failure instanceof TimeoutException) {
+            throw (TimeoutException) failure;
+        } else if (failure instanceof CAException) {
+            throw (CAException) failure;
+        } else if (failure != null) {
+            throw new CAException(failure.getMessage(), failure);
+        }
+
+        if (!confirmedSet.contains(pv)) {
+            throw new CAException("PV was not part of the batch: " + pv);
+        }
+    }
+}
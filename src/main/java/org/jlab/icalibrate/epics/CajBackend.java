@@ -0,0 +1,209 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The ChannelAccessBackend which talks to real IOCs using CAJ.
+ *
+ * Blocking I/O (get, put, getAll) and PV monitors use separate channel access contexts leased from
+ * the context pool so that a long running calibration can not starve live monitors and vice versa.
+ * If the pool can only supply one context then both share it. Both leases are held until the
+ * backend is closed because the channel cache and subscriptions are bound to their context; a pool
+ * larger than two contexts therefore only helps if several backends share the context factory.
+ *
+ * @author ryans
+ */
+final class CajBackend implements ChannelAccessBackend {
+
+    private static final Logger LOGGER = Logger.getLogger(CajBackend.class.getName());
+
+    private PooledContext ioLease;
+    private PooledContext monitorLease;
+    private CAJContext context;
+    private CAJContext monitorContext;
+    private final ScheduledExecutorService executor;
+    private final ChannelCache cache;
+    private volatile ConnectionObserver observer;
+
+    private final ContextFactory factory = ContextFactory.getInstance();
+
+    /**
+     * Create a new CajBackend.
+     */
+    CajBackend() {
+        try {
+            ioLease = factory.leaseContext();
+            context = ioLease.getContext();
+        } catch (CAException e) {
+            LOGGER.log(Level.SEVERE, "Unable to obtain channel access context", e);
+        }
+
+        try {
+            monitorLease = factory.leaseContext();
+            monitorContext = monitorLease.getContext();
+        } catch (CAException e) {
+            LOGGER.log(Level.WARNING,
+                    "Unable to obtain separate monitor channel access context; sharing I/O context",
+                    e);
+            monitorLease = ioLease;
+            monitorContext = context;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+
+        cache = new ChannelCache(context, executor, ChannelManager.CHANNEL_IDLE_SECONDS * 1000);
+    }
+
+    @Override
+    public DBR get(String pv, double timeoutSeconds) throws CAException, TimeoutException {
+
+        ChannelCache.CachedChannel cached = cache.acquire(pv);
+        DBR dbr = null;
+
+        ioLease.countOperation();
+
+        try {
+            long start = System.nanoTime();
+
+            CAJChannel channel = cached.awaitConnection(timeoutSeconds);
+
+            dbr = channel.get();
+
+            // Whatever the connect left of the timeout, but never a zero (infinite) pend
+            double remaining = timeoutSeconds - (System.nanoTime() - start) / 1.0e9;
+
+            context.pendIO(Math.max(remaining, 0.001d));
+        } finally {
+            cache.release(cached);
+        }
+
+        return dbr;
+    }
+
+    @Override
+    public CompletableFuture<BatchGetResult> getAll(Collection<String> pvs,
+            double timeoutSeconds) {
+        BatchGetRequest request = new BatchGetRequest(context, cache);
+
+        ioLease.countOperations(pvs.size());
+
+        return request.execute(pvs, executor, timeoutSeconds);
+    }
+
+    @Override
+    public void put(String pv, String value) throws CAException, TimeoutException {
+
+        ChannelCache.CachedChannel cached = cache.acquire(pv);
+
+        ioLease.countOperation();
+
+        try {
+            CAJChannel channel = cached.awaitConnection(ChannelManager.PEND_TIMEOUT_SECONDS);
+
+            channel.put(value);
+
+            context.pendIO(ChannelManager.PEND_TIMEOUT_SECONDS);
+        } finally {
+            cache.release(cached);
+        }
+
+    }
+
+    @Override
+    public void put(String pv, Number value) throws CAException, TimeoutException {
+
+        ChannelCache.CachedChannel cached = cache.acquire(pv);
+
+        ioLease.countOperation();
+
+        try {
+            CAJChannel channel = cached.awaitConnection(ChannelManager.PEND_TIMEOUT_SECONDS);
+
+            channel.put((value).doubleValue());
+
+            context.pendIO(ChannelManager.PEND_TIMEOUT_SECONDS);
+        } finally {
+            cache.release(cached);
+        }
+
+    }
+
+    @Override
+    public CompletableFuture<BatchPutResult> putAll(Map<String, ? extends Number> values,
+            double timeoutSeconds) {
+        BatchPutRequest request = new BatchPutRequest(context, cache);
+
+        ioLease.countOperations(values.size());
+
+        return request.execute(values, executor, timeoutSeconds);
+    }
+
+    @Override
+    public Closeable subscribe(String pv, MonitorCallback callback) {
+        monitorLease.countOperation();
+
+        return new CajSubscription(pv, monitorContext, executor, callback, observer);
+    }
+
+    @Override
+    public void setConnectionObserver(ConnectionObserver observer) {
+        this.observer = observer;
+        cache.setConnectionObserver(observer);
+    }
+
+    @Override
+    public ChannelCacheStatistics getChannelCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    @Override
+    public List<ContextStatistics> getContextStatistics() {
+        return factory.getStatistics();
+    }
+
+    @Override
+    public LatencyStatistics getLeaseWaitStatistics() {
+        return factory.getLeaseWaitStatistics();
+    }
+
+    @Override
+    public void close() throws IOException {
+        LOGGER.log(Level.FINEST, "Channel cache: {0}", cache.getStatistics());
+        try {
+            cache.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to close channel cache", e);
+        }
+
+        LOGGER.log(Level.FINEST, "Contexts: {0}", factory.getStatistics());
+
+        try {
+            if (monitorLease != null && monitorLease != ioLease) {
+                factory.returnContext(monitorLease);
+            }
+
+            if (ioLease != null) {
+                factory.returnContext(ioLease);
+            }
+            factory.destruct();
+        } catch (CAException e) {
+            LOGGER.log(Level.WARNING, "Unable to return channel access context", e);
+        }
+
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,196 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.CAException;
+import gov.aps.jca.Monitor;
+import gov.aps.jca.dbr.DBRType;
+import gov.aps.jca.dbr.DBR_LABELS_Enum;
+import gov.aps.jca.event.ConnectionEvent;
+import gov.aps.jca.event.ConnectionListener;
+import gov.aps.jca.event.GetEvent;
+import gov.aps.jca.event.GetListener;
+import gov.aps.jca.event.MonitorEvent;
+import gov.aps.jca.event.MonitorListener;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Responsible for monitoring a single EPICS channel via CAJ and forwarding the raw connection and
+ * value events to a MonitorCallback.
+ *
+ * @author ryans
+ */
+final class CajSubscription implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(CajSubscription.class.getName());
+
+    private static final long CONNECTION_TIMEOUT_MILLIS = 3000;
+
+    private final CAJContext context;
+    private final MonitorCallback callback;
+    private final ConnectionObserver observer;
+    private final String pv;
+    private final long createdNanos = System.nanoTime();
+    private final ScheduledFuture<?> timeoutFuture;
+    private volatile CAJChannel c;
+    private volatile boolean couldConnect = false;
+    private volatile boolean monitorRegistered = false;
+
+    /**
+     * Create a new CajSubscription for the given EPICS PV using the supplied CA Context.
+     *
+     * @param pv The PV name
+     * @param context The EPICS CA Context
+     * @param executor The executor used to schedule the connection timeout
+     * @param callback The callback to notify
+     * @param observer The observer to notify of the connection, or null for none
+     */
+    CajSubscription(String pv, CAJContext context, ScheduledExecutorService executor,
+            MonitorCallback callback, ConnectionObserver observer) {
+        this.pv = pv;
+        this.context = context;
+        this.callback = callback;
+        this.observer = observer;
+
+        timeoutFuture = executor.schedule(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (!couldConnect) {
+                    //LOGGER.log(Level.WARNING, "Unable to connect to channel (timeout)");
+                    callback.connectionChanged(false, null, null, null);
+                }
+
+                return null;
+            }
+        }, CONNECTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        try {
+            c = (CAJChannel) context.createChannel(pv, new ChannelConnectionListener());
+
+            context.flushIO();
+
+        } catch (CAException e) {
+            LOGGER.log(Level.SEVERE, "Unable to obtain channel access context", e);
+        }
+    }
+
+    /**
+     * Close the subscription.
+     *
+     * @throws IOException If unable to close
+     */
+    @Override
+    public void close() throws IOException {
+        timeoutFuture.cancel(false);
+
+        if (c != null) {
+            try {
+                c.destroy();
+            } catch (CAException e) {
+                throw new IOException("Unable to close channel", e);
+            }
+        }
+    }
+
+    /**
+     * Private inner helper class to respond to connection status changes.
+     */
+    private class ChannelConnectionListener implements ConnectionListener {
+
+        /**
+         * Handle a connection event.
+         *
+         * @param ce The ConnectionEvent
+         */
+        @Override
+        public void connectionChanged(ConnectionEvent ce) {
+            //LOGGER.log(Level.FINEST, "Connected");
+            try {
+                CAJChannel channel = (CAJChannel) ce.getSource();
+
+                // CAJ keeps monitors across a reconnect so only register once
+                if (ce.isConnected() && !monitorRegistered) {
+                    monitorRegistered = true;
+                    couldConnect = true;
+                    timeoutFuture.cancel(false);
+
+                    if (observer != null) {
+                        observer.channelConnected(pv, ChannelCache.getHostName(channel),
+                                System.nanoTime() - createdNanos);
+                    }
+
+                    DBRType type = channel.getFieldType();
+
+                    if (type == DBRType.ENUM) {
+                        handleEnumConnection(channel);
+                    } else {
+                        callback.connectionChanged(true, type, channel.getElementCount(), null);
+                        registerMonitor(channel);
+                        context.flushIO();
+                    }
+                } else if (!ce.isConnected()) {
+                    //LOGGER.log(Level.WARNING, "Unable to connect to channel (connection changed)");
+                }
+            } catch (CAException e) {
+                LOGGER.log(Level.SEVERE, "Unable to monitor channel", e);
+            }
+        }
+
+        /**
+         * Setup an enum connection. A connection of an enum-valued PV requires additional metadata
+         * - the enum labels.
+         *
+         * @param channel The channel
+         * @throws IllegalStateException If unable to initialize
+         * @throws CAException If unable to initialize
+         */
+        private void handleEnumConnection(CAJChannel channel) throws IllegalStateException,
+                CAException {
+            channel.get(DBRType.LABELS_ENUM, 1, new GetListener() {
+                @Override
+                public void getCompleted(GetEvent ge) {
+                    DBR_LABELS_Enum labelRecord = (DBR_LABELS_Enum) ge.getDBR();
+
+                    callback.connectionChanged(true, DBRType.ENUM, channel.getElementCount(),
+                            labelRecord == null ? null : labelRecord.getLabels());
+
+                    try {
+                        registerMonitor(channel);
+
+                        context.flushIO();
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING,
+                                "Unable to register monitor after enum label fetch", e);
+                    }
+                }
+            });
+
+            context.flushIO();
+        }
+
+        /**
+         * Register the monitor in the low-level EPICS lib plumbing.
+         *
+         * @param channel The channel
+         * @throws IllegalStateException If unable to register
+         * @throws CAException If unable to register
+         */
+        private void registerMonitor(CAJChannel channel) throws IllegalStateException,
+                CAException {
+            channel.addMonitor(channel.getFieldType(), 1, Monitor.VALUE, new MonitorListener() {
+                @Override
+                public void monitorChanged(MonitorEvent me) {
+                    //LOGGER.log(Level.FINEST, "Monitor Update");
+                    callback.valueChanged(me.getDBR());
+                }
+            });
+        }
+    }
+}
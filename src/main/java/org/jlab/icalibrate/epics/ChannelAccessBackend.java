@@ -0,0 +1,115 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The channel access operations which a ChannelManager delegates to. The default backend talks to
+ * real IOCs via CAJ; a simulated backend allows the application to be exercised and benchmarked
+ * without an IOC.
+ *
+ * The listener registry, reference counting, and update dispatch are handled by ChannelManager so
+ * a backend only needs to deliver raw connection and value events for a PV to a MonitorCallback.
+ *
+ * @author ryans
+ */
+public interface ChannelAccessBackend extends Closeable {
+
+    /**
+     * Perform a synchronous (blocking) CA-GET request of the given PV.
+     *
+     * @param pv The EPICS CA PV name
+     * @param timeoutSeconds The number of seconds to wait for the connect and get together
+     * @return The EPICS DataBaseRecord
+     * @throws CAException If unable to perform the CA-GET due to IO
+     * @throws TimeoutException If unable to perform the CA-GET in a timely fashion
+     */
+    DBR get(String pv, double timeoutSeconds) throws CAException, TimeoutException;
+
+    /**
+     * Perform an asynchronous CA-GET request of all of the given PVs. The returned future always
+     * completes normally; PVs which fail or time out are reported in the result.
+     *
+     * @param pvs The EPICS CA PV names
+     * @param timeoutSeconds The number of seconds to wait before remaining PVs are timed out
+     * @return The future batch result
+     */
+    CompletableFuture<BatchGetResult> getAll(Collection<String> pvs, double timeoutSeconds);
+
+    /**
+     * Perform a synchronous (blocking) CA-PUT request of the given PV and value.
+     *
+     * @param pv The EPICS CA PV name
+     * @param value The String value
+     * @throws CAException If unable to perform the CA-PUT due to IO
+     * @throws TimeoutException If unable to perform the CA-PUT in a timely fashion
+     */
+    void put(String pv, String value) throws CAException, TimeoutException;
+
+    /**
+     * Perform a synchronous (blocking) CA-PUT request of the given PV and value.
+     *
+     * @param pv The EPICS CA PV name
+     * @param value The Number value
+     * @throws CAException If unable to perform the CA-PUT due to IO
+     * @throws TimeoutException If unable to perform the CA-PUT in a timely fashion
+     */
+    void put(String pv, Number value) throws CAException, TimeoutException;
+
+    /**
+     * Perform an asynchronous CA-PUT request with completion callback of each of the given PVs.
+     * The returned future always completes normally; PVs which fail or time out are reported in
+     * the result.
+     *
+     * @param values The map of EPICS CA PV names to values
+     * @param timeoutSeconds The number of seconds to wait before remaining PVs are timed out
+     * @return The future batch result
+     */
+    CompletableFuture<BatchPutResult> putAll(Map<String, ? extends Number> values,
+            double timeoutSeconds);
+
+    /**
+     * Start monitoring a PV. The callback is told once whether the PV could be connected (or that
+     * it could not within a reasonable time) and then of every value update. Callbacks may be made
+     * on any thread and must not block.
+     *
+     * @param pv The EPICS CA PV name
+     * @param callback The callback
+     * @return A handle which stops the monitor when closed
+     */
+    Closeable subscribe(String pv, MonitorCallback callback);
+
+    /**
+     * Set the observer to notify of channel connections, replacing any previous observer.
+     *
+     * @param observer The observer
+     */
+    void setConnectionObserver(ConnectionObserver observer);
+
+    /**
+     * Returns a snapshot of the channel cache counters.
+     *
+     * @return The channel cache statistics
+     */
+    ChannelCacheStatistics getChannelCacheStatistics();
+
+    /**
+     * Returns a snapshot of the usage counters of each channel access context.
+     *
+     * @return The context statistics
+     */
+    List<ContextStatistics> getContextStatistics();
+
+    /**
+     * Returns a snapshot of the time spent waiting to lease channel access contexts.
+     *
+     * @return The lease wait statistics
+     */
+    LatencyStatistics getLeaseWaitStatistics();
+}
@@ -0,0 +1,404 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.CAException;
+import gov.aps.jca.Channel;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.event.ConnectionEvent;
+import gov.aps.jca.event.ConnectionListener;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Responsible for caching connected EPICS channels so that repeated CA-GET and CA-PUT requests on
+ * the same PV do not each pay for a search and connect round-trip.
+ *
+ * Channels are reference counted: a channel is acquired before use and released afterwards. A
+ * channel with no outstanding references is destroyed once it has been idle for longer than the
+ * idle timeout. If a channel disconnects the channel access library automatically searches for it
+ * again and callers simply wait for the reconnect.
+ *
+ * @author ryans
+ */
+final class ChannelCache implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ChannelCache.class.getName());
+
+    private final Map<String, CachedChannel> channelMap = new HashMap<>();
+    private final CAJContext context;
+    private final long idleMillis;
+    private final ScheduledFuture<?> evictionFuture;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong connectCount = new AtomicLong();
+    private final AtomicLong connectNanosTotal = new AtomicLong();
+    private final AtomicLong connectNanosMax = new AtomicLong();
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private volatile ConnectionObserver observer;
+
+    /**
+     * Create a new ChannelCache.
+     *
+     * @param context The EPICS CA Context
+     * @param executor The executor used to periodically evict idle channels
+     * @param idleMillis How long an unreferenced channel is kept open in milliseconds
+     */
+    public ChannelCache(CAJContext context, ScheduledExecutorService executor, long idleMillis) {
+        this.context = context;
+        this.idleMillis = idleMillis;
+
+        long period = Math.max(idleMillis / 2, 1000);
+
+        evictionFuture = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdle();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acquire the channel for the given PV, creating it if necessary. Every call must be paired
+     * with a call to release.
+     *
+     * A missing channel is registered as a placeholder under the cache lock and then created and
+     * flushed outside of it, so a slow create does not stall acquires of other PVs. Callers which
+     * find the placeholder simply wait on its connection future like any other unconnected
+     * channel.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The cached channel
+     * @throws CAException If unable to create the channel
+     */
+    public CachedChannel acquire(String pv) throws CAException {
+        CachedChannel cached;
+        boolean created = false;
+
+        synchronized (this) {
+            cached = channelMap.get(pv);
+
+            if (cached == null || cached.isClosed()) {
+                missCount.incrementAndGet();
+                cached = new CachedChannel(pv);
+                channelMap.put(pv, cached);
+                created = true;
+            } else {
+                hitCount.incrementAndGet();
+            }
+
+            cached.references++;
+        }
+
+        if (created) {
+            try {
+                cached.open();
+            } catch (CAException | RuntimeException e) {
+                synchronized (this) {
+                    cached.references--;
+
+                    if (channelMap.get(pv) == cached) {
+                        channelMap.remove(pv);
+                    }
+                }
+
+                cached.fail(e);
+
+                throw e;
+            }
+        }
+
+        return cached;
+    }
+
+    /**
+     * Release a previously acquired channel.
+     *
+     * @param cached The cached channel
+     */
+    public synchronized void release(CachedChannel cached) {
+        cached.references--;
+        cached.lastReleasedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Destroy channels which have not been referenced for longer than the idle timeout.
+     */
+    public void evictIdle() {
+        List<CachedChannel> evictList = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Iterator<CachedChannel> iterator = channelMap.values().iterator();
+
+            while (iterator.hasNext()) {
+                CachedChannel cached = iterator.next();
+
+                if (cached.references <= 0 && (now - cached.lastReleasedMillis) > idleMillis) {
+                    iterator.remove();
+                    evictList.add(cached);
+                }
+            }
+        }
+
+        for (CachedChannel cached : evictList) {
+            //LOGGER.log(Level.FINEST, "Evicting idle channel: {0}", cached.pv);
+            evictionCount.incrementAndGet();
+            cached.destroy();
+        }
+    }
+
+    /**
+     * Return a snapshot of the cache counters.
+     *
+     * @return The statistics
+     */
+    public ChannelCacheStatistics getStatistics() {
+        int open;
+
+        synchronized (this) {
+            open = channelMap.size();
+        }
+
+        return new ChannelCacheStatistics(hitCount.get(), missCount.get(), connectCount.get(),
+                connectNanosTotal.get(), connectNanosMax.get(), reconnectCount.get(),
+                evictionCount.get(), open);
+    }
+
+    /**
+     * Destroy all cached channels.
+     *
+     * @throws IOException If unable to close
+     */
+    @Override
+    public void close() throws IOException {
+        evictionFuture.cancel(false);
+
+        List<CachedChannel> closeList;
+
+        synchronized (this) {
+            closeList = new ArrayList<>(channelMap.values());
+            channelMap.clear();
+        }
+
+        for (CachedChannel cached : closeList) {
+            cached.destroy();
+        }
+    }
+
+    /**
+     * Set the observer to notify of channel connections.
+     *
+     * @param observer The observer, or null for none
+     */
+    public void setConnectionObserver(ConnectionObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Return the host and port of the IOC serving a channel.
+     *
+     * @param channel The channel
+     * @return The host, or null if the channel was destroyed meanwhile
+     */
+    static String getHostName(Channel channel) {
+        try {
+            return channel.getHostName();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Record the time it took for a channel to connect.
+     *
+     * @param pv The EPICS CA PV name
+     * @param host The IOC host and port
+     * @param nanos The connect latency in nanoseconds
+     */
+    private void recordConnect(String pv, String host, long nanos) {
+        ConnectionObserver o = observer;
+
+        if (o != null) {
+            o.channelConnected(pv, host, nanos);
+        }
+
+        connectCount.incrementAndGet();
+        connectNanosTotal.addAndGet(nanos);
+
+        long max = connectNanosMax.get();
+
+        while (nanos > max && !connectNanosMax.compareAndSet(max, nanos)) {
+            max = connectNanosMax.get();
+        }
+    }
+
+    /**
+     * A reference counted EPICS channel along with its connection state.
+     */
+    final class CachedChannel implements ConnectionListener {
+
+        private final String pv;
+        private volatile CAJChannel channel;
+        private volatile CompletableFuture<CAJChannel> connection = new CompletableFuture<>();
+        private volatile long connectStartNanos = System.nanoTime();
+        private volatile boolean closed = false;
+        private boolean everConnected = false;
+        private int references = 0;
+        private long lastReleasedMillis = System.currentTimeMillis();
+
+        /**
+         * Create a new CachedChannel placeholder. The channel is created by open.
+         *
+         * @param pv The EPICS CA PV name
+         */
+        private CachedChannel(String pv) {
+            this.pv = pv;
+        }
+
+        /**
+         * Create the underlying channel and begin connecting.
+         *
+         * @throws CAException If unable to create the channel
+         */
+        private void open() throws CAException {
+            CAJChannel created = (CAJChannel) context.createChannel(pv, this);
+
+            channel = created;
+
+            if (closed) { // Cache closed while we were creating
+                destroy();
+                throw new CAException("Channel cache closed while creating channel: " + pv);
+            }
+
+            context.flushIO();
+        }
+
+        /**
+         * Fail anyone waiting on a channel which could not be created.
+         *
+         * @param cause The reason
+         */
+        private void fail(Exception cause) {
+            closed = true;
+            connection.completeExceptionally(cause);
+        }
+
+        /**
+         * Return the PV name.
+         *
+         * @return The PV name
+         */
+        public String getPv() {
+            return pv;
+        }
+
+        /**
+         * Return a future which completes once the channel is connected.
+         *
+         * @return The connection future
+         */
+        public CompletableFuture<CAJChannel> getConnection() {
+            return connection;
+        }
+
+        /**
+         * Block until the channel is connected.
+         *
+         * @param timeoutSeconds The number of seconds to wait
+         * @return The connected channel
+         * @throws CAException If the thread is interrupted while waiting
+         * @throws TimeoutException If the channel does not connect in a timely fashion
+         */
+        public CAJChannel awaitConnection(double timeoutSeconds) throws CAException,
+                TimeoutException {
+            try {
+                return connection.get((long) (timeoutSeconds * 1000), TimeUnit.MILLISECONDS);
+            } catch (java.util.concurrent.TimeoutException e) {
+                throw new TimeoutException("Unable to connect to channel: " + pv);
+            } catch (ExecutionException e) {
+                throw new CAException("Unable to connect to channel: " + pv, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CAException("Interrupted while waiting for channel: " + pv, e);
+            }
+        }
+
+        /**
+         * Check if the channel has been destroyed.
+         *
+         * @return true if closed, false otherwise
+         */
+        private boolean isClosed() {
+            CAJChannel c = channel;
+
+            return closed || (c != null && c.getConnectionState()
+                    == Channel.ConnectionState.CLOSED);
+        }
+
+        /**
+         * Destroy the underlying channel.
+         */
+        private void destroy() {
+            closed = true;
+
+            CAJChannel c = channel;
+
+            if (c == null) {
+                return; // Still being created; open destroys it
+            }
+
+            try {
+                c.destroy();
+            } catch (CAException | IllegalStateException e) {
+                LOGGER.log(Level.WARNING, "Unable to destroy cached channel: " + pv, e);
+            }
+        }
+
+        /**
+         * Handle a connection event.
+         *
+         * @param ce The ConnectionEvent
+         */
+        @Override
+        public void connectionChanged(ConnectionEvent ce) {
+            if (ce.isConnected()) {
+                synchronized (this) {
+                    recordConnect(pv, getHostName((Channel) ce.getSource()), System.nanoTime()
+                            - connectStartNanos);
+
+                    if (everConnected) {
+                        reconnectCount.incrementAndGet();
+                    }
+
+                    everConnected = true;
+                }
+
+                connection.complete((CAJChannel) ce.getSource());
+            } else {
+                synchronized (this) {
+                    if (connection.isDone()) {
+                        // Channel access library searches again automatically; wait for it
+                        connectStartNanos = System.nanoTime();
+                        connection = new CompletableFuture<>();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * An immutable snapshot of the ChannelManager channel cache counters.
+ *
+ * @author ryans
+ */
+public final class ChannelCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long connects;
+    private final long connectNanosTotal;
+    private final long connectNanosMax;
+    private final long reconnects;
+    private final long evictions;
+    private final int openChannels;
+
+    /**
+     * Create a new ChannelCacheStatistics.
+     *
+     * @param hits The number of requests served by an already cached channel
+     * @param misses The number of requests which required a new channel
+     * @param connects The number of channel connections (including reconnects)
+     * @param connectNanosTotal The sum of all connect latencies in nanoseconds
+     * @param connectNanosMax The largest connect latency in nanoseconds
+     * @param reconnects The number of reconnects after a disconnect
+     * @param evictions The number of idle channels destroyed
+     * @param openChannels The number of channels currently cached
+     */
+    ChannelCacheStatistics(long hits, long misses, long connects, long connectNanosTotal,
+            long connectNanosMax, long reconnects, long evictions, int openChannels) {
+        this.hits = hits;
+        this.misses = misses;
+        this.connects = connects;
+        this.connectNanosTotal = connectNanosTotal;
+        this.connectNanosMax = connectNanosMax;
+        this.reconnects = reconnects;
+        this.evictions = evictions;
+        this.openChannels = openChannels;
+    }
+
+    /**
+     * Return the number of cache hits.
+     *
+     * @return The hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Return the number of cache misses.
+     *
+     * @return The miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Return the number of channel connections, including reconnects.
+     *
+     * @return The connect count
+     */
+    public long getConnects() {
+        return connects;
+    }
+
+    /**
+     * Return the average connect latency in milliseconds.
+     *
+     * @return The average connect latency, or NaN if nothing has connected
+     */
+    public double getAverageConnectMillis() {
+        if (connects == 0) {
+            return Double.NaN;
+        }
+
+        return connectNanosTotal / (connects * 1000000.0d);
+    }
+
+    /**
+     * Return the largest connect latency in milliseconds.
+     *
+     * @return The max connect latency
+     */
+    public double getMaxConnectMillis() {
+        return connectNanosMax / 1000000.0d;
+    }
+
+    /**
+     * Return the number of reconnects after a disconnect.
+     *
+     * @return The reconnect count
+     */
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    /**
+     * Return the number of idle channels which have been destroyed.
+     *
+     * @return The eviction count
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Return the number of channels currently cached.
+     *
+     * @return The open channel count
+     */
+    public int getOpenChannels() {
+        return openChannels;
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + hits + ", misses: " + misses + ", connects: " + connects
+                + ", avg connect ms: " + getAverageConnectMillis() + ", max connect ms: "
+                + getMaxConnectMillis() + ", reconnects: " + reconnects + ", evictions: "
+                + evictions + ", open: " + openChannels;
+    }
+}
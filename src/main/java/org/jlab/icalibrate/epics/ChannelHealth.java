@@ -0,0 +1,185 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Responsible for tracking the request latency and circuit breaker of a single PV.
+ *
+ * The most recent successful latencies are kept in a ring buffer and the timeout for the next
+ * request is derived from their 99th percentile, so a healthy IOC is given up on long before the
+ * fixed worst case timeout. Failed requests do not contribute a latency. After a number of
+ * consecutive failures the circuit opens and requests are rejected without being issued; once it
+ * has been open for a while a single probe is allowed through, which closes the circuit if it
+ * succeeds and re-opens it if it fails.
+ *
+ * Every request admitted by tryAcquire must be followed by exactly one call to recordSuccess or
+ * recordFailure, otherwise a half-open probe is never released.
+ *
+ * @author ryans
+ */
+final class ChannelHealth {
+
+    private static final Logger LOGGER = Logger.getLogger(ChannelHealth.class.getName());
+
+    private final String pv;
+    private final long openNanos;
+    private final long[] latencyNanos = new long[ChannelManager.LATENCY_WINDOW];
+    private int latencyCount = 0;
+    private double timeoutSeconds = Double.NaN;
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedNanos;
+    private boolean probing = false;
+    private long successes = 0;
+    private long failures = 0;
+    private long rejections = 0;
+
+    /**
+     * Create a new ChannelHealth whose circuit stays open for
+     * ChannelManager.BREAKER_OPEN_SECONDS.
+     *
+     * @param pv The EPICS CA PV name
+     */
+    ChannelHealth(String pv) {
+        this(pv, ChannelManager.BREAKER_OPEN_SECONDS * 1000L);
+    }
+
+    /**
+     * Create a new ChannelHealth.
+     *
+     * @param pv The EPICS CA PV name
+     * @param openMillis The number of milliseconds the circuit stays open before a probe
+     */
+    ChannelHealth(String pv, long openMillis) {
+        this.pv = pv;
+        this.openNanos = openMillis * 1000000L;
+    }
+
+    /**
+     * Check whether a request may be issued, moving an open circuit to half-open if it has been
+     * open long enough.
+     *
+     * @return true if the request may be issued, false if it must be rejected
+     */
+    synchronized boolean tryAcquire() {
+        if (state == CircuitState.OPEN && System.nanoTime() - openedNanos >= openNanos) {
+            state = CircuitState.HALF_OPEN;
+            probing = false;
+        }
+
+        if (state == CircuitState.CLOSED) {
+            return true;
+        }
+
+        if (state == CircuitState.HALF_OPEN && !probing) {
+            LOGGER.log(Level.FINE, "Probing unavailable PV: {0}", pv);
+            probing = true;
+            return true;
+        }
+
+        rejections++;
+
+        return false;
+    }
+
+    /**
+     * Return the number of seconds to wait for the next request: a multiple of the 99th
+     * percentile latency, bounded by ChannelManager.MIN_TIMEOUT_SECONDS and
+     * ChannelManager.MAX_TIMEOUT_SECONDS. Until enough latencies have been observed the maximum is
+     * used.
+     *
+     * @return The timeout in seconds
+     */
+    synchronized double getTimeoutSeconds() {
+        if (latencyCount < ChannelManager.MIN_LATENCY_SAMPLES) {
+            return ChannelManager.MAX_TIMEOUT_SECONDS;
+        }
+
+        if (Double.isNaN(timeoutSeconds)) { // Recomputed lazily after each new latency
+            double adaptive = percentileNanos(0.99d) / 1.0e9
+                    * ChannelManager.TIMEOUT_LATENCY_MULTIPLIER;
+
+            timeoutSeconds = Math.min(ChannelManager.MAX_TIMEOUT_SECONDS, Math.max(
+                    ChannelManager.MIN_TIMEOUT_SECONDS, adaptive));
+        }
+
+        return timeoutSeconds;
+    }
+
+    /**
+     * Record a successful request.
+     *
+     * @param nanos The latency in nanoseconds, or a negative number if unknown
+     */
+    synchronized void recordSuccess(long nanos) {
+        successes++;
+
+        if (nanos >= 0) {
+            latencyNanos[latencyCount % latencyNanos.length] = nanos;
+            latencyCount++;
+            timeoutSeconds = Double.NaN;
+        }
+
+        if (state != CircuitState.CLOSED) {
+            LOGGER.log(Level.INFO, "PV is available again: {0}", pv);
+        }
+
+        state = CircuitState.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    /**
+     * Record a failed request.
+     */
+    synchronized void recordFailure() {
+        failures++;
+        consecutiveFailures++;
+
+        if (state == CircuitState.HALF_OPEN
+                || (state == CircuitState.CLOSED
+                && consecutiveFailures >= ChannelManager.BREAKER_FAILURE_THRESHOLD)) {
+            if (state == CircuitState.CLOSED) {
+                LOGGER.log(Level.WARNING, "PV is unavailable after {0} consecutive failures: {1}",
+                        new Object[]{consecutiveFailures, pv});
+            }
+
+            state = CircuitState.OPEN;
+            openedNanos = System.nanoTime();
+        }
+
+        probing = false;
+    }
+
+    /**
+     * Return a snapshot of the latency and circuit breaker counters.
+     *
+     * @return The statistics
+     */
+    synchronized ChannelHealthStatistics snapshot() {
+        return new ChannelHealthStatistics(pv, state, successes, failures, rejections,
+                consecutiveFailures, percentileNanos(0.5d) / 1.0e6, percentileNanos(0.99d) / 1.0e6,
+                getTimeoutSeconds());
+    }
+
+    /**
+     * Return a percentile of the latencies in the window.
+     *
+     * @param fraction The percentile as a fraction between 0 and 1
+     * @return The latency in nanoseconds, or NaN if none have been observed
+     */
+    private double percentileNanos(double fraction) {
+        int n = Math.min(latencyCount, latencyNanos.length);
+
+        if (n == 0) {
+            return Double.NaN;
+        }
+
+        long[] sorted = Arrays.copyOf(latencyNanos, n);
+        Arrays.sort(sorted);
+
+        return sorted[Math.max(0, (int) Math.ceil(fraction * n) - 1)];
+    }
+}
@@ -0,0 +1,134 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * An immutable snapshot of the request latency and circuit breaker counters of a single PV.
+ *
+ * @author ryans
+ */
+public final class ChannelHealthStatistics {
+
+    private final String pv;
+    private final CircuitState state;
+    private final long successes;
+    private final long failures;
+    private final long rejections;
+    private final int consecutiveFailures;
+    private final double medianMillis;
+    private final double p99Millis;
+    private final double timeoutSeconds;
+
+    /**
+     * Create a new ChannelHealthStatistics.
+     *
+     * @param pv The EPICS CA PV name
+     * @param state The circuit breaker state
+     * @param successes The number of successful requests
+     * @param failures The number of failed or timed out requests
+     * @param rejections The number of requests rejected while the circuit was open
+     * @param consecutiveFailures The number of failures since the last success
+     * @param medianMillis The median recent latency in milliseconds
+     * @param p99Millis The 99th percentile recent latency in milliseconds
+     * @param timeoutSeconds The timeout of the next request in seconds
+     */
+    ChannelHealthStatistics(String pv, CircuitState state, long successes, long failures,
+            long rejections, int consecutiveFailures, double medianMillis, double p99Millis,
+            double timeoutSeconds) {
+        this.pv = pv;
+        this.state = state;
+        this.successes = successes;
+        this.failures = failures;
+        this.rejections = rejections;
+        this.consecutiveFailures = consecutiveFailures;
+        this.medianMillis = medianMillis;
+        this.p99Millis = p99Millis;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Return the PV.
+     *
+     * @return The EPICS CA PV name
+     */
+    public String getPv() {
+        return pv;
+    }
+
+    /**
+     * Return the circuit breaker state.
+     *
+     * @return The state
+     */
+    public CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * Return the number of successful requests.
+     *
+     * @return The success count
+     */
+    public long getSuccesses() {
+        return successes;
+    }
+
+    /**
+     * Return the number of failed or timed out requests.
+     *
+     * @return The failure count
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Return the number of requests rejected without being issued because the circuit was open.
+     *
+     * @return The rejection count
+     */
+    public long getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Return the number of failures since the last success.
+     *
+     * @return The consecutive failure count
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Return the median latency of recent successful requests.
+     *
+     * @return The median latency in milliseconds, or NaN if none
+     */
+    public double getMedianMillis() {
+        return medianMillis;
+    }
+
+    /**
+     * Return the 99th percentile latency of recent successful requests.
+     *
+     * @return The p99 latency in milliseconds, or NaN if none
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * Return the timeout which the next request will be given.
+     *
+     * @return The timeout in seconds
+     */
+    public double getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return pv + ": " + state + ", successes: " + successes + ", failures: " + failures
+                + ", rejections: " + rejections + ", median ms: " + medianMillis + ", p99 ms: "
+                + p99Millis + ", timeout s: " + timeoutSeconds;
+    }
+}
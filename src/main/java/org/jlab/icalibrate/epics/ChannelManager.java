@@ -1,25 +1,50 @@
 package org.jlab.icalibrate.epics;
 
-import com.cosylab.epics.caj.CAJChannel;
-import com.cosylab.epics.caj.CAJContext;
 import gov.aps.jca.CAException;
 import gov.aps.jca.TimeoutException;
 import gov.aps.jca.dbr.DBR;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Responsible for managing EPICS Channel Access.
  *
+ * The channel access operations themselves are performed by a ChannelAccessBackend. By default
+ * this is CAJ talking to real IOCs, but a simulated backend may be supplied instead, for example
+ * to benchmark the calibration process without an IOC.
+ *
+ * The monitor registry is safe to use from any thread. A single ChannelMonitor is shared by all
+ * listeners of a PV; its listener count is the reference count and it is created and closed
+ * atomically with respect to other registrations of the same PV, without a global lock.
+ *
+ * CA-GET requests are guarded per PV: each PV's timeout adapts to its observed 99th percentile
+ * latency and a circuit breaker stops requests to a PV whose IOC keeps failing, rejecting them
+ * immediately with a PvUnavailableException until a periodic probe succeeds. Each ion chamber is
+ * served by its own IOC so tracking per PV isolates one dead chamber from the rest. Puts are not
+ * guarded since they are never optional.
+ *
+ * Every get, put, connect, and monitor update is counted per PV, with latency histograms, and
+ * aggregated per IOC on request; see getChannelStatistics and getIocStatistics. The
+ * ChannelManagerInstrumentation class publishes these over JMX.
+ *
  * @author ryans
  */
 public class ChannelManager implements Closeable {
@@ -31,17 +56,87 @@ public class ChannelManager implements Closeable {
      */
     public static final double PEND_TIMEOUT_SECONDS = 2.0d;
 
-    private CAJContext context;
-    private ScheduledExecutorService executor;    
-    private final Map<String, ChannelMonitor> monitorMap = new HashMap<>();
-    private final Map<PvListener, Set<String>> listenerMap = new HashMap<>();
-    
-    private final ContextFactory factory = ContextFactory.getInstance();
+    /**
+     * The largest number of seconds a CA-GET (connect plus get) is allowed, used until a PV's
+     * latency is known.
+     */
+    public static final double MAX_TIMEOUT_SECONDS = PEND_TIMEOUT_SECONDS * 2;
 
     /**
-     * Create a new ChannelManager.
+     * The smallest number of seconds a CA-GET is allowed regardless of how fast the PV has been.
+     */
+    public static final double MIN_TIMEOUT_SECONDS = 0.5d;
+
+    /**
+     * The adaptive timeout of a PV is this multiple of its 99th percentile latency.
+     */
+    public static final double TIMEOUT_LATENCY_MULTIPLIER = 4.0d;
+
+    /**
+     * The number of recent latencies of each PV the percentiles are computed from.
+     */
+    public static final int LATENCY_WINDOW = 128;
+
+    /**
+     * The number of latencies which must be observed before a PV's timeout adapts.
+     */
+    public static final int MIN_LATENCY_SAMPLES = 20;
+
+    /**
+     * The number of consecutive failures which open the circuit breaker of a PV.
+     */
+    public static final int BREAKER_FAILURE_THRESHOLD = 3;
+
+    /**
+     * Number of seconds the circuit breaker of a PV stays open before a probe is allowed.
+     */
+    public static final long BREAKER_OPEN_SECONDS = 10L;
+
+    /**
+     * Number of seconds an unused channel is kept connected before it is destroyed.
+     */
+    public static final long CHANNEL_IDLE_SECONDS = 60L;
+
+    /**
+     * Number of threads used to deliver monitor updates to listeners.
+     */
+    public static final int DISPATCH_THREADS = 4;
+
+    private final ChannelAccessBackend backend;
+    private final long breakerOpenMillis;
+    private ExecutorService dispatchExecutor;
+    private final MonitorDispatchCounters dispatchCounters = new MonitorDispatchCounters();
+    private final Map<String, ChannelMonitor> monitorMap = new ConcurrentHashMap<>();
+    private final Map<PvListener, Set<String>> listenerMap = new ConcurrentHashMap<>();
+    private final Map<String, ChannelHealth> healthMap = new ConcurrentHashMap<>();
+    private final ChannelMetrics metrics = new ChannelMetrics();
+
+    /**
+     * Create a new ChannelManager which uses CAJ to talk to real IOCs.
      */
     public ChannelManager() {
+        this(new CajBackend());
+    }
+
+    /**
+     * Create a new ChannelManager using the supplied backend. The ChannelManager takes ownership
+     * of the backend and closes it when closed.
+     *
+     * @param backend The channel access backend
+     */
+    public ChannelManager(ChannelAccessBackend backend) {
+        this(backend, BREAKER_OPEN_SECONDS * 1000L);
+    }
+
+    /**
+     * Create a new ChannelManager using the supplied backend and circuit breaker open duration.
+     *
+     * @param backend The channel access backend
+     * @param breakerOpenMillis The number of milliseconds a circuit breaker stays open
+     */
+    ChannelManager(ChannelAccessBackend backend, long breakerOpenMillis) {
+        this.backend = backend;
+        this.breakerOpenMillis = breakerOpenMillis;
         construct();
     }
 
@@ -50,13 +145,10 @@ public class ChannelManager implements Closeable {
      */
     private void construct() {
         LOGGER.log(Level.FINEST, "Creating ChannelMonitorManager");
-        try {
-            context = factory.getContext();
-        } catch (CAException e) {
-            LOGGER.log(Level.SEVERE, "Unable to obtain channel access context", e);
-        }
-        
-        executor = Executors.newSingleThreadScheduledExecutor();
+
+        dispatchExecutor = Executors.newFixedThreadPool(DISPATCH_THREADS);
+
+        backend.setConnectionObserver(metrics);
     }
 
     /**
@@ -64,44 +156,181 @@ public class ChannelManager implements Closeable {
      */
     private void destruct() {
         LOGGER.log(Level.FINEST, "Destroying ChannelMonitorManager");
+        LOGGER.log(Level.FINEST, "Monitor dispatch: {0}", dispatchCounters.snapshot());
+        LOGGER.log(Level.FINEST, "Channel health: {0}", getChannelHealthStatistics());
+
         try {
-            factory.returnContext(context);
-            factory.destruct();
-        } catch (CAException e) {
-            LOGGER.log(Level.WARNING, "Unable to return channel access context", e);
+            backend.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to close channel access backend", e);
         }
-        
-        executor.shutdown();
+
+        dispatchExecutor.shutdown();
     }
 
     /**
-     * Perform a synchronous (blocking) CA-GET request of the given PV.
+     * Perform a synchronous (blocking) CA-GET request of the given PV. The request is given the
+     * PV's adaptive timeout.
      *
      * @param pv The EPICS CA PV name
      * @return The EPICS DataBaseRecord
+     * @throws PvUnavailableException If the PV's circuit breaker is open
      * @throws CAException If unable to perform the CA-GET due to IO
      * @throws TimeoutException If unable to perform the CA-GET in a timely fashion
      */
     public DBR get(String pv) throws CAException, TimeoutException {
+        ChannelHealth health = getHealth(pv);
+
+        if (!health.tryAcquire()) {
+            throw new PvUnavailableException(pv);
+        }
 
-        CAJChannel channel = null;
-        DBR dbr = null;
+        long start = System.nanoTime();
+        boolean success = false;
+        Exception failure = null;
 
         try {
-            channel = (CAJChannel) context.createChannel(pv);
+            DBR dbr = backend.get(pv, health.getTimeoutSeconds());
+            success = true;
+            return dbr;
+        } catch (CAException | TimeoutException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+
+            if (success) {
+                health.recordSuccess(nanos);
+                metrics.getSucceeded(pv, nanos);
+            } else {
+                health.recordFailure();
+                metrics.getFailed(pv, failure);
+            }
+        }
+    }
+
+    /**
+     * Perform an asynchronous CA-GET request of all of the given PVs. All requests are issued and
+     * flushed together so the batch completes in roughly the time of the slowest IOC rather than
+     * the sum of all of them. The returned future always completes normally; PVs which fail or
+     * time out are reported in the result without affecting the rest of the batch. The batch is
+     * allowed the largest adaptive timeout of its PVs, at most MAX_TIMEOUT_SECONDS. PVs whose
+     * circuit breaker is open are not requested and fail with a PvUnavailableException.
+     *
+     * @param pvs The EPICS CA PV names
+     * @return The future batch result
+     */
+    public CompletableFuture<BatchGetResult> getAll(Collection<String> pvs) {
+        return request(pvs, Double.NaN);
+    }
+
+    /**
+     * Perform an asynchronous CA-GET request of all of the given PVs with the given timeout. PVs
+     * whose circuit breaker is open are not requested and fail with a PvUnavailableException.
+     *
+     * @param pvs The EPICS CA PV names
+     * @param timeoutSeconds The number of seconds to wait before remaining PVs are timed out
+     * @return The future batch result
+     */
+    public CompletableFuture<BatchGetResult> getAll(Collection<String> pvs,
+            double timeoutSeconds) {
+        return request(pvs, timeoutSeconds);
+    }
+
+    /**
+     * Issue a batch CA-GET of the PVs whose circuit breaker admits a request and record the
+     * outcome of each.
+     *
+     * @param pvs The EPICS CA PV names
+     * @param timeoutSeconds The number of seconds to wait, or NaN to use the adaptive timeout
+     * @return The future batch result
+     */
+    private CompletableFuture<BatchGetResult> request(Collection<String> pvs,
+            double timeoutSeconds) {
+        Map<String, ChannelHealth> admittedMap = new LinkedHashMap<>();
+        Map<String, Exception> unavailableMap = new HashMap<>();
+        double adaptiveSeconds = MIN_TIMEOUT_SECONDS;
+
+        for (String pv : new LinkedHashSet<>(pvs)) {
+            ChannelHealth health = getHealth(pv);
+
+            if (health.tryAcquire()) {
+                admittedMap.put(pv, health);
+                adaptiveSeconds = Math.max(adaptiveSeconds, health.getTimeoutSeconds());
+            } else {
+                unavailableMap.put(pv, new PvUnavailableException(pv));
+            }
+        }
 
-            context.pendIO(PEND_TIMEOUT_SECONDS);
+        if (admittedMap.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchGetResult(
+                    Collections.<String, DBR>emptyMap(), unavailableMap,
+                    Collections.<String, Long>emptyMap()));
+        }
 
-            dbr = channel.get();
+        double timeout = Double.isNaN(timeoutSeconds) ? adaptiveSeconds : timeoutSeconds;
+        CompletableFuture<BatchGetResult> future;
 
-            context.pendIO(PEND_TIMEOUT_SECONDS);
-        } finally {
-            if (channel != null) {
-                channel.destroy();
+        try {
+            future = backend.getAll(admittedMap.keySet(), timeout);
+        } catch (RuntimeException e) { // Recorded below like an asynchronous failure
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        return future.handle((result, e) -> {
+            if (result == null) {
+                result = failBatch(admittedMap.keySet(), e);
+            }
+
+            for (Map.Entry<String, ChannelHealth> entry : admittedMap.entrySet()) {
+                String pv = entry.getKey();
+
+                if (result.getDbrMap().containsKey(pv)) {
+                    entry.getValue().recordSuccess(result.getLatencyNanos(pv));
+                    metrics.getSucceeded(pv, result.getLatencyNanos(pv));
+                } else {
+                    entry.getValue().recordFailure();
+                    metrics.getFailed(pv, result.getFailureMap().get(pv));
+                }
+            }
+
+            return result.withFailures(unavailableMap);
+        });
+    }
+
+    /**
+     * Create the result of a batch which failed as a whole, failing every PV with the cause.
+     *
+     * @param pvs The EPICS CA PV names
+     * @param e The reason the batch failed
+     * @return The batch result
+     */
+    private static BatchGetResult failBatch(Collection<String> pvs, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null
+                ? e.getCause() : e;
+        Map<String, Exception> failureMap = new HashMap<>();
+
+        for (String pv : pvs) {
+            if (cause instanceof CAException || cause instanceof TimeoutException) {
+                failureMap.put(pv, (Exception) cause);
+            } else {
+                failureMap.put(pv, new CAException("Unable to get PV: " + pv, cause));
             }
         }
 
-        return dbr;
+        return new BatchGetResult(Collections.<String, DBR>emptyMap(), failureMap,
+                Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * Return the latency and circuit breaker tracker of a PV, creating it if necessary.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The tracker
+     */
+    private ChannelHealth getHealth(String pv) {
+        return healthMap.computeIfAbsent(pv, k -> new ChannelHealth(k, breakerOpenMillis));
     }
 
     /**
@@ -113,23 +342,16 @@ public class ChannelManager implements Closeable {
      * @throws TimeoutException If unable to perform the CA-GET in a timely fashion
      */
     public void put(String pv, String value) throws CAException, TimeoutException {
-
-        CAJChannel channel = null;
+        long start = System.nanoTime();
 
         try {
-            channel = (CAJChannel) context.createChannel(pv);
-
-            context.pendIO(PEND_TIMEOUT_SECONDS);
-
-            channel.put(value);
-
-            context.pendIO(PEND_TIMEOUT_SECONDS);
-        } finally {
-            if (channel != null) {
-                channel.destroy();
-            }
+            backend.put(pv, value);
+        } catch (CAException | TimeoutException | RuntimeException e) {
+            metrics.putFailed(pv, e);
+            throw e;
         }
 
+        metrics.putSucceeded(pv, System.nanoTime() - start);
     }
 
     /**
@@ -141,23 +363,58 @@ public class ChannelManager implements Closeable {
      * @throws TimeoutException If unable to perform the CA-GET in a timely fashion
      */
     public void put(String pv, Number value) throws CAException, TimeoutException {
-
-        CAJChannel channel = null;
+        long start = System.nanoTime();
 
         try {
-            channel = (CAJChannel) context.createChannel(pv);
+            backend.put(pv, value);
+        } catch (CAException | TimeoutException | RuntimeException e) {
+            metrics.putFailed(pv, e);
+            throw e;
+        }
 
-            context.pendIO(PEND_TIMEOUT_SECONDS);
+        metrics.putSucceeded(pv, System.nanoTime() - start);
+    }
 
-            channel.put((value).doubleValue());
+    /**
+     * Perform an asynchronous CA-PUT request of each of the given PVs and values. All requests are
+     * issued and flushed together and each is confirmed by a put completion callback, which the
+     * IOC sends once the record has processed the value, so the batch completes in roughly one
+     * round-trip to the slowest IOC. The returned future always completes normally; PVs which fail
+     * or time out are reported in the result without affecting the rest of the batch. The batch
+     * is allowed MAX_TIMEOUT_SECONDS (connect plus put) to complete.
+     *
+     * @param values The map of EPICS CA PV names to Number values
+     * @return The future batch result
+     */
+    public CompletableFuture<BatchPutResult> putAll(Map<String, ? extends Number> values) {
+        return putAll(values, MAX_TIMEOUT_SECONDS);
+    }
 
-            context.pendIO(PEND_TIMEOUT_SECONDS);
-        } finally {
-            if (channel != null) {
-                channel.destroy();
-            }
+    /**
+     * Perform an asynchronous CA-PUT request of each of the given PVs and values with the given
+     * timeout.
+     *
+     * @param values The map of EPICS CA PV names to Number values
+     * @param timeoutSeconds The number of seconds to wait before remaining PVs are timed out
+     * @return The future batch result
+     */
+    public CompletableFuture<BatchPutResult> putAll(Map<String, ? extends Number> values,
+            double timeoutSeconds) {
+        if (values.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchPutResult(
+                    Collections.<String>emptySet(), Collections.<String, Exception>emptyMap(),
+                    Collections.<String, Long>emptyMap()));
         }
 
+        return backend.putAll(values, timeoutSeconds).whenComplete((result, e) -> {
+            for (String pv : values.keySet()) {
+                if (result != null && result.getConfirmedSet().contains(pv)) {
+                    metrics.putSucceeded(pv, result.getLatencyNanos(pv));
+                } else {
+                    metrics.putFailed(pv, result == null ? e : result.getFailureMap().get(pv));
+                }
+            }
+        });
     }
 
     /**
@@ -183,35 +440,14 @@ public class ChannelManager implements Closeable {
      * @param addPvSet The set of PVs to monitor
      */
     public void addPvs(PvListener listener, Set<String> addPvSet) {
-
-        Set<String> newPvList = new HashSet<>();
+        Set<String> pvSet = listenerMap.computeIfAbsent(listener,
+                k -> ConcurrentHashMap.newKeySet());
 
         if (addPvSet != null) {
-            newPvList.addAll(addPvSet);
-
             for (String pv : addPvSet) {
-                //LOGGER.log(Level.FINEST, "addListener pv: {0}; pv: {1}", new Object[]{listener, pv});
-                ChannelMonitor monitor = monitorMap.get(pv);
-
-                if (monitor == null) {
-                    //LOGGER.log(Level.FINEST, "Opening ChannelMonitor: {0}", pv);
-                    monitor = new ChannelMonitor(pv, context, executor);
-                    monitorMap.put(pv, monitor);
-                } else {
-                    //LOGGER.log(Level.FINEST, "Joining ChannelMonitor: {0}", pv);
-                }
-
-                monitor.addListener(listener);
+                acquireMonitor(listener, pvSet, pv);
             }
         }
-
-        Set<String> oldPvList = listenerMap.get(listener);
-
-        if (oldPvList != null) {
-            newPvList.addAll(oldPvList);
-        }
-
-        listenerMap.put(listener, newPvList);
     }
 
     /**
@@ -221,48 +457,69 @@ public class ChannelManager implements Closeable {
      * @param clearPvSet The PV set to clear
      */
     public void clearPvs(PvListener listener, Set<String> clearPvSet) {
+        Set<String> pvSet = listenerMap.computeIfAbsent(listener,
+                k -> ConcurrentHashMap.newKeySet());
 
-        Set<String> newPvList;
-        Set<String> oldPvList = listenerMap.get(listener);
-
-        if (oldPvList != null) {
-            newPvList = new HashSet<>(oldPvList);
-            newPvList.removeAll(clearPvSet);
-        } else {
-            newPvList = new HashSet<>();
+        if (clearPvSet != null) {
+            for (String pv : clearPvSet) {
+                releaseMonitor(listener, pvSet, pv);
+            }
         }
+    }
+
+    /**
+     * Registers a listener on the monitor of a PV, creating the monitor if necessary. The
+     * get-or-create, listener registration, and listener PV set update all happen under the
+     * monitor map's lock for that PV only, so they are atomic with respect to any concurrent
+     * release of the same PV.
+     *
+     * @param listener The PvListener
+     * @param pvSet The listener's set of PVs
+     * @param pv The EPICS PV name
+     */
+    private void acquireMonitor(PvListener listener, Set<String> pvSet, String pv) {
+        monitorMap.compute(pv, (key, monitor) -> {
+            if (monitor == null) {
+                //LOGGER.log(Level.FINEST, "Opening ChannelMonitor: {0}", pv);
+                monitor = new ChannelMonitor(pv, backend, dispatchExecutor, dispatchCounters,
+                        metrics);
+            }
 
-        removeFromChannels(listener, clearPvSet);
-        listenerMap.put(listener, newPvList);
+            if (pvSet.add(pv)) {
+                monitor.addListener(listener);
+            }
+
+            return monitor;
+        });
     }
 
     /**
-     * Removes a listener from channels and if no listeners remain on a given channel then closes
-     * the channel.
+     * Removes a listener from the monitor of a PV and if no listeners remain then closes the
+     * monitor.
      *
      * @param listener The PvListener
-     * @param pvList The PV list (and indirectly the channel list)
-     */
-    private void removeFromChannels(PvListener listener, Set<String> pvList) {
-        if (pvList != null) { // Some clients don't immediately connect to a pv so have an empty pv list
-            for (String pv : pvList) {
-                ChannelMonitor monitor = monitorMap.get(pv);
-
-                if (monitor != null) {
-                    monitor.removeListener(listener);
-
-                    if (monitor.getListenerCount() == 0) {
-                        //LOGGER.log(Level.FINEST, "Closing ChannelMonitor: {0}", pv);
-                        try {
-                            monitor.close();
-                        } catch (IOException e) {
-                            LOGGER.log(Level.WARNING, "Unable to close monitor", e);
-                        }
-                        monitorMap.remove(pv);
-                    }
+     * @param pvSet The listener's set of PVs
+     * @param pv The EPICS PV name
+     */
+    private void releaseMonitor(PvListener listener, Set<String> pvSet, String pv) {
+        monitorMap.computeIfPresent(pv, (key, monitor) -> {
+            if (pvSet.remove(pv)) {
+                monitor.removeListener(listener);
+            }
+
+            if (monitor.getListenerCount() == 0) {
+                //LOGGER.log(Level.FINEST, "Closing ChannelMonitor: {0}", pv);
+                try {
+                    monitor.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to close monitor", e);
                 }
+
+                return null;
             }
-        }
+
+            return monitor;
+        });
     }
 
     /**
@@ -274,9 +531,7 @@ public class ChannelManager implements Closeable {
      * @param listener The PvListener
      */
     public void addListener(PvListener listener) {
-        Set<String> pvList = listenerMap.get(listener);
-
-        listenerMap.put(listener, pvList);
+        addPvs(listener, null);
     }
 
     /**
@@ -286,11 +541,107 @@ public class ChannelManager implements Closeable {
      */
     public void removeListener(PvListener listener) {
         //LOGGER.log(Level.FINEST, "removeListener: {0}", listener);
-        Set<String> pvSet = listenerMap.get(listener);
+        Set<String> pvSet = listenerMap.remove(listener);
 
-        removeFromChannels(listener, pvSet);
+        if (pvSet != null) {
+            for (String pv : pvSet) {
+                releaseMonitor(listener, pvSet, pv);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the channel cache hit, miss, and connect latency counters for
+     * informational purposes.
+     *
+     * @return The channel cache statistics
+     */
+    public ChannelCacheStatistics getChannelCacheStatistics() {
+        return backend.getChannelCacheStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the lease and operation counters of every pooled channel access
+     * context for informational purposes.
+     *
+     * @return The context statistics
+     */
+    public List<ContextStatistics> getContextStatistics() {
+        return backend.getContextStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the monitor dispatch counters, including coalesced and dropped updates
+     * and dispatch latency, for informational purposes.
+     *
+     * @return The monitor dispatch statistics
+     */
+    public MonitorDispatchStatistics getMonitorDispatchStatistics() {
+        return dispatchCounters.snapshot();
+    }
+
+    /**
+     * Returns a snapshot of the request latency and circuit breaker state of every PV which has
+     * been read, for informational purposes.
+     *
+     * @return The channel health statistics, ordered by PV
+     */
+    public List<ChannelHealthStatistics> getChannelHealthStatistics() {
+        List<ChannelHealthStatistics> statisticsList = new ArrayList<>();
+
+        for (ChannelHealth health : new TreeMap<>(healthMap).values()) {
+            statisticsList.add(health.snapshot());
+        }
+
+        return statisticsList;
+    }
+
+    /**
+     * Returns a snapshot of the get, put, connect, and monitor instrumentation of every PV which
+     * has been used, for informational purposes.
+     *
+     * @return The channel statistics, ordered by PV
+     */
+    public List<ChannelStatistics> getChannelStatistics() {
+        return metrics.getChannelStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the instrumentation of every PV aggregated by the IOC serving it, for
+     * informational purposes.
+     *
+     * @return The IOC statistics, ordered by host
+     */
+    public List<IocStatistics> getIocStatistics() {
+        return metrics.getIocStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the time spent waiting to lease channel access contexts, for
+     * informational purposes.
+     *
+     * @return The lease wait statistics
+     */
+    public LatencyStatistics getLeaseWaitStatistics() {
+        return backend.getLeaseWaitStatistics();
+    }
+
+    /**
+     * Returns the number of open ChannelMonitors, which is the number of distinct PVs monitored.
+     *
+     * @return The monitor count
+     */
+    public int getMonitorCount() {
+        return monitorMap.size();
+    }
 
-        listenerMap.remove(listener);
+    /**
+     * Returns the number of registered PvListeners.
+     *
+     * @return The listener count
+     */
+    public int getListenerCount() {
+        return listenerMap.size();
     }
 
     /**
@@ -301,10 +652,8 @@ public class ChannelManager implements Closeable {
     public Map<String, Integer> getPvToCountMap() {
         Map<String, Integer> countMap = new HashMap<>();
 
-        for (String key : monitorMap.keySet()) {
-            ChannelMonitor monitor = monitorMap.get(key);
-            Integer count = monitor.getListenerCount();
-            countMap.put(key, count);
+        for (Map.Entry<String, ChannelMonitor> entry : monitorMap.entrySet()) {
+            countMap.put(entry.getKey(), entry.getValue().getListenerCount());
         }
         return countMap;
     }
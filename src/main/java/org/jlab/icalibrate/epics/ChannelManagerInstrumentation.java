@@ -0,0 +1,124 @@
+package org.jlab.icalibrate.epics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the instrumentation of a ChannelManager as an MXBean on the platform MBean server so
+ * it can be watched with JConsole or VisualVM while a calibration runs.
+ *
+ * Example:
+ * <pre>
+ * try (ChannelManagerInstrumentation jmx = new ChannelManagerInstrumentation(manager)) {
+ *     jmx.register();
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author ryans
+ */
+public class ChannelManagerInstrumentation implements ChannelManagerMXBean, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            ChannelManagerInstrumentation.class.getName());
+
+    /**
+     * The JMX object name the MXBean is registered under.
+     */
+    public static final String OBJECT_NAME = "org.jlab.icalibrate:type=ChannelManager";
+
+    private final ChannelManager manager;
+    private ObjectName registeredName = null;
+
+    /**
+     * Create a new ChannelManagerInstrumentation.
+     *
+     * @param manager The channel manager to publish
+     */
+    public ChannelManagerInstrumentation(ChannelManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Register the MXBean with the platform MBean server.
+     *
+     * @throws JMException If unable to register, for example because another ChannelManager is
+     * already registered
+     */
+    public synchronized void register() throws JMException {
+        ObjectName name = new ObjectName(OBJECT_NAME);
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+
+        registeredName = name;
+    }
+
+    @Override
+    public int getMonitorCount() {
+        return manager.getMonitorCount();
+    }
+
+    @Override
+    public int getListenerCount() {
+        return manager.getListenerCount();
+    }
+
+    @Override
+    public MonitorDispatchStatistics getMonitorDispatchStatistics() {
+        return manager.getMonitorDispatchStatistics();
+    }
+
+    @Override
+    public ChannelCacheStatistics getChannelCacheStatistics() {
+        return manager.getChannelCacheStatistics();
+    }
+
+    @Override
+    public List<ContextStatistics> getContextStatistics() {
+        return manager.getContextStatistics();
+    }
+
+    @Override
+    public LatencyStatistics getLeaseWaitStatistics() {
+        return manager.getLeaseWaitStatistics();
+    }
+
+    @Override
+    public List<ChannelHealthStatistics> getChannelHealthStatistics() {
+        return manager.getChannelHealthStatistics();
+    }
+
+    @Override
+    public List<ChannelStatistics> getChannelStatistics() {
+        return manager.getChannelStatistics();
+    }
+
+    @Override
+    public List<IocStatistics> getIocStatistics() {
+        return manager.getIocStatistics();
+    }
+
+    /**
+     * Unregister the MXBean if registered.
+     */
+    @Override
+    public synchronized void close() {
+        if (registeredName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            try {
+                server.unregisterMBean(registeredName);
+            } catch (JMException e) {
+                LOGGER.log(Level.WARNING, "Unable to unregister MXBean: " + registeredName, e);
+            }
+
+            registeredName = null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.List;
+
+/**
+ * The JMX management interface of a ChannelManager. Every attribute is a snapshot taken when it is
+ * read; statistics objects appear in JMX clients such as JConsole as composite data.
+ *
+ * @author ryans
+ */
+public interface ChannelManagerMXBean {
+
+    /**
+     * Return the number of open ChannelMonitors.
+     *
+     * @return The monitor count
+     */
+    int getMonitorCount();
+
+    /**
+     * Return the number of registered PvListeners.
+     *
+     * @return The listener count
+     */
+    int getListenerCount();
+
+    /**
+     * Return the monitor dispatch counters.
+     *
+     * @return The monitor dispatch statistics
+     */
+    MonitorDispatchStatistics getMonitorDispatchStatistics();
+
+    /**
+     * Return the channel cache counters, including aggregate connect times.
+     *
+     * @return The channel cache statistics
+     */
+    ChannelCacheStatistics getChannelCacheStatistics();
+
+    /**
+     * Return the usage counters of each pooled channel access context.
+     *
+     * @return The context statistics
+     */
+    List<ContextStatistics> getContextStatistics();
+
+    /**
+     * Return the time spent waiting to lease channel access contexts.
+     *
+     * @return The lease wait statistics
+     */
+    LatencyStatistics getLeaseWaitStatistics();
+
+    /**
+     * Return the adaptive timeout and circuit breaker state of each PV.
+     *
+     * @return The channel health statistics
+     */
+    List<ChannelHealthStatistics> getChannelHealthStatistics();
+
+    /**
+     * Return the get, put, connect, and monitor instrumentation of each PV.
+     *
+     * @return The channel statistics
+     */
+    List<ChannelStatistics> getChannelStatistics();
+
+    /**
+     * Return the get, put, connect, and monitor instrumentation of each IOC.
+     *
+     * @return The IOC statistics
+     */
+    List<IocStatistics> getIocStatistics();
+}
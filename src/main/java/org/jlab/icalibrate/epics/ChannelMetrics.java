@@ -0,0 +1,194 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.TimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Responsible for the per PV request, connection, and monitor instrumentation of a
+ * ChannelManager. Entries are created on first use and kept for the life of the manager so the
+ * history of a PV survives its channel being evicted or its monitor being closed. Updated
+ * concurrently from request, CA callback, and dispatch threads without locking.
+ *
+ * @author ryans
+ */
+final class ChannelMetrics implements ConnectionObserver {
+
+    private final Map<String, PvMetrics> pvMap = new ConcurrentHashMap<>();
+
+    /**
+     * Record a successful CA-GET.
+     *
+     * @param pv The EPICS CA PV name
+     * @param nanos The latency in nanoseconds
+     */
+    void getSucceeded(String pv, long nanos) {
+        get(pv).getLatency.record(nanos);
+    }
+
+    /**
+     * Record a failed CA-GET.
+     *
+     * @param pv The EPICS CA PV name
+     * @param failure The reason, or null if unknown
+     */
+    void getFailed(String pv, Throwable failure) {
+        PvMetrics metrics = get(pv);
+
+        if (failure instanceof TimeoutException) {
+            metrics.getTimeouts.increment();
+        } else {
+            metrics.getFailures.increment();
+        }
+    }
+
+    /**
+     * Record a successful CA-PUT.
+     *
+     * @param pv The EPICS CA PV name
+     * @param nanos The latency in nanoseconds
+     */
+    void putSucceeded(String pv, long nanos) {
+        get(pv).putLatency.record(nanos);
+    }
+
+    /**
+     * Record a failed CA-PUT.
+     *
+     * @param pv The EPICS CA PV name
+     * @param failure The reason, or null if unknown
+     */
+    void putFailed(String pv, Throwable failure) {
+        PvMetrics metrics = get(pv);
+
+        if (failure instanceof TimeoutException) {
+            metrics.putTimeouts.increment();
+        } else {
+            metrics.putFailures.increment();
+        }
+    }
+
+    /**
+     * Record a monitor update received from CA.
+     *
+     * @param pv The EPICS CA PV name
+     */
+    void monitorUpdated(String pv) {
+        get(pv).monitorUpdated(System.nanoTime());
+    }
+
+    @Override
+    public void channelConnected(String pv, String host, long latencyNanos) {
+        PvMetrics metrics = get(pv);
+
+        metrics.connectLatency.record(latencyNanos);
+
+        if (host != null) {
+            metrics.host = host;
+        }
+    }
+
+    /**
+     * Return a snapshot of every PV.
+     *
+     * @return The statistics, ordered by PV
+     */
+    List<ChannelStatistics> getChannelStatistics() {
+        List<ChannelStatistics> statisticsList = new ArrayList<>();
+
+        for (Map.Entry<String, PvMetrics> entry : new TreeMap<>(pvMap).entrySet()) {
+            statisticsList.add(entry.getValue().snapshot(entry.getKey()));
+        }
+
+        return statisticsList;
+    }
+
+    /**
+     * Return a snapshot of every IOC, aggregated from its PVs.
+     *
+     * @return The statistics, ordered by host
+     */
+    List<IocStatistics> getIocStatistics() {
+        Map<String, IocStatistics> iocMap = new TreeMap<>();
+
+        for (ChannelStatistics channel : getChannelStatistics()) {
+            String host = channel.getHost() == null ? IocStatistics.UNKNOWN_HOST
+                    : channel.getHost();
+
+            IocStatistics ioc = iocMap.get(host);
+
+            iocMap.put(host, ioc == null ? new IocStatistics(host, channel) : ioc.plus(channel));
+        }
+
+        return new ArrayList<>(iocMap.values());
+    }
+
+    /**
+     * Return the metrics of a PV, creating them if necessary.
+     *
+     * @param pv The EPICS CA PV name
+     * @return The metrics
+     */
+    private PvMetrics get(String pv) {
+        return pvMap.computeIfAbsent(pv, k -> new PvMetrics());
+    }
+
+    /**
+     * The instrumentation of a single PV.
+     */
+    private static final class PvMetrics {
+
+        private final LatencyHistogram getLatency = new LatencyHistogram();
+        private final LongAdder getTimeouts = new LongAdder();
+        private final LongAdder getFailures = new LongAdder();
+        private final LatencyHistogram putLatency = new LatencyHistogram();
+        private final LongAdder putTimeouts = new LongAdder();
+        private final LongAdder putFailures = new LongAdder();
+        private final LatencyHistogram connectLatency = new LatencyHistogram();
+        private volatile String host;
+        private long monitorUpdates = 0;
+        private long firstUpdateNanos;
+        private long lastUpdateNanos;
+
+        /**
+         * Record a monitor update.
+         *
+         * @param nanos The time of the update
+         */
+        synchronized void monitorUpdated(long nanos) {
+            if (monitorUpdates == 0) {
+                firstUpdateNanos = nanos;
+            }
+
+            monitorUpdates++;
+            lastUpdateNanos = nanos;
+        }
+
+        /**
+         * Return a snapshot.
+         *
+         * @param pv The EPICS CA PV name
+         * @return The statistics
+         */
+        ChannelStatistics snapshot(String pv) {
+            long updates;
+            double rate = 0;
+
+            synchronized (this) {
+                updates = monitorUpdates;
+
+                if (updates > 1 && lastUpdateNanos > firstUpdateNanos) {
+                    rate = (updates - 1) / ((lastUpdateNanos - firstUpdateNanos) / 1.0e9);
+                }
+            }
+
+            return new ChannelStatistics(pv, host, getLatency.snapshot(), getTimeouts.sum(),
+                    getFailures.sum(), putLatency.snapshot(), putTimeouts.sum(),
+                    putFailures.sum(), connectLatency.snapshot(), updates, rate);
+        }
+    }
+}
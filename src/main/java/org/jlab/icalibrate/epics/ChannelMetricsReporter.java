@@ -0,0 +1,230 @@
+package org.jlab.icalibrate.epics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically reports the instrumentation of a ChannelManager to the log and optionally appends
+ * it to a CSV file.
+ *
+ * Each report logs the monitor, listener, and context lease figures plus one line per IOC,
+ * slowest CA-GET 99th percentile first. The CSV file receives one MANAGER row, one row per IOC,
+ * and one row per PV for every report; the counts are cumulative so rates are found by
+ * differencing consecutive reports. A final report is made when closed.
+ *
+ * @author ryans
+ */
+public class ChannelMetricsReporter implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ChannelMetricsReporter.class.getName());
+
+    /**
+     * The CSV column names.
+     */
+    public static final String CSV_HEADER = "time,scope,name,host,pvs,get_count,get_mean_ms,"
+            + "get_p50_ms,get_p99_ms,get_max_ms,get_timeouts,get_failures,put_count,put_mean_ms,"
+            + "put_p99_ms,put_max_ms,put_timeouts,put_failures,connect_count,connect_mean_ms,"
+            + "connect_max_ms,monitor_updates,monitor_hz,monitors,listeners,lease_count,"
+            + "lease_mean_ms,lease_max_ms";
+
+    private final ChannelManager manager;
+    private final File csvFile;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Create a new ChannelMetricsReporter.
+     *
+     * @param manager The channel manager to report on
+     * @param csvFile The CSV file to append to, or null to only log
+     */
+    public ChannelMetricsReporter(ChannelManager manager, File csvFile) {
+        this.manager = manager;
+        this.csvFile = csvFile;
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ChannelMetricsReporter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start reporting periodically.
+     *
+     * @param periodSeconds The number of seconds between reports
+     */
+    public void start(long periodSeconds) {
+        executor.scheduleAtFixedRate(this::reportQuietly, periodSeconds, periodSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Report now.
+     *
+     * @throws IOException If unable to write the CSV file
+     */
+    public synchronized void report() throws IOException {
+        String time = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date());
+        LatencyStatistics lease = manager.getLeaseWaitStatistics();
+        List<IocStatistics> iocList = new ArrayList<>(manager.getIocStatistics());
+        List<ChannelStatistics> channelList = manager.getChannelStatistics();
+
+        Collections.sort(iocList, new Comparator<IocStatistics>() {
+            @Override
+            public int compare(IocStatistics a, IocStatistics b) {
+                return Double.compare(nanToZero(b.getGetLatency().getP99Millis()),
+                        nanToZero(a.getGetLatency().getP99Millis()));
+            }
+        });
+
+        LOGGER.log(Level.INFO, "EPICS monitors: {0}, listeners: {1}, context lease: [{2}]",
+                new Object[]{manager.getMonitorCount(), manager.getListenerCount(), lease});
+
+        for (IocStatistics ioc : iocList) {
+            LOGGER.log(Level.INFO, "EPICS IOC {0}", ioc);
+        }
+
+        if (csvFile == null) {
+            return;
+        }
+
+        boolean header = !csvFile.exists() || csvFile.length() == 0;
+
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(csvFile, true), StandardCharsets.UTF_8)))) {
+            if (header) {
+                out.println(CSV_HEADER);
+            }
+
+            out.println(time + ",MANAGER,ChannelManager,,,,,,,,,,,,,,,,,,,,," + manager
+                    .getMonitorCount() + "," + manager.getListenerCount() + ","
+                    + lease.getCount() + "," + format(lease.getMeanMillis()) + ","
+                    + format(lease.getMaxMillis()));
+
+            for (IocStatistics ioc : iocList) {
+                out.println(time + ",IOC," + escape(ioc.getHost()) + "," + escape(ioc.getHost())
+                        + "," + ioc.getPvCount() + "," + columns(ioc.getGetLatency(),
+                        ioc.getGetTimeouts(), ioc.getGetFailures(), ioc.getPutLatency(),
+                        ioc.getPutTimeouts(), ioc.getPutFailures(), ioc.getConnectLatency(),
+                        ioc.getMonitorUpdates(), ioc.getMonitorUpdateRate()));
+            }
+
+            for (ChannelStatistics channel : channelList) {
+                String host = channel.getHost() == null ? IocStatistics.UNKNOWN_HOST
+                        : channel.getHost();
+
+                out.println(time + ",PV," + escape(channel.getPv()) + "," + escape(host) + ",1,"
+                        + columns(channel.getGetLatency(), channel.getGetTimeouts(),
+                                channel.getGetFailures(), channel.getPutLatency(),
+                                channel.getPutTimeouts(), channel.getPutFailures(),
+                                channel.getConnectLatency(), channel.getMonitorUpdates(),
+                                channel.getMonitorUpdateRate()));
+            }
+
+            if (out.checkError()) {
+                throw new IOException("Unable to write metrics file: " + csvFile);
+            }
+        }
+    }
+
+    /**
+     * Report, logging rather than throwing any failure so the schedule continues.
+     */
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to report EPICS metrics", e);
+        }
+    }
+
+    /**
+     * Format the get, put, connect, and monitor columns of an IOC or PV row. The manager columns
+     * are left empty.
+     *
+     * @param get The CA-GET latency
+     * @param getTimeouts The CA-GET timeout count
+     * @param getFailures The CA-GET failure count
+     * @param put The CA-PUT latency
+     * @param putTimeouts The CA-PUT timeout count
+     * @param putFailures The CA-PUT failure count
+     * @param connect The connect latency
+     * @param monitorUpdates The monitor update count
+     * @param monitorRate The monitor update rate in Hz
+     * @return The columns
+     */
+    private static String columns(LatencyStatistics get, long getTimeouts, long getFailures,
+            LatencyStatistics put, long putTimeouts, long putFailures, LatencyStatistics connect,
+            long monitorUpdates, double monitorRate) {
+        return get.getCount() + "," + format(get.getMeanMillis()) + ","
+                + format(get.getP50Millis()) + "," + format(get.getP99Millis()) + ","
+                + format(get.getMaxMillis()) + "," + getTimeouts + "," + getFailures + ","
+                + put.getCount() + "," + format(put.getMeanMillis()) + ","
+                + format(put.getP99Millis()) + "," + format(put.getMaxMillis()) + ","
+                + putTimeouts + "," + putFailures + "," + connect.getCount() + ","
+                + format(connect.getMeanMillis()) + "," + format(connect.getMaxMillis()) + ","
+                + monitorUpdates + "," + format(monitorRate) + ",,,,,";
+    }
+
+    /**
+     * Format a number for CSV.
+     *
+     * @param value The value
+     * @return The formatted value, or an empty string if NaN
+     */
+    private static String format(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Quote a CSV value if necessary.
+     *
+     * @param value The value
+     * @return The escaped value
+     */
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Treat NaN as zero for sorting.
+     *
+     * @param value The value
+     * @return The value or zero if NaN
+     */
+    private static double nanToZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    /**
+     * Stop reporting and make a final report.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+
+        reportQuietly();
+    }
+}
@@ -1,32 +1,29 @@
 package org.jlab.icalibrate.epics;
 
-import com.cosylab.epics.caj.CAJChannel;
-import com.cosylab.epics.caj.CAJContext;
-import gov.aps.jca.CAException;
-import gov.aps.jca.Monitor;
 import gov.aps.jca.dbr.DBR;
 import gov.aps.jca.dbr.DBRType;
-import gov.aps.jca.dbr.DBR_LABELS_Enum;
-import gov.aps.jca.event.ConnectionEvent;
-import gov.aps.jca.event.ConnectionListener;
-import gov.aps.jca.event.GetEvent;
-import gov.aps.jca.event.GetListener;
-import gov.aps.jca.event.MonitorEvent;
-import gov.aps.jca.event.MonitorListener;
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Responsible for monitoring an EPICS channel and notifying registered listeners.
+ * Responsible for monitoring an EPICS channel and notifying registered listeners. The channel
+ * itself is monitored by the ChannelAccessBackend.
+ *
+ * Listeners are never called on the CA callback thread. Each listener has a single pending update
+ * slot which is drained on the dispatch executor; if a listener falls behind, newer updates
+ * replace older undelivered ones so that the listener only ever sees the latest DBR. A
+ * QueuedPvListener instead has every update queued and delivered in order along with the time it
+ * was received. The listener list is copy-on-write so the CA callback thread never takes a lock.
  *
  * @author ryans
  */
@@ -34,58 +31,78 @@ final class ChannelMonitor implements Closeable {
 
     private static final Logger LOGGER = Logger.getLogger(ChannelMonitor.class.getName());
 
-    private final Set<PvListener> listeners = new HashSet<>();
-    private CAJChannel c;
-    private final CAJContext context;
-    private final ScheduledExecutorService executor;
+    private final List<ListenerSlot> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private final Closeable subscription;
+    private final Executor dispatchExecutor;
+    private final MonitorDispatchCounters counters;
+    private final ChannelMetrics metrics;
     private final String pv;
-    private DBR lastDbr;
-    private String[] enumLabels;
-    private boolean initialized = false;
-    private boolean couldConnect = false;
+    private volatile PendingUpdate lastUpdate;
+    private volatile DBRType fieldType;
+    private volatile Integer elementCount;
+    private volatile String[] enumLabels;
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private volatile boolean couldConnect = false;
 
     /**
-     * Create a new ChannelMonitor for the given EPICS PV using the supplied CA Context.
+     * Create a new ChannelMonitor for the given EPICS PV using the supplied backend.
      *
      * @param pv The PV name
-     * @param context The EPICS CA Context
+     * @param backend The channel access backend
+     * @param dispatchExecutor The executor used to notify listeners
+     * @param counters The dispatch counters to update
+     * @param metrics The channel metrics to record updates in
      */
-    public ChannelMonitor(String pv, CAJContext context, ScheduledExecutorService executor) {
+    public ChannelMonitor(String pv, ChannelAccessBackend backend, Executor dispatchExecutor,
+            MonitorDispatchCounters counters, ChannelMetrics metrics) {
         this.pv = pv;
-        this.context = context;
-        this.executor = executor;
-
-        try {
-            c = (CAJChannel) context.createChannel(pv, new ChannelConnectionListener());
-
-            context.flushIO();
+        this.dispatchExecutor = dispatchExecutor;
+        this.counters = counters;
+        this.metrics = metrics;
 
-        } catch (CAException e) {
-            LOGGER.log(Level.SEVERE, "Unable to obtain channel access context", e);
-        }
+        subscription = backend.subscribe(pv, new BackendCallback());
     }
 
     /**
-     * Add a new PvListener.
+     * Add a new PvListener. If the channel has already been initialized the listener is sent the
+     * channel info and latest value asynchronously. Adding a listener which is already registered
+     * has no effect.
      *
      * @param listener The PvListener
      */
-    public synchronized void addListener(PvListener listener) {
-        listeners.add(listener);
+    public void addListener(PvListener listener) {
+        ListenerSlot slot;
+
+        synchronized (writeLock) {
+            if (findSlot(listener) != null) {
+                return;
+            }
+
+            slot = new ListenerSlot(listener);
+            listeners.add(slot);
+        }
 
-        if (initialized) {
-            notifyPvInfo(listener);
-            notifyPvUpdate(listener);
+        if (initialized.get()) {
+            slot.offerInfo();
+            slot.offerUpdate(lastUpdate);
         }
     }
 
     /**
-     * Remove the supplied PvListener.
+     * Remove the supplied PvListener. Any undelivered update for the listener is dropped.
      *
      * @param listener The PvListener
      */
-    public synchronized void removeListener(PvListener listener) {
-        listeners.remove(listener);
+    public void removeListener(PvListener listener) {
+        synchronized (writeLock) {
+            ListenerSlot slot = findSlot(listener);
+
+            if (slot != null) {
+                listeners.remove(slot);
+                slot.discard();
+            }
+        }
     }
 
     /**
@@ -93,7 +110,7 @@ final class ChannelMonitor implements Closeable {
      *
      * @return The number of PvListeners
      */
-    public synchronized int getListenerCount() {
+    public int getListenerCount() {
         return listeners.size();
     }
 
@@ -103,197 +120,267 @@ final class ChannelMonitor implements Closeable {
      * @throws IOException If unable to close
      */
     @Override
-    public synchronized void close() throws IOException {
-        if (c != null) {
-            try {
-                c.destroy();
-            } catch (CAException e) {
-                throw new IOException("Unable to close channel", e);
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            for (ListenerSlot slot : listeners) {
+                slot.discard();
             }
+
+            listeners.clear();
         }
+
+        subscription.close();
     }
 
     /**
-     * Notify all listeners of the channel info metadata.
+     * Find the slot of a given listener.
+     *
+     * @param listener The PvListener
+     * @return The slot or null if not registered
      */
-    private synchronized void notifyPvInfoAll() {
-        for (PvListener s : listeners) {
-            notifyPvInfo(s);
+    private ListenerSlot findSlot(PvListener listener) {
+        for (ListenerSlot slot : listeners) {
+            if (slot.listener.equals(listener)) {
+                return slot;
+            }
         }
+
+        return null;
     }
 
     /**
-     * Notify a given listener of the channel info metadata.
-     *
-     * @param listener The PvListener
+     * Queue notification of the channel info metadata to all listeners.
      */
-    private synchronized void notifyPvInfo(PvListener listener) {
-
-        DBRType type = null;
-        Integer count = null;
-        if (couldConnect) {
-            type = c.getFieldType();
-            count = c.getElementCount();
+    private void notifyPvInfoAll() {
+        for (ListenerSlot slot : listeners) {
+            slot.offerInfo();
         }
-
-        listener.notifyPvInfo(pv, couldConnect, type, count, enumLabels);
     }
 
     /**
-     * Notify all listeners of a channel value update.
+     * Queue notification of a channel value update to all listeners.
      */
-    private synchronized void notifyPvUpdateAll() {
-        for (PvListener s : listeners) {
-            notifyPvUpdate(s);
+    private void notifyPvUpdateAll() {
+        PendingUpdate update = lastUpdate;
+
+        for (ListenerSlot slot : listeners) {
+            slot.offerUpdate(update);
         }
     }
 
     /**
-     * Notify a given listener of a channel value update.
+     * Notify a given listener of the channel info metadata. Called on the dispatch executor.
      *
      * @param listener The PvListener
      */
-    private void notifyPvUpdate(PvListener listener) {
+    private void notifyPvInfo(PvListener listener) {
+
+        boolean connected = couldConnect;
 
-        listener.notifyPvUpdate(pv, lastDbr);
+        listener.notifyPvInfo(pv, connected, connected ? fieldType : null,
+                connected ? elementCount : null, enumLabels);
     }
 
     /**
-     * Private inner helper class to respond to connection status changes.
+     * An update waiting to be delivered, along with the time it was received. The monotonic time
+     * measures dispatch latency and the wall clock time is passed to a QueuedPvListener.
      */
-    private class ChannelConnectionListener implements ConnectionListener {
+    private static final class PendingUpdate {
+
+        private final DBR dbr;
+        private final long receivedNanos;
+        private final long receivedMillis;
+
+        PendingUpdate(DBR dbr, long receivedNanos, long receivedMillis) {
+            this.dbr = dbr;
+            this.receivedNanos = receivedNanos;
+            this.receivedMillis = receivedMillis;
+        }
+    }
 
-        private static final long CONNECTION_TIMEOUT_MILLIS = 3000;
-        private final ScheduledFuture future;
+    /**
+     * The dispatch state of a single listener. At most one drain task per listener is queued on the
+     * dispatch executor at a time, which preserves ordering and isolates slow listeners from fast
+     * ones. A QueuedPvListener gets a queue of pending updates instead of a single slot.
+     */
+    private final class ListenerSlot implements Runnable {
+
+        private final PvListener listener;
+        private final QueuedPvListener queuedListener;
+        private final AtomicBoolean pendingInfo = new AtomicBoolean(false);
+        private final AtomicReference<PendingUpdate> pendingUpdate = new AtomicReference<>();
+        private final Queue<PendingUpdate> updateQueue;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean removed = false;
+
+        ListenerSlot(PvListener listener) {
+            this.listener = listener;
+
+            if (listener instanceof QueuedPvListener) {
+                queuedListener = (QueuedPvListener) listener;
+                updateQueue = new ConcurrentLinkedQueue<>();
+            } else {
+                queuedListener = null;
+                updateQueue = null;
+            }
+        }
 
         /**
-         * Creates a new ChannelConnectionListener.
+         * Queue channel info delivery.
          */
-        public ChannelConnectionListener() {
-            future = executor.schedule(new Callable<Void>() {
-                @Override
-                public Void call() throws Exception {
-                    if (!couldConnect) {
-                        //LOGGER.log(Level.WARNING, "Unable to connect to channel (timeout)");
-                        notifyPvInfoAll();
-                    }
-
-                    return null;
-                }
-            }, CONNECTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        void offerInfo() {
+            pendingInfo.set(true);
+            schedule();
         }
 
         /**
-         * Handle a connection event.
+         * Queue a value update, replacing any undelivered update unless the listener is queued.
          *
-         * @param ce The ConnectionEvent
+         * @param update The value and the time it was received
          */
-        @Override
-        public void connectionChanged(ConnectionEvent ce) {
-            //LOGGER.log(Level.FINEST, "Connected");
-            try {
-                //CAJChannel c2 = (CAJChannel) ce.getSource();
+        void offerUpdate(PendingUpdate update) {
+            counters.received();
 
-                if (ce.isConnected()) {
-                    couldConnect = true;
-                    future.cancel(false);
+            if (updateQueue != null) {
+                updateQueue.add(update);
+            } else if (pendingUpdate.getAndSet(update) != null) {
+                counters.coalesced();
+            }
 
-                    DBRType type = c.getFieldType();
+            schedule();
+        }
 
-                    if (type == DBRType.ENUM) {
-                        handleEnumConnection();
-                    } else {
-                        handleRegularConnection();
-                    }
-                } else {
-                    //LOGGER.log(Level.WARNING, "Unable to connect to channel (connection changed)");
+        /**
+         * Stop delivering to this listener and drop anything undelivered.
+         */
+        void discard() {
+            removed = true;
+            pendingInfo.set(false);
+
+            if (pendingUpdate.getAndSet(null) != null) {
+                counters.dropped();
+            }
+
+            if (updateQueue != null) {
+                while (updateQueue.poll() != null) {
+                    counters.dropped();
                 }
-            } catch (CAException e) {
-                LOGGER.log(Level.SEVERE, "Unable to monitor channel", e);
             }
         }
 
         /**
-         * Setup a regular (non-enum) connection.
+         * Take the next undelivered update.
          *
-         * @throws IllegalStateException If unable to initialize
-         * @throws CAException If unable to initialize
+         * @return The update or null if none
          */
-        private void handleRegularConnection() throws
-                IllegalStateException, CAException {
-            registerMonitor();
-
-            context.flushIO();
+        private PendingUpdate takeUpdate() {
+            return updateQueue != null ? updateQueue.poll() : pendingUpdate.getAndSet(null);
         }
 
         /**
-         * Setup an enum connection. A connection of an enum-valued PV requires additional metadata
-         * - the enum labels.
+         * Check for an undelivered update.
          *
-         * @throws IllegalStateException If unable to initialize
-         * @throws CAException If unable to initialize
+         * @return true if an update is pending
          */
-        private void handleEnumConnection() throws IllegalStateException, CAException {
-            c.get(DBRType.LABELS_ENUM, 1, new ChannelEnumGetListener());
-
-            context.flushIO();
+        private boolean hasUpdate() {
+            return updateQueue != null ? !updateQueue.isEmpty() : pendingUpdate.get() != null;
         }
 
         /**
-         * Register the monitor in the low-level EPICS lib plumbing.
-         * 
-         * @throws IllegalStateException If unable to register
-         * @throws CAException If unable to register
+         * Queue a drain task unless one is already queued or running.
          */
-        private void registerMonitor() throws IllegalStateException, CAException {
-            c.addMonitor(c.getFieldType(), 1, Monitor.VALUE, new ChannelMonitorListener());
+        private void schedule() {
+            if (!removed && scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatchExecutor.execute(this);
+                } catch (RejectedExecutionException e) { // Manager shutting down
+                    scheduled.set(false);
+                    discard();
+                }
+            }
         }
 
         /**
-         * A private inner inner class to respond to an enum label caget.
+         * Drain pending info and updates. Loops if more arrived while delivering so that nothing
+         * is stranded between clearing the scheduled flag and returning.
          */
-        private class ChannelEnumGetListener implements GetListener {
+        @Override
+        public void run() {
+            do {
+                if (pendingInfo.getAndSet(false) && !removed) {
+                    try {
+                        notifyPvInfo(listener);
+                    } catch (RuntimeException e) {
+                        counters.failed();
+                        LOGGER.log(Level.WARNING, "PvListener failed handling info of PV: " + pv, e);
+                    }
+                }
 
-            @Override
-            public void getCompleted(GetEvent ge) {
-                DBR_LABELS_Enum labelRecord = (DBR_LABELS_Enum) ge.getDBR();
-                enumLabels = labelRecord.getLabels();
+                PendingUpdate update;
 
-                try {
-                    registerMonitor();
+                while ((update = takeUpdate()) != null) {
+                    if (removed) {
+                        counters.dropped();
+                    } else {
+                        deliver(update);
+                    }
+                }
+
+                scheduled.set(false);
+            } while ((pendingInfo.get() || hasUpdate()) && !removed
+                    && scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * Deliver an update to the listener.
+         *
+         * @param update The update
+         */
+        private void deliver(PendingUpdate update) {
+            counters.delivered(System.nanoTime() - update.receivedNanos);
 
-                    context.flushIO();
-                } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "Unable to register monitor after enum label fetch", e);
+            try {
+                if (queuedListener != null) {
+                    queuedListener.notifyPvUpdate(pv, update.dbr, update.receivedMillis);
+                } else {
+                    listener.notifyPvUpdate(pv, update.dbr);
                 }
+            } catch (RuntimeException e) {
+                counters.failed();
+                LOGGER.log(Level.WARNING, "PvListener failed handling update of PV: " + pv, e);
             }
         }
     }
 
     /**
-     * Private inner class to handle monitor callbacks.
+     * Private inner class to handle raw backend events.
      */
-    private class ChannelMonitorListener implements MonitorListener {
+    private class BackendCallback implements MonitorCallback {
 
-        /**
-         * Handles a monitor event.
-         * 
-         * @param me The MonitorEvent
-         */
         @Override
-        public void monitorChanged(MonitorEvent me) {
-            //LOGGER.log(Level.FINEST, "Monitor Update");
-            synchronized (ChannelMonitor.this) {
-                lastDbr = me.getDBR();
+        public void connectionChanged(boolean connected, DBRType type, Integer count,
+                String[] labels) {
+            fieldType = type;
+            elementCount = count;
+            enumLabels = labels;
+            couldConnect = connected;
+
+            if (!connected) {
+                notifyPvInfoAll();
+            }
+        }
 
-                if (!initialized) {
-                    initialized = true;
+        @Override
+        public void valueChanged(DBR dbr) {
+            lastUpdate = new PendingUpdate(dbr, System.nanoTime(), System.currentTimeMillis());
 
-                    notifyPvInfoAll();
-                }
+            metrics.monitorUpdated(pv);
 
-                notifyPvUpdateAll();
+            if (initialized.compareAndSet(false, true)) {
+                notifyPvInfoAll();
             }
+
+            notifyPvUpdateAll();
         }
     }
 }
@@ -0,0 +1,160 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * An immutable snapshot of the request, connection, and monitor instrumentation of a single PV.
+ *
+ * @author ryans
+ */
+public final class ChannelStatistics {
+
+    private final String pv;
+    private final String host;
+    private final LatencyStatistics getLatency;
+    private final long getTimeouts;
+    private final long getFailures;
+    private final LatencyStatistics putLatency;
+    private final long putTimeouts;
+    private final long putFailures;
+    private final LatencyStatistics connectLatency;
+    private final long monitorUpdates;
+    private final double monitorUpdateRate;
+
+    /**
+     * Create a new ChannelStatistics.
+     *
+     * @param pv The EPICS CA PV name
+     * @param host The IOC host and port, or null if never connected
+     * @param getLatency The latency of successful CA-GETs
+     * @param getTimeouts The number of CA-GETs which timed out
+     * @param getFailures The number of CA-GETs which failed other than by timing out
+     * @param putLatency The latency of successful CA-PUTs
+     * @param putTimeouts The number of CA-PUTs which timed out
+     * @param putFailures The number of CA-PUTs which failed other than by timing out
+     * @param connectLatency The channel connect latency
+     * @param monitorUpdates The number of monitor updates received
+     * @param monitorUpdateRate The monitor updates per second
+     */
+    ChannelStatistics(String pv, String host, LatencyStatistics getLatency, long getTimeouts,
+            long getFailures, LatencyStatistics putLatency, long putTimeouts, long putFailures,
+            LatencyStatistics connectLatency, long monitorUpdates, double monitorUpdateRate) {
+        this.pv = pv;
+        this.host = host;
+        this.getLatency = getLatency;
+        this.getTimeouts = getTimeouts;
+        this.getFailures = getFailures;
+        this.putLatency = putLatency;
+        this.putTimeouts = putTimeouts;
+        this.putFailures = putFailures;
+        this.connectLatency = connectLatency;
+        this.monitorUpdates = monitorUpdates;
+        this.monitorUpdateRate = monitorUpdateRate;
+    }
+
+    /**
+     * Return the PV name.
+     *
+     * @return The EPICS CA PV name
+     */
+    public String getPv() {
+        return pv;
+    }
+
+    /**
+     * Return the host and port of the IOC which last served the PV.
+     *
+     * @return The host, or null if the PV has never connected
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Return the latency of successful CA-GETs, including connecting if necessary.
+     *
+     * @return The latency statistics
+     */
+    public LatencyStatistics getGetLatency() {
+        return getLatency;
+    }
+
+    /**
+     * Return the number of CA-GETs which timed out.
+     *
+     * @return The timeout count
+     */
+    public long getGetTimeouts() {
+        return getTimeouts;
+    }
+
+    /**
+     * Return the number of CA-GETs which failed other than by timing out.
+     *
+     * @return The failure count
+     */
+    public long getGetFailures() {
+        return getFailures;
+    }
+
+    /**
+     * Return the latency of successful CA-PUTs, including connecting if necessary.
+     *
+     * @return The latency statistics
+     */
+    public LatencyStatistics getPutLatency() {
+        return putLatency;
+    }
+
+    /**
+     * Return the number of CA-PUTs which timed out.
+     *
+     * @return The timeout count
+     */
+    public long getPutTimeouts() {
+        return putTimeouts;
+    }
+
+    /**
+     * Return the number of CA-PUTs which failed other than by timing out.
+     *
+     * @return The failure count
+     */
+    public long getPutFailures() {
+        return putFailures;
+    }
+
+    /**
+     * Return the channel connect latency, including reconnects and monitor channels.
+     *
+     * @return The latency statistics
+     */
+    public LatencyStatistics getConnectLatency() {
+        return connectLatency;
+    }
+
+    /**
+     * Return the number of monitor updates received from CA.
+     *
+     * @return The update count
+     */
+    public long getMonitorUpdates() {
+        return monitorUpdates;
+    }
+
+    /**
+     * Return the average number of monitor updates per second between the first and the most
+     * recent update.
+     *
+     * @return The update rate in Hz, or zero if fewer than two updates were received
+     */
+    public double getMonitorUpdateRate() {
+        return monitorUpdateRate;
+    }
+
+    @Override
+    public String toString() {
+        return pv + " (" + host + ") get: [" + getLatency + "], get timeouts: " + getTimeouts
+                + ", put: [" + putLatency + "], put timeouts: " + putTimeouts + ", connect: ["
+                + connectLatency + "], monitor updates: " + monitorUpdates + ", Hz: "
+                + monitorUpdateRate;
+    }
+}
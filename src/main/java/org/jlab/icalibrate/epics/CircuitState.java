@@ -0,0 +1,22 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * The state of the circuit breaker which ChannelManager keeps for each PV.
+ *
+ * @author ryans
+ */
+public enum CircuitState {
+    /**
+     * Requests are issued normally.
+     */
+    CLOSED,
+    /**
+     * The PV failed repeatedly and requests are rejected without being issued.
+     */
+    OPEN,
+    /**
+     * The PV has been open long enough that a single probe request is allowed through; its
+     * outcome closes or re-opens the circuit.
+     */
+    HALF_OPEN
+}
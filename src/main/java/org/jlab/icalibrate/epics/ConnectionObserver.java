@@ -0,0 +1,19 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * Receives channel connection events from a ChannelAccessBackend for instrumentation purposes.
+ *
+ * @author ryans
+ */
+public interface ConnectionObserver {
+
+    /**
+     * Notification that a channel connected, including reconnects.
+     *
+     * @param pv The EPICS CA PV name
+     * @param host The host and port of the IOC serving the PV, or null if unknown
+     * @param latencyNanos The time from creating (or losing) the channel to connecting in
+     * nanoseconds
+     */
+    void channelConnected(String pv, String host, long latencyNanos);
+}
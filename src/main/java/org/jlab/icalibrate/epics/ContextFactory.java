@@ -1,8 +1,9 @@
 package org.jlab.icalibrate.epics;
 
-import com.cosylab.epics.caj.CAJContext;
 import gov.aps.jca.CAException;
 import gov.aps.jca.configuration.DefaultConfiguration;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,7 +14,8 @@ import java.util.logging.Logger;
  * This class wraps around a ContextPool and provides life cycle management.
  *
  * <p>
- * A resource bundle named epics.properties is consulted to determine the EPICS addr_list value.</p>
+ * A resource bundle named epics.properties is consulted to determine the EPICS addr_list value
+ * and optionally the pool_min, pool_max, pool_timeout, and pool_check_interval values.</p>
  *
  * <p>
  * This class is a singleton which is created on application startup and destroyed on application
@@ -39,7 +41,7 @@ final class ContextFactory {
      *
      * @return The one and only ContextFactory
      */
-    public static ContextFactory getInstance() {
+    public static synchronized ContextFactory getInstance() {
         if (INSTANCE == null) {
             INSTANCE = new ContextFactory();
         }
@@ -48,13 +50,17 @@ final class ContextFactory {
     }
 
     /**
-     * Get an EPICS channel access context. Make sure to return it when you're done.
+     * Lease an EPICS channel access context. Make sure to return it when you're done.
      *
      * @return the context.
      * @throws CAException if unable to get the context.
      */
-    public CAJContext getContext() throws CAException {
-        return pool.getContext();
+    public PooledContext leaseContext() throws CAException {
+        if (pool == null) {
+            throw new CAException("Channel access context pool unavailable");
+        }
+
+        return pool.leaseContext();
     }
 
     /**
@@ -64,8 +70,36 @@ final class ContextFactory {
      * @param context the context.
      * @throws CAException if unable to return the context.
      */
-    public void returnContext(CAJContext context) throws CAException {
-        pool.returnContext(context);
+    public void returnContext(PooledContext context) throws CAException {
+        if (pool != null) {
+            pool.returnContext(context);
+        }
+    }
+
+    /**
+     * Return a snapshot of the usage counters of every pooled context.
+     *
+     * @return the list of context statistics.
+     */
+    public List<ContextStatistics> getStatistics() {
+        if (pool == null) {
+            return Collections.emptyList();
+        }
+
+        return pool.getStatistics();
+    }
+
+    /**
+     * Return a snapshot of the time leases waited for a context.
+     *
+     * @return the lease wait statistics.
+     */
+    public LatencyStatistics getLeaseWaitStatistics() {
+        if (pool == null) {
+            return LatencyStatistics.EMPTY;
+        }
+
+        return pool.getLeaseWaitStatistics();
     }
 
     /**
@@ -90,6 +124,13 @@ final class ContextFactory {
         config.setAttribute("addr_list", addrList);
         config.setAttribute("auto_addr_list", "false");
 
+        for (String key : new String[]{"pool_min", "pool_max", "pool_timeout",
+            "pool_check_interval"}) {
+            if (bundle.containsKey(key)) {
+                config.setAttribute(key, bundle.getString(key).trim());
+            }
+        }
+
         try {
             pool = new ContextPool(config);
         } catch (CAException e) {
@@ -98,10 +139,21 @@ final class ContextFactory {
     }
 
     /**
-     * Destroy the context factory.
+     * Destroy the context factory. A subsequent call to getInstance creates a new factory.
      */
     public void destruct() {
         LOGGER.log(Level.FINEST, "Destroying ContextPoolFactory");
+
+        synchronized (ContextFactory.class) {
+            if (INSTANCE == this) {
+                INSTANCE = null;
+            }
+        }
+
+        if (pool == null) {
+            return;
+        }
+
         try {
             pool.destroy();
         } catch (CAException e) {
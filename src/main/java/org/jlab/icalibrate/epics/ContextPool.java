@@ -4,185 +4,308 @@ import com.cosylab.epics.caj.CAJContext;
 import gov.aps.jca.CAException;
 import gov.aps.jca.JCALibrary;
 import gov.aps.jca.configuration.DefaultConfiguration;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Provides a pool of EPICS channel access contexts.
- * 
+ *
+ * The pool keeps at least pool_min contexts and never more than pool_max. A lease waits at most
+ * pool_timeout milliseconds for a context to become available. Viability of contexts is checked in
+ * the background every pool_check_interval milliseconds rather than on the lease path. Non-viable
+ * idle contexts are destroyed and replaced; non-viable leased contexts are retired and destroyed
+ * when they are returned instead of going back into the pool.
+ *
+ * Every context in the pool is either leased, idle, or being worked on by a thread holding a
+ * permit, so the background check can never push the pool above pool_max.
+ *
  * @author ryans
  */
 final class ContextPool {
 
     private static final Logger logger = Logger.getLogger(ContextPool.class.getName());
     private final int WAIT_TIMEOUT;
+    private final int MIN_SIZE;
     private final int MAX_SIZE;
-    private List<CAJContext> available;
-    private List<CAJContext> used;
+    private final int CHECK_INTERVAL;
+    private final BlockingDeque<PooledContext> available = new LinkedBlockingDeque<>();
+    private final Map<Integer, PooledContext> all = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+    private final LatencyHistogram leaseWait = new LatencyHistogram();
     private final DefaultConfiguration config;
-    
+    private volatile boolean destroyed = false;
+
     /**
      * Construct a ContextPool with the specified configuration.
-     * 
+     *
      * @param config the configuration.
      * @throws CAException if unable to construct a context pool.
      */
     public ContextPool(DefaultConfiguration config) throws CAException {
         logger.log(Level.FINEST, "Creating EPICS ContextPool");
-        
+
         this.config = config;
-       
-        available = new LinkedList<>();
-        used = new LinkedList<>();
 
         config.setAttribute("class", JCALibrary.CHANNEL_ACCESS_JAVA);
 
         WAIT_TIMEOUT = config.getAttributeAsInteger("pool_timeout", 1000);
-        MAX_SIZE = config.getAttributeAsInteger("pool_max", 1);
-        
-        for (int i = 0; i < MAX_SIZE; i++) {
-            addContext();
+        MAX_SIZE = Math.max(1, config.getAttributeAsInteger("pool_max", 2));
+        MIN_SIZE = Math.min(MAX_SIZE, Math.max(0, config.getAttributeAsInteger("pool_min", 1)));
+        CHECK_INTERVAL = Math.max(100, config.getAttributeAsInteger("pool_check_interval",
+                10000));
+
+        permits = new Semaphore(MAX_SIZE, true);
+
+        for (int i = 0; i < MIN_SIZE; i++) {
+            available.add(createContext());
         }
-    }
 
-    /**
-     * Determine if a context is still viable.
-     * 
-     * @param context the context.
-     * @return true if the context is viable.
-     */
-    private synchronized boolean isViable(CAJContext context) {
-        return (context != null && context.isInitialized() && !context.isDestroyed());
+        checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ContextPool viability check");
+            t.setDaemon(true);
+            return t;
+        });
+
+        checker.scheduleWithFixedDelay(this::checkViability, CHECK_INTERVAL, CHECK_INTERVAL,
+                TimeUnit.MILLISECONDS);
     }
-    
+
     /**
-     * Add a new context to the pool.
-     * 
-     * @throws CAException if unable to add the context.
+     * Create and initialize a new context.
+     *
+     * @return the new context.
+     * @throws CAException if unable to create the context.
      */
-    private synchronized void addContext() throws CAException {
+    private PooledContext createContext() throws CAException {
         CAJContext context = (CAJContext) JCALibrary.getInstance().createContext(config);
 
         context.initialize();
 
-        available.add(context);
+        PooledContext pooled = new PooledContext(nextId.incrementAndGet(), context);
+
+        all.put(pooled.getId(), pooled);
+
+        return pooled;
     }
 
     /**
-     * Replace a non-viable context with a new one.
-     * 
-     * @return a new context.
-     * @throws CAException if unable to replace the context.
+     * Destroy a context and forget about it.
+     *
+     * @param pooled the context.
      */
-    private synchronized CAJContext replaceContext() throws CAException {
-        logger.log(Level.WARNING, "Non-viable context encountered: context is null, uninitialized, or destroyed");
-            
-        addContext();
-        
-        CAJContext context = available.remove(available.size() - 1);
-        
-        if(!isViable(context)) {
-            throw new CAException("Unable to construct a viable context");
+    private void destroyContext(PooledContext pooled) {
+        all.remove(pooled.getId());
+
+        try {
+            pooled.getContext().destroy();
+        } catch (CAException | IllegalStateException e) {
+            logger.log(Level.WARNING, "Unable to destroy context", e);
         }
-        
-        return context;
     }
-    
+
+    /**
+     * Destroy any idle contexts which are no longer viable, retire any leased contexts which are no
+     * longer viable, and top the pool back up to the minimum size. Runs on the background checker
+     * thread.
+     *
+     * An idle context is only removed while holding a permit, so a concurrent lease never finds
+     * the idle set temporarily empty and creates a context the pool has no room for.
+     */
+    private void checkViability() {
+        if (destroyed) {
+            return;
+        }
+
+        for (PooledContext pooled : new ArrayList<>(all.values())) {
+            if (pooled.isViable()) {
+                continue;
+            }
+
+            if (pooled.isLeased()) {
+                if (!pooled.isRetired()) {
+                    logger.log(Level.WARNING,
+                            "Non-viable leased context {0} will be replaced when returned",
+                            pooled.getId());
+                    pooled.retire();
+                }
+            } else if (permits.tryAcquire()) {
+                try {
+                    if (available.remove(pooled)) { // Not leased meanwhile
+                        logger.log(Level.WARNING,
+                                "Non-viable context encountered: context is uninitialized or "
+                                + "destroyed");
+                        destroyContext(pooled);
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+        while (!destroyed && all.size() < MIN_SIZE && permits.tryAcquire()) {
+            try {
+                available.offerLast(createContext());
+            } catch (CAException e) {
+                logger.log(Level.WARNING, "Unable to replenish context pool", e);
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
     /**
      * Clean up the context pool and release EPICS resources.
-     * 
+     *
      * This method should be called when you are done with the pool.
-     * 
+     *
      * @throws CAException if unable to clean up the context pool.
      */
-    public synchronized void destroy() throws CAException {
+    public void destroy() throws CAException {
         logger.log(Level.FINEST, "Destroying EPICS ContextPool");
         boolean exception = false;
 
-        for (CAJContext context : available) {
+        destroyed = true;
+        checker.shutdownNow();
+
+        for (PooledContext pooled : new ArrayList<>(all.values())) {
             try {
-                context.destroy();
-            } catch (CAException e) {
+                pooled.getContext().destroy();
+            } catch (CAException | IllegalStateException e) {
                 exception = true;
             }
         }
 
+        all.clear();
         available.clear();
-        available = null;
-
-        for (CAJContext context : used) {
-            try {
-                context.destroy();
-            } catch (CAException e) {
-                exception = true;
-            }
-        }
 
-        used.clear();
-        used = null;
-        
         if (exception) {
             throw new CAException("Unable to destroy context pool: Unable to destroy all contexts");
         }
     }
 
     /**
-     * Get a EPICS channel access context from the context pool.
-     * 
+     * Lease an EPICS channel access context from the context pool, waiting up to the configured
+     * pool_timeout.
+     *
      * @return an EPICS channel access context.
      * @throws CAException if unable to obtain a context.
      */
-    public synchronized CAJContext getContext() throws CAException {
-        logger.log(Level.FINEST, "ContextPool.getContext");
+    public PooledContext leaseContext() throws CAException {
+        return leaseContext(WAIT_TIMEOUT);
+    }
 
-        if (available.isEmpty()) {
-            logger.log(Level.FINEST, "Waiting for context");
-            try {
-                this.wait(WAIT_TIMEOUT);
-            } catch (InterruptedException ex) {
-                throw new CAException("Unable to get a context from context pool: thread interrupted");
-            }
+    /**
+     * Lease an EPICS channel access context from the context pool. An idle context is used if
+     * there is one, otherwise a new context is created if the pool is below its maximum size.
+     *
+     * @param timeoutMillis the maximum number of milliseconds to wait for a context.
+     * @return an EPICS channel access context.
+     * @throws CAException if unable to obtain a context.
+     */
+    public PooledContext leaseContext(long timeoutMillis) throws CAException {
+        logger.log(Level.FINEST, "ContextPool.leaseContext");
+
+        long start = System.nanoTime();
+
+        if (destroyed) {
+            throw new CAException("Unable to get a context from context pool: pool destroyed");
         }
 
-        if (available.isEmpty()) {
-            throw new CAException("Unable to get a context from context pool: timeout reached");
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new CAException("Unable to get a context from context pool: timeout reached");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CAException("Unable to get a context from context pool: thread interrupted");
         }
 
-        CAJContext context = available.remove(0);
+        PooledContext pooled = available.pollFirst();
 
-        if (!isViable(context)) {
-            context = replaceContext();
+        if (pooled == null) {
+            try {
+                pooled = createContext();
+            } catch (CAException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
         }
 
-        used.add(context);
+        pooled.setLeased(true);
+
+        leaseWait.record(System.nanoTime() - start);
 
-        return context;
+        return pooled;
     }
 
     /**
      * Return a context to the pool.
-     * 
-     * @param context the context.
-     * @throws CAException if unable to return the context. 
+     *
+     * @param pooled the context.
+     * @throws CAException if unable to return the context.
      */
-    public synchronized void returnContext(CAJContext context) throws CAException {
+    public void returnContext(PooledContext pooled) throws CAException {
         logger.log(Level.FINEST, "ContextPool.returnContext");
-        boolean success;
 
-        success = used.remove(context);
+        if (pooled == null || !all.containsKey(pooled.getId())) {
+            throw new CAException("Unable to return a context from context pool: context does not exist in pool");
+        }
 
-        if (!success) {
-            throw new CAException("Unable to return a context from context pool: context does not exist in used set");
+        if (!pooled.isLeased()) {
+            throw new CAException("Unable to return a context from context pool: context is not leased");
         }
 
-        if (!isViable(context)) {
-            context = replaceContext();
+        pooled.setLeased(false);
+
+        if (!destroyed) {
+            if (pooled.isRetired() || !pooled.isViable()) {
+                logger.log(Level.WARNING, "Destroying non-viable returned context {0}",
+                        pooled.getId());
+                destroyContext(pooled); // The next lease creates a replacement
+            } else {
+                available.offerFirst(pooled); // Most recently used first keeps the idle set small
+            }
         }
 
-        available.add(context);
+        permits.release();
+    }
 
-        this.notify();
+    /**
+     * Return a snapshot of the usage counters of every context in the pool.
+     *
+     * @return the list of context statistics.
+     */
+    public List<ContextStatistics> getStatistics() {
+        List<ContextStatistics> list = new ArrayList<>();
+
+        for (PooledContext pooled : all.values()) {
+            list.add(pooled.getStatistics());
+        }
+
+        return list;
+    }
+
+    /**
+     * Return a snapshot of the time successful leases waited for a context, including creating
+     * one.
+     *
+     * @return the lease wait statistics.
+     */
+    public LatencyStatistics getLeaseWaitStatistics() {
+        return leaseWait.snapshot();
     }
 }
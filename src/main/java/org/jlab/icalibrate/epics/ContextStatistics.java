@@ -0,0 +1,83 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * An immutable snapshot of the usage counters of a single pooled channel access context.
+ *
+ * @author ryans
+ */
+public final class ContextStatistics {
+
+    private final int id;
+    private final boolean leased;
+    private final boolean viable;
+    private final long leases;
+    private final long operations;
+
+    /**
+     * Create a new ContextStatistics.
+     *
+     * @param id The pool assigned context identifier
+     * @param leased Whether the context is currently leased
+     * @param viable Whether the context is initialized and not destroyed
+     * @param leases The number of times the context has been leased
+     * @param operations The number of operations performed with the context
+     */
+    ContextStatistics(int id, boolean leased, boolean viable, long leases, long operations) {
+        this.id = id;
+        this.leased = leased;
+        this.viable = viable;
+        this.leases = leases;
+        this.operations = operations;
+    }
+
+    /**
+     * Return the pool assigned context identifier.
+     *
+     * @return The id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Return whether the context is currently leased.
+     *
+     * @return true if leased
+     */
+    public boolean isLeased() {
+        return leased;
+    }
+
+    /**
+     * Return whether the context is initialized and not destroyed.
+     *
+     * @return true if viable
+     */
+    public boolean isViable() {
+        return viable;
+    }
+
+    /**
+     * Return the number of times the context has been leased.
+     *
+     * @return The lease count
+     */
+    public long getLeases() {
+        return leases;
+    }
+
+    /**
+     * Return the number of operations performed with the context.
+     *
+     * @return The operation count
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    @Override
+    public String toString() {
+        return "context " + id + " (leased: " + leased + ", viable: " + viable + ", leases: "
+                + leases + ", operations: " + operations + ")";
+    }
+}
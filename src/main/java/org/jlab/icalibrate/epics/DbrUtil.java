@@ -0,0 +1,47 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.BYTE;
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DOUBLE;
+import gov.aps.jca.dbr.FLOAT;
+import gov.aps.jca.dbr.INT;
+import gov.aps.jca.dbr.SHORT;
+
+/**
+ * Utility methods for EPICS DataBaseRecords.
+ *
+ * @author ryans
+ */
+public final class DbrUtil {
+
+    private DbrUtil() {
+        // Can't instantiate publicly
+    }
+
+    /**
+     * Return the first element of a numeric DBR as a double. DOUBLE, FLOAT, INT, SHORT, and BYTE
+     * records are numeric; ENUM and STRING records are not.
+     *
+     * @param dbr The EPICS DataBaseRecord
+     * @return The value, or NaN if the DBR is null, empty, or not numeric
+     */
+    public static double toDouble(DBR dbr) {
+        if (dbr == null || dbr.getCount() < 1) {
+            return Double.NaN;
+        }
+
+        if (dbr.isDOUBLE()) {
+            return ((DOUBLE) dbr).getDoubleValue()[0];
+        } else if (dbr.isFLOAT()) {
+            return ((FLOAT) dbr).getFloatValue()[0];
+        } else if (dbr.isINT()) {
+            return ((INT) dbr).getIntValue()[0];
+        } else if (dbr.isSHORT()) {
+            return ((SHORT) dbr).getShortValue()[0];
+        } else if (dbr.isBYTE()) {
+            return ((BYTE) dbr).getByteValue()[0];
+        }
+
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,180 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * An immutable snapshot of the instrumentation of every PV served by a single IOC, identified by
+ * the host and port its channels connected to. PVs which have never connected can not be
+ * attributed to an IOC and are grouped under UNKNOWN_HOST.
+ *
+ * @author ryans
+ */
+public final class IocStatistics {
+
+    /**
+     * The host of PVs which have never connected.
+     */
+    public static final String UNKNOWN_HOST = "unknown";
+
+    private final String host;
+    private final int pvCount;
+    private final LatencyStatistics getLatency;
+    private final long getTimeouts;
+    private final long getFailures;
+    private final LatencyStatistics putLatency;
+    private final long putTimeouts;
+    private final long putFailures;
+    private final LatencyStatistics connectLatency;
+    private final long monitorUpdates;
+    private final double monitorUpdateRate;
+
+    /**
+     * Create a new IocStatistics from the statistics of its first PV.
+     *
+     * @param host The IOC host and port
+     * @param channel The PV statistics
+     */
+    IocStatistics(String host, ChannelStatistics channel) {
+        this(host, 1, channel.getGetLatency(), channel.getGetTimeouts(), channel.getGetFailures(),
+                channel.getPutLatency(), channel.getPutTimeouts(), channel.getPutFailures(),
+                channel.getConnectLatency(), channel.getMonitorUpdates(),
+                channel.getMonitorUpdateRate());
+    }
+
+    private IocStatistics(String host, int pvCount, LatencyStatistics getLatency,
+            long getTimeouts, long getFailures, LatencyStatistics putLatency, long putTimeouts,
+            long putFailures, LatencyStatistics connectLatency, long monitorUpdates,
+            double monitorUpdateRate) {
+        this.host = host;
+        this.pvCount = pvCount;
+        this.getLatency = getLatency;
+        this.getTimeouts = getTimeouts;
+        this.getFailures = getFailures;
+        this.putLatency = putLatency;
+        this.putTimeouts = putTimeouts;
+        this.putFailures = putFailures;
+        this.connectLatency = connectLatency;
+        this.monitorUpdates = monitorUpdates;
+        this.monitorUpdateRate = monitorUpdateRate;
+    }
+
+    /**
+     * Return these statistics with those of another PV of the same IOC added.
+     *
+     * @param channel The PV statistics
+     * @return The combined statistics
+     */
+    IocStatistics plus(ChannelStatistics channel) {
+        return new IocStatistics(host, pvCount + 1, getLatency.plus(channel.getGetLatency()),
+                getTimeouts + channel.getGetTimeouts(), getFailures + channel.getGetFailures(),
+                putLatency.plus(channel.getPutLatency()), putTimeouts + channel.getPutTimeouts(),
+                putFailures + channel.getPutFailures(), connectLatency.plus(
+                channel.getConnectLatency()), monitorUpdates + channel.getMonitorUpdates(),
+                monitorUpdateRate + channel.getMonitorUpdateRate());
+    }
+
+    /**
+     * Return the host and port of the IOC.
+     *
+     * @return The host, or UNKNOWN_HOST
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Return the number of PVs attributed to the IOC.
+     *
+     * @return The PV count
+     */
+    public int getPvCount() {
+        return pvCount;
+    }
+
+    /**
+     * Return the latency of successful CA-GETs of every PV of the IOC.
+     *
+     * @return The latency statistics
+     */
+    public LatencyStatistics getGetLatency() {
+        return getLatency;
+    }
+
+    /**
+     * Return the number of CA-GETs which timed out.
+     *
+     * @return The timeout count
+     */
+    public long getGetTimeouts() {
+        return getTimeouts;
+    }
+
+    /**
+     * Return the number of CA-GETs which failed other than by timing out.
+     *
+     * @return The failure count
+     */
+    public long getGetFailures() {
+        return getFailures;
+    }
+
+    /**
+     * Return the latency of successful CA-PUTs of every PV of the IOC.
+     *
+     * @return The latency statistics
+     */
+    public LatencyStatistics getPutLatency() {
+        return putLatency;
+    }
+
+    /**
+     * Return the number of CA-PUTs which timed out.
+     *
+     * @return The timeout count
+     */
+    public long getPutTimeouts() {
+        return putTimeouts;
+    }
+
+    /**
+     * Return the number of CA-PUTs which failed other than by timing out.
+     *
+     * @return The failure count
+     */
+    public long getPutFailures() {
+        return putFailures;
+    }
+
+    /**
+     * Return the channel connect latency of every PV of the IOC.
+     *
+     * @return The latency statistics
+     */
+    public LatencyStatistics getConnectLatency() {
+        return connectLatency;
+    }
+
+    /**
+     * Return the number of monitor updates received from the IOC.
+     *
+     * @return The update count
+     */
+    public long getMonitorUpdates() {
+        return monitorUpdates;
+    }
+
+    /**
+     * Return the sum of the monitor update rates of every PV of the IOC.
+     *
+     * @return The update rate in Hz
+     */
+    public double getMonitorUpdateRate() {
+        return monitorUpdateRate;
+    }
+
+    @Override
+    public String toString() {
+        return host + " (" + pvCount + " PVs) get: [" + getLatency + "], get timeouts: "
+                + getTimeouts + ", put: [" + putLatency + "], put timeouts: " + putTimeouts
+                + ", connect: [" + connectLatency + "], monitor updates: " + monitorUpdates
+                + ", Hz: " + monitorUpdateRate;
+    }
+}
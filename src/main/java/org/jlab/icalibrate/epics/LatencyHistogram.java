@@ -0,0 +1,75 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Responsible for counting latencies into fixed buckets. The bucket bounds are the same for every
+ * histogram so snapshots of different PVs can be added together, for example to aggregate the PVs
+ * of an IOC. Updated concurrently without locking.
+ *
+ * @author ryans
+ */
+final class LatencyHistogram {
+
+    /**
+     * The inclusive upper bound of each bucket in milliseconds; a final bucket counts everything
+     * slower than the last bound.
+     */
+    static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000,
+        5000};
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(
+            BUCKET_BOUNDS_MILLIS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanosTotal = new LongAdder();
+    private final AtomicLong nanosMax = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+
+        bucketCounts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        nanosTotal.add(nanos);
+        nanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Return a snapshot of the histogram.
+     *
+     * @return The statistics
+     */
+    LatencyStatistics snapshot() {
+        long[] counts = new long[bucketCounts.length()];
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts.get(i);
+        }
+
+        return new LatencyStatistics(count.sum(), nanosTotal.sum(), nanosMax.get(), counts);
+    }
+
+    /**
+     * Return the index of the bucket a latency belongs in.
+     *
+     * @param nanos The latency in nanoseconds
+     * @return The bucket index
+     */
+    private static int bucketOf(long nanos) {
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            if (nanos <= BUCKET_BOUNDS_MILLIS[i] * 1000000L) {
+                return i;
+            }
+        }
+
+        return BUCKET_BOUNDS_MILLIS.length;
+    }
+}
@@ -0,0 +1,159 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a latency histogram. Percentiles are estimated from the buckets as the
+ * upper bound of the bucket the percentile falls in, never more than the largest latency seen.
+ *
+ * @author ryans
+ */
+public final class LatencyStatistics {
+
+    /**
+     * A snapshot of a histogram which has not recorded anything.
+     */
+    public static final LatencyStatistics EMPTY = new LatencyStatistics(0, 0, 0,
+            new long[LatencyHistogram.BUCKET_BOUNDS_MILLIS.length + 1]);
+
+    private final long count;
+    private final long nanosTotal;
+    private final long nanosMax;
+    private final long[] bucketCounts;
+
+    /**
+     * Create a new LatencyStatistics.
+     *
+     * @param count The number of latencies recorded
+     * @param nanosTotal The sum of all latencies in nanoseconds
+     * @param nanosMax The largest latency in nanoseconds
+     * @param bucketCounts The number of latencies in each bucket
+     */
+    LatencyStatistics(long count, long nanosTotal, long nanosMax, long[] bucketCounts) {
+        this.count = count;
+        this.nanosTotal = nanosTotal;
+        this.nanosMax = nanosMax;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * Return the combined statistics of this snapshot and another.
+     *
+     * @param other The other snapshot
+     * @return The combined statistics
+     */
+    LatencyStatistics plus(LatencyStatistics other) {
+        long[] counts = new long[bucketCounts.length];
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts[i] + other.bucketCounts[i];
+        }
+
+        return new LatencyStatistics(count + other.count, nanosTotal + other.nanosTotal,
+                Math.max(nanosMax, other.nanosMax), counts);
+    }
+
+    /**
+     * Return the number of latencies recorded.
+     *
+     * @return The count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Return the average latency in milliseconds.
+     *
+     * @return The average latency, or NaN if nothing was recorded
+     */
+    public double getMeanMillis() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        return nanosTotal / (count * 1000000.0d);
+    }
+
+    /**
+     * Return the largest latency in milliseconds.
+     *
+     * @return The max latency, or NaN if nothing was recorded
+     */
+    public double getMaxMillis() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        return nanosMax / 1000000.0d;
+    }
+
+    /**
+     * Return the estimated median latency in milliseconds.
+     *
+     * @return The median, or NaN if nothing was recorded
+     */
+    public double getP50Millis() {
+        return getPercentileMillis(0.50d);
+    }
+
+    /**
+     * Return the estimated 99th percentile latency in milliseconds.
+     *
+     * @return The 99th percentile, or NaN if nothing was recorded
+     */
+    public double getP99Millis() {
+        return getPercentileMillis(0.99d);
+    }
+
+    /**
+     * Return an estimated percentile latency in milliseconds.
+     *
+     * @param fraction The percentile as a fraction between 0 and 1
+     * @return The percentile, or NaN if nothing was recorded
+     */
+    public double getPercentileMillis(double fraction) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+
+        for (int i = 0; i < LatencyHistogram.BUCKET_BOUNDS_MILLIS.length; i++) {
+            seen = seen + bucketCounts[i];
+
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.BUCKET_BOUNDS_MILLIS[i], getMaxMillis());
+            }
+        }
+
+        return getMaxMillis();
+    }
+
+    /**
+     * Return the inclusive upper bound of each bucket in milliseconds. There is one more bucket
+     * than bounds; the last counts everything slower than the last bound.
+     *
+     * @return The bucket bounds
+     */
+    public long[] getBucketBoundsMillis() {
+        return LatencyHistogram.BUCKET_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * Return the number of latencies in each bucket.
+     *
+     * @return The bucket counts
+     */
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + count + ", mean ms: " + getMeanMillis() + ", p50 ms: "
+                + getP50Millis() + ", p99 ms: " + getP99Millis() + ", max ms: "
+                + getMaxMillis() + ", buckets: " + Arrays.toString(bucketCounts);
+    }
+}
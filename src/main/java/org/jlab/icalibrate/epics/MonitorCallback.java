@@ -0,0 +1,30 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+
+/**
+ * Receives raw monitor events for a single PV from a ChannelAccessBackend.
+ *
+ * @author ryans
+ */
+public interface MonitorCallback {
+
+    /**
+     * Notification of the channel info metadata, or that the channel could not be connected.
+     *
+     * @param couldConnect true if the channel connected
+     * @param type The field type, or null if not connected
+     * @param count The element count, or null if not connected
+     * @param enumLabels The enum labels, or null if not an enum
+     */
+    void connectionChanged(boolean couldConnect, DBRType type, Integer count,
+            String[] enumLabels);
+
+    /**
+     * Notification of a new value.
+     *
+     * @param dbr The value
+     */
+    void valueChanged(DBR dbr);
+}
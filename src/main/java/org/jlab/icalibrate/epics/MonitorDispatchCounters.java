@@ -0,0 +1,71 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Responsible for counting ChannelMonitor listener dispatch activity. A single instance is shared
+ * by every monitor of a ChannelManager and is updated concurrently from CA callback and dispatch
+ * threads without locking.
+ *
+ * @author ryans
+ */
+final class MonitorDispatchCounters {
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyNanosTotal = new LongAdder();
+    private final AtomicLong latencyNanosMax = new AtomicLong();
+
+    /**
+     * Record a monitor update received from CA for one listener.
+     */
+    void received() {
+        received.increment();
+    }
+
+    /**
+     * Record an update which replaced an undelivered update.
+     */
+    void coalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * Record an update discarded because the listener or monitor went away before delivery.
+     */
+    void dropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Record a listener which threw an exception.
+     */
+    void failed() {
+        failed.increment();
+    }
+
+    /**
+     * Record a delivered update.
+     *
+     * @param latencyNanos The time between receipt and delivery in nanoseconds
+     */
+    void delivered(long latencyNanos) {
+        delivered.increment();
+        latencyNanosTotal.add(latencyNanos);
+        latencyNanosMax.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /**
+     * Return a snapshot of the counters.
+     *
+     * @return The statistics
+     */
+    MonitorDispatchStatistics snapshot() {
+        return new MonitorDispatchStatistics(received.sum(), delivered.sum(), coalesced.sum(),
+                dropped.sum(), failed.sum(), latencyNanosTotal.sum(), latencyNanosMax.get());
+    }
+}
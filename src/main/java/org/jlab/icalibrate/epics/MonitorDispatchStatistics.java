@@ -0,0 +1,114 @@
+package org.jlab.icalibrate.epics;
+
+/**
+ * An immutable snapshot of the ChannelManager monitor dispatch counters.
+ *
+ * @author ryans
+ */
+public final class MonitorDispatchStatistics {
+
+    private final long received;
+    private final long delivered;
+    private final long coalesced;
+    private final long dropped;
+    private final long failed;
+    private final long latencyNanosTotal;
+    private final long latencyNanosMax;
+
+    /**
+     * Create a new MonitorDispatchStatistics.
+     *
+     * @param received The number of per-listener updates received from CA
+     * @param delivered The number of updates delivered to listeners
+     * @param coalesced The number of updates replaced by a newer update before delivery
+     * @param dropped The number of updates discarded because the listener was removed
+     * @param failed The number of deliveries in which the listener threw an exception
+     * @param latencyNanosTotal The sum of all dispatch latencies in nanoseconds
+     * @param latencyNanosMax The largest dispatch latency in nanoseconds
+     */
+    MonitorDispatchStatistics(long received, long delivered, long coalesced, long dropped,
+            long failed, long latencyNanosTotal, long latencyNanosMax) {
+        this.received = received;
+        this.delivered = delivered;
+        this.coalesced = coalesced;
+        this.dropped = dropped;
+        this.failed = failed;
+        this.latencyNanosTotal = latencyNanosTotal;
+        this.latencyNanosMax = latencyNanosMax;
+    }
+
+    /**
+     * Return the number of per-listener updates received from CA.
+     *
+     * @return The received count
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * Return the number of updates delivered to listeners.
+     *
+     * @return The delivered count
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Return the number of updates which were replaced by a newer update before delivery.
+     *
+     * @return The coalesced count
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Return the number of updates discarded because the listener was removed before delivery.
+     *
+     * @return The dropped count
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Return the number of deliveries in which the listener threw an exception.
+     *
+     * @return The failed count
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Return the average time between receipt of an update and its delivery in milliseconds.
+     *
+     * @return The average dispatch latency, or NaN if nothing has been delivered
+     */
+    public double getAverageLatencyMillis() {
+        if (delivered == 0) {
+            return Double.NaN;
+        }
+
+        return latencyNanosTotal / (delivered * 1000000.0d);
+    }
+
+    /**
+     * Return the largest time between receipt of an update and its delivery in milliseconds.
+     *
+     * @return The max dispatch latency
+     */
+    public double getMaxLatencyMillis() {
+        return latencyNanosMax / 1000000.0d;
+    }
+
+    @Override
+    public String toString() {
+        return "received: " + received + ", delivered: " + delivered + ", coalesced: "
+                + coalesced + ", dropped: " + dropped + ", failed: " + failed
+                + ", avg latency ms: " + getAverageLatencyMillis() + ", max latency ms: "
+                + getMaxLatencyMillis();
+    }
+}
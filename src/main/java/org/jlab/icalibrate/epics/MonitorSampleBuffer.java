@@ -0,0 +1,379 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A PvListener which records timestamped numeric monitor updates for a set of PVs into a fixed
+ * size ring buffer per PV. This allows the average value of a PV over a time window to be computed
+ * from every update the IOC sent rather than from whatever value happened to be current when
+ * polled. As a QueuedPvListener no update is coalesced away and each is stamped with the time it
+ * was received from CA rather than the time it was delivered.
+ *
+ * Register an instance with ChannelManager.addPvs and remove it with
+ * ChannelManager.removeListener when done.
+ *
+ * @author ryans
+ */
+public class MonitorSampleBuffer implements QueuedPvListener {
+
+    private static final Logger LOGGER = Logger.getLogger(MonitorSampleBuffer.class.getName());
+
+    /**
+     * The default number of updates retained per PV.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The number of updates a PV must receive within a window before it can be considered stable.
+     */
+    public static final int MIN_STABLE_UPDATES = 2;
+
+    private final Map<String, RingBuffer> bufferMap = new HashMap<>();
+
+    /**
+     * Create a new MonitorSampleBuffer with the default capacity.
+     *
+     * @param pvs The PVs to record
+     */
+    public MonitorSampleBuffer(Collection<String> pvs) {
+        this(pvs, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new MonitorSampleBuffer.
+     *
+     * @param pvs The PVs to record
+     * @param capacity The number of updates retained per PV
+     */
+    public MonitorSampleBuffer(Collection<String> pvs, int capacity) {
+        for (String pv : pvs) {
+            bufferMap.put(pv, new RingBuffer(capacity));
+        }
+    }
+
+    /**
+     * Record an update. This is normally only called by the channel monitor, but may be called
+     * directly for example to seed a buffer.
+     *
+     * @param pv The PV
+     * @param timestampMillis The time of the update in milliseconds since the epoch
+     * @param value The value
+     */
+    public void record(String pv, long timestampMillis, double value) {
+        RingBuffer buffer = bufferMap.get(pv);
+
+        if (buffer != null) {
+            buffer.add(timestampMillis, value);
+        }
+    }
+
+    /**
+     * Return the number of updates received for a PV within the given window.
+     *
+     * @param pv The PV
+     * @param fromMillis The start of the window (inclusive)
+     * @param toMillis The end of the window (inclusive)
+     * @return The number of updates
+     */
+    public int count(String pv, long fromMillis, long toMillis) {
+        RingBuffer buffer = bufferMap.get(pv);
+
+        if (buffer == null) {
+            return 0;
+        }
+
+        return buffer.count(fromMillis, toMillis);
+    }
+
+    /**
+     * Pass every update received for a PV within the given window to a consumer, oldest first.
+     *
+     * @param pv The PV
+     * @param fromMillis The start of the window (inclusive)
+     * @param toMillis The end of the window (inclusive)
+     * @param consumer The consumer, called while the PV buffer is locked
+     */
+    public void forEach(String pv, long fromMillis, long toMillis, DoubleConsumer consumer) {
+        RingBuffer buffer = bufferMap.get(pv);
+
+        if (buffer != null) {
+            buffer.forEach(fromMillis, toMillis, consumer);
+        }
+    }
+
+    /**
+     * Return the time-weighted average value of a PV over the given window. The value in effect at
+     * the start of the window (the last update before it) is included so that a PV which did not
+     * change during the window still has an average.
+     *
+     * @param pv The PV
+     * @param fromMillis The start of the window
+     * @param toMillis The end of the window
+     * @return The average, or NaN if no value is known for the window
+     */
+    public double average(String pv, long fromMillis, long toMillis) {
+        RingBuffer buffer = bufferMap.get(pv);
+
+        if (buffer == null) {
+            return Double.NaN;
+        }
+
+        return buffer.average(fromMillis, toMillis);
+    }
+
+    /**
+     * Check whether a PV was stable over the given window. The value in effect at the start of
+     * the window and every update during it are considered; the PV is stable if both the standard
+     * deviation and the least squares linear drift across the window are within the tolerance
+     * times the magnitude of the mean. Means smaller than one unit are treated as one so that a PV
+     * hovering around zero can still be considered stable. A PV which received fewer than
+     * MIN_STABLE_UPDATES updates during the window is never stable, since a value carried over
+     * from before the window says nothing about whether it has settled.
+     *
+     * @param pv The PV
+     * @param fromMillis The start of the window
+     * @param toMillis The end of the window
+     * @param tolerance The relative tolerance (0.02 = 2%)
+     * @return true if stable, false if not or if too few updates were received in the window
+     */
+    public boolean isStable(String pv, long fromMillis, long toMillis, double tolerance) {
+        RingBuffer buffer = bufferMap.get(pv);
+
+        if (buffer == null) {
+            return false;
+        }
+
+        return buffer.isStable(fromMillis, toMillis, tolerance);
+    }
+
+    @Override
+    public void notifyPvInfo(String pv, boolean couldConnect, DBRType type, Integer count,
+            String[] enumLabels) {
+        if (!couldConnect) {
+            LOGGER.log(Level.WARNING, "Unable to monitor PV: {0}", pv);
+        }
+    }
+
+    @Override
+    public void notifyPvUpdate(String pv, DBR dbr, long receivedMillis) {
+        double value = DbrUtil.toDouble(dbr);
+
+        if (Double.isNaN(value)) {
+            LOGGER.log(Level.WARNING, "Monitor value is null or not numeric: {0}", pv);
+        } else {
+            record(pv, receivedMillis, value);
+        }
+    }
+
+    /**
+     * A fixed size ring buffer of timestamped values over primitive arrays.
+     */
+    private static class RingBuffer {
+
+        private final long[] times;
+        private final double[] values;
+        private int next = 0;
+        private int size = 0;
+
+        /**
+         * Create a new RingBuffer.
+         *
+         * @param capacity The capacity
+         */
+        RingBuffer(int capacity) {
+            times = new long[capacity];
+            values = new double[capacity];
+        }
+
+        /**
+         * Add a value, overwriting the oldest if full.
+         *
+         * @param time The timestamp
+         * @param value The value
+         */
+        synchronized void add(long time, double value) {
+            times[next] = time;
+            values[next] = value;
+            next = (next + 1) % times.length;
+
+            if (size < times.length) {
+                size++;
+            }
+        }
+
+        /**
+         * Return the physical index of the i-th oldest entry.
+         *
+         * @param i The logical index (0 is oldest)
+         * @return The physical index
+         */
+        private int index(int i) {
+            return (next - size + i + times.length) % times.length;
+        }
+
+        /**
+         * Count entries within the window.
+         *
+         * @param from The start (inclusive)
+         * @param to The end (inclusive)
+         * @return The count
+         */
+        synchronized int count(long from, long to) {
+            int count = 0;
+
+            for (int i = 0; i < size; i++) {
+                long t = times[index(i)];
+
+                if (t >= from && t <= to) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * Pass entries within the window to a consumer.
+         *
+         * @param from The start (inclusive)
+         * @param to The end (inclusive)
+         * @param consumer The consumer
+         */
+        synchronized void forEach(long from, long to, DoubleConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                int idx = index(i);
+                long t = times[idx];
+
+                if (t >= from && t <= to) {
+                    consumer.accept(values[idx]);
+                }
+            }
+        }
+
+        /**
+         * Compute the time-weighted average over the window treating the signal as holding its
+         * value until the next update.
+         *
+         * @param from The start
+         * @param to The end
+         * @return The average or NaN
+         */
+        synchronized double average(long from, long to) {
+            double weightedSum = 0;
+            long totalTime = 0;
+            boolean haveValue = false;
+            long segmentStart = from;
+            double segmentValue = Double.NaN;
+            double latestValue = Double.NaN;
+
+            for (int i = 0; i < size; i++) {
+                int idx = index(i);
+                long t = times[idx];
+
+                if (t > to) {
+                    break;
+                }
+
+                if (t <= from) { // Value in effect at start of window
+                    segmentValue = values[idx];
+                    haveValue = true;
+                } else {
+                    if (haveValue) {
+                        weightedSum = weightedSum + (segmentValue * (t - segmentStart));
+                        totalTime = totalTime + (t - segmentStart);
+                    }
+                    segmentStart = t;
+                    segmentValue = values[idx];
+                    haveValue = true;
+                }
+
+                latestValue = segmentValue;
+            }
+
+            if (!haveValue) {
+                return Double.NaN;
+            }
+
+            if (to > segmentStart) {
+                weightedSum = weightedSum + (segmentValue * (to - segmentStart));
+                totalTime = totalTime + (to - segmentStart);
+            }
+
+            if (totalTime == 0) {
+                return latestValue;
+            }
+
+            return weightedSum / totalTime;
+        }
+
+        /**
+         * Check the spread and drift of the values over the window.
+         *
+         * @param from The start
+         * @param to The end
+         * @param tolerance The relative tolerance
+         * @return true if stable
+         */
+        synchronized boolean isStable(long from, long to, double tolerance) {
+            int n = 0;
+            double sumT = 0;
+            double sumV = 0;
+            double sumTT = 0;
+            double sumTV = 0;
+            double sumVV = 0;
+            double startValue = Double.NaN;
+
+            for (int i = 0; i < size; i++) {
+                int idx = index(i);
+                long t = times[idx];
+
+                if (t > to) {
+                    break;
+                }
+
+                if (t <= from) {
+                    startValue = values[idx];
+                } else {
+                    double x = t - from;
+                    double v = values[idx];
+                    n++;
+                    sumT = sumT + x;
+                    sumV = sumV + v;
+                    sumTT = sumTT + x * x;
+                    sumTV = sumTV + x * v;
+                    sumVV = sumVV + v * v;
+                }
+            }
+
+            if (n < MIN_STABLE_UPDATES) {
+                return false;
+            }
+
+            if (!Double.isNaN(startValue)) { // Value in effect at start of window is at x = 0
+                n++;
+                sumV = sumV + startValue;
+                sumVV = sumVV + startValue * startValue;
+            }
+
+            double mean = sumV / n;
+            double limit = tolerance * Math.max(Math.abs(mean), 1.0d);
+            double variance = Math.max(0, (sumVV / n) - (mean * mean));
+            double drift = 0;
+            double timeVariance = (sumTT / n) - ((sumT / n) * (sumT / n));
+
+            if (n > 1 && timeVariance > 0) {
+                double slope = ((sumTV / n) - ((sumT / n) * mean)) / timeVariance;
+                drift = Math.abs(slope * (to - from));
+            }
+
+            return Math.sqrt(variance) <= limit && drift <= limit;
+        }
+    }
+}
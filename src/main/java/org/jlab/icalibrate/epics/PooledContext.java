@@ -0,0 +1,122 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJContext;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An EPICS channel access context owned by a ContextPool along with its usage counters. A
+ * PooledContext is leased from the pool and must be returned to it when no longer needed.
+ *
+ * @author ryans
+ */
+final class PooledContext {
+
+    private final int id;
+    private final CAJContext context;
+    private final AtomicLong leases = new AtomicLong();
+    private final LongAdder operations = new LongAdder();
+    private volatile boolean leased = false;
+    private volatile boolean retired = false;
+
+    /**
+     * Create a new PooledContext.
+     *
+     * @param id The pool assigned identifier
+     * @param context The initialized context
+     */
+    PooledContext(int id, CAJContext context) {
+        this.id = id;
+        this.context = context;
+    }
+
+    /**
+     * Return the pool assigned identifier.
+     *
+     * @return The id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Return the underlying context.
+     *
+     * @return The context
+     */
+    public CAJContext getContext() {
+        return context;
+    }
+
+    /**
+     * Record a channel access operation performed with this context.
+     */
+    public void countOperation() {
+        operations.increment();
+    }
+
+    /**
+     * Record a number of channel access operations performed with this context.
+     *
+     * @param count The number of operations
+     */
+    public void countOperations(int count) {
+        operations.add(count);
+    }
+
+    /**
+     * Determine if the context is still viable.
+     *
+     * @return true if the context is viable
+     */
+    boolean isViable() {
+        return context.isInitialized() && !context.isDestroyed();
+    }
+
+    /**
+     * Determine if the context is currently leased.
+     *
+     * @return true if leased
+     */
+    boolean isLeased() {
+        return leased;
+    }
+
+    /**
+     * Mark the context as leased or idle.
+     *
+     * @param leased true if leased
+     */
+    void setLeased(boolean leased) {
+        if (leased) {
+            leases.incrementAndGet();
+        }
+
+        this.leased = leased;
+    }
+
+    /**
+     * Determine if the context has been found non-viable while leased.
+     *
+     * @return true if the context must not be returned to the idle set
+     */
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Mark the context as non-viable so that it is destroyed rather than reused when returned.
+     */
+    void retire() {
+        retired = true;
+    }
+
+    /**
+     * Return a snapshot of the usage counters.
+     *
+     * @return The statistics
+     */
+    ContextStatistics getStatistics() {
+        return new ContextStatistics(id, leased, isViable(), leases.get(), operations.sum());
+    }
+}
@@ -0,0 +1,33 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+
+/**
+ * Thrown (or reported in a BatchGetResult) instead of issuing a request when the circuit breaker
+ * of a PV is open because its IOC has repeatedly failed to respond.
+ *
+ * @author ryans
+ */
+public class PvUnavailableException extends CAException {
+
+    private final String pv;
+
+    /**
+     * Create a new PvUnavailableException.
+     *
+     * @param pv The EPICS CA PV name
+     */
+    public PvUnavailableException(String pv) {
+        super("PV is unavailable after repeated failures: " + pv);
+        this.pv = pv;
+    }
+
+    /**
+     * Return the PV.
+     *
+     * @return The EPICS CA PV name
+     */
+    public String getPv() {
+        return pv;
+    }
+}
@@ -0,0 +1,38 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.DBR;
+
+/**
+ * A PvListener which must see every monitor update rather than just the latest. Updates for a
+ * QueuedPvListener are queued instead of coalesced, delivered in the order received, and carry the
+ * time they arrived from CA so that a listener which falls behind still records accurate
+ * timestamps.
+ *
+ * The queue is unbounded so implementations should be quick, for example only appending to a
+ * buffer.
+ *
+ * @author ryans
+ */
+public interface QueuedPvListener extends PvListener {
+
+    /**
+     * Notification of PV value change along with the time it was received.
+     *
+     * @param pv The PV
+     * @param dbr The EPICS DataBaseRecord
+     * @param receivedMillis The time the update was received in milliseconds since the epoch
+     */
+    public void notifyPvUpdate(String pv, DBR dbr, long receivedMillis);
+
+    /**
+     * Notification of PV value change when the receive time is not known. Records the update as
+     * received now.
+     *
+     * @param pv The PV
+     * @param dbr The EPICS DataBaseRecord
+     */
+    @Override
+    public default void notifyPvUpdate(String pv, DBR dbr) {
+        notifyPvUpdate(pv, dbr, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,487 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+import gov.aps.jca.dbr.DBR_Double;
+import gov.aps.jca.dbr.DBR_Enum;
+import gov.aps.jca.dbr.DBR_Float;
+import gov.aps.jca.dbr.DBR_Short;
+import gov.aps.jca.dbr.DBR_String;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A ChannelAccessBackend which serves PVs from memory so that the application can be exercised
+ * and benchmarked without an IOC.
+ *
+ * PVs must be added before use; requests for unknown PVs fail the way an unreachable PV does. Each
+ * PV has its own latency, jitter, and update rate (see SimulatedPv). An optional
+ * SimulatedBeamModel recomputes the beam current and dose rate PVs whenever the attenuator PV is
+ * put.
+ *
+ * Example:
+ * <pre>
+ * SimulatedBackend backend = new SimulatedBackend(42);
+ * backend.setBeamModel(new SimulatedBeamModel("att", "current", 0.01)
+ *         .addDoseRatePv("dose1", 2.5, 0.1).setNoiseFraction(0.02));
+ * backend.getPv("dose1").setLatency(5, 2).setUpdateRate(10);
+ * ChannelManager manager = new ChannelManager(backend);
+ * </pre>
+ *
+ * @author ryans
+ */
+public final class SimulatedBackend implements ChannelAccessBackend {
+
+    /**
+     * Puts wait as long as CAJ would: the connect plus the put.
+     */
+    private static final long PUT_TIMEOUT_MILLIS = (long) (ChannelManager.PEND_TIMEOUT_SECONDS
+            * 2 * 1000);
+
+    /**
+     * The IOC host reported for every simulated channel.
+     */
+    private static final String SIMULATED_HOST = "simulated";
+
+    private final Map<String, SimulatedPv> pvMap = new ConcurrentHashMap<>();
+    private final Random random;
+    private final ScheduledExecutorService executor;
+    private volatile SimulatedBeamModel model;
+    private final Set<String> connectedSet = ConcurrentHashMap.newKeySet();
+    private volatile ConnectionObserver observer;
+
+    /**
+     * Create a new SimulatedBackend with a random seed.
+     */
+    public SimulatedBackend() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Create a new SimulatedBackend with the given random seed so that noise and jitter are
+     * reproducible.
+     *
+     * @param seed The random seed
+     */
+    public SimulatedBackend(long seed) {
+        random = new Random(seed);
+        executor = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "SimulatedBackend");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Add (or replace) a numeric PV.
+     *
+     * @param pv The PV name
+     * @param value The initial value
+     * @return The PV
+     */
+    public SimulatedPv addPv(String pv, double value) {
+        return addPv(new SimulatedPv(pv, DBRType.DOUBLE, null, new DBR_Double(new double[]{
+            value}), this));
+    }
+
+    /**
+     * Add (or replace) a numeric PV with a FLOAT field, which rounds every value written to it to
+     * single precision.
+     *
+     * @param pv The PV name
+     * @param value The initial value
+     * @return The PV
+     */
+    public SimulatedPv addFloatPv(String pv, double value) {
+        return addPv(new SimulatedPv(pv, DBRType.FLOAT, null, new DBR_Float(new float[]{
+            (float) value}), this));
+    }
+
+    /**
+     * Add (or replace) a numeric PV with a SHORT field, which truncates every value written to it
+     * to a 16 bit integer.
+     *
+     * @param pv The PV name
+     * @param value The initial value
+     * @return The PV
+     */
+    public SimulatedPv addShortPv(String pv, double value) {
+        return addPv(new SimulatedPv(pv, DBRType.SHORT, null, new DBR_Short(new short[]{
+            (short) value}), this));
+    }
+
+    /**
+     * Add (or replace) an enum PV.
+     *
+     * @param pv The PV name
+     * @param index The initial index
+     * @param labels The enum labels
+     * @return The PV
+     */
+    public SimulatedPv addEnumPv(String pv, int index, String... labels) {
+        return addPv(new SimulatedPv(pv, DBRType.ENUM, labels, new DBR_Enum(new short[]{
+            (short) index}), this));
+    }
+
+    /**
+     * Add (or replace) a String PV.
+     *
+     * @param pv The PV name
+     * @param value The initial value
+     * @return The PV
+     */
+    public SimulatedPv addStringPv(String pv, String value) {
+        return addPv(new SimulatedPv(pv, DBRType.STRING, null, new DBR_String(new String[]{
+            value}), this));
+    }
+
+    /**
+     * Add a PV, stopping the updates of any PV it replaces.
+     *
+     * @param simulated The PV
+     * @return The PV
+     */
+    private SimulatedPv addPv(SimulatedPv simulated) {
+        SimulatedPv old = pvMap.put(simulated.getName(), simulated);
+
+        if (old != null) {
+            old.stop();
+        }
+
+        return simulated;
+    }
+
+    /**
+     * Return a PV.
+     *
+     * @param pv The PV name
+     * @return The PV, or null if it does not exist
+     */
+    public SimulatedPv getPv(String pv) {
+        return pvMap.get(pv);
+    }
+
+    /**
+     * Set the beam model. Any of its PVs which do not exist yet are added (the attenuator starts
+     * at zero) and the current and dose rate PVs are given generators which follow the model.
+     *
+     * @param model The model
+     */
+    public void setBeamModel(SimulatedBeamModel model) {
+        this.model = model;
+
+        SimulatedPv attenuator = pvMap.get(model.getAttenuatorPv());
+
+        if (attenuator == null) {
+            attenuator = addPv(model.getAttenuatorPv(), 0);
+        }
+
+        SimulatedPv attenuatorPv = attenuator;
+
+        SimulatedPv current = pvMap.get(model.getCurrentPv());
+
+        if (current == null) {
+            current = addPv(model.getCurrentPv(), 0);
+        }
+
+        current.setGenerator(() -> model.noisy(model.current(attenuatorPv.getDoubleValue()),
+                random.nextGaussian()));
+
+        for (String pv : model.getDoseMap().keySet()) {
+            SimulatedPv dose = pvMap.get(pv);
+
+            if (dose == null) {
+                dose = addPv(pv, 0);
+            }
+
+            dose.setGenerator(() -> model.noisy(model.doseRate(pv, model.current(
+                    attenuatorPv.getDoubleValue())), random.nextGaussian()));
+        }
+
+        applyModel();
+    }
+
+    /**
+     * Recompute the beam current and dose rate PVs from the attenuator.
+     */
+    private void applyModel() {
+        SimulatedBeamModel m = model;
+
+        if (m == null) {
+            return;
+        }
+
+        pvMap.get(m.getCurrentPv()).tick();
+
+        for (String pv : m.getDoseMap().keySet()) {
+            pvMap.get(pv).tick();
+        }
+    }
+
+    /**
+     * Return the executor used for periodic updates and asynchronous completion.
+     *
+     * @return The executor
+     */
+    ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Return a uniformly distributed random number between zero (inclusive) and bound
+     * (exclusive).
+     *
+     * @param bound The bound
+     * @return The random number
+     */
+    long nextLong(long bound) {
+        return random.nextInt((int) Math.min(Integer.MAX_VALUE, bound));
+    }
+
+    /**
+     * Look up a PV for a blocking request, waiting its latency first.
+     *
+     * @param pv The PV name
+     * @param operation The operation name for error messages
+     * @param timeoutMillis The number of milliseconds to wait
+     * @return The PV
+     * @throws CAException If interrupted
+     * @throws TimeoutException If the PV does not exist or its latency exceeds the timeout
+     */
+    private SimulatedPv await(String pv, String operation, long timeoutMillis) throws
+            CAException, TimeoutException {
+        SimulatedPv simulated = pvMap.get(pv);
+        long delay = simulated == null ? timeoutMillis : Math.min(timeoutMillis,
+                simulated.nextDelayMillis());
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CAException("Interrupted during EPICS CA " + operation + " of PV: " + pv,
+                    e);
+        }
+
+        if (simulated == null || delay == timeoutMillis) {
+            throw new TimeoutException("Timeout waiting for EPICS CA " + operation + " of PV: "
+                    + pv);
+        }
+
+        connected(pv, delay);
+
+        return simulated;
+    }
+
+    @Override
+    public DBR get(String pv, double timeoutSeconds) throws CAException, TimeoutException {
+        return await(pv, "Get", (long) (timeoutSeconds * 1000)).getValue();
+    }
+
+    @Override
+    public CompletableFuture<BatchGetResult> getAll(Collection<String> pvs,
+            double timeoutSeconds) {
+        Map<String, DBR> dbrMap = new ConcurrentHashMap<>();
+        Map<String, Exception> failureMap = new ConcurrentHashMap<>();
+        Map<String, Long> latencyMap = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long timeoutMillis = (long) (timeoutSeconds * 1000);
+        long startNanos = System.nanoTime();
+
+        for (String pv : pvs) {
+            SimulatedPv simulated = pvMap.get(pv);
+            long delay = simulated == null ? timeoutMillis : Math.min(timeoutMillis,
+                    simulated.nextDelayMillis());
+            boolean timeout = simulated == null || delay == timeoutMillis;
+
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            futures.add(future);
+
+            executor.schedule(() -> {
+                if (timeout) {
+                    failureMap.put(pv, new TimeoutException(
+                            "Timeout waiting for EPICS CA Get of PV: " + pv));
+                } else {
+                    dbrMap.put(pv, simulated.getValue());
+                    connected(pv, delay);
+                }
+                latencyMap.put(pv, System.nanoTime() - startNanos);
+                future.complete(null);
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> new BatchGetResult(dbrMap, failureMap, latencyMap));
+    }
+
+    @Override
+    public void put(String pv, String value) throws CAException, TimeoutException {
+        try {
+            await(pv, "Put", PUT_TIMEOUT_MILLIS).setValue(value);
+        } catch (NumberFormatException e) {
+            throw new CAException("Unable to perform EPICS CA Put of PV: " + pv, e);
+        }
+
+        if (model != null && pv.equals(model.getAttenuatorPv())) {
+            applyModel();
+        }
+    }
+
+    @Override
+    public void put(String pv, Number value) throws CAException, TimeoutException {
+        await(pv, "Put", PUT_TIMEOUT_MILLIS).setValue(value.doubleValue());
+
+        if (model != null && pv.equals(model.getAttenuatorPv())) {
+            applyModel();
+        }
+    }
+
+    @Override
+    public CompletableFuture<BatchPutResult> putAll(Map<String, ? extends Number> values,
+            double timeoutSeconds) {
+        Set<String> confirmedSet = ConcurrentHashMap.newKeySet();
+        Map<String, Exception> failureMap = new ConcurrentHashMap<>();
+        Map<String, Long> latencyMap = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long timeoutMillis = (long) (timeoutSeconds * 1000);
+        long startNanos = System.nanoTime();
+
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            String pv = entry.getKey();
+            double value = entry.getValue().doubleValue();
+            SimulatedPv simulated = pvMap.get(pv);
+            long delay = simulated == null ? timeoutMillis : Math.min(timeoutMillis,
+                    simulated.nextDelayMillis());
+            boolean timeout = simulated == null || delay == timeoutMillis;
+
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            futures.add(future);
+
+            executor.schedule(() -> {
+                if (timeout) {
+                    failureMap.put(pv, new TimeoutException(
+                            "Timeout waiting for EPICS CA Put of PV: " + pv));
+                } else {
+                    simulated.setValue(value);
+                    confirmedSet.add(pv);
+                    connected(pv, delay);
+
+                    if (model != null && pv.equals(model.getAttenuatorPv())) {
+                        applyModel();
+                    }
+                }
+                latencyMap.put(pv, System.nanoTime() - startNanos);
+                future.complete(null);
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> new BatchPutResult(confirmedSet, failureMap, latencyMap));
+    }
+
+    @Override
+    public Closeable subscribe(String pv, MonitorCallback callback) {
+        SimulatedPv simulated = pvMap.get(pv);
+        long delay = simulated == null ? (long) (ChannelManager.PEND_TIMEOUT_SECONDS * 1000)
+                : simulated.nextDelayMillis();
+
+        AtomicBoolean closed = new AtomicBoolean(false);
+
+        ScheduledFuture<?> connect = executor.schedule(() -> {
+            synchronized (closed) {
+                if (closed.get()) {
+                    return;
+                }
+
+                if (simulated == null) {
+                    callback.connectionChanged(false, null, null, null);
+                } else {
+                    notifyConnected(pv, delay);
+                    simulated.subscribe(callback);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+
+        return () -> {
+            connect.cancel(false);
+
+            synchronized (closed) {
+                closed.set(true);
+            }
+
+            if (simulated != null) {
+                simulated.unsubscribe(callback);
+            }
+        };
+    }
+
+    /**
+     * Notify the observer the first time a request reaches a PV, as though its channel had just
+     * been created and cached.
+     *
+     * @param pv The PV name
+     * @param delayMillis The simulated latency
+     */
+    private void connected(String pv, long delayMillis) {
+        if (connectedSet.add(pv)) {
+            notifyConnected(pv, delayMillis);
+        }
+    }
+
+    /**
+     * Notify the observer of a channel connection.
+     *
+     * @param pv The PV name
+     * @param delayMillis The simulated latency
+     */
+    private void notifyConnected(String pv, long delayMillis) {
+        ConnectionObserver o = observer;
+
+        if (o != null) {
+            o.channelConnected(pv, SIMULATED_HOST, delayMillis * 1000000L);
+        }
+    }
+
+    @Override
+    public void setConnectionObserver(ConnectionObserver observer) {
+        this.observer = observer;
+    }
+
+    @Override
+    public ChannelCacheStatistics getChannelCacheStatistics() {
+        return new ChannelCacheStatistics(0, 0, 0, 0, 0, 0, 0, pvMap.size());
+    }
+
+    @Override
+    public List<ContextStatistics> getContextStatistics() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public LatencyStatistics getLeaseWaitStatistics() {
+        return LatencyStatistics.EMPTY;
+    }
+
+    @Override
+    public void close() {
+        for (SimulatedPv simulated : pvMap.values()) {
+            simulated.stop();
+        }
+
+        executor.shutdownNow();
+    }
+}
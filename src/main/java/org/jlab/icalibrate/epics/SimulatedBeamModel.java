@@ -0,0 +1,122 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A simple model of beam current and ion chamber dose rate driven by a laser attenuator setting.
+ *
+ * The beam current is proportional to the attenuator value and each dose rate PV is a linear
+ * function of the current. Both have gaussian noise proportional to their value so that dose rate
+ * averaging and fitting see realistic scatter.
+ *
+ * @author ryans
+ */
+public final class SimulatedBeamModel {
+
+    private final String attenuatorPv;
+    private final String currentPv;
+    private final double currentPerAttenuator;
+    private final Map<String, double[]> doseMap = new LinkedHashMap<>();
+    private double noiseFraction = 0;
+
+    /**
+     * Create a new SimulatedBeamModel.
+     *
+     * @param attenuatorPv The attenuator PV name
+     * @param currentPv The beam current PV name
+     * @param currentPerAttenuator The beam current (microAmps) per unit of attenuator value
+     */
+    public SimulatedBeamModel(String attenuatorPv, String currentPv,
+            double currentPerAttenuator) {
+        this.attenuatorPv = attenuatorPv;
+        this.currentPv = currentPv;
+        this.currentPerAttenuator = currentPerAttenuator;
+    }
+
+    /**
+     * Add an ion chamber dose rate PV with dose = slope * current + intercept.
+     *
+     * @param pv The dose rate PV name
+     * @param slope The dose rate (rads/hr) per microAmp
+     * @param intercept The dose rate (rads/hr) with no beam
+     * @return This model
+     */
+    public SimulatedBeamModel addDoseRatePv(String pv, double slope, double intercept) {
+        doseMap.put(pv, new double[]{slope, intercept});
+        return this;
+    }
+
+    /**
+     * Set the relative standard deviation of the gaussian noise added to every value.
+     *
+     * @param noiseFraction The noise as a fraction of the value (0.01 = 1%)
+     * @return This model
+     */
+    public SimulatedBeamModel setNoiseFraction(double noiseFraction) {
+        this.noiseFraction = Math.max(0, noiseFraction);
+        return this;
+    }
+
+    /**
+     * Return the attenuator PV name.
+     *
+     * @return The PV name
+     */
+    public String getAttenuatorPv() {
+        return attenuatorPv;
+    }
+
+    /**
+     * Return the beam current PV name.
+     *
+     * @return The PV name
+     */
+    public String getCurrentPv() {
+        return currentPv;
+    }
+
+    /**
+     * Return an unmodifiable view of the dose rate PV names mapped to {slope, intercept}.
+     *
+     * @return The dose rate model map
+     */
+    public Map<String, double[]> getDoseMap() {
+        return Collections.unmodifiableMap(doseMap);
+    }
+
+    /**
+     * Return the noiseless beam current for an attenuator value.
+     *
+     * @param attenuator The attenuator value
+     * @return The current in microAmps
+     */
+    public double current(double attenuator) {
+        return currentPerAttenuator * attenuator;
+    }
+
+    /**
+     * Return the noiseless dose rate of a PV at a current.
+     *
+     * @param pv The dose rate PV name
+     * @param current The current in microAmps
+     * @return The dose rate in rads/hr
+     */
+    public double doseRate(String pv, double current) {
+        double[] coefficients = doseMap.get(pv);
+
+        return coefficients[0] * current + coefficients[1];
+    }
+
+    /**
+     * Apply the noise model to a value.
+     *
+     * @param value The noiseless value
+     * @param gaussian A standard normal random number
+     * @return The noisy value
+     */
+    double noisy(double value, double gaussian) {
+        return value + value * noiseFraction * gaussian;
+    }
+}
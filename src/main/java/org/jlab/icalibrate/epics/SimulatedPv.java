@@ -0,0 +1,261 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+import gov.aps.jca.dbr.DBR_Double;
+import gov.aps.jca.dbr.DBR_Enum;
+import gov.aps.jca.dbr.DBR_Float;
+import gov.aps.jca.dbr.DBR_Short;
+import gov.aps.jca.dbr.DBR_String;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * An in-memory PV of a SimulatedBackend.
+ *
+ * Each PV has its own response latency and jitter, and optionally an update rate at which the
+ * value is republished to monitors. If the PV has a generator then each periodic update draws a
+ * fresh value from it, otherwise periodic updates republish the current value.
+ *
+ * @author ryans
+ */
+public final class SimulatedPv {
+
+    private final String name;
+    private final DBRType type;
+    private final String[] enumLabels;
+    private final SimulatedBackend backend;
+    private final List<MonitorCallback> subscribers = new CopyOnWriteArrayList<>();
+    private DBR value;
+    private volatile long latencyMillis = 0;
+    private volatile long jitterMillis = 0;
+    private volatile DoubleSupplier generator;
+    private ScheduledFuture<?> updateFuture;
+
+    /**
+     * Create a new SimulatedPv.
+     *
+     * @param name The PV name
+     * @param type The field type; one of DOUBLE, FLOAT, SHORT, ENUM, or STRING
+     * @param enumLabels The enum labels, or null if not an enum
+     * @param value The initial value
+     * @param backend The owning backend
+     */
+    SimulatedPv(String name, DBRType type, String[] enumLabels, DBR value,
+            SimulatedBackend backend) {
+        this.name = name;
+        this.type = type;
+        this.enumLabels = enumLabels;
+        this.value = value;
+        this.backend = backend;
+    }
+
+    /**
+     * Return the PV name.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return the field type.
+     *
+     * @return The type
+     */
+    public DBRType getType() {
+        return type;
+    }
+
+    /**
+     * Set the response latency of the PV. Each request waits the latency plus a uniformly
+     * distributed random delay between zero and the jitter.
+     *
+     * @param latencyMillis The fixed latency in milliseconds
+     * @param jitterMillis The maximum additional random latency in milliseconds
+     * @return This PV
+     */
+    public SimulatedPv setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        return this;
+    }
+
+    /**
+     * Set the rate at which the PV publishes updates to monitors. A rate of zero means updates
+     * are only published when the value changes.
+     *
+     * @param hertz The number of updates per second
+     * @return This PV
+     */
+    public synchronized SimulatedPv setUpdateRate(double hertz) {
+        if (updateFuture != null) {
+            updateFuture.cancel(false);
+            updateFuture = null;
+        }
+
+        if (hertz > 0) {
+            long periodMicros = Math.max(1, Math.round(1000000 / hertz));
+            updateFuture = backend.getExecutor().scheduleAtFixedRate(this::tick, periodMicros,
+                    periodMicros, TimeUnit.MICROSECONDS);
+        }
+
+        return this;
+    }
+
+    /**
+     * Set the generator used to draw a new value on each periodic update.
+     *
+     * @param generator The generator, or null to republish the current value
+     * @return This PV
+     */
+    public SimulatedPv setGenerator(DoubleSupplier generator) {
+        this.generator = generator;
+        return this;
+    }
+
+    /**
+     * Set the value of the PV and notify monitors.
+     *
+     * @param value The value
+     */
+    public void setValue(double value) {
+        DBR dbr;
+
+        if (type == DBRType.ENUM) {
+            dbr = new DBR_Enum(new short[]{(short) value});
+        } else if (type == DBRType.STRING) {
+            dbr = new DBR_String(new String[]{String.valueOf(value)});
+        } else if (type == DBRType.FLOAT) { // Stored at the field's precision like an IOC
+            dbr = new DBR_Float(new float[]{(float) value});
+        } else if (type == DBRType.SHORT) {
+            dbr = new DBR_Short(new short[]{(short) value});
+        } else {
+            dbr = new DBR_Double(new double[]{value});
+        }
+
+        publish(dbr);
+    }
+
+    /**
+     * Set the value of the PV from a String and notify monitors. Numeric PVs parse the String and
+     * enum PVs accept either a label or an index.
+     *
+     * @param value The value
+     * @throws NumberFormatException If the value can not be converted to the PV type
+     */
+    public void setValue(String value) {
+        if (type == DBRType.STRING) {
+            publish(new DBR_String(new String[]{value}));
+        } else if (type == DBRType.ENUM && enumLabels != null) {
+            for (int i = 0; i < enumLabels.length; i++) {
+                if (enumLabels[i].equals(value)) {
+                    setValue(i);
+                    return;
+                }
+            }
+            setValue(Integer.parseInt(value));
+        } else {
+            setValue(Double.parseDouble(value));
+        }
+    }
+
+    /**
+     * Return the current value.
+     *
+     * @return The value
+     */
+    public synchronized DBR getValue() {
+        return value;
+    }
+
+    /**
+     * Return the current value as a double, or NaN if the PV is a String.
+     *
+     * @return The value
+     */
+    public double getDoubleValue() {
+        DBR dbr = getValue();
+        double result = Double.NaN;
+
+        if (dbr.isENUM()) {
+            result = ((DBR_Enum) dbr).getEnumValue()[0];
+        } else {
+            result = DbrUtil.toDouble(dbr);
+        }
+
+        return result;
+    }
+
+    /**
+     * Draw the next value from the generator if there is one, else republish the current value.
+     */
+    void tick() {
+        DoubleSupplier g = generator;
+
+        if (g != null) {
+            setValue(g.getAsDouble());
+        } else {
+            publish(getValue());
+        }
+    }
+
+    /**
+     * Replace the value and notify monitors. Notification happens under the PV lock so a new
+     * subscriber can never miss an update or see one out of order.
+     *
+     * @param dbr The new value
+     */
+    private synchronized void publish(DBR dbr) {
+        value = dbr;
+
+        for (MonitorCallback callback : subscribers) {
+            callback.valueChanged(dbr);
+        }
+    }
+
+    /**
+     * Add a monitor: report the connection and current value, then every subsequent update.
+     *
+     * @param callback The callback
+     */
+    synchronized void subscribe(MonitorCallback callback) {
+        callback.connectionChanged(true, type, 1, enumLabels);
+        callback.valueChanged(value);
+        subscribers.add(callback);
+    }
+
+    /**
+     * Remove a monitor.
+     *
+     * @param callback The callback
+     */
+    void unsubscribe(MonitorCallback callback) {
+        subscribers.remove(callback);
+    }
+
+    /**
+     * Stop periodic updates.
+     */
+    synchronized void stop() {
+        if (updateFuture != null) {
+            updateFuture.cancel(false);
+            updateFuture = null;
+        }
+    }
+
+    /**
+     * Return the delay the next request to this PV should take, in milliseconds.
+     *
+     * @return The delay
+     */
+    long nextDelayMillis() {
+        long jitter = jitterMillis;
+
+        return latencyMillis + (jitter == 0 ? 0 : backend.nextLong(jitter + 1));
+    }
+}
@@ -0,0 +1,116 @@
+package org.jlab.icalibrate.file.archive;
+
+import java.io.File;
+import java.util.Locale;
+import org.jlab.icalibrate.file.io.DatasetHeader;
+
+/**
+ * An entry in the archive index: an HCD file, the modification time and length it had when it
+ * was indexed, and its header. The header is null if the file could not be read, which is
+ * remembered so the file isn't read again until it changes.
+ *
+ * @author ryans
+ */
+public final class ArchiveEntry {
+
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final DatasetHeader header;
+    private final String targetLowerCase;
+    private final String passLowerCase;
+    private final String[] ionChamberNamesLowerCase;
+
+    /**
+     * Create a new ArchiveEntry.
+     *
+     * @param file The HCD file
+     * @param lastModified The file modification time when indexed
+     * @param length The file length when indexed
+     * @param header The header, or null if the file is unreadable
+     */
+    public ArchiveEntry(File file, long lastModified, long length, DatasetHeader header) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.header = header;
+
+        // Lower cased once here so filtering thousands of entries per keystroke is cheap
+        if (header != null) {
+            targetLowerCase = lowerCase(header.getTarget());
+            passLowerCase = lowerCase(header.getPass());
+            ionChamberNamesLowerCase = new String[header.getIonChamberNameList().size()];
+
+            for (int i = 0; i < ionChamberNamesLowerCase.length; i++) {
+                ionChamberNamesLowerCase[i] = lowerCase(header.getIonChamberNameList().get(i));
+            }
+        } else {
+            targetLowerCase = "";
+            passLowerCase = "";
+            ionChamberNamesLowerCase = new String[0];
+        }
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Return the HCD file.
+     *
+     * @return The file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Return the file modification time when indexed.
+     *
+     * @return The modification time in milliseconds since the epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Return the file length when indexed.
+     *
+     * @return The length in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Return the header.
+     *
+     * @return The header, or null if the file is unreadable
+     */
+    public DatasetHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Determine whether the file has changed since it was indexed.
+     *
+     * @param lastModified The current modification time
+     * @param length The current length
+     * @return true if the entry is out of date
+     */
+    boolean isStale(long lastModified, long length) {
+        return this.lastModified != lastModified || this.length != length;
+    }
+
+    String getTargetLowerCase() {
+        return targetLowerCase;
+    }
+
+    String getPassLowerCase() {
+        return passLowerCase;
+    }
+
+    String[] getIonChamberNamesLowerCase() {
+        return ionChamberNamesLowerCase;
+    }
+}
@@ -0,0 +1,99 @@
+package org.jlab.icalibrate.file.archive;
+
+import java.util.Date;
+import java.util.Locale;
+import org.jlab.icalibrate.model.Hall;
+
+/**
+ * Criteria for searching the archive index. Every criterion is optional; a null or empty value
+ * matches everything. Text criteria are case insensitive substring matches.
+ *
+ * @author ryans
+ */
+public final class ArchiveFilter {
+
+    private final Hall hall;
+    private final String target;
+    private final String pass;
+    private final Date from;
+    private final Date to;
+    private final String ionChamber;
+
+    /**
+     * Create a new ArchiveFilter.
+     *
+     * @param hall The hall, or null for any
+     * @param target Text the target must contain, or null for any
+     * @param pass Text the pass must contain, or null for any
+     * @param from The earliest calibration date (inclusive), or null for any
+     * @param to The latest calibration date (exclusive), or null for any
+     * @param ionChamber Text one of the ion chamber names must contain, or null for any
+     */
+    public ArchiveFilter(Hall hall, String target, String pass, Date from, Date to,
+            String ionChamber) {
+        this.hall = hall;
+        this.target = normalize(target);
+        this.pass = normalize(pass);
+        this.from = from;
+        this.to = to;
+        this.ionChamber = normalize(ionChamber);
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Determine whether an entry matches. Unreadable entries never match.
+     *
+     * @param entry The entry
+     * @return true if the entry matches every criterion
+     */
+    public boolean matches(ArchiveEntry entry) {
+        if (entry.getHeader() == null) {
+            return false;
+        }
+
+        if (hall != null && hall != entry.getHeader().getHall()) {
+            return false;
+        }
+
+        if (target != null && !entry.getTargetLowerCase().contains(target)) {
+            return false;
+        }
+
+        if (pass != null && !entry.getPassLowerCase().contains(pass)) {
+            return false;
+        }
+
+        Date date = entry.getHeader().getCalibratedDate();
+
+        if ((from != null || to != null) && date == null) {
+            return false;
+        }
+
+        if (from != null && date.before(from)) {
+            return false;
+        }
+
+        if (to != null && !date.before(to)) {
+            return false;
+        }
+
+        if (ionChamber != null) {
+            for (String name : entry.getIonChamberNamesLowerCase()) {
+                if (name.contains(ionChamber)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,316 @@
+package org.jlab.icalibrate.file.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.jlab.icalibrate.file.io.DatasetFileReader;
+import org.jlab.icalibrate.file.io.DatasetHeader;
+import org.jlab.icalibrate.model.Hall;
+
+/**
+ * An index of the header metadata of every HCD file in a directory, persisted so that searching
+ * years of calibrations never parses a measurement.
+ *
+ * The index is refreshed incrementally: files whose modification time and length match the
+ * persisted entry are reused, and only new or changed files are read, in parallel and header
+ * only. The persisted form is a gzipped stream of entries written to a temporary file and then
+ * moved into place so a crash never leaves a partial index.
+ *
+ * @author ryans
+ */
+public class ArchiveIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ArchiveIndex.class.getName());
+
+    private static final int MAGIC = 0x48434449; // "HCDI"
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final File indexFile;
+    private volatile List<ArchiveEntry> entryList = Collections.emptyList();
+    private boolean loaded = false;
+
+    /**
+     * Create a new ArchiveIndex.
+     *
+     * @param directory The HCD directory
+     * @param indexFile The file the index is persisted to
+     */
+    public ArchiveIndex(File directory, File indexFile) {
+        this.directory = directory;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Return the HCD directory.
+     *
+     * @return The directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Load the persisted index. A missing, corrupt, or out of date index file is ignored and the
+     * next update rebuilds it.
+     */
+    public void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(indexFile))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.log(Level.INFO, "Ignoring HCD index with unknown format: {0}", indexFile);
+                return;
+            }
+
+            if (!directory.getAbsolutePath().equals(in.readUTF())) {
+                LOGGER.log(Level.INFO, "Ignoring HCD index of another directory: {0}",
+                        indexFile);
+                return;
+            }
+
+            int count = in.readInt();
+            List<ArchiveEntry> loadedList = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                loadedList.add(readEntry(in));
+            }
+
+            entryList = Collections.unmodifiableList(loadedList);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Unable to load HCD index; it will be rebuilt", e);
+        }
+    }
+
+    /**
+     * Bring the index up to date with the directory.
+     *
+     * @return true if anything changed
+     */
+    public boolean update() {
+        File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".hcd"));
+
+        if (files == null) {
+            files = new File[0];
+        }
+
+        Map<String, ArchiveEntry> existingMap = new HashMap<>();
+
+        for (ArchiveEntry entry : entryList) {
+            existingMap.put(entry.getFile().getName(), entry);
+        }
+
+        List<ArchiveEntry> updated = new ArrayList<>(files.length);
+        List<File> changedList = new ArrayList<>();
+
+        for (File file : files) {
+            ArchiveEntry existing = existingMap.get(file.getName());
+
+            if (existing != null && !existing.isStale(file.lastModified(), file.length())) {
+                updated.add(existing);
+            } else {
+                changedList.add(file);
+            }
+        }
+
+        boolean changed = !changedList.isEmpty() || updated.size() != entryList.size();
+
+        updated.addAll(changedList.parallelStream().map(ArchiveIndex::index).collect(
+                Collectors.toList()));
+
+        if (changed) {
+            entryList = Collections.unmodifiableList(updated);
+        }
+
+        return changed;
+    }
+
+    /**
+     * Load the persisted index the first time, bring it up to date with the directory, and save
+     * it if anything changed. Safe to call from several background threads.
+     *
+     * @return true if anything changed
+     * @throws IOException If unable to save the index
+     */
+    public synchronized boolean refresh() throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+
+        boolean changed = update();
+
+        if (changed) {
+            save();
+        }
+
+        return changed;
+    }
+
+    /**
+     * Read the header of a single file.
+     *
+     * @param file The file
+     * @return The entry
+     */
+    private static ArchiveEntry index(File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        DatasetHeader header = null;
+
+        try {
+            header = new DatasetFileReader().readHeader(file);
+        } catch (Exception e) { // Any malformed file is simply left out of search results
+            LOGGER.log(Level.FINE, "Unable to index HCD file: " + file, e);
+        }
+
+        return new ArchiveEntry(file, lastModified, length, header);
+    }
+
+    /**
+     * Persist the index.
+     *
+     * @throws IOException If unable to write the index file
+     */
+    public void save() throws IOException {
+        List<ArchiveEntry> snapshot = entryList;
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create HCD index directory: " + parent);
+        }
+
+        File tmp = new File(indexFile.getAbsolutePath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(directory.getAbsolutePath());
+            out.writeInt(snapshot.size());
+
+            for (ArchiveEntry entry : snapshot) {
+                writeEntry(out, entry);
+            }
+        }
+
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Return every entry, including unreadable files.
+     *
+     * @return The unmodifiable list of entries
+     */
+    public List<ArchiveEntry> getEntryList() {
+        return entryList;
+    }
+
+    /**
+     * Return the readable entries matching a filter, most recent calibration first.
+     *
+     * @param filter The filter
+     * @return The matching entries
+     */
+    public List<ArchiveEntry> search(ArchiveFilter filter) {
+        List<ArchiveEntry> result = new ArrayList<>();
+
+        for (ArchiveEntry entry : entryList) {
+            if (filter.matches(entry)) {
+                result.add(entry);
+            }
+        }
+
+        result.sort(Comparator.comparing((ArchiveEntry e) -> e.getHeader().getCalibratedDate(),
+                Comparator.nullsLast(Comparator.reverseOrder())));
+
+        return result;
+    }
+
+    private void writeEntry(DataOutputStream out, ArchiveEntry entry) throws IOException {
+        out.writeUTF(entry.getFile().getName());
+        out.writeLong(entry.getLastModified());
+        out.writeLong(entry.getLength());
+
+        DatasetHeader header = entry.getHeader();
+
+        out.writeBoolean(header != null);
+
+        if (header != null) {
+            writeString(out, header.getHall() == null ? null : header.getHall().name());
+            writeString(out, header.getTarget());
+            writeString(out, header.getPass());
+            writeString(out, header.getNote());
+            out.writeLong(header.getCalibratedDate() == null ? Long.MIN_VALUE
+                    : header.getCalibratedDate().getTime());
+            writeString(out, header.getCalibratedBy());
+            out.writeInt(header.getIonChamberNameList().size());
+
+            for (String name : header.getIonChamberNameList()) {
+                out.writeUTF(name);
+            }
+        }
+    }
+
+    private ArchiveEntry readEntry(DataInputStream in) throws IOException {
+        File file = new File(directory, in.readUTF());
+        long lastModified = in.readLong();
+        long length = in.readLong();
+        DatasetHeader header = null;
+
+        if (in.readBoolean()) {
+            String hall = readString(in);
+            String target = readString(in);
+            String pass = readString(in);
+            String note = readString(in);
+            long date = in.readLong();
+            String calibratedBy = readString(in);
+            int count = in.readInt();
+            List<String> ionChamberList = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                ionChamberList.add(in.readUTF());
+            }
+
+            header = new DatasetHeader(hall == null ? null : Hall.valueOf(hall), target, pass,
+                    note, date == Long.MIN_VALUE ? null : new Date(date), calibratedBy,
+                    ionChamberList);
+        }
+
+        return new ArchiveEntry(file, lastModified, length, header);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
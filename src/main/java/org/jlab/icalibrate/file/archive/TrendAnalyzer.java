@@ -0,0 +1,215 @@
+package org.jlab.icalibrate.file.archive;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jlab.icalibrate.file.io.DatasetFileReader;
+import org.jlab.icalibrate.model.ChamberTrend;
+import org.jlab.icalibrate.model.ChartDataset;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.TrendPoint;
+
+/**
+ * Fits every ion chamber in many HCD files and groups the fits into a time series per chamber.
+ *
+ * Files are split across a fork/join pool. Each leaf reads one file at a time, fits each chamber
+ * with the same ChartDataset models the main window uses, and keeps only the small TrendPoint
+ * results, so at most one dataset per worker thread is in memory regardless of archive size.
+ *
+ * @author ryans
+ */
+public class TrendAnalyzer {
+
+    private static final Logger LOGGER = Logger.getLogger(TrendAnalyzer.class.getName());
+
+    private static final int FILES_PER_LEAF = 4;
+
+    private final int parallelism;
+    private final AtomicInteger processed = new AtomicInteger();
+
+    /**
+     * Create a new TrendAnalyzer using every available processor.
+     */
+    public TrendAnalyzer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new TrendAnalyzer.
+     *
+     * @param parallelism The number of worker threads
+     */
+    public TrendAnalyzer(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Return the number of files processed so far by the running analysis, for progress display.
+     *
+     * @return The count
+     */
+    public int getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * Analyze the files. Files which can't be read are skipped and listed in the report.
+     *
+     * @param fileList The HCD files
+     * @return The report
+     */
+    public TrendReport analyze(List<File> fileList) {
+        long start = System.nanoTime();
+
+        processed.set(0);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Partial partial;
+
+        try {
+            partial = pool.invoke(new AnalyzeTask(fileList, 0, fileList.size()));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<ChamberTrend> trendList = new ArrayList<>(partial.pointMap.size());
+
+        for (Map.Entry<ChamberKey, List<TrendPoint>> entry : partial.pointMap.entrySet()) {
+            List<TrendPoint> pointList = entry.getValue();
+            Collections.sort(pointList);
+            trendList.add(new ChamberTrend(entry.getKey().hall, entry.getKey().epicsName,
+                    pointList));
+        }
+
+        Collections.sort(trendList);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        return new TrendReport(trendList, fileList.size(), partial.failedList, elapsedMillis);
+    }
+
+    /**
+     * Fit every chamber of a single file.
+     *
+     * @param file The file
+     * @param partial The partial result to add to
+     */
+    private void analyzeFile(File file, Partial partial) {
+        try {
+            HallCalibrationDataset dataset = new DatasetFileReader().read(file);
+
+            for (IonChamberDataset ds : dataset.getMeasuredDoseRateDataset()) {
+                ChartDataset chart = new ChartDataset(ds, 0, 0);
+                ChamberKey key = new ChamberKey(dataset.getHall(),
+                        ds.getIonChamber().getEpicsName());
+
+                partial.pointMap.computeIfAbsent(key, k -> new ArrayList<>()).add(
+                        new TrendPoint(file, dataset.getCalibratedDate(), dataset.getTarget(),
+                                dataset.getPass(), chart));
+            }
+        } catch (Exception e) { // One bad file must not sink a multi-year analysis
+            LOGGER.log(Level.FINE, "Unable to analyze HCD file: " + file, e);
+            partial.failedList.add(file);
+        } finally {
+            processed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Splits the file list in half until a leaf is small enough to process sequentially.
+     */
+    private final class AnalyzeTask extends RecursiveTask<Partial> {
+
+        private final List<File> fileList;
+        private final int from;
+        private final int to;
+
+        AnalyzeTask(List<File> fileList, int from, int to) {
+            this.fileList = fileList;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= FILES_PER_LEAF) {
+                Partial partial = new Partial();
+
+                for (int i = from; i < to; i++) {
+                    analyzeFile(fileList.get(i), partial);
+                }
+
+                return partial;
+            }
+
+            int middle = (from + to) >>> 1;
+            AnalyzeTask left = new AnalyzeTask(fileList, from, middle);
+            AnalyzeTask right = new AnalyzeTask(fileList, middle, to);
+
+            left.fork();
+
+            Partial result = right.compute();
+            result.merge(left.join());
+
+            return result;
+        }
+    }
+
+    /**
+     * The points and failures of a range of files.
+     */
+    private static final class Partial {
+
+        private final Map<ChamberKey, List<TrendPoint>> pointMap = new HashMap<>();
+        private final List<File> failedList = new ArrayList<>();
+
+        void merge(Partial other) {
+            for (Map.Entry<ChamberKey, List<TrendPoint>> entry : other.pointMap.entrySet()) {
+                pointMap.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(
+                        entry.getValue());
+            }
+
+            failedList.addAll(other.failedList);
+        }
+    }
+
+    /**
+     * Identifies an ion chamber across files.
+     */
+    private static final class ChamberKey {
+
+        private final Hall hall;
+        private final String epicsName;
+
+        ChamberKey(Hall hall, String epicsName) {
+            this.hall = hall;
+            this.epicsName = epicsName;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hall.hashCode() + epicsName.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ChamberKey)) {
+                return false;
+            }
+
+            ChamberKey other = (ChamberKey) obj;
+
+            return hall == other.hall && epicsName.equals(other.epicsName);
+        }
+    }
+}
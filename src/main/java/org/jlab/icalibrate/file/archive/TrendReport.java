@@ -0,0 +1,71 @@
+package org.jlab.icalibrate.file.archive;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import org.jlab.icalibrate.model.ChamberTrend;
+
+/**
+ * The result of a TrendAnalyzer run.
+ *
+ * @author ryans
+ */
+public final class TrendReport {
+
+    private final List<ChamberTrend> chamberTrendList;
+    private final int fileCount;
+    private final List<File> failedFileList;
+    private final long elapsedMillis;
+
+    /**
+     * Create a new TrendReport.
+     *
+     * @param chamberTrendList The per chamber trends
+     * @param fileCount The number of files analyzed
+     * @param failedFileList The files which could not be read
+     * @param elapsedMillis The wall clock time of the analysis
+     */
+    public TrendReport(List<ChamberTrend> chamberTrendList, int fileCount,
+            List<File> failedFileList, long elapsedMillis) {
+        this.chamberTrendList = Collections.unmodifiableList(chamberTrendList);
+        this.fileCount = fileCount;
+        this.failedFileList = Collections.unmodifiableList(failedFileList);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Return the per chamber trends, ordered by hall then name.
+     *
+     * @return The trends
+     */
+    public List<ChamberTrend> getChamberTrendList() {
+        return chamberTrendList;
+    }
+
+    /**
+     * Return the number of files analyzed.
+     *
+     * @return The count
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Return the files which could not be read.
+     *
+     * @return The files
+     */
+    public List<File> getFailedFileList() {
+        return failedFileList;
+    }
+
+    /**
+     * Return the wall clock time of the analysis.
+     *
+     * @return The elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides the hall calibration dataset (HCD) archive index and trend analysis classes.
+ */
+package org.jlab.icalibrate.file.archive;
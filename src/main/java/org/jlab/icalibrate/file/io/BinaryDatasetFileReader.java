@@ -0,0 +1,222 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.jlab.icalibrate.exception.MissingDataException;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamber;
+import org.jlab.icalibrate.model.IonChamberDataset;
+
+/**
+ * Responsible for reading binary hall calibration dataset (HCD v2 and v3) files.
+ *
+ * The file is memory mapped and only the header, metadata, and chamber table are decoded up
+ * front. The column blocks of an ion chamber are decoded the first time its measurement list is
+ * accessed, so opening a file and looking at one chamber does not materialise the rest. See
+ * HcdBinaryFormat for the layout.
+ *
+ * @author ryans
+ */
+public class BinaryDatasetFileReader {
+
+    /**
+     * Reads the specified file and returns the HallCalibrationDataset.
+     *
+     * @param file The binary HCD file
+     * @return The parsed HallCalibrationDataset
+     * @throws IOException If an IO problem occurs or the file is malformed
+     * @throws MissingDataException If expected data is not found
+     */
+    public HallCalibrationDataset read(File file) throws IOException, MissingDataException {
+        ByteBuffer buffer = map(file);
+
+        try {
+            return parse(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                | IllegalArgumentException e) {
+            throw new IOException("HCD file is truncated or corrupt", e);
+        }
+    }
+
+    /**
+     * Reads only the metadata and ion chamber names of the specified file.
+     *
+     * @param file The binary HCD file
+     * @return The header
+     * @throws IOException If an IO problem occurs or the file is malformed
+     */
+    public DatasetHeader readHeader(File file) throws IOException {
+        ByteBuffer buffer = map(file);
+
+        try {
+            Metadata metadata = parseMetadata(buffer);
+            List<String> ionChamberList = new ArrayList<>(metadata.chamberCount);
+
+            for (int i = 0; i < metadata.chamberCount; i++) {
+                String epicsName = getString(buffer);
+                getString(buffer); // friendly name
+                buffer.position(buffer.position() + 4 + metadata.columns * (8 + 4 + 1));
+
+                if (epicsName == null) {
+                    throw new IOException("HCD file chamber table is corrupt");
+                }
+
+                ionChamberList.add(epicsName);
+            }
+
+            return new DatasetHeader(metadata.hall, metadata.target, metadata.pass,
+                    metadata.note, metadata.calibratedDate, metadata.calibratedBy,
+                    ionChamberList);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                | IllegalArgumentException e) {
+            throw new IOException("HCD file is truncated or corrupt", e);
+        }
+    }
+
+    private ByteBuffer map(File file) throws IOException {
+        MappedByteBuffer mapped;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        return mapped.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private Metadata parseMetadata(ByteBuffer buffer) throws IOException {
+        byte[] magic = new byte[HcdBinaryFormat.MAGIC.length];
+        buffer.get(magic);
+
+        if (!Arrays.equals(HcdBinaryFormat.MAGIC, magic)) {
+            throw new IOException("HCD file is missing binary header");
+        }
+
+        int version = buffer.getInt();
+
+        if (version < HcdBinaryFormat.MIN_VERSION || version > HcdBinaryFormat.VERSION) {
+            throw new IOException("HCD file format version " + version + " is not supported");
+        }
+
+        Metadata metadata = new Metadata();
+
+        metadata.columns = HcdBinaryFormat.columns(version);
+
+        metadata.chamberCount = buffer.getInt();
+        buffer.getInt(); // flags
+        buffer.getInt(); // metadata length
+        long tableOffset = buffer.getLong();
+
+        if (metadata.chamberCount < 0 || tableOffset < HcdBinaryFormat.HEADER_BYTES
+                || tableOffset > buffer.limit()) {
+            throw new IOException("HCD file header is corrupt");
+        }
+
+        String hallName = getString(buffer);
+
+        if (hallName == null) {
+            throw new IOException("HCD file is missing Hall metadata");
+        }
+
+        metadata.hall = Hall.valueOf(hallName);
+        metadata.target = getString(buffer);
+        metadata.pass = getString(buffer);
+        metadata.note = getString(buffer);
+        long date = buffer.getLong();
+        metadata.calibratedDate = date == Long.MIN_VALUE ? null : new Date(date);
+        metadata.calibratedBy = getString(buffer);
+
+        buffer.position((int) tableOffset);
+
+        return metadata;
+    }
+
+    private HallCalibrationDataset parse(ByteBuffer buffer) throws IOException,
+            MissingDataException {
+        Metadata metadata = parseMetadata(buffer);
+        int chamberCount = metadata.chamberCount;
+        Hall hall = metadata.hall;
+
+        List<IonChamberDataset> datasetList = new ArrayList<>(chamberCount);
+
+        for (int i = 0; i < chamberCount; i++) {
+            String epicsName = getString(buffer);
+            String friendlyName = getString(buffer);
+            int count = buffer.getInt();
+
+            if (epicsName == null || count < 0) {
+                throw new IOException("HCD file chamber table is corrupt");
+            }
+
+            long[] offsets = new long[HcdBinaryFormat.COLUMNS];
+            int[] lengths = new int[HcdBinaryFormat.COLUMNS];
+            byte[] codecs = new byte[HcdBinaryFormat.COLUMNS]; // Columns a version lacks are ABSENT
+
+            for (int c = 0; c < metadata.columns; c++) {
+                offsets[c] = buffer.getLong();
+                lengths[c] = buffer.getInt();
+                codecs[c] = buffer.get();
+
+                if (codecs[c] != HcdBinaryFormat.CODEC_ABSENT
+                        && (offsets[c] < 0 || lengths[c] < 0
+                        || offsets[c] + lengths[c] > buffer.limit())) {
+                    throw new IOException("HCD file column block of " + epicsName
+                            + " is outside the file");
+                }
+            }
+
+            if (codecs[HcdBinaryFormat.CURRENT_COLUMN] == HcdBinaryFormat.CODEC_ABSENT
+                    || codecs[HcdBinaryFormat.DOSE_RATE_COLUMN] == HcdBinaryFormat.CODEC_ABSENT) {
+                throw new IOException("HCD file is missing measurements of " + epicsName);
+            }
+
+            IonChamber ic = IonChamber.newInstance(hall, epicsName, friendlyName, null);
+
+            MappedColumnSource source = new MappedColumnSource(buffer, count, offsets, lengths,
+                    codecs);
+
+            source.validate(epicsName);
+
+            datasetList.add(new IonChamberDataset(ic, source, source.hasRawSamples()
+                    ? source::getRawSamples : null));
+        }
+
+        return new HallCalibrationDataset(hall, metadata.target, metadata.pass, metadata.note,
+                metadata.calibratedDate, metadata.calibratedBy, datasetList);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, HcdBinaryFormat.CHARSET);
+    }
+
+    private class Metadata {
+
+        public int chamberCount;
+        public int columns;
+        public Hall hall;
+        public String target;
+        public String pass;
+        public String note;
+        public Date calibratedDate;
+        public String calibratedBy;
+    }
+}
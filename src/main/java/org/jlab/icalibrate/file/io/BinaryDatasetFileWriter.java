@@ -0,0 +1,251 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
+
+/**
+ * Responsible for writing binary hall calibration dataset (HCD v3) files. Unlike the text format,
+ * values are stored at full double precision. See HcdBinaryFormat for the layout.
+ *
+ * @author ryans
+ */
+public class BinaryDatasetFileWriter {
+
+    private final boolean compress;
+
+    /**
+     * Create a new BinaryDatasetFileWriter which stores columns uncompressed.
+     */
+    public BinaryDatasetFileWriter() {
+        this(false);
+    }
+
+    /**
+     * Create a new BinaryDatasetFileWriter.
+     *
+     * @param compress true to deflate each column block (a block is stored raw if deflating does
+     * not make it smaller)
+     */
+    public BinaryDatasetFileWriter(boolean compress) {
+        this.compress = compress;
+    }
+
+    /**
+     * Writes the HallCalibrationDataset to the specified file. Every column is encoded before
+     * anything is written, since the dataset may have been read lazily from the very file being
+     * replaced, and the file is replaced atomically.
+     *
+     * @param file The file to write to
+     * @param dataset The dataset to write
+     * @throws IOException If unable to write the file
+     */
+    public void write(File file, HallCalibrationDataset dataset) throws IOException {
+        List<IonChamberDataset> datasetList = dataset.getMeasuredDoseRateDataset();
+
+        if (datasetList == null) {
+            datasetList = Collections.emptyList();
+        }
+
+        byte[] metadata = encodeMetadata(dataset);
+
+        List<Block[]> blockList = new ArrayList<>();
+        int tableBytes = 0;
+
+        for (IonChamberDataset ds : datasetList) {
+            blockList.add(encodeColumns(ds.getColumns(), ds.getRawSamples()));
+            tableBytes = tableBytes + stringBytes(ds.getIonChamber().getEpicsName())
+                    + stringBytes(ds.getIonChamber().getFriendlyName()) + 4
+                    + HcdBinaryFormat.COLUMNS * (8 + 4 + 1);
+        }
+
+        long tableOffset = HcdBinaryFormat.HEADER_BYTES + metadata.length;
+        long blockOffset = tableOffset + tableBytes;
+
+        ByteBuffer head = ByteBuffer.allocate((int) blockOffset).order(ByteOrder.LITTLE_ENDIAN);
+
+        head.put(HcdBinaryFormat.MAGIC);
+        head.putInt(HcdBinaryFormat.VERSION);
+        head.putInt(datasetList.size());
+        head.putInt(0); // flags
+        head.putInt(metadata.length);
+        head.putLong(tableOffset);
+        head.put(metadata);
+
+        for (int i = 0; i < datasetList.size(); i++) {
+            IonChamberDataset ds = datasetList.get(i);
+            Block[] blocks = blockList.get(i);
+
+            putString(head, ds.getIonChamber().getEpicsName());
+            putString(head, ds.getIonChamber().getFriendlyName());
+            head.putInt(ds.getColumns().size());
+
+            for (Block block : blocks) {
+                head.putLong(block.codec == HcdBinaryFormat.CODEC_ABSENT ? 0 : blockOffset);
+                head.putInt(block.bytes.length);
+                head.put(block.codec);
+                blockOffset = blockOffset + block.bytes.length;
+            }
+        }
+
+        head.flip();
+
+        FileReplacement.replace(file, temp -> {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                FileChannel channel = out.getChannel();
+
+                writeFully(channel, head);
+
+                for (Block[] blocks : blockList) {
+                    for (Block block : blocks) {
+                        if (block.bytes.length > 0) {
+                            writeFully(channel, ByteBuffer.wrap(block.bytes));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private byte[] encodeMetadata(HallCalibrationDataset dataset) {
+        String hall = dataset.getHall() == null ? null : dataset.getHall().name();
+        long date = dataset.getCalibratedDate() == null ? Long.MIN_VALUE
+                : dataset.getCalibratedDate().getTime();
+
+        int length = stringBytes(hall) + stringBytes(dataset.getTarget())
+                + stringBytes(dataset.getPass()) + stringBytes(dataset.getNote()) + 8
+                + stringBytes(dataset.getCalibratedBy());
+
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        putString(buffer, hall);
+        putString(buffer, dataset.getTarget());
+        putString(buffer, dataset.getPass());
+        putString(buffer, dataset.getNote());
+        buffer.putLong(date);
+        putString(buffer, dataset.getCalibratedBy());
+
+        return buffer.array();
+    }
+
+    private Block[] encodeColumns(MeasurementColumns columns, RawSamples rawSamples) {
+        int count = columns.size();
+
+        ByteBuffer current = ByteBuffer.allocate(count * 8).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer doseRate = ByteBuffer.allocate(count * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+        current.asDoubleBuffer().put(columns.getCurrentView());
+        doseRate.asDoubleBuffer().put(columns.getDoseRateView());
+
+        Block[] blocks = new Block[HcdBinaryFormat.COLUMNS];
+
+        blocks[HcdBinaryFormat.CURRENT_COLUMN] = encodeBlock(current.array());
+        blocks[HcdBinaryFormat.DOSE_RATE_COLUMN] = encodeBlock(doseRate.array());
+        blocks[HcdBinaryFormat.SETTLE_COLUMN] = new Block(HcdBinaryFormat.CODEC_ABSENT,
+                new byte[0]);
+
+        if (columns.hasSettleSeconds()) {
+            ByteBuffer settle = ByteBuffer.allocate(count * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int i = 0; i < count; i++) {
+                settle.putDouble(columns.getSettleSeconds(i));
+            }
+
+            blocks[HcdBinaryFormat.SETTLE_COLUMN] = encodeBlock(settle.array());
+        }
+
+        blocks[HcdBinaryFormat.SAMPLES_COLUMN] = new Block(HcdBinaryFormat.CODEC_ABSENT,
+                new byte[0]);
+
+        if (rawSamples != null) {
+            ByteBuffer samples = ByteBuffer.allocate((count + rawSamples.getTotalSampleCount())
+                    * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int i = 0; i < count; i++) {
+                samples.putDouble(rawSamples.getSampleCount(i));
+            }
+
+            for (int i = 0; i < count; i++) {
+                samples.asDoubleBuffer().put(rawSamples.getSampleView(i));
+                samples.position(samples.position() + rawSamples.getSampleCount(i) * 8);
+            }
+
+            blocks[HcdBinaryFormat.SAMPLES_COLUMN] = encodeBlock(samples.array());
+        }
+
+        return blocks;
+    }
+
+    private Block encodeBlock(byte[] raw) {
+        if (compress && raw.length > 0) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length);
+                byte[] chunk = new byte[4096];
+
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(chunk);
+                    out.write(chunk, 0, count);
+                }
+
+                if (out.size() < raw.length) {
+                    return new Block(HcdBinaryFormat.CODEC_DEFLATE, out.toByteArray());
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        return new Block(HcdBinaryFormat.CODEC_RAW, raw);
+    }
+
+    private static int stringBytes(String value) {
+        return 4 + (value == null ? 0 : value.getBytes(HcdBinaryFormat.CHARSET).length);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(HcdBinaryFormat.CHARSET);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * An encoded column block.
+     */
+    private static final class Block {
+
+        private final byte codec;
+        private final byte[] bytes;
+
+        Block(byte codec, byte[] bytes) {
+            this.codec = codec;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,24 +1,31 @@
 package org.jlab.icalibrate.file.io;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Logger;
 import org.jlab.icalibrate.exception.MissingDataException;
-import org.jlab.icalibrate.model.DoseRateMeasurement;
 import org.jlab.icalibrate.model.Hall;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
 import org.jlab.icalibrate.model.IonChamber;
 import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
 
 /**
- * Responsible for reading hall calibration dataset (HCD) files.
+ * Responsible for reading hall calibration dataset (HCD) files. The format is detected from the
+ * start of the file: binary (v2 and v3; BinaryDatasetFileWriter emits v3) files are delegated to
+ * BinaryDatasetFileReader while the text Matrix and Independent ICs formats are parsed here with a
+ * streaming HcdTextTokenizer, which reports the line and column of malformed input.
  *
  * @author ryans
  */
@@ -40,15 +47,22 @@ public class DatasetFileReader {
     public HallCalibrationDataset read(File file) throws FileNotFoundException, IOException,
             ParseException, MissingDataException {
 
+        if (HcdBinaryFormat.isBinary(file)) {
+            return new BinaryDatasetFileReader().read(file);
+        }
+
         Header header;
         List<IonChamberDataset> datasetList = new ArrayList<>();
 
-        try (Scanner scanner = new Scanner(file)) {
-            header = parseHeader(scanner);
+        try (Reader reader = new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8)) {
+            HcdTextTokenizer tokenizer = new HcdTextTokenizer(reader);
+
+            header = parseHeader(tokenizer);
             if (header.fileFormat == null) {
-                parseBodyMatrix(scanner, datasetList, header.hall);
+                parseBodyMatrix(tokenizer, datasetList, header.hall);
             } else {
-                parseBodyIndependentICs(scanner, datasetList, header.hall);
+                parseBodyIndependentICs(tokenizer, datasetList, header.hall);
             }
 
         }
@@ -57,17 +71,77 @@ public class DatasetFileReader {
                 header.calibratedBy, datasetList);
     }
 
-    private Header parseHeader(Scanner scanner) throws IOException, ParseException {
+    /**
+     * Reads only the metadata and ion chamber names of the specified file. Binary files read just
+     * the chamber table; text files skip every measurement line without parsing it.
+     *
+     * @param file The HCD file
+     * @return The header
+     * @throws FileNotFoundException If the file is not found
+     * @throws IOException If an IO problem occurs while reading or parsing
+     * @throws ParseException If a problem occurs parsing data in the file
+     */
+    public DatasetHeader readHeader(File file) throws FileNotFoundException, IOException,
+            ParseException {
+        if (HcdBinaryFormat.isBinary(file)) {
+            return new BinaryDatasetFileReader().readHeader(file);
+        }
+
+        Header header;
+        List<String> ionChamberList = new ArrayList<>();
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8)) {
+            HcdTextTokenizer tokenizer = new HcdTextTokenizer(reader);
+
+            header = parseHeader(tokenizer);
+            if (header.fileFormat == null) {
+                String line = tokenizer.readLine();
+
+                if (line != null) {
+                    String[] tokens = line.split(",");
+
+                    for (int i = 1; i < tokens.length; i++) {
+                        ionChamberList.add(tokens[i].trim());
+                    }
+                }
+            } else {
+                while (!tokenizer.isEof()) {
+                    if (tokenizer.peek() == '#' && "#IC:".equals(tokenizer.readWord())) {
+                        tokenizer.skipSpaces();
+                        ionChamberList.add(tokenizer.readWord());
+                    }
+
+                    tokenizer.skipLine();
+                }
+            }
+        }
+
+        return new DatasetHeader(header.hall, header.target, header.pass, header.note,
+                header.calibratedDate, header.calibratedBy, ionChamberList);
+    }
+
+    private String nextLine(HcdTextTokenizer tokenizer) throws IOException {
+        String line = tokenizer.readLine();
+
+        if (line == null) {
+            throw new IOException("HCD file header ended unexpectedly");
+        }
+
+        return line;
+    }
+
+    private Header parseHeader(HcdTextTokenizer tokenizer) throws IOException, ParseException {
         Header header = new Header();
 
         // START
-        String line = scanner.nextLine();
+        String line = nextLine(tokenizer);
         if (!"--- Start HCD header".equals(line)) {
             throw new IOException("HCD file is missing header");
         }
 
         // Hall
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
         String[] tokens = line.split(":");
         if (!"Hall".equals(tokens[0])) {
             throw new IOException("HCD file is missing Hall metadata");
@@ -76,7 +150,7 @@ public class DatasetFileReader {
         header.hall = Hall.valueOf(hall);
 
         // Target
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
         tokens = line.split(":");
         if (!"Target".equals(tokens[0])) {
             throw new IOException("HCD file is missing Target metadata");
@@ -85,7 +159,7 @@ public class DatasetFileReader {
         header.target = target;
 
         // Pass
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
         tokens = line.split(":");
         if (!"Pass".equals(tokens[0])) {
             throw new IOException("HCD file is missing Pass metadata");
@@ -94,7 +168,7 @@ public class DatasetFileReader {
         header.pass = pass;
 
         // Note
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
         tokens = line.split(":");
         if (!"Note".equals(tokens[0])) {
             throw new IOException("HCD file is missing Note metadata");
@@ -103,7 +177,7 @@ public class DatasetFileReader {
         header.note = note;
 
         // Calibrated Date
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
         tokens = line.split(":");
         if (!"Calibrated Date".equals(tokens[0])) {
             throw new IOException("HCD file is missing Calibrated Date metadata");
@@ -113,7 +187,7 @@ public class DatasetFileReader {
         header.calibratedDate = formatter.parse(calibratedDate);
 
         // Calibrated By
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
         tokens = line.split(":");
         if (!"Calibrated By".equals(tokens[0])) {
             throw new IOException("HCD file is missing Calibrated By metadata");
@@ -122,12 +196,12 @@ public class DatasetFileReader {
         header.calibratedBy = calibratedBy;
 
         // END
-        line = scanner.nextLine();
+        line = nextLine(tokenizer);
 
         tokens = line.split(":");
         if ("File Format".equals(tokens[0])) {
             header.fileFormat = "Independent ICs";
-            line = scanner.nextLine();
+            line = nextLine(tokenizer);
         }
 
         if (!"--- End HCD header".equals(line)) {
@@ -137,98 +211,167 @@ public class DatasetFileReader {
         return header;
     }
 
-    private void parseBodyMatrix(Scanner scanner, List<IonChamberDataset> datasetList, Hall hall) throws
-            MissingDataException {
-        String line = scanner.nextLine();
+    private void parseBodyMatrix(HcdTextTokenizer tokenizer, List<IonChamberDataset> datasetList,
+            Hall hall) throws IOException, ParseException, MissingDataException {
+        String line = tokenizer.readLine();
+
+        if (line == null) {
+            return;
+        }
 
         String[] tokens = line.split(",");
 
         List<String> ionChamberList = new ArrayList<>();
-        List<Double> currentList = new ArrayList<>();
-        List<List<Double>> doseListMatrix = new ArrayList<>();
 
         for (int i = 1; i < tokens.length; i++) {
             ionChamberList.add(tokens[i].trim());
         }
 
-        while (scanner.hasNextLine()) {
-            line = scanner.nextLine();
+        int columns = ionChamberList.size();
 
-            tokens = line.split(",");
+        // Row major: one current then one dose rate per ion chamber for each line
+        DoubleArrayBuilder currents = new DoubleArrayBuilder(64);
+        DoubleArrayBuilder doseRates = new DoubleArrayBuilder(64 * Math.max(columns, 1));
 
-            Double current = Double.parseDouble(tokens[0].trim());
-            currentList.add(current);
+        while (!tokenizer.isEof()) {
+            tokenizer.skipSpaces();
 
-            List<Double> doseList = new ArrayList<>();
-            doseListMatrix.add(doseList);
+            if (tokenizer.isEndOfLine()) { // Blank line
+                tokenizer.endLine();
+                continue;
+            }
+
+            currents.add(tokenizer.readDouble());
 
-            for (int i = 1; i < tokens.length; i++) {
-                String token = tokens[i].trim();
-                Double value = Double.parseDouble(token);
-                doseList.add(value);
+            for (int i = 0; i < columns; i++) {
+                tokenizer.skipSpaces();
+                tokenizer.expect(',');
+                tokenizer.skipSpaces();
+                doseRates.add(tokenizer.readDouble());
             }
+
+            tokenizer.endLine();
         }
 
-        for (int i = 0; i < ionChamberList.size(); i++) {
+        // Every ion chamber shares the one immutable current column
+        double[] currentColumn = currents.toArray();
+
+        for (int i = 0; i < columns; i++) {
             String epicsName = ionChamberList.get(i);
             String friendlyName = null;
             
             IonChamber ic = IonChamber.newInstance(hall, epicsName, friendlyName, null);
 
-            List<DoseRateMeasurement> measurementList = new ArrayList<>();
+            double[] doseRateColumn = new double[currentColumn.length];
 
-            for (int j = 0; j < doseListMatrix.size(); j++) {
-                List<Double> doseList = doseListMatrix.get(j);
-                Double current = currentList.get(j);
-                Double doseRate = doseList.get(i);
-
-                measurementList.add(new DoseRateMeasurement(current, doseRate));
+            for (int j = 0; j < currentColumn.length; j++) {
+                doseRateColumn[j] = doseRates.get(j * columns + i);
             }
 
-            datasetList.add(new IonChamberDataset(ic, measurementList));
+            datasetList.add(new IonChamberDataset(ic, MeasurementColumns.wrap(currentColumn,
+                    doseRateColumn, null)));
         }
     }
 
-    private void parseBodyIndependentICs(Scanner scanner, List<IonChamberDataset> datasetList, Hall hall) throws MissingDataException {
-        String line;
-        String[] tokens;
+    private void parseBodyIndependentICs(HcdTextTokenizer tokenizer,
+            List<IonChamberDataset> datasetList, Hall hall) throws IOException, ParseException,
+            MissingDataException {
         IonChamber ic = null;
-        List<DoseRateMeasurement> measurementList = null;
-        double current;
-        double doseRateRadsPerHour;
+        DoubleArrayBuilder currents = new DoubleArrayBuilder(64);
+        DoubleArrayBuilder doseRates = new DoubleArrayBuilder(64);
+        DoubleArrayBuilder settles = new DoubleArrayBuilder(64);
+        RawSamples.Builder samples = new RawSamples.Builder();
+        boolean hasSamples = false;
+
+        while (!tokenizer.isEof()) {
+            tokenizer.skipSpaces();
+
+            if (tokenizer.isEndOfLine()) { // Blank line
+                tokenizer.endLine();
+                continue;
+            }
 
-        do {
-            line = scanner.nextLine();
-            
-            tokens = line.split(" ");
+            if (tokenizer.peek() == '#') {
+                int line = tokenizer.getLine();
+                int column = tokenizer.getColumn();
+                String tag = tokenizer.readWord();
+
+                if (!"#IC:".equals(tag)) {
+                    throw HcdTextTokenizer.error(line, column, "expected '#IC:'");
+                }
 
-            if ("#IC:".equals(tokens[0])) {
                 if (ic != null) {
-                    datasetList.add(new IonChamberDataset(ic, measurementList));
+                    datasetList.add(new IonChamberDataset(ic, toColumns(currents, doseRates,
+                            settles), hasSamples ? samples.build() : null));
+                }
+
+                tokenizer.skipSpaces();
+                String epicsName = tokenizer.readWord();
+
+                if (epicsName.isEmpty()) {
+                    throw tokenizer.error("expected ion chamber name");
                 }
 
-                String epicsName = tokens[1];
-                String friendlyName = null;
-                
-                String[] pieces = line.split(epicsName);
-                if(pieces.length == 2) {
-                    friendlyName = pieces[1].trim();
+                String friendlyName = tokenizer.readLine().trim();
+
+                if (friendlyName.isEmpty()) {
+                    friendlyName = null;
                 }
-                
+
                 ic = IonChamber.newInstance(hall, epicsName, friendlyName, null);
-                measurementList = new ArrayList<>();
+                currents.clear();
+                doseRates.clear();
+                settles.clear();
+                samples = new RawSamples.Builder();
+                hasSamples = false;
             } else {
-                current = Double.parseDouble(tokens[0]);
-                doseRateRadsPerHour = Double.parseDouble(tokens[1]);
-                measurementList.add(new DoseRateMeasurement(current, doseRateRadsPerHour));
+                if (ic == null) {
+                    throw tokenizer.error("measurement before first '#IC:' line");
+                }
+
+                currents.add(tokenizer.readDouble());
+                tokenizer.skipSpaces();
+                doseRates.add(tokenizer.readDouble());
+                tokenizer.skipSpaces();
+
+                double settleSeconds = Double.NaN;
+                if (!tokenizer.isEndOfLine() && tokenizer.peek() != '|') { // Optional settle time column
+                    settleSeconds = tokenizer.readDouble();
+                    tokenizer.skipSpaces();
+                }
+                settles.add(settleSeconds);
+
+                samples.beginMeasurement();
+
+                if (!tokenizer.isEndOfLine()) { // Optional raw samples after a '|'
+                    tokenizer.expect('|');
+                    tokenizer.skipSpaces();
+                    hasSamples = true;
+
+                    while (!tokenizer.isEndOfLine()) {
+                        samples.add(tokenizer.readDouble());
+                        tokenizer.skipSpaces();
+                    }
+                }
+
+                samples.endMeasurement();
+
+                tokenizer.endLine();
             }
-        } while (scanner.hasNextLine());
+        }
 
         if (ic != null) {
-            datasetList.add(new IonChamberDataset(ic, measurementList));
+            datasetList.add(new IonChamberDataset(ic, toColumns(currents, doseRates, settles),
+                    hasSamples ? samples.build() : null));
         }
     }
 
+    private MeasurementColumns toColumns(DoubleArrayBuilder currents,
+            DoubleArrayBuilder doseRates, DoubleArrayBuilder settles) {
+        return MeasurementColumns.wrap(currents.toArray(), doseRates.toArray(),
+                settles.hasNumber() ? settles.toArray() : null);
+    }
+
     private class Header {
 
         public Hall hall;
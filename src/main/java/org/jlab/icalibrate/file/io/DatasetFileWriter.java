@@ -1,18 +1,19 @@
 package org.jlab.icalibrate.file.io;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import org.jlab.icalibrate.model.DoseRateMeasurement;
 import org.jlab.icalibrate.model.Hall;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
 import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
 
 /**
  * Responsible for writing hall calibration dataset (HCD) files.
@@ -22,20 +23,36 @@ import org.jlab.icalibrate.model.IonChamberDataset;
 public class DatasetFileWriter {
 
     /**
-     * Writes the HallCalibrationDataset to the specified file.
+     * Writes the HallCalibrationDataset to the specified file. Every ion chamber is loaded before
+     * anything is written, since the dataset may have been read lazily from the very file being
+     * replaced, and the file is replaced atomically.
      *
      * @param file The file to write to
      * @param dataset The dataset to write
-     * @throws FileNotFoundException If the file path is invalid
-     * @throws UnsupportedEncodingException If unable to encode in UTF-8
+     * @throws IOException If unable to write the file
      */
-    public void write(File file, HallCalibrationDataset dataset) throws FileNotFoundException,
-            UnsupportedEncodingException {
-        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
-            writeHeader(writer, dataset.getHall(), dataset.getTarget(), dataset.getPass(),
-                    dataset.getNote(), dataset.getCalibratedDate(), dataset.getCalibratedBy());
-            writeBodyIndependentICs(writer, dataset.getMeasuredDoseRateDataset());
+    public void write(File file, HallCalibrationDataset dataset) throws IOException {
+        List<IonChamberDataset> datasetList = dataset.getMeasuredDoseRateDataset();
+
+        if (datasetList != null) {
+            for (IonChamberDataset ds : datasetList) {
+                ds.getColumns();
+                ds.getRawSamples();
+            }
         }
+
+        FileReplacement.replace(file, temp -> {
+            try (PrintWriter writer = new PrintWriter(temp, "UTF-8")) {
+                writeHeader(writer, dataset.getHall(), dataset.getTarget(), dataset.getPass(),
+                        dataset.getNote(), dataset.getCalibratedDate(),
+                        dataset.getCalibratedBy());
+                writeBodyIndependentICs(writer, datasetList);
+
+                if (writer.checkError()) {
+                    throw new IOException("Unable to write file: " + file);
+                }
+            }
+        });
     }
 
     private void writeHeader(PrintWriter writer, Hall hall, String target, String pass, String note,
@@ -53,26 +70,57 @@ public class DatasetFileWriter {
         writer.println("--- End HCD header");
     }
 
+    /**
+     * Create the dose rate formatter. A missing dose rate (ion chamber unavailable) is written as
+     * NaN, which the reader parses back, instead of the DecimalFormat replacement character.
+     *
+     * @return The formatter
+     */
+    private static DecimalFormat createDoseRateFormatter() {
+        DecimalFormat formatter = new DecimalFormat("0");
+        DecimalFormatSymbols symbols = formatter.getDecimalFormatSymbols();
+
+        symbols.setNaN("NaN");
+        formatter.setDecimalFormatSymbols(symbols);
+
+        return formatter;
+    }
+
     private void writeBodyIndependentICs(PrintWriter writer, List<IonChamberDataset> sampleList) {
         DecimalFormat currentFormatter = new DecimalFormat("0.00");
-        DecimalFormat doseRateFormatter = new DecimalFormat("0");
+        DecimalFormat doseRateFormatter = createDoseRateFormatter();
+        DecimalFormat settleFormatter = new DecimalFormat("0.0");
 
         if (sampleList != null) {
             for (IonChamberDataset sample : sampleList) {
                 String epicsName = sample.getIonChamber().getEpicsName();
                 String friendlyName = sample.getIonChamber().getFriendlyName();
                 writer.println("#IC: " + epicsName + " " + friendlyName);
-                List<DoseRateMeasurement> measurementList
-                        = sample.getMeasurementList();
+                MeasurementColumns columns = sample.getColumns();
+                RawSamples rawSamples = sample.getRawSamples();
+
+                for (int i = 0; i < columns.size(); i++) {
+                    writer.print(currentFormatter.format(columns.getCurrent(i)));
+                    writer.print(" ");
+                    writer.print(doseRateFormatter.format(columns.getDoseRateRadsPerHour(i)));
 
-                if (measurementList != null) {
-                    for (int i = 0; i < measurementList.size(); i++) {
-                        DoseRateMeasurement measurement = measurementList.get(i);
+                    double settleSeconds = columns.getSettleSeconds(i);
 
-                        writer.print(currentFormatter.format(measurement.getCurrent()));
+                    if (!Double.isNaN(settleSeconds)) { // Optional third column
                         writer.print(" ");
-                        writer.println(doseRateFormatter.format(measurement.getDoseRateRadsPerHour()));
+                        writer.print(settleFormatter.format(settleSeconds));
                     }
+
+                    if (rawSamples != null) { // Optional raw samples, at full precision
+                        writer.print(" |");
+
+                        for (int k = 0; k < rawSamples.getSampleCount(i); k++) {
+                            writer.print(" ");
+                            writer.print(Double.toString(rawSamples.getSample(i, k)));
+                        }
+                    }
+
+                    writer.println();
                 }
             }
         }
@@ -90,24 +138,20 @@ public class DatasetFileWriter {
             for (IonChamberDataset sample : sampleList) {
                 String name = sample.getIonChamber().getEpicsName();
                 icNameList.add(name);
-                List<DoseRateMeasurement> measurementList
-                        = sample.getMeasurementList();
-
-                if (measurementList != null) {
-                    for (int i = 0; i < measurementList.size(); i++) {
-                        DoseRateMeasurement measurement = measurementList.get(i);
-                        List<Double> row;
-
-                        if (firstPass) {
-                            row = new ArrayList<>();
-                            row.add(measurement.getCurrent());
-                            matrix.add(row);
-                        } else {
-                            row = matrix.get(i);
-                        }
+                MeasurementColumns columns = sample.getColumns();
 
-                        row.add(measurement.getDoseRateRadsPerHour());
+                for (int i = 0; i < columns.size(); i++) {
+                    List<Double> row;
+
+                    if (firstPass) {
+                        row = new ArrayList<>();
+                        row.add(columns.getCurrent(i));
+                        matrix.add(row);
+                    } else {
+                        row = matrix.get(i);
                     }
+
+                    row.add(columns.getDoseRateRadsPerHour(i));
                 }
 
                 firstPass = false;
@@ -119,7 +163,7 @@ public class DatasetFileWriter {
 
     private void writeBodyMatrix(PrintWriter writer, List<String> icNameList, List<List<Double>> matrix) {
         DecimalFormat currentFormatter = new DecimalFormat("0.00");
-        DecimalFormat doseRateFormatter = new DecimalFormat("0");
+        DecimalFormat doseRateFormatter = createDoseRateFormatter();
 
         if (icNameList != null && !icNameList.isEmpty()) {
             writer.print(icNameList.get(0));
@@ -0,0 +1,108 @@
+package org.jlab.icalibrate.file.io;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.jlab.icalibrate.model.Hall;
+
+/**
+ * The metadata and ion chamber names of a hall calibration dataset (HCD) file, read without
+ * parsing any measurements.
+ *
+ * @author ryans
+ */
+public final class DatasetHeader {
+
+    private final Hall hall;
+    private final String target;
+    private final String pass;
+    private final String note;
+    private final Date calibratedDate;
+    private final String calibratedBy;
+    private final List<String> ionChamberNameList;
+
+    /**
+     * Create a new DatasetHeader.
+     *
+     * @param hall The hall
+     * @param target The target
+     * @param pass The pass
+     * @param note The note
+     * @param calibratedDate The date of calibration
+     * @param calibratedBy The username of the operator whom performed the calibration
+     * @param ionChamberNameList The ion chamber EPICS names in file order
+     */
+    public DatasetHeader(Hall hall, String target, String pass, String note, Date calibratedDate,
+            String calibratedBy, List<String> ionChamberNameList) {
+        this.hall = hall;
+        this.target = target;
+        this.pass = pass;
+        this.note = note;
+        this.calibratedDate = calibratedDate;
+        this.calibratedBy = calibratedBy;
+        this.ionChamberNameList = Collections.unmodifiableList(ionChamberNameList);
+    }
+
+    /**
+     * Return the hall.
+     *
+     * @return The hall
+     */
+    public Hall getHall() {
+        return hall;
+    }
+
+    /**
+     * Return the target.
+     *
+     * @return The target
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Return the pass.
+     *
+     * @return The pass
+     */
+    public String getPass() {
+        return pass;
+    }
+
+    /**
+     * Return the note.
+     *
+     * @return The note
+     */
+    public String getNote() {
+        return note;
+    }
+
+    /**
+     * Return the date of calibration.
+     *
+     * @return The calibration date
+     */
+    public Date getCalibratedDate() {
+        return calibratedDate;
+    }
+
+    /**
+     * Return the username of the operator whom performed the calibration.
+     *
+     * @return The username
+     */
+    public String getCalibratedBy() {
+        return calibratedBy;
+    }
+
+    /**
+     * Return the ion chamber EPICS names in file order.
+     *
+     * @return The unmodifiable list of names
+     */
+    public List<String> getIonChamberNameList() {
+        return ionChamberNameList;
+    }
+}
@@ -0,0 +1,86 @@
+package org.jlab.icalibrate.file.io;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of primitive doubles, used while parsing so values are never boxed.
+ *
+ * @author ryans
+ */
+final class DoubleArrayBuilder {
+
+    private double[] values;
+    private int size = 0;
+
+    /**
+     * Create a new DoubleArrayBuilder.
+     *
+     * @param capacity The initial capacity
+     */
+    DoubleArrayBuilder(int capacity) {
+        values = new double[Math.max(capacity, 4)];
+    }
+
+    /**
+     * Append a value.
+     *
+     * @param value The value
+     */
+    void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1));
+        }
+
+        values[size++] = value;
+    }
+
+    /**
+     * Return a value.
+     *
+     * @param index The index
+     * @return The value
+     */
+    double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Return the number of values.
+     *
+     * @return The size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Return a copy of the values.
+     *
+     * @return The values
+     */
+    double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Check if any value is not NaN.
+     *
+     * @return true if a value is a number
+     */
+    boolean hasNumber() {
+        for (int i = 0; i < size; i++) {
+            if (!Double.isNaN(values[i])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Remove every value, keeping the capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+}
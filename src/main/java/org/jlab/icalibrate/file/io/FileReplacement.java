@@ -0,0 +1,66 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Responsible for replacing a file atomically. The new content is written to a temporary file in
+ * the same directory which is then moved over the target, so a failed write never leaves a
+ * truncated file behind and a reader which has the old file memory mapped keeps seeing the old
+ * content.
+ *
+ * @author ryans
+ */
+final class FileReplacement {
+
+    private FileReplacement() {
+        // Not instantiable
+    }
+
+    /**
+     * Write a file by way of a temporary file.
+     *
+     * @param file The file to create or replace
+     * @param content The content writer, which is given the temporary file
+     * @throws IOException If unable to write or move the file
+     */
+    static void replace(File file, Content content) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile("." + file.getName() + "-", ".tmp", dir);
+        boolean moved = false;
+
+        try {
+            content.writeTo(temp);
+
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+
+    /**
+     * Writes the content of a file.
+     */
+    interface Content {
+
+        /**
+         * Write the content.
+         *
+         * @param file The file to write to
+         * @throws IOException If unable to write
+         */
+        void writeTo(File file) throws IOException;
+    }
+}
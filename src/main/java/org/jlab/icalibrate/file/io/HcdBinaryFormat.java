@@ -0,0 +1,148 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Constants describing the binary hall calibration dataset (HCD v2 and v3) file layout.
+ *
+ * All numbers are little-endian. The file is laid out as:
+ *
+ * <pre>
+ * Fixed header (32 bytes)
+ *   0  byte[8] magic: 0x89 'H' 'C' 'D' '\r' '\n' 0x1A '\n'
+ *   8  int     format version (3, or 2 which has no raw samples column)
+ *  12  int     chamber count
+ *  16  int     flags (reserved, 0)
+ *  20  int     metadata length in bytes
+ *  24  long    chamber table offset
+ * Metadata (starts at byte 32)
+ *   string hall, string target, string pass, string note, long calibrated date (epoch millis,
+ *   Long.MIN_VALUE if none), string calibrated by
+ * Chamber table, one variable length entry per chamber
+ *   string epics name, string friendly name, int measurement count, then for each of the current,
+ *   dose rate, settle seconds, and (v3) raw samples columns: long offset, int stored length,
+ *   byte codec
+ * Column blocks
+ *   count little-endian doubles, stored raw or deflated according to the codec; the raw samples
+ *   block is instead count sample counts followed by every sample, all as doubles
+ * </pre>
+ *
+ * A string is an int byte length (-1 for null) followed by that many UTF-8 bytes. A column with
+ * codec ABSENT has no block; the settle seconds column is absent when no measurement has one and
+ * the raw samples column is absent when the samples were not retained.
+ *
+ * @author ryans
+ */
+final class HcdBinaryFormat {
+
+    /**
+     * The magic bytes; the first byte is not ASCII so a text HCD file can never match.
+     */
+    static final byte[] MAGIC = {(byte) 0x89, 'H', 'C', 'D', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The format version written by this release.
+     */
+    static final int VERSION = 3;
+
+    /**
+     * The oldest format version which can be read.
+     */
+    static final int MIN_VERSION = 2;
+
+    /**
+     * The size of the fixed header in bytes.
+     */
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * The number of columns per chamber: current, dose rate, settle seconds, raw samples.
+     */
+    static final int COLUMNS = 4;
+
+    /**
+     * Column index of the beam current.
+     */
+    static final int CURRENT_COLUMN = 0;
+
+    /**
+     * Column index of the dose rate.
+     */
+    static final int DOSE_RATE_COLUMN = 1;
+
+    /**
+     * Column index of the settle seconds.
+     */
+    static final int SETTLE_COLUMN = 2;
+
+    /**
+     * Column index of the raw samples.
+     */
+    static final int SAMPLES_COLUMN = 3;
+
+    /**
+     * Codec of a column which is not stored.
+     */
+    static final byte CODEC_ABSENT = 0;
+
+    /**
+     * Codec of a column stored as raw little-endian doubles.
+     */
+    static final byte CODEC_RAW = 1;
+
+    /**
+     * Codec of a column stored as deflated little-endian doubles.
+     */
+    static final byte CODEC_DEFLATE = 2;
+
+    /**
+     * The string encoding.
+     */
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private HcdBinaryFormat() {
+        // Not instantiable
+    }
+
+    /**
+     * Return the number of columns per chamber of a format version.
+     *
+     * @param version The format version
+     * @return The number of columns
+     */
+    static int columns(int version) {
+        return version == 2 ? 3 : COLUMNS;
+    }
+
+    /**
+     * Determine whether a file starts with the binary HCD magic bytes.
+     *
+     * @param file The file
+     * @return true if the file is a binary HCD file
+     * @throws IOException If unable to read the file
+     */
+    static boolean isBinary(File file) throws IOException {
+        byte[] start = new byte[MAGIC.length];
+        int read = 0;
+
+        try (InputStream in = new FileInputStream(file)) {
+            while (read < start.length) {
+                int count = in.read(start, read, start.length - read);
+
+                if (count < 0) {
+                    return false;
+                }
+
+                read = read + count;
+            }
+        }
+
+        return Arrays.equals(MAGIC, start);
+    }
+}
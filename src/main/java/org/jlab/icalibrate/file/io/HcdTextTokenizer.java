@@ -0,0 +1,409 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+
+/**
+ * A streaming tokenizer for text hall calibration dataset (HCD) files.
+ *
+ * Characters are pulled from the reader into a reusable buffer and numbers are parsed straight
+ * from it, so a body line produces no strings or boxed values. The line and column of the next
+ * character are tracked so malformed input can be reported precisely.
+ *
+ * @author ryans
+ */
+final class HcdTextTokenizer {
+
+    private static final int EOF = -1;
+    private static final int MAX_EXACT_MANTISSA_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+        1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+    private char[] token = new char[32];
+    private int line = 1;
+    private int column = 1;
+
+    /**
+     * Create a new HcdTextTokenizer.
+     *
+     * @param reader The reader; buffering is done here so it need not be buffered
+     */
+    HcdTextTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Return the line number of the next character.
+     *
+     * @return The line number (1-based)
+     */
+    int getLine() {
+        return line;
+    }
+
+    /**
+     * Return the column number of the next character.
+     *
+     * @return The column number (1-based)
+     */
+    int getColumn() {
+        return column;
+    }
+
+    /**
+     * Return the next character without consuming it.
+     *
+     * @return The character, or -1 at end of input
+     * @throws IOException If unable to read
+     */
+    int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+
+        return buffer[position];
+    }
+
+    /**
+     * Consume the next character.
+     *
+     * @return The character, or -1 at end of input
+     * @throws IOException If unable to read
+     */
+    private int next() throws IOException {
+        int c = peek();
+
+        if (c != EOF) {
+            position++;
+
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * Determine whether the input is exhausted.
+     *
+     * @return true if there are no more characters
+     * @throws IOException If unable to read
+     */
+    boolean isEof() throws IOException {
+        return peek() == EOF;
+    }
+
+    /**
+     * Determine whether the next character ends the line.
+     *
+     * @return true if the next character is a line terminator or there are no more characters
+     * @throws IOException If unable to read
+     */
+    boolean isEndOfLine() throws IOException {
+        int c = peek();
+
+        return c == '\n' || c == '\r' || c == EOF;
+    }
+
+    /**
+     * Skip spaces and tabs.
+     *
+     * @throws IOException If unable to read
+     */
+    void skipSpaces() throws IOException {
+        int c = peek();
+
+        while (c == ' ' || c == '\t') {
+            next();
+            c = peek();
+        }
+    }
+
+    /**
+     * Skip trailing spaces and consume the line terminator.
+     *
+     * @throws IOException If unable to read
+     * @throws ParseException If anything other than spaces remains on the line
+     */
+    void endLine() throws IOException, ParseException {
+        skipSpaces();
+
+        if (!isEndOfLine()) {
+            throw error("unexpected '" + (char) peek() + "'");
+        }
+
+        consumeLineTerminator();
+    }
+
+    private void consumeLineTerminator() throws IOException {
+        if (peek() == '\r') {
+            next();
+        }
+
+        if (peek() == '\n') {
+            next();
+        }
+    }
+
+    /**
+     * Consume the rest of the line, whatever it contains, and the line terminator.
+     *
+     * @throws IOException If unable to read
+     */
+    void skipLine() throws IOException {
+        while (!isEndOfLine()) {
+            next();
+        }
+
+        consumeLineTerminator();
+    }
+
+    /**
+     * Consume an expected character.
+     *
+     * @param expected The character
+     * @throws IOException If unable to read
+     * @throws ParseException If the next character is something else
+     */
+    void expect(char expected) throws IOException, ParseException {
+        if (peek() != expected) {
+            throw error("expected '" + expected + "'");
+        }
+
+        next();
+    }
+
+    /**
+     * Read the remainder of the line and consume the line terminator.
+     *
+     * @return The line without its terminator, or null at end of input
+     * @throws IOException If unable to read
+     */
+    String readLine() throws IOException {
+        if (isEof()) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        while (!isEndOfLine()) {
+            builder.append((char) next());
+        }
+
+        consumeLineTerminator();
+
+        return builder.toString();
+    }
+
+    /**
+     * Read a run of characters up to the next space, tab, or line terminator.
+     *
+     * @return The word, which is empty if the next character is a delimiter
+     * @throws IOException If unable to read
+     */
+    String readWord() throws IOException {
+        int length = scanToken(false);
+
+        return new String(token, 0, length);
+    }
+
+    /**
+     * Read a decimal number.
+     *
+     * Plain decimals with at most 15 significant digits and a small exponent (everything the HCD
+     * writers produce) are converted exactly without creating a string; anything else falls back
+     * to Double.parseDouble.
+     *
+     * @return The number
+     * @throws IOException If unable to read
+     * @throws ParseException If the next token is not a number
+     */
+    double readDouble() throws IOException, ParseException {
+        int startLine = line;
+        int startColumn = column;
+        int length = scanToken(true);
+
+        if (length == 0) {
+            throw error("expected number");
+        }
+
+        double value = parseFast(length);
+
+        if (Double.isNaN(value)) { // Not a fast path number; NaN literal also lands here
+            String text = new String(token, 0, length);
+
+            try {
+                value = Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw error(startLine, startColumn, "invalid number '" + text + "'");
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Copy the next token into the token buffer.
+     *
+     * @param number true to also stop at a comma
+     * @return The token length
+     * @throws IOException If unable to read
+     */
+    private int scanToken(boolean number) throws IOException {
+        int length = 0;
+        int c = peek();
+
+        while (c != EOF && c != ' ' && c != '\t' && c != '\n' && c != '\r'
+                && !(number && c == ',')) {
+            if (length == token.length) {
+                char[] grown = new char[length * 2];
+                System.arraycopy(token, 0, grown, 0, length);
+                token = grown;
+            }
+
+            token[length++] = (char) c;
+            next();
+            c = peek();
+        }
+
+        return length;
+    }
+
+    /**
+     * Convert the token buffer when it can be done exactly with one multiply or divide: the
+     * mantissa fits in a double exactly and the power of ten is exactly representable.
+     *
+     * @param length The token length
+     * @return The value, or NaN if the token needs the slow path
+     */
+    private double parseFast(int length) {
+        int i = 0;
+        boolean negative = false;
+
+        if (token[i] == '-' || token[i] == '+') {
+            negative = token[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean point = false;
+
+        for (; i < length; i++) {
+            char c = token[i];
+
+            if (c >= '0' && c <= '9') {
+                digits++;
+
+                if (mantissa != 0 || c != '0') {
+                    significant++;
+                }
+
+                if (significant > MAX_EXACT_MANTISSA_DIGITS) {
+                    return Double.NaN;
+                }
+
+                mantissa = mantissa * 10 + (c - '0');
+
+                if (point) {
+                    scale--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        if (i < length) {
+            if (token[i] != 'e' && token[i] != 'E') {
+                return Double.NaN;
+            }
+
+            i++;
+
+            boolean negativeExponent = false;
+
+            if (i < length && (token[i] == '-' || token[i] == '+')) {
+                negativeExponent = token[i] == '-';
+                i++;
+            }
+
+            if (i == length) {
+                return Double.NaN;
+            }
+
+            int exponent = 0;
+
+            for (; i < length; i++) {
+                char c = token[i];
+
+                if (c < '0' || c > '9' || exponent > 1000) {
+                    return Double.NaN;
+                }
+
+                exponent = exponent * 10 + (c - '0');
+            }
+
+            scale = scale + (negativeExponent ? -exponent : exponent);
+        }
+
+        double value;
+
+        if (mantissa == 0) {
+            value = 0.0d;
+        } else if (scale >= 0 && scale < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[scale]; // Both exact so the product rounds once
+        } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            return Double.NaN;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Create a ParseException at the current position.
+     *
+     * @param message The problem
+     * @return The exception
+     */
+    ParseException error(String message) {
+        return error(line, column, message);
+    }
+
+    /**
+     * Create a ParseException at a position.
+     *
+     * @param line The line number
+     * @param column The column number
+     * @param message The problem
+     * @return The exception
+     */
+    static ParseException error(int line, int column, String message) {
+        return new ParseException("HCD file line " + line + ", column " + column + ": " + message,
+                line);
+    }
+}
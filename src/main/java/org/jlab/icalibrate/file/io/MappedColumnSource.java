@@ -0,0 +1,261 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
+
+/**
+ * Decodes the column blocks of one ion chamber of a memory mapped binary HCD file into
+ * measurement columns. An IonChamberDataset calls it the first time its measurements are needed,
+ * so untouched chambers are never decoded. The reader calls validate up front so a malformed
+ * block table is reported when the file is opened rather than when a chamber is first viewed.
+ *
+ * @author ryans
+ */
+final class MappedColumnSource implements Supplier<MeasurementColumns> {
+
+    private final ByteBuffer file;
+    private final int count;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final byte[] codecs;
+
+    /**
+     * Create a new MappedColumnSource.
+     *
+     * @param file The mapped file
+     * @param count The number of measurements
+     * @param offsets The column block offsets
+     * @param lengths The column block stored lengths
+     * @param codecs The column block codecs
+     */
+    MappedColumnSource(ByteBuffer file, int count, long[] offsets, int[] lengths,
+            byte[] codecs) {
+        this.file = file;
+        this.count = count;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.codecs = codecs;
+    }
+
+    /**
+     * Check the codec and stored length of every block against the measurement count. Raw blocks
+     * are checked exactly, including the per measurement counts which prefix the raw samples
+     * column. The inflated length of a deflated block is only known once it is decoded, so those
+     * are only checked for being non-empty.
+     *
+     * @param epicsName The ion chamber name for error messages
+     * @throws IOException If a block is malformed
+     */
+    void validate(String epicsName) throws IOException {
+        for (int c = 0; c < HcdBinaryFormat.COLUMNS; c++) {
+            byte codec = codecs[c];
+
+            if (codec == HcdBinaryFormat.CODEC_ABSENT) {
+                continue;
+            }
+
+            if (codec == HcdBinaryFormat.CODEC_DEFLATE) {
+                if (lengths[c] == 0) {
+                    throw new IOException("HCD file column block of " + epicsName + " is empty");
+                }
+
+                continue;
+            }
+
+            if (codec != HcdBinaryFormat.CODEC_RAW) {
+                throw new IOException("HCD file column codec " + codec + " of " + epicsName
+                        + " is not supported");
+            }
+
+            long expected = count * 8L;
+
+            if (c == HcdBinaryFormat.SAMPLES_COLUMN) {
+                if (lengths[c] % 8 != 0 || lengths[c] < expected) {
+                    throw new IOException("HCD file raw samples block of " + epicsName
+                            + " is truncated");
+                }
+
+                expected = expected + sampleTotal(c) * 8L;
+            }
+
+            if (lengths[c] != expected) {
+                throw new IOException("HCD file column block length of " + epicsName
+                        + " does not match count");
+            }
+        }
+    }
+
+    /**
+     * Sum the per measurement sample counts which prefix a raw samples block stored uncompressed.
+     *
+     * @param column The column index
+     * @return The total number of samples
+     * @throws IOException If a count is not a non-negative whole number
+     */
+    private long sampleTotal(int column) throws IOException {
+        ByteBuffer block = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        block.position((int) offsets[column]);
+        long total = 0;
+
+        for (int i = 0; i < count; i++) {
+            double sampleCount = block.getDouble();
+
+            if (!(sampleCount >= 0) || sampleCount != Math.rint(sampleCount)) {
+                throw new IOException("HCD file raw samples block is corrupt");
+            }
+
+            total = total + (long) sampleCount;
+        }
+
+        return total;
+    }
+
+    @Override
+    public MeasurementColumns get() {
+        double[] settle = null;
+
+        if (codecs[HcdBinaryFormat.SETTLE_COLUMN] != HcdBinaryFormat.CODEC_ABSENT) {
+            settle = column(HcdBinaryFormat.SETTLE_COLUMN);
+        }
+
+        return MeasurementColumns.wrap(column(HcdBinaryFormat.CURRENT_COLUMN),
+                column(HcdBinaryFormat.DOSE_RATE_COLUMN), settle);
+    }
+
+    /**
+     * Check if the raw samples column is present.
+     *
+     * @return true if present
+     */
+    boolean hasRawSamples() {
+        return codecs[HcdBinaryFormat.SAMPLES_COLUMN] != HcdBinaryFormat.CODEC_ABSENT;
+    }
+
+    /**
+     * Decode the raw samples column, recomputing the statistics and outlier flags in the order
+     * the samples were taken.
+     *
+     * @return The raw samples, or null if the column is absent
+     */
+    RawSamples getRawSamples() {
+        if (!hasRawSamples()) {
+            return null;
+        }
+
+        DoubleBuffer block = block(HcdBinaryFormat.SAMPLES_COLUMN, -1);
+
+        if (block.remaining() < count) {
+            throw new IllegalStateException("HCD file raw samples block is truncated");
+        }
+
+        RawSamples.Builder builder = new RawSamples.Builder();
+        DoubleBuffer values = block.duplicate();
+        values.position(count);
+
+        for (int i = 0; i < count; i++) {
+            int sampleCount = (int) block.get(i);
+
+            if (sampleCount < 0 || sampleCount > values.remaining()) {
+                throw new IllegalStateException("HCD file raw samples block is corrupt");
+            }
+
+            builder.beginMeasurement();
+
+            for (int k = 0; k < sampleCount; k++) {
+                builder.add(values.get());
+            }
+
+            builder.endMeasurement();
+        }
+
+        if (values.hasRemaining()) {
+            throw new IllegalStateException("HCD file raw samples block length does not match");
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Decode a single column block.
+     *
+     * @param column The column index
+     * @return The values
+     */
+    private double[] column(int column) {
+        double[] values = new double[count];
+
+        block(column, count).get(values);
+
+        return values;
+    }
+
+    /**
+     * Decode a column block into doubles.
+     *
+     * @param column The column index
+     * @param expected The expected number of doubles, or -1 if not known
+     * @return The values
+     */
+    private DoubleBuffer block(int column, int expected) {
+        // Duplicate so concurrent loads of different chambers don't share a position
+        ByteBuffer block = file.duplicate();
+        block.position((int) offsets[column]);
+        block.limit((int) offsets[column] + lengths[column]);
+        block = block.slice();
+
+        if (codecs[column] == HcdBinaryFormat.CODEC_DEFLATE) {
+            block = ByteBuffer.wrap(inflate(block));
+        } else if (codecs[column] != HcdBinaryFormat.CODEC_RAW) {
+            throw new IllegalStateException("HCD file column codec " + codecs[column]
+                    + " is not supported");
+        }
+
+        if (block.remaining() % 8 != 0
+                || (expected >= 0 && block.remaining() != expected * 8)) {
+            throw new IllegalStateException("HCD file column block length does not match count");
+        }
+
+        return block.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    private byte[] inflate(ByteBuffer block) {
+        byte[] compressed = new byte[block.remaining()];
+        block.get(compressed);
+
+        byte[] raw = new byte[Math.max(count * 8, 64)];
+        Inflater inflater = new Inflater();
+        int total = 0;
+
+        try {
+            inflater.setInput(compressed);
+
+            while (!inflater.finished()) {
+                if (total == raw.length) {
+                    raw = Arrays.copyOf(raw, raw.length * 2);
+                }
+
+                int inflated = inflater.inflate(raw, total, raw.length - total);
+
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("HCD file column block is truncated");
+                }
+
+                total = total + inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("HCD file column block is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+
+        return Arrays.copyOf(raw, total);
+    }
+}
@@ -0,0 +1,72 @@
+package org.jlab.icalibrate.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fits of one ion chamber across many calibrations, oldest first.
+ *
+ * @author ryans
+ */
+public final class ChamberTrend implements Comparable<ChamberTrend> {
+
+    private final Hall hall;
+    private final String epicsName;
+    private final List<TrendPoint> pointList;
+
+    /**
+     * Create a new ChamberTrend.
+     *
+     * @param hall The hall
+     * @param epicsName The ion chamber EPICS name
+     * @param pointList The points, sorted by calibration date
+     */
+    public ChamberTrend(Hall hall, String epicsName, List<TrendPoint> pointList) {
+        this.hall = hall;
+        this.epicsName = epicsName;
+        this.pointList = Collections.unmodifiableList(pointList);
+    }
+
+    /**
+     * Return the hall.
+     *
+     * @return The hall
+     */
+    public Hall getHall() {
+        return hall;
+    }
+
+    /**
+     * Return the ion chamber EPICS name.
+     *
+     * @return The name
+     */
+    public String getEpicsName() {
+        return epicsName;
+    }
+
+    /**
+     * Return the points, oldest first.
+     *
+     * @return The unmodifiable list of points
+     */
+    public List<TrendPoint> getPointList() {
+        return pointList;
+    }
+
+    @Override
+    public int compareTo(ChamberTrend o) {
+        int result = hall.compareTo(o.hall);
+
+        if (result == 0) {
+            result = epicsName.compareTo(o.epicsName);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return hall.name() + " " + epicsName + " (" + pointList.size() + ")";
+    }
+}
@@ -1,12 +1,8 @@
 package org.jlab.icalibrate.model;
 
 import java.text.DecimalFormat;
-import org.apache.commons.math3.stat.regression.SimpleRegression;
 import org.jfree.data.function.Function2D;
 import org.jfree.data.function.LineFunction2D;
-import org.jfree.data.statistics.Regression;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 
 /**
  * Models a JFreeChart dataset capable of providing a fit.
@@ -15,12 +11,13 @@ import org.jfree.data.xy.XYSeriesCollection;
  */
 public class ChartDataset {
 
-    private final IonChamberDataset measuredDataset;
-    private final XYSeriesCollection seriesData;
+    private IonChamberDataset measuredDataset;
+    private final MeasurementXYDataset seriesData;
+    private FitEngine engine;
+    private FitEngine.Fit linearResult;
+    private FitEngine.Fit logarithmicResult;
     private LineFunction2D linearFit;
     private LineFunction2D logarithmicFit;
-    private SimpleRegression linearRegression = new SimpleRegression();
-    private SimpleRegression logLinearRegression = new SimpleRegression();
     private int minIndex = 0;
     private int maxIndex = 0;
     private boolean logarithmicSelected = false;
@@ -39,31 +36,37 @@ public class ChartDataset {
     public ChartDataset(IonChamberDataset measuredDataset, int current, int margin) {
         this.measuredDataset = measuredDataset;
 
-        seriesData = new XYSeriesCollection();
-        XYSeries series = new XYSeries("Samples");
-        seriesData.addSeries(series);
-
-        for (DoseRateMeasurement measurement : measuredDataset.getMeasurementList()) {
-            double x = measurement.getCurrent();
-            double y = measurement.getDoseRateRadsPerHour();
-            series.add(x, y);
-            linearRegression.addData(x, y);
-            if (x > 0) { // zero current results in log(0) = undefined; negative current is bad too...
-                logLinearRegression.addData(Math.log(x), y);
-            }
-        }
+        MeasurementColumns samples = measuredDataset.getColumns().sortByCurrent();
+
+        seriesData = new MeasurementXYDataset(samples);
 
-        maxIndex = series.getItemCount() - 1;
+        // Sorted by current so the engine indexes match the chart indexes of the fit range
+        engine = new FitEngine(samples);
 
-        double yIntercept = linearRegression.getIntercept();
-        double slope = linearRegression.getSlope();
+        maxIndex = samples.size() - 1;
 
-        linearFit = new LineFunction2D(yIntercept, slope);
+        linearResult = engine.linear(minIndex, maxIndex);
+        logarithmicResult = engine.logarithmic(minIndex, maxIndex);
+        linearFit = new LineFunction2D(linearResult.getIntercept(), linearResult.getSlope());
+        logarithmicFit = createLogarithmicFit(logarithmicResult.getIntercept(),
+                logarithmicResult.getSlope());
+
+        double x = current;
+        double y = linearFit.getValue(x) * (100.0d + margin) / 100.0d;
 
-        double logIntercept = logLinearRegression.getIntercept();
-        double logSlope = logLinearRegression.getSlope();
+        seriesData.setSetpoint(x, y);
+    }
 
-        logarithmicFit = new LineFunction2D(logIntercept, logSlope) {
+    /**
+     * Create the logarithmic fit function. The function stores the linearized transformation
+     * slope and intercept, but evaluates y = m * ln(x) + b.
+     *
+     * @param logIntercept The intercept
+     * @param logSlope The slope
+     * @return The function
+     */
+    private static LineFunction2D createLogarithmicFit(double logIntercept, double logSlope) {
+        return new LineFunction2D(logIntercept, logSlope) {
             @Override
             public double getValue(double x) {
                 double m = logSlope;
@@ -80,17 +83,12 @@ public class ChartDataset {
                 return y;
             }
         };
-
-        double x = current;
-        double y = linearFit.getValue(x) * (100.0d + margin) / 100.0d;
-
-        series = new XYSeries("Setpoint");
-        series.add(x, y);
-        seriesData.addSeries(series);
     }
 
     /**
-     * Update parameters defining the extent (range) of the dataset to fit.
+     * Update parameters defining the extent (range) of the dataset to fit. Both the linear and
+     * the logarithmic fit honor the range. A range with fewer than two usable points keeps the
+     * previous fit.
      *
      * @param min The minimum dataset index (inclusive)
      * @param max The maximum dataset index (inclusive)
@@ -102,24 +100,62 @@ public class ChartDataset {
         this.minIndex = min;
         this.maxIndex = max;
 
-        XYSeries fitSubset;
-        XYSeriesCollection tmp = new XYSeriesCollection();
-        try {
-            fitSubset = seriesData.getSeries(0).createCopy(minIndex, maxIndex);
-            fitSubset.setKey("Subset");
-            tmp.addSeries(fitSubset);
-        } catch (CloneNotSupportedException e) {
-            throw new RuntimeException("Series Subsets Not Supported", e);
+        refit();
+    }
+
+    /**
+     * Recompute both fits over the current range from the fit engine.
+     */
+    private void refit() {
+        FitEngine.Fit linear = engine.linear(minIndex, maxIndex);
+
+        if (linear.getCount() > 1) {
+            linearResult = linear;
+            linearFit = new LineFunction2D(linear.getIntercept(), linear.getSlope());
+        }
+
+        FitEngine.Fit logarithmic = engine.logarithmic(minIndex, maxIndex);
+
+        if (logarithmic.getCount() > 1) {
+            logarithmicResult = logarithmic;
+            logarithmicFit = createLogarithmicFit(logarithmic.getIntercept(),
+                    logarithmic.getSlope());
         }
+    }
+
+    /**
+     * Replace the measured data, for example after the operator modifies sample data. The new data
+     * is sorted by current and compared with the fit engine point by point, so the call is
+     * O(n log n) regardless of how much changed. If the number of measurements is unchanged each
+     * point which differs costs an O(log n) engine update and the fit range is kept, otherwise the
+     * engine is rebuilt and the range reset to all points. The setpoint must be recalculated
+     * afterwards with updateSetpointParameters.
+     *
+     * @param measuredDataset The new measured data
+     */
+    public void setMeasuredDataset(IonChamberDataset measuredDataset) {
+        MeasurementColumns samples = measuredDataset.getColumns().sortByCurrent();
 
-        if (fitSubset.getItemCount() > 1) {
-            double regressionParameters[] = Regression.getOLSRegression(tmp, 0);
+        this.measuredDataset = measuredDataset;
+
+        seriesData.setSamples(samples);
 
-            double yIntercept = regressionParameters[0];
-            double slope = regressionParameters[1];
+        if (samples.size() == engine.size()) {
+            for (int i = 0; i < samples.size(); i++) {
+                double x = samples.getCurrent(i);
+                double y = samples.getDoseRateRadsPerHour(i);
 
-            linearFit = new LineFunction2D(yIntercept, slope);
+                if (x != engine.getX(i) || y != engine.getY(i)) {
+                    engine.set(i, x, y);
+                }
+            }
+        } else {
+            engine = new FitEngine(samples);
+            minIndex = 0;
+            maxIndex = samples.size() - 1;
         }
+
+        refit();
     }
 
     /**
@@ -137,10 +173,20 @@ public class ChartDataset {
             fit = linearFit;
         }
 
-        seriesData.getSeries(1).clear();
         double x = current;
         double y = fit.getValue(x) * (100.0d + margin) / 100.0d;
-        this.seriesData.getSeries(1).add(x, y);
+        applySetpoint(current, y);
+    }
+
+    /**
+     * Store a setpoint computed elsewhere, for example by a SetpointCalculator for every chamber
+     * at once.
+     *
+     * @param current The current
+     * @param setpoint The setpoint at the current
+     */
+    public void applySetpoint(int current, double setpoint) {
+        seriesData.setSetpoint(current, setpoint);
     }
 
     /**
@@ -153,11 +199,11 @@ public class ChartDataset {
     }
 
     /**
-     * Return the JFreeChart series data.
+     * Return the JFreeChart series data: the samples sorted by current and the setpoint.
      *
      * @return The series data
      */
-    public XYSeriesCollection getSeriesData() {
+    public MeasurementXYDataset getSeriesData() {
         return seriesData;
     }
 
@@ -182,6 +228,24 @@ public class ChartDataset {
         return logarithmicFit;
     }
 
+    /**
+     * Return the coefficient of determination of the linear fit.
+     *
+     * @return The R^2, or NaN if there is no fit
+     */
+    public double getLinearRSquare() {
+        return linearResult.getRSquare();
+    }
+
+    /**
+     * Return the coefficient of determination of the logarithmic fit.
+     *
+     * @return The R^2, or NaN if there is no fit
+     */
+    public double getLogarithmicRSquare() {
+        return logarithmicResult.getRSquare();
+    }
+
     /**
      * Check if user selected a logarithmic fit for this dataset.
      *
@@ -206,7 +270,7 @@ public class ChartDataset {
      * @return The calculated setpoint
      */
     public double getSetpoint() {
-        return seriesData.getSeries(1).getMaxY();
+        return seriesData.getSetpointY();
     }
 
     /**
@@ -277,9 +341,9 @@ public class ChartDataset {
     public String getRSquareLabel() {
         double r2;
         if (isLogarithmicSelected()) { // Logarithmic
-            r2 = logLinearRegression.getRSquare();
+            r2 = logarithmicResult.getRSquare();
         } else {
-            r2 = linearRegression.getRSquare();
+            r2 = linearResult.getRSquare();
         }
 
         String label = "None";
@@ -11,6 +11,17 @@ import org.jlab.icalibrate.exception.ValidationException;
  */
 public class CreateNewDatasetParameters {
 
+    /**
+     * The default length of the sliding window used to detect a settled beam in adaptive settle
+     * mode.
+     */
+    public static final double DEFAULT_SETTLE_WINDOW_SECONDS = 2.0d;
+
+    /**
+     * The default relative tolerance used to detect a settled beam in adaptive settle mode.
+     */
+    public static final double DEFAULT_SETTLE_TOLERANCE = 0.02d;
+
     private final ChannelManager channelManager;
 
     private Hall hall;
@@ -23,6 +34,10 @@ public class CreateNewDatasetParameters {
     private int numberOfSteps;
     private int settleSeconds;
     private int samplesPerStep;
+    private SamplingMode samplingMode = SamplingMode.POLL;
+    private SettleMode settleMode = SettleMode.FIXED;
+    private double settleWindowSeconds = DEFAULT_SETTLE_WINDOW_SECONDS;
+    private double settleTolerance = DEFAULT_SETTLE_TOLERANCE;
     private List<IonChamber> icList;
 
     /**
@@ -124,6 +139,45 @@ public class CreateNewDatasetParameters {
         this.samplesPerStep = samplesPerStep;
     }
 
+    /**
+     * Set the way dose rate samples are gathered.
+     *
+     * @param samplingMode The sampling mode
+     */
+    public void setSamplingMode(SamplingMode samplingMode) {
+        this.samplingMode = samplingMode;
+    }
+
+    /**
+     * Set the way the beam is allowed to settle after each attenuator change.
+     *
+     * @param settleMode The settle mode
+     */
+    public void setSettleMode(SettleMode settleMode) {
+        this.settleMode = settleMode;
+    }
+
+    /**
+     * Set the length of the sliding window over which the beam must be stable in adaptive settle
+     * mode.
+     *
+     * @param settleWindowSeconds The window in seconds
+     */
+    public void setSettleWindowSeconds(double settleWindowSeconds) {
+        this.settleWindowSeconds = settleWindowSeconds;
+    }
+
+    /**
+     * Set the relative tolerance of the adaptive settle mode stability criterion: both the
+     * standard deviation and the linear drift over the window must be within this fraction of the
+     * mean of each PV.
+     *
+     * @param settleTolerance The relative tolerance (0.02 = 2%)
+     */
+    public void setSettleTolerance(double settleTolerance) {
+        this.settleTolerance = settleTolerance;
+    }
+
     /**
      * Return the hall.
      *
@@ -215,7 +269,43 @@ public class CreateNewDatasetParameters {
     }
 
     /**
-     * Compute the process duration in seconds.
+     * Return the way dose rate samples are gathered.
+     *
+     * @return The sampling mode
+     */
+    public SamplingMode getSamplingMode() {
+        return samplingMode;
+    }
+
+    /**
+     * Return the way the beam is allowed to settle after each attenuator change.
+     *
+     * @return The settle mode
+     */
+    public SettleMode getSettleMode() {
+        return settleMode;
+    }
+
+    /**
+     * Return the length of the adaptive settle mode sliding window.
+     *
+     * @return The window in seconds
+     */
+    public double getSettleWindowSeconds() {
+        return settleWindowSeconds;
+    }
+
+    /**
+     * Return the relative tolerance of the adaptive settle mode stability criterion.
+     *
+     * @return The relative tolerance
+     */
+    public double getSettleTolerance() {
+        return settleTolerance;
+    }
+
+    /**
+     * Compute the process duration in seconds. In adaptive settle mode this is an upper bound.
      *
      * @return The process duration in seconds
      */
@@ -275,6 +365,12 @@ public class CreateNewDatasetParameters {
         if (samplesPerStep < 1) {
             throw new ValidationException("# of Samples Per Step must be more than 0");
         }
+
+        if (settleMode == SettleMode.ADAPTIVE && settleWindowSeconds > settleSeconds) {
+            throw new ValidationException(
+                    "Step Settle Time (Seconds) must be at least the settle window ("
+                    + settleWindowSeconds + " seconds)");
+        }
     }
 
     /**
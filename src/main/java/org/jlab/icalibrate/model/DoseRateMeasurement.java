@@ -12,16 +12,31 @@ public final class DoseRateMeasurement implements Comparable<DoseRateMeasurement
 
     private final double current;
     private final double doseRateRadsPerHour;
+    private final double settleSeconds;
 
     /**
-     * Creates a new DoseRateMeasurement.
+     * Creates a new DoseRateMeasurement with an unknown settle time.
      *
      * @param current The current (caller must keep up with units)
      * @param doseRateRadsPerHour The dose rate in rads per hour
      */
     public DoseRateMeasurement(double current, double doseRateRadsPerHour) {
+        this(current, doseRateRadsPerHour, Double.NaN);
+    }
+
+    /**
+     * Creates a new DoseRateMeasurement.
+     *
+     * @param current The current (caller must keep up with units)
+     * @param doseRateRadsPerHour The dose rate in rads per hour
+     * @param settleSeconds The number of seconds the beam was allowed to settle before the
+     * measurement, or NaN if unknown
+     */
+    public DoseRateMeasurement(double current, double doseRateRadsPerHour,
+            double settleSeconds) {
         this.current = current;
         this.doseRateRadsPerHour = doseRateRadsPerHour;
+        this.settleSeconds = settleSeconds;
     }
 
     /**
@@ -42,6 +57,15 @@ public final class DoseRateMeasurement implements Comparable<DoseRateMeasurement
         return doseRateRadsPerHour;
     }
 
+    /**
+     * Return the number of seconds the beam was allowed to settle before the measurement.
+     *
+     * @return The settle seconds, or NaN if unknown
+     */
+    public double getSettleSeconds() {
+        return settleSeconds;
+    }
+
     @Override
     public int compareTo(DoseRateMeasurement o) {
         Double c = current;
@@ -0,0 +1,337 @@
+package org.jlab.icalibrate.model;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Computes least squares linear and logarithmic (y = m * ln(x) + b) fits of any contiguous index
+ * range of a set of points without revisiting the points.
+ *
+ * The engine keeps cumulative sums (n, sum x, sum y, sum xy, sum x^2, sum y^2 and the same with
+ * ln(x) in place of x) over primitive arrays in a binary indexed (Fenwick) tree. Fitting an index
+ * range costs two O(log n) prefix walks and replacing a single point costs one O(log n) update
+ * rather than an O(n) rebuild. Points with x &lt;= 0 are excluded from the logarithmic sums since
+ * ln(x) is undefined there. Points with a NaN y, measurements whose ion chamber could not be read,
+ * are excluded from every sum.
+ *
+ * @author ryans
+ */
+public final class FitEngine {
+
+    private static final int N = 0;
+    private static final int SX = 1;
+    private static final int SY = 2;
+    private static final int SXY = 3;
+    private static final int SXX = 4;
+    private static final int SYY = 5;
+    private static final int LN = 6;
+    private static final int LSX = 7;
+    private static final int LSY = 8;
+    private static final int LSXY = 9;
+    private static final int LSXX = 10;
+    private static final int LSYY = 11;
+    private static final int SUMS = 12;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[][] tree;
+
+    /**
+     * Create a new FitEngine. The arrays are copied.
+     *
+     * @param x The x values
+     * @param y The y values
+     */
+    public FitEngine(double[] x, double[] y) {
+        this(DoubleBuffer.wrap(x), DoubleBuffer.wrap(y));
+    }
+
+    /**
+     * Create a new FitEngine of current (x) vs dose rate (y). The columns are copied once since
+     * the engine points can be replaced.
+     *
+     * @param samples The samples
+     */
+    public FitEngine(MeasurementColumns samples) {
+        this(samples.getCurrentView(), samples.getDoseRateView());
+    }
+
+    private FitEngine(DoubleBuffer x, DoubleBuffer y) {
+        if (x.remaining() != y.remaining()) {
+            throw new IllegalArgumentException("x and y must be the same length");
+        }
+
+        this.x = new double[x.remaining()];
+        this.y = new double[y.remaining()];
+
+        x.get(this.x);
+        y.get(this.y);
+
+        int n = this.x.length;
+        tree = new double[SUMS][n + 1];
+
+        // Linear time construction: add each point then push its partial sums to the parent
+        for (int i = 0; i < n; i++) {
+            double[] terms = terms(this.x[i], this.y[i]);
+
+            for (int k = 0; k < SUMS; k++) {
+                tree[k][i + 1] = tree[k][i + 1] + terms[k];
+            }
+
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+
+            if (parent <= n) {
+                for (int k = 0; k < SUMS; k++) {
+                    tree[k][parent] = tree[k][parent] + tree[k][i + 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the number of points.
+     *
+     * @return The number of points
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * Return the x value of a point.
+     *
+     * @param index The index
+     * @return The x value
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Return the y value of a point.
+     *
+     * @param index The index
+     * @return The y value
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Replace a single point.
+     *
+     * @param index The index
+     * @param newX The new x value
+     * @param newY The new y value
+     */
+    public void set(int index, double newX, double newY) {
+        double[] old = terms(x[index], y[index]);
+        double[] updated = terms(newX, newY);
+
+        x[index] = newX;
+        y[index] = newY;
+
+        for (int i = index + 1; i < tree[0].length; i = i + (i & -i)) {
+            for (int k = 0; k < SUMS; k++) {
+                tree[k][i] = tree[k][i] + (updated[k] - old[k]);
+            }
+        }
+    }
+
+    /**
+     * Fit y = slope * x + intercept over an index range.
+     *
+     * @param min The minimum index (inclusive)
+     * @param max The maximum index (inclusive)
+     * @return The fit
+     */
+    public Fit linear(int min, int max) {
+        double[] sums = rangeSums(min, max);
+
+        return fit(sums[N], sums[SX], sums[SY], sums[SXY], sums[SXX], sums[SYY]);
+    }
+
+    /**
+     * Fit y = slope * ln(x) + intercept over an index range. Points with x &lt;= 0 in the range are
+     * ignored.
+     *
+     * @param min The minimum index (inclusive)
+     * @param max The maximum index (inclusive)
+     * @return The fit
+     */
+    public Fit logarithmic(int min, int max) {
+        double[] sums = rangeSums(min, max);
+
+        return fit(sums[LN], sums[LSX], sums[LSY], sums[LSXY], sums[LSXX], sums[LSYY]);
+    }
+
+    /**
+     * Compute the contribution of a point to each sum.
+     *
+     * @param px The x value
+     * @param py The y value
+     * @return The terms
+     */
+    private static double[] terms(double px, double py) {
+        double[] terms = new double[SUMS];
+
+        if (Double.isNaN(py)) { // Missing measurement
+            return terms;
+        }
+
+        terms[N] = 1;
+        terms[SX] = px;
+        terms[SY] = py;
+        terms[SXY] = px * py;
+        terms[SXX] = px * px;
+        terms[SYY] = py * py;
+
+        if (px > 0) { // zero current results in log(0) = undefined; negative current is bad too...
+            double lx = Math.log(px);
+            terms[LN] = 1;
+            terms[LSX] = lx;
+            terms[LSY] = py;
+            terms[LSXY] = lx * py;
+            terms[LSXX] = lx * lx;
+            terms[LSYY] = py * py;
+        }
+
+        return terms;
+    }
+
+    /**
+     * Return every sum over the index range.
+     *
+     * @param min The minimum index (inclusive)
+     * @param max The maximum index (inclusive)
+     * @return The sums
+     */
+    private double[] rangeSums(int min, int max) {
+        if (min < 0 || max >= x.length || min > max) {
+            return new double[SUMS];
+        }
+
+        double[] sums = prefix(max + 1);
+        double[] before = prefix(min);
+
+        for (int k = 0; k < SUMS; k++) {
+            sums[k] = sums[k] - before[k];
+        }
+
+        return sums;
+    }
+
+    /**
+     * Return every sum over the first count points.
+     *
+     * @param count The number of points
+     * @return The sums
+     */
+    private double[] prefix(int count) {
+        double[] sums = new double[SUMS];
+
+        for (int i = count; i > 0; i = i - (i & -i)) {
+            for (int k = 0; k < SUMS; k++) {
+                sums[k] = sums[k] + tree[k][i];
+            }
+        }
+
+        return sums;
+    }
+
+    /**
+     * Compute an ordinary least squares fit from sums. The slope, intercept, and r-square are NaN
+     * if there are fewer than two points or the x values do not vary.
+     *
+     * @param n The number of points
+     * @param sx The sum of x
+     * @param sy The sum of y
+     * @param sxy The sum of x * y
+     * @param sxx The sum of x * x
+     * @param syy The sum of y * y
+     * @return The fit
+     */
+    private static Fit fit(double n, double sx, double sy, double sxy, double sxx, double syy) {
+        double slope = Double.NaN;
+        double intercept = Double.NaN;
+        double rSquare = Double.NaN;
+
+        if (n >= 2) {
+            double xxBar = sxx - (sx * sx / n);
+            double xyBar = sxy - (sx * sy / n);
+            double yyBar = syy - (sy * sy / n);
+
+            if (Math.abs(xxBar) >= 10 * Double.MIN_VALUE) {
+                slope = xyBar / xxBar;
+                intercept = (sy - slope * sx) / n;
+
+                if (yyBar > 0) {
+                    rSquare = Math.min(1.0d, (xyBar * xyBar) / (xxBar * yyBar));
+                }
+            }
+        }
+
+        return new Fit(slope, intercept, rSquare, (int) Math.round(n));
+    }
+
+    /**
+     * The result of fitting a range.
+     */
+    public static final class Fit {
+
+        private final double slope;
+        private final double intercept;
+        private final double rSquare;
+        private final int count;
+
+        /**
+         * Create a new Fit.
+         *
+         * @param slope The slope
+         * @param intercept The intercept
+         * @param rSquare The coefficient of determination
+         * @param count The number of points used
+         */
+        Fit(double slope, double intercept, double rSquare, int count) {
+            this.slope = slope;
+            this.intercept = intercept;
+            this.rSquare = rSquare;
+            this.count = count;
+        }
+
+        /**
+         * Return the slope.
+         *
+         * @return The slope, or NaN if there is no fit
+         */
+        public double getSlope() {
+            return slope;
+        }
+
+        /**
+         * Return the intercept.
+         *
+         * @return The intercept, or NaN if there is no fit
+         */
+        public double getIntercept() {
+            return intercept;
+        }
+
+        /**
+         * Return the coefficient of determination (R^2).
+         *
+         * @return The R^2, or NaN if there is no fit
+         */
+        public double getRSquare() {
+            return rSquare;
+        }
+
+        /**
+         * Return the number of points the fit used.
+         *
+         * @return The count
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+}
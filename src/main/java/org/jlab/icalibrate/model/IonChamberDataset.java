@@ -1,31 +1,88 @@
 package org.jlab.icalibrate.model;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Models the measured dose rate data for a given ion chamber.
- * 
+ *
+ * The measurements are held as primitive MeasurementColumns, optionally with the RawSamples each
+ * measurement was averaged from. Both may be supplied lazily, for example decoded from a memory
+ * mapped file the first time they are needed.
+ *
  * @author ryans
  */
 public final class IonChamberDataset {
     private final IonChamber ionChamber;
-    private final List<DoseRateMeasurement> measurementList;
+    private final Supplier<MeasurementColumns> columnSource;
+    private final Supplier<RawSamples> sampleSource;
+    private volatile MeasurementColumns columns;
+    private volatile RawSamples rawSamples;
+    private volatile boolean rawSamplesLoaded;
 
     /**
      * Create a new IonChamberDoseRateSample.
-     * 
+     *
      * @param ionChamber The ion chamber
      * @param measurementList The measured data
      */
     public IonChamberDataset(IonChamber ionChamber, List<DoseRateMeasurement> measurementList) {
+        this(ionChamber, MeasurementColumns.of(measurementList));
+    }
+
+    /**
+     * Create a new IonChamberDataset from measurement columns.
+     *
+     * @param ionChamber The ion chamber
+     * @param columns The measured data
+     */
+    public IonChamberDataset(IonChamber ionChamber, MeasurementColumns columns) {
+        this(ionChamber, columns, null);
+    }
+
+    /**
+     * Create a new IonChamberDataset from measurement columns and the raw samples they were
+     * averaged from.
+     *
+     * @param ionChamber The ion chamber
+     * @param columns The measured data
+     * @param rawSamples The raw samples, or null if not retained
+     */
+    public IonChamberDataset(IonChamber ionChamber, MeasurementColumns columns,
+            RawSamples rawSamples) {
+        if (rawSamples != null && rawSamples.size() != columns.size()) {
+            throw new IllegalArgumentException("Raw samples do not match measurements");
+        }
+
         this.ionChamber = ionChamber;
-        this.measurementList = measurementList;
+        this.columnSource = null;
+        this.sampleSource = null;
+        this.columns = columns;
+        this.rawSamples = rawSamples;
+        this.rawSamplesLoaded = true;
+    }
+
+    /**
+     * Create a new IonChamberDataset whose measurement columns and raw samples are obtained from
+     * the sources the first time they are needed. Each source is called at most once.
+     *
+     * @param ionChamber The ion chamber
+     * @param columnSource The source of the measured data
+     * @param sampleSource The source of the raw samples, or null if not retained
+     */
+    public IonChamberDataset(IonChamber ionChamber, Supplier<MeasurementColumns> columnSource,
+            Supplier<RawSamples> sampleSource) {
+        this.ionChamber = ionChamber;
+        this.columnSource = columnSource;
+        this.sampleSource = sampleSource;
+        this.columns = null;
+        this.rawSamples = null;
+        this.rawSamplesLoaded = sampleSource == null;
     }
 
     /**
      * Return the ion chamber.
-     * 
+     *
      * @return The ion chamber
      */
     public IonChamber getIonChamber() {
@@ -33,11 +90,51 @@ public final class IonChamberDataset {
     }
 
     /**
-     * Return the measured dose rate list.
-     * 
+     * Return the measured data as primitive columns.
+     *
+     * @return The columns
+     */
+    public MeasurementColumns getColumns() {
+        MeasurementColumns loaded = columns;
+
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = columns;
+
+                if (loaded == null) {
+                    loaded = columnSource.get();
+                    columns = loaded;
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Return the raw samples each measurement was averaged from, with their statistics.
+     *
+     * @return The raw samples, or null if they were not retained
+     */
+    public RawSamples getRawSamples() {
+        if (!rawSamplesLoaded) {
+            synchronized (this) {
+                if (!rawSamplesLoaded) {
+                    rawSamples = sampleSource.get();
+                    rawSamplesLoaded = true;
+                }
+            }
+        }
+
+        return rawSamples;
+    }
+
+    /**
+     * Return the measured dose rate list. The list is a read-only view of the columns.
+     *
      * @return The measured dose rate list
      */
     public List<DoseRateMeasurement> getMeasurementList() {
-        return Collections.unmodifiableList(measurementList);
+        return getColumns().asList();
     }
 }
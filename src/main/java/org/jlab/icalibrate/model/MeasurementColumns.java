@@ -0,0 +1,293 @@
+package org.jlab.icalibrate.model;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable dose rate measurements stored as primitive columns: one array of currents, one of
+ * dose rates, and an optional one of settle times.
+ *
+ * Three parallel double arrays cost 24 bytes per measurement where a list of DoseRateMeasurement
+ * objects costs roughly 40 bytes of object plus a reference each. Consumers such as the chart,
+ * the table, and the fit engine read the arrays through the index accessors or the read-only
+ * buffer views, none of which copy. The DoseRateMeasurement list returned by asList is also a
+ * view and creates each element on access.
+ *
+ * @author ryans
+ */
+public final class MeasurementColumns {
+
+    private static final double[] NO_VALUES = new double[0];
+
+    /**
+     * No measurements.
+     */
+    public static final MeasurementColumns EMPTY = new MeasurementColumns(NO_VALUES, NO_VALUES,
+            null);
+
+    private final double[] current;
+    private final double[] doseRate;
+    private final double[] settleSeconds;
+    private final List<DoseRateMeasurement> listView = new MeasurementListView();
+
+    private MeasurementColumns(double[] current, double[] doseRate, double[] settleSeconds) {
+        if (current.length != doseRate.length
+                || (settleSeconds != null && settleSeconds.length != current.length)) {
+            throw new IllegalArgumentException("Columns must be the same length");
+        }
+
+        this.current = current;
+        this.doseRate = doseRate;
+        this.settleSeconds = settleSeconds;
+    }
+
+    /**
+     * Create columns which take ownership of the arrays: they are not copied and the caller must
+     * not modify them afterwards. Several columns may share one current array.
+     *
+     * @param current The currents
+     * @param doseRate The dose rates in rads per hour
+     * @param settleSeconds The settle times, or null if every settle time is unknown
+     * @return The columns
+     */
+    public static MeasurementColumns wrap(double[] current, double[] doseRate,
+            double[] settleSeconds) {
+        return new MeasurementColumns(current, doseRate, settleSeconds);
+    }
+
+    /**
+     * Create columns from a list of measurements.
+     *
+     * @param measurementList The measurements, may be null
+     * @return The columns
+     */
+    public static MeasurementColumns of(List<DoseRateMeasurement> measurementList) {
+        if (measurementList == null || measurementList.isEmpty()) {
+            return EMPTY;
+        }
+
+        int n = measurementList.size();
+        double[] current = new double[n];
+        double[] doseRate = new double[n];
+        double[] settle = new double[n];
+        boolean hasSettle = false;
+
+        for (int i = 0; i < n; i++) {
+            DoseRateMeasurement measurement = measurementList.get(i);
+
+            current[i] = measurement.getCurrent();
+            doseRate[i] = measurement.getDoseRateRadsPerHour();
+            settle[i] = measurement.getSettleSeconds();
+
+            hasSettle = hasSettle || !Double.isNaN(settle[i]);
+        }
+
+        return new MeasurementColumns(current, doseRate, hasSettle ? settle : null);
+    }
+
+    /**
+     * Return the number of measurements.
+     *
+     * @return The size
+     */
+    public int size() {
+        return current.length;
+    }
+
+    /**
+     * Return the current of a measurement (units are determined by caller).
+     *
+     * @param index The index
+     * @return The current
+     */
+    public double getCurrent(int index) {
+        return current[index];
+    }
+
+    /**
+     * Return the dose rate of a measurement.
+     *
+     * @param index The index
+     * @return The dose rate in rads per hour
+     */
+    public double getDoseRateRadsPerHour(int index) {
+        return doseRate[index];
+    }
+
+    /**
+     * Return the settle time of a measurement.
+     *
+     * @param index The index
+     * @return The settle seconds, or NaN if unknown
+     */
+    public double getSettleSeconds(int index) {
+        if (settleSeconds == null) {
+            if (index < 0 || index >= current.length) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+
+            return Double.NaN;
+        }
+
+        return settleSeconds[index];
+    }
+
+    /**
+     * Check if any measurement has a known settle time.
+     *
+     * @return true if settle times are present
+     */
+    public boolean hasSettleSeconds() {
+        return settleSeconds != null;
+    }
+
+    /**
+     * Return a read-only view of the currents.
+     *
+     * @return The view
+     */
+    public DoubleBuffer getCurrentView() {
+        return DoubleBuffer.wrap(current).asReadOnlyBuffer();
+    }
+
+    /**
+     * Return a read-only view of the dose rates.
+     *
+     * @return The view
+     */
+    public DoubleBuffer getDoseRateView() {
+        return DoubleBuffer.wrap(doseRate).asReadOnlyBuffer();
+    }
+
+    /**
+     * Return the smallest dose rate.
+     *
+     * @return The minimum, or NaN if there are no measurements
+     */
+    public double getMinDoseRate() {
+        double min = Double.NaN;
+
+        for (double value : doseRate) {
+            if (Double.isNaN(min) || value < min) {
+                min = value;
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Return the largest dose rate.
+     *
+     * @return The maximum, or NaN if there are no measurements
+     */
+    public double getMaxDoseRate() {
+        double max = Double.NaN;
+
+        for (double value : doseRate) {
+            if (Double.isNaN(max) || value > max) {
+                max = value;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Return the largest current.
+     *
+     * @return The maximum, or NaN if there are no measurements
+     */
+    public double getMaxCurrent() {
+        double max = Double.NaN;
+
+        for (double value : current) {
+            if (Double.isNaN(max) || value > max) {
+                max = value;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Check if the measurements are in ascending order of current.
+     *
+     * @return true if sorted
+     */
+    public boolean isSortedByCurrent() {
+        for (int i = 1; i < current.length; i++) {
+            if (current[i] < current[i - 1]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the measurements in ascending order of current. Measurements with equal current keep
+     * their relative order. If already sorted this instance is returned and nothing is copied.
+     *
+     * @return The sorted columns
+     */
+    public MeasurementColumns sortByCurrent() {
+        if (isSortedByCurrent()) {
+            return this;
+        }
+
+        int n = current.length;
+        Integer[] order = new Integer[n];
+
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (a, b) -> Double.compare(current[a], current[b])); // Stable
+
+        double[] sortedCurrent = new double[n];
+        double[] sortedDoseRate = new double[n];
+        double[] sortedSettle = settleSeconds == null ? null : new double[n];
+
+        for (int i = 0; i < n; i++) {
+            sortedCurrent[i] = current[order[i]];
+            sortedDoseRate[i] = doseRate[order[i]];
+
+            if (sortedSettle != null) {
+                sortedSettle[i] = settleSeconds[order[i]];
+            }
+        }
+
+        return new MeasurementColumns(sortedCurrent, sortedDoseRate, sortedSettle);
+    }
+
+    /**
+     * Return an unmodifiable list view of the measurements. Each element is created on access.
+     *
+     * @return The list view
+     */
+    public List<DoseRateMeasurement> asList() {
+        return listView;
+    }
+
+    /**
+     * A read-only DoseRateMeasurement view of the columns.
+     */
+    private final class MeasurementListView extends AbstractList<DoseRateMeasurement> implements
+            RandomAccess {
+
+        @Override
+        public DoseRateMeasurement get(int index) {
+            return new DoseRateMeasurement(current[index], doseRate[index],
+                    getSettleSeconds(index));
+        }
+
+        @Override
+        public int size() {
+            return current.length;
+        }
+    }
+}
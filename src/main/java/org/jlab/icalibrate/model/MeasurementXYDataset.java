@@ -0,0 +1,149 @@
+package org.jlab.icalibrate.model;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * A JFreeChart dataset of two series: the measured samples, read directly from measurement
+ * columns sorted by current, and the single setpoint point.
+ *
+ * Unlike an XYSeriesCollection no XYDataItem is created per sample; the renderer reads the
+ * primitive arrays through the column accessors.
+ *
+ * @author ryans
+ */
+public class MeasurementXYDataset extends AbstractXYDataset {
+
+    /**
+     * The index of the samples series.
+     */
+    public static final int SAMPLES = 0;
+
+    /**
+     * The index of the setpoint series.
+     */
+    public static final int SETPOINT = 1;
+
+    private MeasurementColumns samples;
+    private boolean hasSetpoint = false;
+    private double setpointX = Double.NaN;
+    private double setpointY = Double.NaN;
+
+    /**
+     * Create a new MeasurementXYDataset.
+     *
+     * @param samples The samples, sorted by current
+     */
+    public MeasurementXYDataset(MeasurementColumns samples) {
+        this.samples = samples;
+    }
+
+    /**
+     * Return the samples.
+     *
+     * @return The samples, sorted by current
+     */
+    public MeasurementColumns getSamples() {
+        return samples;
+    }
+
+    /**
+     * Replace the samples and notify listeners.
+     *
+     * @param samples The samples, sorted by current
+     */
+    public void setSamples(MeasurementColumns samples) {
+        this.samples = samples;
+        fireDatasetChanged();
+    }
+
+    /**
+     * Replace the setpoint and notify listeners.
+     *
+     * @param x The current
+     * @param y The setpoint
+     */
+    public void setSetpoint(double x, double y) {
+        this.hasSetpoint = true;
+        this.setpointX = x;
+        this.setpointY = y;
+        fireDatasetChanged();
+    }
+
+    /**
+     * Return the setpoint current.
+     *
+     * @return The current, or NaN if there is no setpoint
+     */
+    public double getSetpointX() {
+        return setpointX;
+    }
+
+    /**
+     * Return the setpoint.
+     *
+     * @return The setpoint, or NaN if there is no setpoint
+     */
+    public double getSetpointY() {
+        return setpointY;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 2;
+    }
+
+    @Override
+    public Comparable<String> getSeriesKey(int series) {
+        switch (series) {
+            case SAMPLES:
+                return "Samples";
+            case SETPOINT:
+                return "Setpoint";
+            default:
+                throw new IllegalArgumentException("Invalid series index: " + series);
+        }
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        if (series == SAMPLES) {
+            return samples.size();
+        }
+
+        return hasSetpoint ? 1 : 0;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        if (series == SAMPLES) {
+            return samples.getCurrent(item);
+        }
+
+        return setpointX;
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        if (series == SAMPLES) {
+            return samples.getDoseRateRadsPerHour(item);
+        }
+
+        return setpointY;
+    }
+}
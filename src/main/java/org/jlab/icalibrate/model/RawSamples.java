@@ -0,0 +1,340 @@
+package org.jlab.icalibrate.model;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The raw dose rate samples behind each averaged measurement of an ion chamber, with the
+ * statistics and outlier flags computed from them by RunningStatistics.
+ *
+ * Every sample of every measurement is held in one primitive array; measurement i owns the
+ * samples from getOffset(i) up to getOffset(i + 1). Measurement indexes match the
+ * MeasurementColumns of the same IonChamberDataset. Instances are immutable and are created with
+ * a Builder, which computes the statistics as samples arrive.
+ *
+ * @author ryans
+ */
+public final class RawSamples {
+
+    private final int[] offsets;
+    private final double[] values;
+    private final BitSet outliers;
+    private final int[] validCount;
+    private final double[] mean;
+    private final double[] variance;
+    private final double[] min;
+    private final double[] max;
+    private final int[] outlierCount;
+
+    private RawSamples(Builder builder) {
+        int n = builder.measurementCount;
+        int total = builder.offsets[n];
+
+        offsets = Arrays.copyOf(builder.offsets, n + 1);
+        values = Arrays.copyOf(builder.values, total);
+        outliers = builder.outliers.get(0, total);
+        validCount = Arrays.copyOf(builder.validCount, n);
+        mean = Arrays.copyOf(builder.mean, n);
+        variance = Arrays.copyOf(builder.variance, n);
+        min = Arrays.copyOf(builder.min, n);
+        max = Arrays.copyOf(builder.max, n);
+        outlierCount = Arrays.copyOf(builder.outlierCount, n);
+    }
+
+    /**
+     * Return the number of measurements.
+     *
+     * @return The count
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Return the index of the first sample of a measurement in the flattened sample array.
+     *
+     * @param measurement The measurement index, or size() for the end of the last one
+     * @return The offset
+     */
+    public int getOffset(int measurement) {
+        return offsets[measurement];
+    }
+
+    /**
+     * Return the number of samples of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The count
+     */
+    public int getSampleCount(int measurement) {
+        return offsets[measurement + 1] - offsets[measurement];
+    }
+
+    /**
+     * Return the number of samples of a measurement which are not NaN, the number its statistics
+     * were computed from.
+     *
+     * @param measurement The measurement index
+     * @return The count
+     */
+    public int getValidSampleCount(int measurement) {
+        return validCount[measurement];
+    }
+
+    /**
+     * Return the total number of samples of every measurement.
+     *
+     * @return The count
+     */
+    public int getTotalSampleCount() {
+        return values.length;
+    }
+
+    /**
+     * Return a sample.
+     *
+     * @param measurement The measurement index
+     * @param sample The sample index within the measurement
+     * @return The sample
+     */
+    public double getSample(int measurement, int sample) {
+        return values[checkedIndex(measurement, sample)];
+    }
+
+    /**
+     * Check if a sample was flagged as an outlier when it arrived.
+     *
+     * @param measurement The measurement index
+     * @param sample The sample index within the measurement
+     * @return true if an outlier
+     */
+    public boolean isOutlier(int measurement, int sample) {
+        return outliers.get(checkedIndex(measurement, sample));
+    }
+
+    /**
+     * Return a read-only view of the samples of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The view
+     */
+    public DoubleBuffer getSampleView(int measurement) {
+        return DoubleBuffer.wrap(values, offsets[measurement], getSampleCount(measurement))
+                .slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Return the mean of the samples of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The mean, or NaN if there are no samples
+     */
+    public double getMean(int measurement) {
+        return mean[measurement];
+    }
+
+    /**
+     * Return the sample variance of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The variance, or NaN if there are fewer than two samples
+     */
+    public double getVariance(int measurement) {
+        return variance[measurement];
+    }
+
+    /**
+     * Return the sample standard deviation of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The standard deviation, or NaN if there are fewer than two samples
+     */
+    public double getStandardDeviation(int measurement) {
+        return Math.sqrt(variance[measurement]);
+    }
+
+    /**
+     * Return the standard error of the mean of a measurement, the noise to weight a fit by.
+     *
+     * @param measurement The measurement index
+     * @return The standard error, or NaN if there are fewer than two samples
+     */
+    public double getStandardError(int measurement) {
+        return getStandardDeviation(measurement) / Math.sqrt(validCount[measurement]);
+    }
+
+    /**
+     * Return the smallest sample of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The minimum, or NaN if there are no samples
+     */
+    public double getMin(int measurement) {
+        return min[measurement];
+    }
+
+    /**
+     * Return the largest sample of a measurement.
+     *
+     * @param measurement The measurement index
+     * @return The maximum, or NaN if there are no samples
+     */
+    public double getMax(int measurement) {
+        return max[measurement];
+    }
+
+    /**
+     * Return the number of samples of a measurement flagged as outliers.
+     *
+     * @param measurement The measurement index
+     * @return The count
+     */
+    public int getOutlierCount(int measurement) {
+        return outlierCount[measurement];
+    }
+
+    private int checkedIndex(int measurement, int sample) {
+        if (sample < 0 || sample >= getSampleCount(measurement)) {
+            throw new IndexOutOfBoundsException("Sample: " + sample);
+        }
+
+        return offsets[measurement] + sample;
+    }
+
+    /**
+     * Accumulates raw samples one measurement at a time into growable primitive arrays.
+     *
+     * Call beginMeasurement, add each sample as it arrives, and endMeasurement. Beginning a
+     * measurement discards the samples of any measurement which was begun but not ended, for
+     * example a step which is retried after an FSD trip.
+     */
+    public static final class Builder {
+
+        private final RunningStatistics statistics;
+        private int[] offsets = new int[17];
+        private double[] values = new double[64];
+        private final BitSet outliers = new BitSet();
+        private int[] validCount = new int[16];
+        private double[] mean = new double[16];
+        private double[] variance = new double[16];
+        private double[] min = new double[16];
+        private double[] max = new double[16];
+        private int[] outlierCount = new int[16];
+        private int measurementCount = 0;
+        private int size = 0;
+        private boolean open = false;
+
+        /**
+         * Create a new Builder with the default outlier threshold.
+         */
+        public Builder() {
+            this(RunningStatistics.DEFAULT_OUTLIER_SIGMA);
+        }
+
+        /**
+         * Create a new Builder.
+         *
+         * @param outlierSigma The outlier threshold in standard deviations
+         */
+        public Builder(double outlierSigma) {
+            this.statistics = new RunningStatistics(outlierSigma);
+        }
+
+        /**
+         * Start the next measurement.
+         */
+        public void beginMeasurement() {
+            size = offsets[measurementCount];
+            outliers.clear(size, Math.max(size, outliers.length()));
+            statistics.reset();
+            open = true;
+        }
+
+        /**
+         * Add a sample to the current measurement.
+         *
+         * @param value The sample
+         * @return true if the sample is an outlier
+         */
+        public boolean add(double value) {
+            if (!open) {
+                throw new IllegalStateException("No measurement has begun");
+            }
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            boolean outlier = statistics.add(value);
+
+            values[size] = value;
+
+            if (outlier) {
+                outliers.set(size);
+            }
+
+            size++;
+
+            return outlier;
+        }
+
+        /**
+         * Return the running statistics of the current measurement.
+         *
+         * @return The statistics; do not modify
+         */
+        public RunningStatistics getStatistics() {
+            return statistics;
+        }
+
+        /**
+         * Finish the current measurement and record its statistics.
+         */
+        public void endMeasurement() {
+            if (!open) {
+                throw new IllegalStateException("No measurement has begun");
+            }
+
+            if (measurementCount == mean.length) {
+                int capacity = mean.length * 2;
+
+                offsets = Arrays.copyOf(offsets, capacity + 1);
+                validCount = Arrays.copyOf(validCount, capacity);
+                mean = Arrays.copyOf(mean, capacity);
+                variance = Arrays.copyOf(variance, capacity);
+                min = Arrays.copyOf(min, capacity);
+                max = Arrays.copyOf(max, capacity);
+                outlierCount = Arrays.copyOf(outlierCount, capacity);
+            }
+
+            validCount[measurementCount] = statistics.getCount();
+            mean[measurementCount] = statistics.getMean();
+            variance[measurementCount] = statistics.getVariance();
+            min[measurementCount] = statistics.getMin();
+            max[measurementCount] = statistics.getMax();
+            outlierCount[measurementCount] = statistics.getOutlierCount();
+            measurementCount++;
+            offsets[measurementCount] = size;
+            open = false;
+        }
+
+        /**
+         * Return the number of ended measurements.
+         *
+         * @return The count
+         */
+        public int getMeasurementCount() {
+            return measurementCount;
+        }
+
+        /**
+         * Create the RawSamples of the ended measurements. The builder may continue to be used.
+         *
+         * @return The samples
+         */
+        public RawSamples build() {
+            return new RawSamples(this);
+        }
+    }
+}
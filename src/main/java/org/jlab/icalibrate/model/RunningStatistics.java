@@ -0,0 +1,183 @@
+package org.jlab.icalibrate.model;
+
+/**
+ * Incrementally computes the count, mean, variance, minimum and maximum of a stream of samples
+ * using Welford's method, which is numerically stable and needs no storage of the samples.
+ *
+ * Each sample is also checked against the statistics of the samples before it: once at least
+ * MIN_OUTLIER_COUNT samples have been seen, a sample further than the outlier threshold (in
+ * standard deviations) from the running mean is flagged as an outlier. Outliers are flagged only;
+ * they are still included in the statistics. NaN samples are ignored.
+ *
+ * @author ryans
+ */
+public final class RunningStatistics {
+
+    /**
+     * The default outlier threshold in standard deviations.
+     */
+    public static final double DEFAULT_OUTLIER_SIGMA = 3.0d;
+
+    /**
+     * The number of samples required before outliers are flagged.
+     */
+    public static final int MIN_OUTLIER_COUNT = 3;
+
+    private final double outlierSigma;
+    private int count = 0;
+    private double mean = 0;
+    private double m2 = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private int outlierCount = 0;
+
+    /**
+     * Create a new RunningStatistics with the default outlier threshold.
+     */
+    public RunningStatistics() {
+        this(DEFAULT_OUTLIER_SIGMA);
+    }
+
+    /**
+     * Create a new RunningStatistics.
+     *
+     * @param outlierSigma The outlier threshold in standard deviations
+     */
+    public RunningStatistics(double outlierSigma) {
+        this.outlierSigma = outlierSigma;
+    }
+
+    /**
+     * Add a sample.
+     *
+     * @param value The sample
+     * @return true if the sample is an outlier
+     */
+    public boolean add(double value) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+
+        boolean outlier = isOutlier(value);
+
+        count++;
+
+        double delta = value - mean;
+        mean = mean + (delta / count);
+        m2 = m2 + (delta * (value - mean));
+
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        if (outlier) {
+            outlierCount++;
+        }
+
+        return outlier;
+    }
+
+    /**
+     * Check whether a value would be flagged as an outlier given the samples so far.
+     *
+     * @param value The value
+     * @return true if an outlier
+     */
+    public boolean isOutlier(double value) {
+        if (count < MIN_OUTLIER_COUNT) {
+            return false;
+        }
+
+        double sd = getStandardDeviation();
+
+        return sd > 0 && Math.abs(value - mean) > outlierSigma * sd;
+    }
+
+    /**
+     * Forget every sample.
+     */
+    public void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+        outlierCount = 0;
+    }
+
+    /**
+     * Return the number of samples.
+     *
+     * @return The count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Return the mean.
+     *
+     * @return The mean, or NaN if there are no samples
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * Return the sample variance.
+     *
+     * @return The variance, or NaN if there are fewer than two samples
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * Return the sample standard deviation.
+     *
+     * @return The standard deviation, or NaN if there are fewer than two samples
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Return the standard error of the mean, the noise to weight a fit by.
+     *
+     * @return The standard error, or NaN if there are fewer than two samples
+     */
+    public double getStandardError() {
+        return getStandardDeviation() / Math.sqrt(count);
+    }
+
+    /**
+     * Return the smallest sample.
+     *
+     * @return The minimum, or NaN if there are no samples
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Return the largest sample.
+     *
+     * @return The maximum, or NaN if there are no samples
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Return the number of samples flagged as outliers.
+     *
+     * @return The count
+     */
+    public int getOutlierCount() {
+        return outlierCount;
+    }
+}
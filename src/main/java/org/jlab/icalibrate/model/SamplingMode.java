@@ -0,0 +1,34 @@
+package org.jlab.icalibrate.model;
+
+/**
+ * Models the ways dose rate samples can be gathered while creating a new dataset.
+ *
+ * POLL performs a CA-GET of every ion chamber once per sample period. MONITOR subscribes to every
+ * ion chamber and averages all monitor updates received during the dwell window.
+ *
+ * @author ryans
+ */
+public enum SamplingMode {
+    POLL, MONITOR;
+
+    /**
+     * Parse a sampling mode from a configuration value, falling back to POLL if the value is
+     * missing or unrecognized.
+     *
+     * @param value The configuration value
+     * @return The sampling mode
+     */
+    public static SamplingMode fromConfig(String value) {
+        SamplingMode mode = POLL;
+
+        if (value != null) {
+            try {
+                mode = SamplingMode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Unrecognized; use default
+            }
+        }
+
+        return mode;
+    }
+}
@@ -0,0 +1,105 @@
+package org.jlab.icalibrate.model;
+
+/**
+ * Computes the trip setpoint of every ion chamber in one pass over primitive fit coefficients.
+ *
+ * The setpoint of a chamber is its fit evaluated at the chosen current, scaled by the margin. The
+ * current and margin controls change every chamber's setpoint at once while the fits themselves
+ * only change when the operator edits a single chamber, so the coefficients are cached here and
+ * refreshed per chamber with setFit.
+ *
+ * Instances are thread safe so that setpoints can be computed off the Event Dispatch Thread while
+ * fits are edited on it; the version is incremented by every setFit so callers can detect that a
+ * computed result may predate a fit change.
+ *
+ * @author ryans
+ */
+public final class SetpointCalculator {
+
+    private final double[] slopes;
+    private final double[] intercepts;
+    private final boolean[] logarithmic;
+    private long version = 0;
+
+    /**
+     * Create a new SetpointCalculator.
+     *
+     * @param size The number of ion chambers
+     */
+    public SetpointCalculator(int size) {
+        slopes = new double[size];
+        intercepts = new double[size];
+        logarithmic = new boolean[size];
+    }
+
+    /**
+     * Return the number of ion chambers.
+     *
+     * @return The number of ion chambers
+     */
+    public int size() {
+        return slopes.length;
+    }
+
+    /**
+     * Set the fit of an ion chamber.
+     *
+     * @param index The ion chamber index
+     * @param slope The slope
+     * @param intercept The intercept
+     * @param log true if y = slope * ln(x) + intercept, false if y = slope * x + intercept
+     */
+    public synchronized void setFit(int index, double slope, double intercept, boolean log) {
+        slopes[index] = slope;
+        intercepts[index] = intercept;
+        logarithmic[index] = log;
+        version++;
+    }
+
+    /**
+     * Return the number of times a fit has been set.
+     *
+     * @return The version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the fit of an ion chamber from the fit currently selected in a chart dataset.
+     *
+     * @param index The ion chamber index
+     * @param dataset The chart dataset
+     */
+    public void setFit(int index, ChartDataset dataset) {
+        if (dataset.isLogarithmicSelected()) {
+            setFit(index, dataset.getLogarithmicFit().getSlope(),
+                    dataset.getLogarithmicFit().getIntercept(), true);
+        } else {
+            setFit(index, dataset.getLinearFit().getSlope(), dataset.getLinearFit().getIntercept(),
+                    false);
+        }
+    }
+
+    /**
+     * Compute the setpoint of every ion chamber.
+     *
+     * @param current The current
+     * @param margin The margin (percent); negative for a setpoint below the fit
+     * @return The setpoints in rads per hour, NaN where a chamber has no usable fit
+     */
+    public synchronized double[] compute(int current, int margin) {
+        double[] setpoints = new double[slopes.length];
+        double scale = (100.0d + margin) / 100.0d;
+        double x = current;
+        double lnX = current == 0 ? Double.NaN : Math.log(x); // ln(0) is undefined
+
+        for (int i = 0; i < setpoints.length; i++) {
+            double fx = logarithmic[i] ? lnX : x;
+
+            setpoints[i] = (slopes[i] * fx + intercepts[i]) * scale;
+        }
+
+        return setpoints;
+    }
+}
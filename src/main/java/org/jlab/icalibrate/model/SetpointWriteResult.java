@@ -0,0 +1,179 @@
+package org.jlab.icalibrate.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The per ion chamber outcome of writing dose rate trip setpoints to EPICS and reading them back.
+ *
+ * @author ryans
+ */
+public final class SetpointWriteResult {
+
+    /**
+     * The largest difference in rads per hour between a written setpoint and its readback which
+     * is still considered a match; IOCs may round the value they store.
+     */
+    public static final double READBACK_TOLERANCE_RADS_PER_HOUR = 1.0d;
+
+    private final List<ChamberResult> chamberResultList = new ArrayList<>();
+
+    /**
+     * Record the outcome of one ion chamber.
+     *
+     * @param setpoint The setpoint which was written
+     * @param readback The readback in rads per hour, or NaN if it could not be read
+     * @param failure The reason the write or readback failed, or null if neither did
+     */
+    public void add(DoseRateTripSetpoint setpoint, double readback, String failure) {
+        chamberResultList.add(new ChamberResult(setpoint, readback, failure));
+    }
+
+    /**
+     * Return the outcome of each ion chamber in the order written.
+     *
+     * @return The unmodifiable list of results
+     */
+    public List<ChamberResult> getChamberResultList() {
+        return Collections.unmodifiableList(chamberResultList);
+    }
+
+    /**
+     * Return the number of ion chambers with the given status.
+     *
+     * @param status The status
+     * @return The count
+     */
+    public int count(Status status) {
+        int count = 0;
+
+        for (ChamberResult result : chamberResultList) {
+            if (result.getStatus() == status) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Check whether every setpoint was written and confirmed by readback.
+     *
+     * @return true if every ion chamber is CONFIRMED
+     */
+    public boolean isSuccessful() {
+        return count(Status.CONFIRMED) == chamberResultList.size();
+    }
+
+    /**
+     * Return an operator friendly description of every ion chamber which was not confirmed, one
+     * per line.
+     *
+     * @return The description, or an empty string if successful
+     */
+    public String describeProblems() {
+        StringBuilder builder = new StringBuilder();
+
+        for (ChamberResult result : chamberResultList) {
+            if (result.getStatus() != Status.CONFIRMED) {
+                if (builder.length() > 0) {
+                    builder.append("\n");
+                }
+
+                builder.append(result.getSetpoint().getIonChamber().getFriendlyNameOrEpicsName());
+                builder.append(": ");
+
+                if (result.getStatus() == Status.MISMATCH) {
+                    builder.append("wrote ");
+                    builder.append(result.getSetpoint().getDoseRateRadsPerHour());
+                    builder.append(" but read back ");
+                    builder.append(result.getReadback());
+                } else {
+                    builder.append(result.getFailure());
+                }
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * The outcome of writing the setpoint of a single ion chamber.
+     */
+    public enum Status {
+        /**
+         * The put was confirmed and the readback matches.
+         */
+        CONFIRMED,
+        /**
+         * The put or the readback failed.
+         */
+        FAILED,
+        /**
+         * The put was confirmed but the readback does not match.
+         */
+        MISMATCH
+    }
+
+    /**
+     * The outcome of writing the setpoint of a single ion chamber.
+     */
+    public static final class ChamberResult {
+
+        private final DoseRateTripSetpoint setpoint;
+        private final double readback;
+        private final String failure;
+
+        private ChamberResult(DoseRateTripSetpoint setpoint, double readback, String failure) {
+            this.setpoint = setpoint;
+            this.readback = readback;
+            this.failure = failure;
+        }
+
+        /**
+         * Return the setpoint which was written.
+         *
+         * @return The setpoint
+         */
+        public DoseRateTripSetpoint getSetpoint() {
+            return setpoint;
+        }
+
+        /**
+         * Return the value read back after the write.
+         *
+         * @return The readback in rads per hour, or NaN if it could not be read
+         */
+        public double getReadback() {
+            return readback;
+        }
+
+        /**
+         * Return the reason the write or readback failed.
+         *
+         * @return The reason, or null if neither failed
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        /**
+         * Return the status.
+         *
+         * @return The status
+         */
+        public Status getStatus() {
+            if (failure != null || Double.isNaN(readback)) {
+                return Status.FAILED;
+            }
+
+            if (Math.abs(readback - setpoint.getDoseRateRadsPerHour())
+                    > READBACK_TOLERANCE_RADS_PER_HOUR) {
+                return Status.MISMATCH;
+            }
+
+            return Status.CONFIRMED;
+        }
+    }
+}
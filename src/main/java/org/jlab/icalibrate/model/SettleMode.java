@@ -0,0 +1,36 @@
+package org.jlab.icalibrate.model;
+
+/**
+ * Models the ways the beam is allowed to settle after each attenuator change while creating a new
+ * dataset.
+ *
+ * FIXED always waits the configured settle time. ADAPTIVE monitors the beam current and every ion
+ * chamber and moves on as soon as all of them are stable over a sliding window, using the
+ * configured settle time as an upper bound.
+ *
+ * @author ryans
+ */
+public enum SettleMode {
+    FIXED, ADAPTIVE;
+
+    /**
+     * Parse a settle mode from a configuration value, falling back to FIXED if the value is
+     * missing or unrecognized.
+     *
+     * @param value The configuration value
+     * @return The settle mode
+     */
+    public static SettleMode fromConfig(String value) {
+        SettleMode mode = FIXED;
+
+        if (value != null) {
+            try {
+                mode = SettleMode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Unrecognized; use default
+            }
+        }
+
+        return mode;
+    }
+}
@@ -0,0 +1,156 @@
+package org.jlab.icalibrate.model;
+
+import java.io.File;
+import java.util.Date;
+
+/**
+ * The linear and logarithmic fits of one ion chamber in one calibration.
+ *
+ * @author ryans
+ */
+public final class TrendPoint implements Comparable<TrendPoint> {
+
+    private final File file;
+    private final Date calibratedDate;
+    private final String target;
+    private final String pass;
+    private final int measurementCount;
+    private final double linearSlope;
+    private final double linearIntercept;
+    private final double linearRSquare;
+    private final double logarithmicSlope;
+    private final double logarithmicIntercept;
+    private final double logarithmicRSquare;
+
+    /**
+     * Create a new TrendPoint from a chart dataset.
+     *
+     * @param file The HCD file
+     * @param calibratedDate The date of calibration
+     * @param target The target
+     * @param pass The pass
+     * @param dataset The chart dataset with the fits
+     */
+    public TrendPoint(File file, Date calibratedDate, String target, String pass,
+            ChartDataset dataset) {
+        this.file = file;
+        this.calibratedDate = calibratedDate;
+        this.target = target;
+        this.pass = pass;
+        this.measurementCount = dataset.getMeasuredDataset().getColumns().size();
+        this.linearSlope = dataset.getLinearFit().getSlope();
+        this.linearIntercept = dataset.getLinearFit().getIntercept();
+        this.linearRSquare = dataset.getLinearRSquare();
+        this.logarithmicSlope = dataset.getLogarithmicFit().getSlope();
+        this.logarithmicIntercept = dataset.getLogarithmicFit().getIntercept();
+        this.logarithmicRSquare = dataset.getLogarithmicRSquare();
+    }
+
+    /**
+     * Return the HCD file.
+     *
+     * @return The file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Return the date of calibration.
+     *
+     * @return The date
+     */
+    public Date getCalibratedDate() {
+        return calibratedDate;
+    }
+
+    /**
+     * Return the target.
+     *
+     * @return The target
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Return the pass.
+     *
+     * @return The pass
+     */
+    public String getPass() {
+        return pass;
+    }
+
+    /**
+     * Return the number of measurements fit.
+     *
+     * @return The count
+     */
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    /**
+     * Return the linear fit slope (dose rate per unit current).
+     *
+     * @return The slope, or NaN if there is no fit
+     */
+    public double getLinearSlope() {
+        return linearSlope;
+    }
+
+    /**
+     * Return the linear fit intercept.
+     *
+     * @return The intercept, or NaN if there is no fit
+     */
+    public double getLinearIntercept() {
+        return linearIntercept;
+    }
+
+    /**
+     * Return the linear fit R^2.
+     *
+     * @return The R^2, or NaN if there is no fit
+     */
+    public double getLinearRSquare() {
+        return linearRSquare;
+    }
+
+    /**
+     * Return the logarithmic fit slope.
+     *
+     * @return The slope, or NaN if there is no fit
+     */
+    public double getLogarithmicSlope() {
+        return logarithmicSlope;
+    }
+
+    /**
+     * Return the logarithmic fit intercept.
+     *
+     * @return The intercept, or NaN if there is no fit
+     */
+    public double getLogarithmicIntercept() {
+        return logarithmicIntercept;
+    }
+
+    /**
+     * Return the logarithmic fit R^2.
+     *
+     * @return The R^2, or NaN if there is no fit
+     */
+    public double getLogarithmicRSquare() {
+        return logarithmicRSquare;
+    }
+
+    @Override
+    public int compareTo(TrendPoint o) {
+        if (calibratedDate == null || o.calibratedDate == null) {
+            return calibratedDate == null ? (o.calibratedDate == null ? 0 : 1) : -1;
+        }
+
+        return calibratedDate.compareTo(o.calibratedDate);
+    }
+}
@@ -10,6 +10,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.WindowAdapter;
+import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,13 +35,20 @@ import javax.swing.event.TableModelListener;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
 import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.elog.ElogOutbox;
+import org.jlab.icalibrate.elog.JLogClient;
+import org.jlab.icalibrate.elog.OutboxEntry;
+import org.jlab.icalibrate.elog.OutboxListener;
 import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.file.archive.ArchiveIndex;
 import org.jlab.icalibrate.epics.PvListener;
 import org.jlab.icalibrate.model.ChartDataset;
 import org.jlab.icalibrate.model.Hall;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
 import org.jlab.icalibrate.model.IonChamber;
 import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.SetpointCalculator;
 import org.jlab.icalibrate.model.CreateNewDatasetParameters;
 import org.jlab.icalibrate.model.DoseRateMeasurement;
 import org.jlab.icalibrate.swing.action.ExportEpicsAction;
@@ -50,15 +59,20 @@ import org.jlab.icalibrate.swing.action.listener.ExportElogActionListener;
 import org.jlab.icalibrate.swing.action.listener.OpenHCDActionListener;
 import org.jlab.icalibrate.swing.action.listener.PromptUnsavedThenContinueActionListener;
 import org.jlab.icalibrate.swing.action.listener.SaveHCDThenContinueActionListener;
+import org.jlab.icalibrate.swing.dialog.ArchiveBrowserDialog;
 import org.jlab.icalibrate.swing.dialog.HelpDialog;
 import org.jlab.icalibrate.swing.dialog.CreateDatasetProgressDialog;
 import org.jlab.icalibrate.swing.dialog.ChooseAndModifySetpointDialog;
 import org.jlab.icalibrate.swing.dialog.ModifySampleDataDialog;
+import org.jlab.icalibrate.swing.dialog.TrendDialog;
 import org.jlab.icalibrate.swing.table.model.DoseRateTableModel;
 import org.jlab.icalibrate.swing.table.model.SetpointTableModel;
 import org.jlab.icalibrate.swing.table.model.SetpointTableModel.SetpointRow;
 import org.jlab.icalibrate.swing.table.renderer.UnselectableDoseRateCellRenderer;
 import org.jlab.icalibrate.swing.util.DoseRateChartPanel;
+import org.jlab.icalibrate.swing.util.HyperLinkEnabledMessage;
+import org.jlab.icalibrate.swing.util.RecomputeScheduler;
+import org.jlab.icalibrate.swing.util.RecomputeStatistics;
 import org.jlab.icalibrate.swing.table.renderer.MeasuredCurrentCellRenderer;
 import org.jlab.icalibrate.swing.table.renderer.UnselectableCellRenderer;
 import org.jlab.icalibrate.wizard.Wizard;
@@ -87,15 +101,22 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
     private final ChooseAndModifySetpointDialog modifySetpointDialog
             = new ChooseAndModifySetpointDialog(this);
     private final CreateDatasetProgressDialog progressDialog = new CreateDatasetProgressDialog(this);
+    private ArchiveIndex archiveIndex = null;
+    private ArchiveBrowserDialog archiveBrowserDialog = null;
+    private TrendDialog trendDialog = null;
 
     private final SetpointTableModel setpointTableModel = new SetpointTableModel(false);
     private final DoseRateTableModel doseRateTableModel = new DoseRateTableModel();
     private final DoseRateChartPanel chartPanel = new DoseRateChartPanel();
     private HallCalibrationDataset dataset = null;
     private List<ChartDataset> chartDatasetList = null;
+    private SetpointCalculator setpointCalculator = null;
+    private final RecomputeScheduler<double[]> setpointScheduler = new RecomputeScheduler<>(
+            "iCalibrate-Setpoint-Recompute");
     private boolean persisted = false;
     private String filename;
     private final ChannelManager channelManager;
+    private final ElogOutbox elogOutbox;
     private final Map<String, Integer> pvToRowIndexMap = new HashMap<>();
     private final HashMap<Hall, String[]> negativeTargetsMap = new HashMap<>();
 
@@ -106,6 +127,7 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
      */
     public ICalibrateFrame(ChannelManager channelManager) {
         this.channelManager = channelManager;
+        this.elogOutbox = createElogOutbox();
         initComponents();
         initActions();
         initTableFormat();
@@ -120,6 +142,62 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
         }
     }
 
+    private ElogOutbox createElogOutbox() {
+        String dir = ICalibrateApp.APP_PROPERTIES.getProperty("ELOG_OUTBOX_DIR");
+        File spoolDirectory = (dir == null || dir.trim().isEmpty()) ? new File(new File(
+                System.getProperty("user.home"), ".icalibrate"), "elog-outbox") : new File(dir);
+
+        ElogOutbox outbox = new ElogOutbox(spoolDirectory, new JLogClient());
+
+        outbox.addListener(new OutboxListener() {
+            @Override
+            public void entrySubmitted(OutboxEntry entry, long lognumber) {
+                EventQueue.invokeLater(() -> {
+                    String url = "https://logbooks.jlab.org/entry/" + lognumber;
+                    String html = "<html>Log number: <a href=\"" + url + "\">" + lognumber
+                            + "</a></html>";
+
+                    JOptionPane.showMessageDialog(ICalibrateFrame.this,
+                            new HyperLinkEnabledMessage(html), "Successfully created elog",
+                            JOptionPane.INFORMATION_MESSAGE);
+                });
+            }
+
+            @Override
+            public void entryFailed(OutboxEntry entry, long retryMillis) {
+                if (entry.getAttempts() == 1) { // Only tell the operator once per entry
+                    EventQueue.invokeLater(() -> {
+                        JOptionPane.showMessageDialog(ICalibrateFrame.this,
+                                "Unable to reach the logbook server: " + entry.getLastError()
+                                + "\nThe elog \"" + entry.getTitle()
+                                + "\" is saved and will be retried until submitted.",
+                                "Elog queued", JOptionPane.WARNING_MESSAGE);
+                    });
+                }
+            }
+
+            @Override
+            public void entryParked(OutboxEntry entry) {
+                EventQueue.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(ICalibrateFrame.this,
+                            "The logbook server will not accept the elog \"" + entry.getTitle()
+                            + "\": " + entry.getLastError()
+                            + "\nIt has been set aside and will not be retried. It is saved in "
+                            + spoolDirectory,
+                            "Unable to create elog", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
+
+        try {
+            outbox.start();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to open elog outbox: " + spoolDirectory, e);
+        }
+
+        return outbox;
+    }
+
     private void initActions() {       
         openMenuItem.addActionListener(new PromptUnsavedThenContinueActionListener(this,
                 new ActionListener() {
@@ -333,6 +411,24 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
                         "Exit"));
             }
         });
+
+        javax.swing.JMenuItem trendMenuItem = new javax.swing.JMenuItem("Calibration Trends...");
+        trendMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                TrendDialog dialog = getTrendDialog();
+
+                if (dialog == null) {
+                    JOptionPane.showMessageDialog(ICalibrateFrame.this,
+                            "No HCD archive directory (DEFAULT_HCD_FILE_DIR) is configured",
+                            "Calibration Trends", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    dialog.setLocationRelativeTo(ICalibrateFrame.this);
+                    dialog.setVisible(true);
+                }
+            }
+        });
+        fileMenu.insert(trendMenuItem, fileMenu.getPopupMenu().getComponentIndex(jSeparator3));
     }
 
     private void doExit() {
@@ -344,6 +440,14 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
             laserDialog.dispose();*/
 
         doClose(); // Stop monitoring
+        setpointScheduler.shutdown();
+        elogOutbox.close(); // Unsent entries stay spooled for next time
+
+        int pending = elogOutbox.getPendingEntries().size();
+
+        if (pending > 0) {
+            LOGGER.log(Level.INFO, "Exiting with {0} elog(s) waiting in the outbox", pending);
+        }
 
         ICalibrateFrame.this.dispose();
         //System.gc();
@@ -954,6 +1058,12 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
 
         setpointTableModel.setRows(rows);
 
+        setpointCalculator = new SetpointCalculator(chartDatasetList.size());
+
+        for (int i = 0; i < chartDatasetList.size(); i++) {
+            setpointCalculator.setFit(i, chartDatasetList.get(i));
+        }
+
         selectIonChamberInSetpointTable(0);
         //handleSelectIonChamber(); // Already triggered by above
 
@@ -1006,14 +1116,9 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
 
         int index = setpointTable.getSelectedRow();
         ChartDataset selected = chartDatasetList.get(index);
-        int current = currentSlider.getValue();
-        int margin = marginSlider.getValue();
-        boolean logarithmic = selected.isLogarithmicSelected();
         IonChamber chamber = selected.getMeasuredDataset().getIonChamber();
         IonChamberDataset ds = new IonChamberDataset(chamber, data);
-        selected = new ChartDataset(ds, current, margin);
-        selected.setLogarithmicSelected(logarithmic);
-        chartDatasetList.set(index, selected);
+        selected.setMeasuredDataset(ds);
         String currentUnits = currentUnitsLabel.getText();
         chartPanel.setDataset(selected, currentUnits);
         dataset.getMeasuredDoseRateDataset().set(index, ds);
@@ -1041,6 +1146,8 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
             if (index != -1 && chartDatasetList.size() > index) {
                 ChartDataset selected = chartDatasetList.get(index);
 
+                setpointCalculator.setFit(index, selected);
+
                 updateEquation(selected);
 
                 int current = currentSlider.getValue();
@@ -1065,7 +1172,7 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
     }
 
     private void recalculateSetpointAll() {
-        if (chartDatasetList != null) {
+        if (chartDatasetList != null && setpointCalculator != null) {
             int current = currentSlider.getValue();
             int margin = marginSlider.getValue();
             boolean negative = negativeMarginCheckbox.isSelected();
@@ -1074,14 +1181,51 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
                 margin = margin * -1;
             }
 
-            for (int i = 0; i < chartDatasetList.size(); i++) {
+            // Slider drags fire a burst of events; compute off the EDT and apply only the latest
+            SetpointCalculator calculator = setpointCalculator;
+            long version = calculator.getVersion();
+            int m = margin;
+
+            setpointScheduler.request(() -> calculator.compute(current, m),
+                    setpoints -> applySetpoints(calculator, version, current, setpoints));
+        }
+    }
+
+    private void applySetpoints(SetpointCalculator calculator, long version, int current,
+            double[] setpoints) {
+        if (calculator != setpointCalculator || chartDatasetList == null
+                || chartDatasetList.size() != setpoints.length) {
+            return; // Dataset closed or replaced while computing
+        }
+
+        if (calculator.getVersion() != version) {
+            recalculateSetpointAll(); // A fit changed while computing; result may predate it
+            return;
+        }
 
-                ChartDataset ds = chartDatasetList.get(i);
+        // One pass over all chambers, one table event, and one redraw of the visible chart
+        for (int i = 0; i < chartDatasetList.size(); i++) {
+            chartDatasetList.get(i).applySetpoint(current, setpoints[i]);
 
-                //System.out.println("recalculateSetpointAll: " + ds.getMeasuredDataset().getIonChamber().getFullName() + " logarithmic: " + ds.isLogarithmicSelected());                           
-                recalculateSetpoint(ds, i, current, margin);
+            if (Double.isNaN(setpoints[i]) || setpoints[i] < 0) {
+                setpoints[i] = 0.0;
             }
         }
+
+        setpointTableModel.setCalculatedAll(setpoints);
+
+        if (chartPanel.getDataset() != null) {
+            chartPanel.drawFit();
+        }
+    }
+
+    /**
+     * Return the setpoint recompute counters (requests, dropped events, and EDT frame times).
+     *
+     * @return The statistics
+     */
+    public RecomputeStatistics getRecomputeStatistics() {
+        return setpointScheduler.getStatistics();
     }
 
     private void handleSelectIonChamber() {
@@ -1089,15 +1233,14 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
         String currentUnits = currentUnitsLabel.getText();
         if (index != -1 && chartDatasetList.size() > index) {
             ChartDataset selected = chartDatasetList.get(index);
-            doseRateTableModel.setRows(new LinkedHashSet<>(
-                    selected.getMeasuredDataset().getMeasurementList()));
+            doseRateTableModel.setColumns(selected.getMeasuredDataset().getColumns());
 
             //System.out.println("handleSelectIonChamber: " + selected.getMeasuredDataset().getIonChamber().getFullName() + " logarithmic: " + selected.isLogarithmicSelected());
             chartPanel.setDataset(selected, currentUnits);
 
             updateEquation(selected);
         } else {
-            doseRateTableModel.setRows(new LinkedHashSet<>());
+            doseRateTableModel.setColumns(MeasurementColumns.EMPTY);
             chartPanel.setDataset(null, null);
             fitEquationLabel.setText("y = mx + b");
         }
@@ -1120,6 +1263,8 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
         noSampleFileLoaded();
         dataset = null;
         chartDatasetList = null;
+        setpointCalculator = null;
+        setpointScheduler.cancel();
         setTitle("iCalibrate");
         if (!pvToRowIndexMap.isEmpty() && channelManager != null) {
             channelManager.clearPvs(this, pvToRowIndexMap.keySet());
@@ -1127,6 +1272,61 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
         }
     }
 
+    /**
+     * Return the index of the archive directory, creating it the first time. The archive is the
+     * DEFAULT_HCD_FILE_DIR directory and the index is persisted to HCD_INDEX_FILE (default
+     * .icalibrate/hcd-index.dat in the user home directory).
+     *
+     * @return The index, or null if there is no archive directory
+     */
+    public ArchiveIndex getArchiveIndex() {
+        if (archiveIndex == null) {
+            String dir = ICalibrateApp.APP_PROPERTIES.getProperty("DEFAULT_HCD_FILE_DIR");
+
+            if (dir != null && new File(dir).isDirectory()) {
+                String indexPath = ICalibrateApp.APP_PROPERTIES.getProperty("HCD_INDEX_FILE");
+                File indexFile;
+
+                if (indexPath == null || indexPath.trim().isEmpty()) {
+                    indexFile = new File(new File(System.getProperty("user.home"),
+                            ".icalibrate"), "hcd-index.dat");
+                } else {
+                    indexFile = new File(indexPath.trim());
+                }
+
+                archiveIndex = new ArchiveIndex(new File(dir), indexFile);
+            }
+        }
+
+        return archiveIndex;
+    }
+
+    /**
+     * Return the archive browser dialog, creating it the first time.
+     *
+     * @return The dialog, or null if there is no archive directory
+     */
+    public ArchiveBrowserDialog getArchiveBrowserDialog() {
+        if (archiveBrowserDialog == null && getArchiveIndex() != null) {
+            archiveBrowserDialog = new ArchiveBrowserDialog(this, getArchiveIndex());
+        }
+
+        return archiveBrowserDialog;
+    }
+
+    /**
+     * Return the calibration trend dialog, creating it the first time.
+     *
+     * @return The dialog, or null if there is no archive directory
+     */
+    public TrendDialog getTrendDialog() {
+        if (trendDialog == null && getArchiveIndex() != null) {
+            trendDialog = new TrendDialog(this, getArchiveIndex());
+        }
+
+        return trendDialog;
+    }
+
     /**
      * Set the current parameter used to calculate setpoints.
      *
@@ -1245,6 +1445,15 @@ public class ICalibrateFrame extends ModalWaitFrame implements PvListener {
         return channelManager;
     }
 
+    /**
+     * Return the elog outbox.
+     *
+     * @return The outbox
+     */
+    public ElogOutbox getElogOutbox() {
+        return elogOutbox;
+    }
+
     /**
      * Return the current Hall Calibration Dataset filename.
      *
@@ -3,10 +3,15 @@ package org.jlab.icalibrate.swing.action;
 import gov.aps.jca.CAException;
 import gov.aps.jca.TimeoutException;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
@@ -14,20 +19,19 @@ import java.util.logging.Logger;
 import javax.swing.AbstractAction;
 import javax.swing.JOptionPane;
 
-import org.jlab.elog.Body;
-import org.jlab.elog.LogEntry;
-import org.jlab.elog.exception.LogCertificateException;
-import org.jlab.elog.exception.LogIOException;
 import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.epics.BatchGetResult;
+import org.jlab.icalibrate.epics.BatchPutResult;
 import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.epics.DbrUtil;
 import org.jlab.icalibrate.exception.AppException;
 import org.jlab.icalibrate.IOUtil;
 import org.jlab.icalibrate.model.DoseRateTripSetpoint;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.SetpointWriteResult;
 import org.jlab.icalibrate.swing.ICalibrateFrame;
 import org.jlab.icalibrate.swing.dialog.ChooseAndModifySetpointDialog;
 import org.jlab.icalibrate.swing.table.model.ModifySetpointTableModel;
-import org.jlab.icalibrate.swing.util.HyperLinkEnabledMessage;
 import org.jlab.icalibrate.swing.worker.MinimumExecutionSwingWorker;
 
 /**
@@ -60,10 +64,10 @@ public final class ExportEpicsAction extends AbstractAction {
 
         if (true) {
             frame.queueShowModalWait();
-            new MinimumExecutionSwingWorker<Long, Void>() {
+            new MinimumExecutionSwingWorker<Void, Void>() {
 
                 @Override
-                protected Long doWithMinimumExecution() throws Exception {
+                protected Void doWithMinimumExecution() throws Exception {
 
                     ChannelManager manager = frame.getChannelManager();
                     List<DoseRateTripSetpoint> setpointList
@@ -73,44 +77,30 @@ public final class ExportEpicsAction extends AbstractAction {
                             "WRITE_ALLOWED"));
 
                     if (writeAllowed) {
-                        for (DoseRateTripSetpoint setpoint : setpointList) {
-                            String pv = setpoint.getIonChamber().getDoseRateSetpointWritePvName();
-                            double value = setpoint.getDoseRateRadsPerHour();
-
-                            try {
-                                manager.put(pv, value);
-                            } catch (CAException e) {
-                                throw new AppException("Unable to perform EPICS CA Put of PV: " + pv
-                                        + " - " + e.getMessage(), e);
-                            } catch (TimeoutException e) {
-                                throw new AppException("Timeout waiting for EPICS CA Put of PV: " + pv,
-                                        e);
-                            }
+                        SetpointWriteResult result = writeSetpoints(manager, setpointList);
+
+                        if (!result.isSuccessful()) {
+                            throw new AppException("Unable to confirm "
+                                    + (result.getChamberResultList().size()
+                                    - result.count(SetpointWriteResult.Status.CONFIRMED))
+                                    + " of " + result.getChamberResultList().size()
+                                    + " EPICS setpoints:\n" + result.describeProblems());
                         }
                     }
 
-                    Long lognumber = null;
-
-                    try {
-                        lognumber = sendComparisonElog();
-                    } catch(LogCertificateException | LogIOException e) {
+                    try { // Queued; the outbox reports the log number once submitted
+                        sendComparisonElog();
+                    } catch(IOException e) {
                         LOGGER.log(Level.WARNING, "Unable to create export to EPICS elog comparision", e);
                     }
 
-                    return lognumber;
+                    return null;
                 }
 
                 @Override
                 protected void done() {
                     try {
-                        Long lognumber = get(); // See if there were any exceptions
-
-                        if(lognumber != null) { // failing to create comparison elog is simply ignored
-                            String url = "https://logbooks.jlab.org/entry/" + lognumber;
-                            String html = "<html>Log number: <a href=\"" + url + "\">" + lognumber + "</a></html>";
-
-                            JOptionPane.showMessageDialog(frame, new HyperLinkEnabledMessage(html), "Successfully created elog", JOptionPane.INFORMATION_MESSAGE);
-                        }
+                        get(); // See if there were any exceptions
                     } catch (InterruptedException | ExecutionException ex) {
                         String title = "Unable to export to EPICS";
                         String message = "Unexpected error";
@@ -136,9 +126,82 @@ public final class ExportEpicsAction extends AbstractAction {
         }
     }
 
-    private Long sendComparisonElog() throws LogCertificateException, LogIOException {
-        Long lognumber = null;
+    /**
+     * Write every setpoint at once with confirmed puts, then read every setpoint back at once to
+     * verify the values landed. Writing a whole hall therefore costs two round-trips rather than
+     * one per ion chamber.
+     *
+     * @param manager The channel manager
+     * @param setpointList The setpoints
+     * @return The outcome of each ion chamber
+     * @throws AppException If unable to issue the batches
+     * @throws InterruptedException If interrupted while waiting
+     */
+    static SetpointWriteResult writeSetpoints(ChannelManager manager,
+            List<DoseRateTripSetpoint> setpointList) throws AppException, InterruptedException {
+        Map<String, Double> valueMap = new LinkedHashMap<>();
+        List<String> readbackPvList = new ArrayList<>();
+
+        for (DoseRateTripSetpoint setpoint : setpointList) {
+            valueMap.put(setpoint.getIonChamber().getDoseRateSetpointWritePvName(),
+                    setpoint.getDoseRateRadsPerHour());
+        }
+
+        BatchPutResult putResult;
 
+        try {
+            putResult = manager.putAll(valueMap).get();
+        } catch (ExecutionException e) {
+            throw new AppException("Unable to perform EPICS CA Put of setpoint PVs - "
+                    + e.getMessage(), e);
+        }
+
+        for (DoseRateTripSetpoint setpoint : setpointList) {
+            if (putResult.getConfirmedSet().contains(
+                    setpoint.getIonChamber().getDoseRateSetpointWritePvName())) {
+                readbackPvList.add(setpoint.getIonChamber().getDoseRateSetpointReadPvName());
+            }
+        }
+
+        BatchGetResult getResult;
+
+        try {
+            getResult = manager.getAll(readbackPvList).get();
+        } catch (ExecutionException e) {
+            throw new AppException("Unable to perform EPICS CA Get of setpoint PVs - "
+                    + e.getMessage(), e);
+        }
+
+        SetpointWriteResult result = new SetpointWriteResult();
+
+        for (DoseRateTripSetpoint setpoint : setpointList) {
+            String writePv = setpoint.getIonChamber().getDoseRateSetpointWritePvName();
+            String readPv = setpoint.getIonChamber().getDoseRateSetpointReadPvName();
+            double readback = Double.NaN;
+            String failure = null;
+
+            try {
+                putResult.check(writePv);
+
+                readback = DbrUtil.toDouble(getResult.get(readPv));
+
+                if (Double.isNaN(readback)) {
+                    failure = "Readback is null or not a number: " + readPv;
+                }
+            } catch (CAException | TimeoutException e) {
+                failure = e.getMessage();
+            }
+
+            LOGGER.log(Level.FINEST, "Setpoint {0} = {1}, readback: {2}, failure: {3}",
+                    new Object[]{writePv, setpoint.getDoseRateRadsPerHour(), readback, failure});
+
+            result.add(setpoint, readback, failure);
+        }
+
+        return result;
+    }
+
+    private void sendComparisonElog() throws IOException {
         String books = ICalibrateApp.APP_PROPERTIES.getProperty(
                 "LOGBOOK_CSV");
 
@@ -146,8 +209,6 @@ public final class ExportEpicsAction extends AbstractAction {
 
         LinkedHashSet<ModifySetpointTableModel.ModifySetpointRow> rows = frame.getModifySetpointDialog().getData();
 
-        LogEntry entry = new LogEntry("iCalibrate: Hall " + ds.getHall().name(), books);
-
         SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MMM-dd HH:mm");
         DecimalFormat doseRateFormatter = new DecimalFormat("###,##0");
         DecimalFormat currentFormatter = new DecimalFormat("###,##0.00");
@@ -195,11 +256,7 @@ public final class ExportEpicsAction extends AbstractAction {
                 + "</table>"
                 + "<hr/>";
 
-
-        entry.setBody(body, Body.ContentType.HTML);
-
-        lognumber = entry.submitNow();
-
-        return lognumber;
+        frame.getElogOutbox().enqueue("iCalibrate: Hall " + ds.getHall().name(), books, body,
+                new ArrayList<File>());
     }
 }
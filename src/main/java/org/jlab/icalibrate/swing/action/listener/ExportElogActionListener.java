@@ -3,27 +3,22 @@ package org.jlab.icalibrate.swing.action.listener;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
-import org.jfree.chart.ChartUtilities;
-import org.jfree.chart.JFreeChart;
-import org.jlab.elog.Body;
-import org.jlab.elog.LogEntry;
 import org.jlab.icalibrate.ICalibrateApp;
 import org.jlab.icalibrate.IOUtil;
 import org.jlab.icalibrate.model.ChartDataset;
-import org.jlab.icalibrate.model.DoseRateMeasurement;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
 import org.jlab.icalibrate.swing.ICalibrateFrame;
-import org.jlab.icalibrate.swing.util.DoseRateChartPanel;
-import org.jlab.icalibrate.swing.util.HyperLinkEnabledMessage;
+import org.jlab.icalibrate.swing.util.ChartImageRenderer;
+import org.jlab.icalibrate.swing.util.DoseRateChartFactory;
 import org.jlab.icalibrate.swing.worker.MinimumExecutionSwingWorker;
 
 /**
@@ -50,111 +45,94 @@ public final class ExportElogActionListener implements ActionListener {
     public void actionPerformed(ActionEvent e) {
 
         frame.queueShowModalWait();
-        new MinimumExecutionSwingWorker<Long, Void>() {
+        new MinimumExecutionSwingWorker<Void, Void>() {
 
             @Override
-            protected Long doWithMinimumExecution() throws Exception {
-                Long lognumber = null;
-
+            protected Void doWithMinimumExecution() throws Exception {
                 String books = ICalibrateApp.APP_PROPERTIES.getProperty(
                         "LOGBOOK_CSV");
 
                 HallCalibrationDataset ds = frame.getDataset();
 
-                LogEntry entry = new LogEntry("iCalibrate: Hall " + ds.getHall().name(), books);
-
                 SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MMM-dd HH:mm");
                 DecimalFormat doseRateFormatter = new DecimalFormat("###,##0");
                 DecimalFormat currentFormatter = new DecimalFormat("###,##0.00");
 
-                String body = "<h3 style=\"color: gold; background-color: purple;\">Calibration Parameters</h3>"
-                        + "<table>"
-                        + "<tbody>"
-                        + "<tr><th>Hall:</th><td>" + IOUtil.escapeXml(ds.getHall().name()) + "</td></tr>"
-                        + "<tr><th>Target:</th><td>" + IOUtil.escapeXml(ds.getTarget()) + "</td></tr>"
-                        + "<tr><th>Pass:</th><td>" + IOUtil.escapeXml(ds.getPass()) + "</td></tr>"
-                        + "<tr><th>Note:</th><td>" + IOUtil.escapeXml(ds.getNote()) + "</td></tr>"
-                        + "<tr><th>Calibrated On:</th><td>" + IOUtil.escapeXml(formatter.format(ds.getCalibratedDate())) + "</td></tr>"
-                        + "<tr><th>Calibrated By:</th><td>" + IOUtil.escapeXml(ds.getCalibratedBy()) + "</td></tr>"
-                        + "<tr><th>File:</th><td>" + IOUtil.escapeXml(frame.getFilename()) + "</td></tr>"
-                        + "<tr><th>Setpoint Current:</th><td>" + currentFormatter.format(frame.getCurrent()) + " " + IOUtil.escapeXml(frame.getCurrentUnits()) + "</td></tr>"
-                        + "<tr><th>Setpoint Margin:</th><td>" + frame.getSignedMargin() + "%</td></tr>"
-                        + "</tbody>"
-                        + "</table>";
-
-                List<File> tmpList = new ArrayList<>();
+                StringBuilder body = new StringBuilder(4096);
+
+                body.append("<h3 style=\"color: gold; background-color: purple;\">Calibration Parameters</h3>")
+                        .append("<table>")
+                        .append("<tbody>")
+                        .append("<tr><th>Hall:</th><td>").append(IOUtil.escapeXml(ds.getHall().name())).append("</td></tr>")
+                        .append("<tr><th>Target:</th><td>").append(IOUtil.escapeXml(ds.getTarget())).append("</td></tr>")
+                        .append("<tr><th>Pass:</th><td>").append(IOUtil.escapeXml(ds.getPass())).append("</td></tr>")
+                        .append("<tr><th>Note:</th><td>").append(IOUtil.escapeXml(ds.getNote())).append("</td></tr>")
+                        .append("<tr><th>Calibrated On:</th><td>").append(IOUtil.escapeXml(formatter.format(ds.getCalibratedDate()))).append("</td></tr>")
+                        .append("<tr><th>Calibrated By:</th><td>").append(IOUtil.escapeXml(ds.getCalibratedBy())).append("</td></tr>")
+                        .append("<tr><th>File:</th><td>").append(IOUtil.escapeXml(frame.getFilename())).append("</td></tr>")
+                        .append("<tr><th>Setpoint Current:</th><td>").append(currentFormatter.format(frame.getCurrent())).append(" ").append(IOUtil.escapeXml(frame.getCurrentUnits())).append("</td></tr>")
+                        .append("<tr><th>Setpoint Margin:</th><td>").append(frame.getSignedMargin()).append("%</td></tr>")
+                        .append("</tbody>")
+                        .append("</table>");
+
+                // Every chart is rendered into one temp directory which is always removed; the
+                // outbox keeps its own copies
+                File tmpDir = Files.createTempDirectory("icalibrate-elog").toFile();
 
                 try {
                     String currentUnits = frame.getCurrentUnits();
-                    DoseRateChartPanel tmpPanel = new DoseRateChartPanel();
-                    File tmp;
-
-                    int figureCount = 1;
+                    List<ChartDataset> datasetList = frame.getChartDatasetList();
+                    List<File> imageList = new ChartImageRenderer().renderAll(datasetList,
+                            currentUnits, tmpDir);
 
-                    for (ChartDataset dataset : frame.getChartDatasetList()) {
-                        tmpPanel.setDataset(dataset, currentUnits);
-                        JFreeChart chart = tmpPanel.getChart();
-                        String caption = chart.getTitle().getText();
-                        tmp = File.createTempFile(caption, ".png");
-                        tmpList.add(tmp);
-                        FileOutputStream out = new FileOutputStream(tmp);
-                        ChartUtilities.writeChartAsPNG(out, chart, 400, 300);
-                        entry.addAttachment(tmp.getCanonicalPath(), "");
+                    for (int i = 0; i < datasetList.size(); i++) {
+                        ChartDataset dataset = datasetList.get(i);
+                        String caption = DoseRateChartFactory.getTitle(dataset);
 
-                        Double controlSystemSetpoint = frame.getControlSystemSetpoint(figureCount - 1);
+                        Double controlSystemSetpoint = frame.getControlSystemSetpoint(i);
 
                         if (controlSystemSetpoint == null) {
                             controlSystemSetpoint = 0d;
                         }
 
-                        body = body + "<h3 style=\"color: gold; background-color: purple;\">" + IOUtil.escapeXml(caption) + "</h3>"
-                                + "<table>"
-                                + "<tbody>"
-                                + "<tr><th>Calculated Setpoint:</th><td>" + IOUtil.escapeXml(doseRateFormatter.format(dataset.getSetpoint())) + " rads/hr</td></tr>"
-                                + "<tr><th>Actual Setpoint:</th><td>" + IOUtil.escapeXml(doseRateFormatter.format(controlSystemSetpoint)) + " rads/hr</td></tr>"
-                                + "<tr><th>Fit Equation:</th><td>" + IOUtil.escapeXml(dataset.getFitEquation()) + "</td></tr>"
-                                + "<tr><th>R<sup>2</sup>:</th><td>" + IOUtil.escapeXml(dataset.getRSquareLabel()) + "</td></tr>"
-                                + "</tbody>"
-                                + "</table>"
-                                + "[figure:" + figureCount++ + "]"
-                                + "<table>"
-                                + "<thead>"
-                                + "<tr><th>Current (" + IOUtil.escapeXml(frame.getCurrentUnits()) + ")</th><th>Dose Rate (rads/hr)</th></tr>"
-                                + "</thead>"
-                                + "<tbody>";
-
-                        List<DoseRateMeasurement> measurementList = dataset.getMeasuredDataset().getMeasurementList();
-                        for (DoseRateMeasurement measurement : measurementList) {
-                            body = body + "<tr><td>" + currentFormatter.format(measurement.getCurrent()) + "</td><td>" + doseRateFormatter.format(measurement.getDoseRateRadsPerHour()) + "</td></tr>";
+                        body.append("<h3 style=\"color: gold; background-color: purple;\">").append(IOUtil.escapeXml(caption)).append("</h3>")
+                                .append("<table>")
+                                .append("<tbody>")
+                                .append("<tr><th>Calculated Setpoint:</th><td>").append(IOUtil.escapeXml(doseRateFormatter.format(dataset.getSetpoint()))).append(" rads/hr</td></tr>")
+                                .append("<tr><th>Actual Setpoint:</th><td>").append(IOUtil.escapeXml(doseRateFormatter.format(controlSystemSetpoint))).append(" rads/hr</td></tr>")
+                                .append("<tr><th>Fit Equation:</th><td>").append(IOUtil.escapeXml(dataset.getFitEquation())).append("</td></tr>")
+                                .append("<tr><th>R<sup>2</sup>:</th><td>").append(IOUtil.escapeXml(dataset.getRSquareLabel())).append("</td></tr>")
+                                .append("</tbody>")
+                                .append("</table>")
+                                .append("[figure:").append(i + 1).append("]")
+                                .append("<table>")
+                                .append("<thead>")
+                                .append("<tr><th>Current (").append(IOUtil.escapeXml(currentUnits)).append(")</th><th>Dose Rate (rads/hr)</th></tr>")
+                                .append("</thead>")
+                                .append("<tbody>");
+
+                        MeasurementColumns columns = dataset.getMeasuredDataset().getColumns();
+                        for (int j = 0; j < columns.size(); j++) {
+                            body.append("<tr><td>").append(currentFormatter.format(columns.getCurrent(j))).append("</td><td>").append(doseRateFormatter.format(columns.getDoseRateRadsPerHour(j))).append("</td></tr>");
                         }
 
-                        body = body + "</tbody>"
-                                + "</table>";
+                        body.append("</tbody>")
+                                .append("</table>");
                     }
 
-                    entry.setBody(body, Body.ContentType.HTML);
-
-                    lognumber = entry.submitNow();
+                    frame.getElogOutbox().enqueue("iCalibrate: Hall " + ds.getHall().name(),
+                            books, body.toString(), imageList);
                 } finally {
-                    for (File tmp : tmpList) {
-                        if (tmp != null) {
-                            tmp.delete();
-                        }
-                    }
+                    deleteDirectory(tmpDir);
                 }
 
-                return lognumber;
+                return null;
             }
 
             @Override
             protected void done() {
                 try {
-                    Long lognumber = get(); // See if there were any exceptions
-
-                    String url = "https://logbooks.jlab.org/entry/" + lognumber;
-                    String html = "<html>Log number: <a href=\"" + url + "\">" + lognumber + "</a></html>";
-
-                    JOptionPane.showMessageDialog(frame, new HyperLinkEnabledMessage(html), "Successfully created elog", JOptionPane.INFORMATION_MESSAGE);
+                    get(); // See if there were any exceptions; the outbox reports submission
                 } catch (InterruptedException | ExecutionException ex) {
                     String title = "Unable to create elog";
                     String message = "Unexpected error";
@@ -173,4 +151,25 @@ public final class ExportElogActionListener implements ActionListener {
             }
         }.execute();
     }
+
+    /**
+     * Delete a directory of rendered charts and the directory itself.
+     *
+     * @param directory The directory
+     */
+    private static void deleteDirectory(File directory) {
+        File[] fileArray = directory.listFiles();
+
+        if (fileArray != null) {
+            for (File file : fileArray) {
+                if (!file.delete()) {
+                    LOGGER.log(Level.WARNING, "Unable to delete temp file: {0}", file);
+                }
+            }
+        }
+
+        if (!directory.delete()) {
+            LOGGER.log(Level.WARNING, "Unable to delete temp directory: {0}", directory);
+        }
+    }
 }
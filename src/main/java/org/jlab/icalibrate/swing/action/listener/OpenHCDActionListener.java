@@ -14,6 +14,7 @@ import org.jlab.icalibrate.exception.MissingDataException;
 import org.jlab.icalibrate.file.io.DatasetFileReader;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
 import org.jlab.icalibrate.swing.ICalibrateFrame;
+import org.jlab.icalibrate.swing.dialog.ArchiveBrowserDialog;
 import org.jlab.icalibrate.swing.worker.MinimumExecutionSwingWorker;
 
 /**
@@ -39,6 +40,31 @@ public final class OpenHCDActionListener implements ActionListener {
     @Override
     public void actionPerformed(ActionEvent e) {
 
+        File file = null;
+        ArchiveBrowserDialog browser = frame.getArchiveBrowserDialog();
+
+        if (browser != null) {
+            browser.showDialog();
+            file = browser.getSelectedFile();
+
+            if (file == null && !browser.isBrowseRequested()) {
+                return; // Cancelled
+            }
+        }
+
+        if (file == null) {
+            file = chooseFile();
+        }
+
+        if (file != null) {
+            
+            frame.closeHallCalibrationDataset();
+
+            open(file);
+        }
+    }
+
+    private File chooseFile() {
         String dir = ICalibrateApp.APP_PROPERTIES.getProperty("DEFAULT_HCD_FILE_DIR");
 
         JFileChooser openDatasetFileChooser = new JFileChooser();
@@ -51,48 +77,51 @@ public final class OpenHCDActionListener implements ActionListener {
             openDatasetFileChooser.setCurrentDirectory(new File(dir));
         }
 
+        File file = null;
+
         int returnVal = openDatasetFileChooser.showOpenDialog(frame);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
-            
-            frame.closeHallCalibrationDataset();
-            
-            File file = openDatasetFileChooser.getSelectedFile();
-
-            frame.queueShowModalWait();
-            new MinimumExecutionSwingWorker<HallCalibrationDataset, Void>() {
-
-                @Override
-                protected HallCalibrationDataset doWithMinimumExecution() throws Exception {
-                    DatasetFileReader reader = new DatasetFileReader();
-                    HallCalibrationDataset ds = reader.read(file);
+            file = openDatasetFileChooser.getSelectedFile();
+        }
 
-                    return ds;
-                }
+        return file;
+    }
 
-                @Override
-                protected void done() {
-                    try {
-                        HallCalibrationDataset ds = get(); // See if there were any exceptions
-                        frame.setDataset(ds, file.getName(), true);
-                    } catch (InterruptedException | ExecutionException ex) {
-                        String title = "Unable to open file";
-                        String message = "Unexpected error";
-                        LOGGER.log(Level.SEVERE, title, ex);
-
-                        Throwable cause = ex.getCause();
-                        if (cause != null && cause instanceof MissingDataException) {
-                            message
-                                    = "Current Ion Chamber configuration (names) do not match data file: "
-                                    + ex.getMessage();
-                        }
-
-                        JOptionPane.showMessageDialog(frame, message, title,
-                                JOptionPane.ERROR_MESSAGE);
-                    } finally {
-                        frame.hideModalWait();
+    private void open(File file) {
+        frame.queueShowModalWait();
+        new MinimumExecutionSwingWorker<HallCalibrationDataset, Void>() {
+
+            @Override
+            protected HallCalibrationDataset doWithMinimumExecution() throws Exception {
+                DatasetFileReader reader = new DatasetFileReader();
+                HallCalibrationDataset ds = reader.read(file);
+
+                return ds;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    HallCalibrationDataset ds = get(); // See if there were any exceptions
+                    frame.setDataset(ds, file.getName(), true);
+                } catch (InterruptedException | ExecutionException ex) {
+                    String title = "Unable to open file";
+                    String message = "Unexpected error";
+                    LOGGER.log(Level.SEVERE, title, ex);
+
+                    Throwable cause = ex.getCause();
+                    if (cause != null && cause instanceof MissingDataException) {
+                        message
+                                = "Current Ion Chamber configuration (names) do not match data file: "
+                                + ex.getMessage();
                     }
+
+                    JOptionPane.showMessageDialog(frame, message, title,
+                            JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    frame.hideModalWait();
                 }
-            }.execute();
-        }
+            }
+        }.execute();
     }
 }
@@ -8,6 +8,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.file.io.BinaryDatasetFileWriter;
 import org.jlab.icalibrate.file.io.DatasetFileWriter;
 import org.jlab.icalibrate.swing.ICalibrateFrame;
 import org.jlab.icalibrate.swing.dialog.chooser.ConfirmOverwriteFileChooser;
@@ -64,9 +65,19 @@ public final class SaveHCDThenContinueActionListener implements ActionListener {
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             File file = saveDatasetFileChooser.getSelectedFile();
             try {
-                DatasetFileWriter writer = new DatasetFileWriter();
+                String format = ICalibrateApp.APP_PROPERTIES.getProperty("HCD_FILE_FORMAT",
+                        "TEXT");
 
-                writer.write(file, frame.getDataset());
+                if ("BINARY".equals(format) || "BINARY_COMPRESSED".equals(format)) {
+                    BinaryDatasetFileWriter writer = new BinaryDatasetFileWriter(
+                            "BINARY_COMPRESSED".equals(format));
+
+                    writer.write(file, frame.getDataset());
+                } else {
+                    DatasetFileWriter writer = new DatasetFileWriter();
+
+                    writer.write(file, frame.getDataset());
+                }
 
                 frame.setTitle(file.getName() + " - iCalibrate");
                 frame.setStateSaved(true);
@@ -0,0 +1,275 @@
+package org.jlab.icalibrate.swing.dialog;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.GridLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import org.jlab.icalibrate.file.archive.ArchiveEntry;
+import org.jlab.icalibrate.file.archive.ArchiveFilter;
+import org.jlab.icalibrate.file.archive.ArchiveIndex;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.swing.table.model.ArchiveTableModel;
+
+/**
+ * A dialog for finding an HCD file in the archive directory by hall, target, pass, calibration
+ * date, and ion chamber. Filtering runs against the archive index so results update as the
+ * operator types; the index is refreshed in the background each time the dialog is shown.
+ *
+ * @author ryans
+ */
+public class ArchiveBrowserDialog extends JDialog {
+
+    private static final Logger LOGGER = Logger.getLogger(ArchiveBrowserDialog.class.getName());
+
+    private static final String ANY_HALL = "Any";
+
+    private final ArchiveIndex index;
+    private final ArchiveTableModel tableModel = new ArchiveTableModel();
+    private final JTable table = new JTable(tableModel);
+    private final JComboBox<String> hallComboBox = new JComboBox<>(new String[]{ANY_HALL,
+        Hall.A.name(), Hall.C.name(), Hall.D.name()});
+    private final JTextField targetField = new JTextField(12);
+    private final JTextField passField = new JTextField(4);
+    private final JTextField fromField = new JTextField(8);
+    private final JTextField toField = new JTextField(8);
+    private final JTextField ionChamberField = new JTextField(8);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JButton openButton = new JButton("Open");
+    private final JButton browseButton = new JButton("Browse...");
+    private final JButton cancelButton = new JButton("Cancel");
+    private File selectedFile;
+    private boolean browseRequested;
+
+    /**
+     * Create a new ArchiveBrowserDialog.
+     *
+     * @param parent The parent frame
+     * @param index The archive index
+     */
+    public ArchiveBrowserDialog(Frame parent, ArchiveIndex index) {
+        super(parent, "Open Hall Calibration Dataset", true);
+        this.index = index;
+        initComponents();
+    }
+
+    private void initComponents() {
+        JPanel filterPanel = new JPanel(new GridLayout(2, 6, 5, 0));
+        filterPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        filterPanel.add(new JLabel("Hall"));
+        filterPanel.add(new JLabel("Target"));
+        filterPanel.add(new JLabel("Pass"));
+        filterPanel.add(new JLabel("From (yyyy-mm-dd)"));
+        filterPanel.add(new JLabel("To (yyyy-mm-dd)"));
+        filterPanel.add(new JLabel("Ion Chamber"));
+        filterPanel.add(hallComboBox);
+        filterPanel.add(targetField);
+        filterPanel.add(passField);
+        filterPanel.add(fromField);
+        filterPanel.add(toField);
+        filterPanel.add(ionChamberField);
+
+        DocumentListener refilter = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refilter();
+            }
+        };
+
+        for (JTextField field : new JTextField[]{targetField, passField, fromField, toField,
+            ionChamberField}) {
+            field.getDocument().addDocumentListener(refilter);
+        }
+
+        hallComboBox.addActionListener(e -> refilter());
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setAutoCreateRowSorter(true);
+        table.getSelectionModel().addListSelectionListener(e -> openButton.setEnabled(
+                table.getSelectedRow() != -1));
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && table.getSelectedRow() != -1) {
+                    doOpen();
+                }
+            }
+        });
+
+        openButton.setEnabled(false);
+        openButton.addActionListener(e -> doOpen());
+        browseButton.addActionListener(e -> {
+            browseRequested = true;
+            setVisible(false);
+        });
+        cancelButton.addActionListener(e -> setVisible(false));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(browseButton);
+        buttonPanel.add(openButton);
+        buttonPanel.add(cancelButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
+        southPanel.add(statusLabel, BorderLayout.CENTER);
+        southPanel.add(buttonPanel, BorderLayout.EAST);
+
+        getContentPane().add(filterPanel, BorderLayout.NORTH);
+        getContentPane().add(new JScrollPane(table), BorderLayout.CENTER);
+        getContentPane().add(southPanel, BorderLayout.SOUTH);
+        getRootPane().setDefaultButton(openButton);
+
+        setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+        pack();
+    }
+
+    /**
+     * Show the dialog and block until the operator chooses a file, asks to browse, or cancels.
+     */
+    public void showDialog() {
+        selectedFile = null;
+        browseRequested = false;
+
+        refilter();
+        refreshIndex();
+
+        setLocationRelativeTo(getParent());
+        setVisible(true);
+    }
+
+    /**
+     * Return the file the operator chose.
+     *
+     * @return The file, or null if none was chosen
+     */
+    public File getSelectedFile() {
+        return selectedFile;
+    }
+
+    /**
+     * Determine whether the operator asked to use the file chooser instead.
+     *
+     * @return true if browse was requested
+     */
+    public boolean isBrowseRequested() {
+        return browseRequested;
+    }
+
+    private void doOpen() {
+        int row = table.getSelectedRow();
+
+        if (row != -1) {
+            selectedFile = tableModel.getRow(table.convertRowIndexToModel(row)).getFile();
+            setVisible(false);
+        }
+    }
+
+    private void refreshIndex() {
+        statusLabel.setText(statusText() + " (updating index...)");
+
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws IOException {
+                return index.refresh();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Unable to update HCD archive index", e);
+                }
+
+                refilter();
+            }
+        }.execute();
+    }
+
+    private void refilter() {
+        Hall hall = null;
+
+        if (!ANY_HALL.equals(hallComboBox.getSelectedItem())) {
+            hall = Hall.valueOf((String) hallComboBox.getSelectedItem());
+        }
+
+        Date from = parseDate(fromField, 0);
+        Date to = parseDate(toField, 1); // Inclusive of the whole day
+
+        List<ArchiveEntry> result = index.search(new ArchiveFilter(hall, targetField.getText(),
+                passField.getText(), from, to, ionChamberField.getText()));
+
+        tableModel.setRows(result);
+        statusLabel.setText(statusText());
+    }
+
+    private String statusText() {
+        return tableModel.getRowCount() + " of " + index.getEntryList().size() + " files";
+    }
+
+    /**
+     * Parse a date field, marking it red if it can't be parsed.
+     *
+     * @param field The field
+     * @param addDays Days to add to the parsed date
+     * @return The date, or null if the field is empty or invalid
+     */
+    private Date parseDate(JTextField field, int addDays) {
+        String text = field.getText().trim();
+        Date date = null;
+
+        field.setForeground(UIManager.getColor("TextField.foreground"));
+
+        if (!text.isEmpty()) {
+            SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
+            formatter.setLenient(false);
+
+            try {
+                Calendar cal = Calendar.getInstance();
+                cal.setTime(formatter.parse(text));
+                cal.add(Calendar.DATE, addDays);
+                date = cal.getTime();
+            } catch (ParseException e) {
+                field.setForeground(Color.RED);
+            }
+        }
+
+        return date;
+    }
+}
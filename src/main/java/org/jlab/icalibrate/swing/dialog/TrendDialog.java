@@ -0,0 +1,209 @@
+package org.jlab.icalibrate.swing.dialog;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.jlab.icalibrate.file.archive.ArchiveEntry;
+import org.jlab.icalibrate.file.archive.ArchiveFilter;
+import org.jlab.icalibrate.file.archive.ArchiveIndex;
+import org.jlab.icalibrate.file.archive.TrendAnalyzer;
+import org.jlab.icalibrate.file.archive.TrendReport;
+import org.jlab.icalibrate.model.ChamberTrend;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.TrendPoint;
+
+/**
+ * A dialog which plots how each ion chamber's fit drifts across every calibration in the archive.
+ *
+ * @author ryans
+ */
+public class TrendDialog extends JDialog {
+
+    private static final Logger LOGGER = Logger.getLogger(TrendDialog.class.getName());
+
+    private static final String[] METRIC_NAMES = {"Linear Slope", "Linear Intercept",
+        "Linear R^2", "Logarithmic Slope", "Logarithmic Intercept", "Logarithmic R^2"};
+
+    private static final List<ToDoubleFunction<TrendPoint>> METRICS = new ArrayList<>();
+
+    static {
+        METRICS.add(TrendPoint::getLinearSlope);
+        METRICS.add(TrendPoint::getLinearIntercept);
+        METRICS.add(TrendPoint::getLinearRSquare);
+        METRICS.add(TrendPoint::getLogarithmicSlope);
+        METRICS.add(TrendPoint::getLogarithmicIntercept);
+        METRICS.add(TrendPoint::getLogarithmicRSquare);
+    }
+
+    private final ArchiveIndex index;
+    private final JComboBox<Hall> hallComboBox = new JComboBox<>(Hall.values());
+    private final JComboBox<String> metricComboBox = new JComboBox<>(METRIC_NAMES);
+    private final JButton analyzeButton = new JButton("Analyze");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final DefaultListModel<ChamberTrend> chamberListModel = new DefaultListModel<>();
+    private final JList<ChamberTrend> chamberList = new JList<>(chamberListModel);
+    private final XYSeriesCollection seriesData = new XYSeriesCollection();
+    private final JFreeChart chart;
+
+    /**
+     * Create a new TrendDialog.
+     *
+     * @param parent The parent frame
+     * @param index The archive index
+     */
+    public TrendDialog(Frame parent, ArchiveIndex index) {
+        super(parent, "Calibration Trends", false);
+        this.index = index;
+
+        chart = ChartFactory.createTimeSeriesChart(null, "Calibration Date", METRIC_NAMES[0],
+                seriesData, false, true, false);
+
+        initComponents();
+    }
+
+    private void initComponents() {
+        JPanel northPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        northPanel.add(new JLabel("Hall"));
+        northPanel.add(hallComboBox);
+        northPanel.add(analyzeButton);
+        northPanel.add(new JLabel("Metric"));
+        northPanel.add(metricComboBox);
+
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, true);
+        ((XYPlot) chart.getPlot()).setRenderer(renderer);
+
+        chamberList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        chamberList.addListSelectionListener(e -> plot());
+        metricComboBox.addActionListener(e -> plot());
+        analyzeButton.addActionListener(e -> analyze());
+
+        JScrollPane listScrollPane = new JScrollPane(chamberList);
+        listScrollPane.setPreferredSize(new Dimension(200, 400));
+
+        ChartPanel chartPanel = new ChartPanel(chart);
+        chartPanel.setPreferredSize(new Dimension(640, 400));
+
+        getContentPane().add(northPanel, BorderLayout.NORTH);
+        getContentPane().add(listScrollPane, BorderLayout.WEST);
+        getContentPane().add(chartPanel, BorderLayout.CENTER);
+        getContentPane().add(statusLabel, BorderLayout.SOUTH);
+
+        setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
+        pack();
+    }
+
+    private void analyze() {
+        Hall hall = (Hall) hallComboBox.getSelectedItem();
+        TrendAnalyzer analyzer = new TrendAnalyzer();
+
+        analyzeButton.setEnabled(false);
+        chamberListModel.clear();
+        statusLabel.setText("Updating index...");
+
+        SwingWorker<TrendReport, Void> worker = new SwingWorker<TrendReport, Void>() {
+            @Override
+            protected TrendReport doInBackground() throws Exception {
+                index.refresh();
+
+                List<File> fileList = new ArrayList<>();
+
+                for (ArchiveEntry entry : index.search(new ArchiveFilter(hall, null, null, null,
+                        null, null))) {
+                    fileList.add(entry.getFile());
+                }
+
+                return analyzer.analyze(fileList);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    TrendReport report = get();
+
+                    for (ChamberTrend trend : report.getChamberTrendList()) {
+                        chamberListModel.addElement(trend);
+                    }
+
+                    statusLabel.setText(report.getFileCount() + " files ("
+                            + report.getFailedFileList().size() + " unreadable) analyzed in "
+                            + report.getElapsedMillis() + " ms");
+
+                    if (!chamberListModel.isEmpty()) {
+                        chamberList.setSelectedIndex(0);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Unable to analyze calibration trends", e);
+                    statusLabel.setText(" ");
+                    JOptionPane.showMessageDialog(TrendDialog.this, e.getMessage(),
+                            "Unable to analyze calibration trends", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    analyzeButton.setEnabled(true);
+                }
+            }
+        };
+
+        Timer progress = new Timer(250, e -> {
+            if (worker.isDone()) {
+                ((Timer) e.getSource()).stop();
+            } else if (worker.getState() == SwingWorker.StateValue.STARTED
+                    && analyzer.getProcessedCount() > 0) {
+                statusLabel.setText("Analyzed " + analyzer.getProcessedCount() + " files...");
+            }
+        });
+
+        progress.start();
+        worker.execute();
+    }
+
+    private void plot() {
+        ChamberTrend trend = chamberList.getSelectedValue();
+        int metric = metricComboBox.getSelectedIndex();
+
+        seriesData.removeAllSeries();
+        ((XYPlot) chart.getPlot()).getRangeAxis().setLabel(METRIC_NAMES[metric]);
+
+        if (trend != null) {
+            XYSeries series = new XYSeries(trend.getEpicsName(), true, true);
+
+            for (TrendPoint point : trend.getPointList()) {
+                double value = METRICS.get(metric).applyAsDouble(point);
+
+                if (point.getCalibratedDate() != null && !Double.isNaN(value)) {
+                    series.add(point.getCalibratedDate().getTime(), value, false);
+                }
+            }
+
+            seriesData.addSeries(series);
+            chart.setTitle(trend.getHall().name() + " " + trend.getEpicsName());
+        } else {
+            chart.setTitle((String) null);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.jlab.icalibrate.swing.table.model;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+import org.jlab.icalibrate.file.archive.ArchiveEntry;
+import org.jlab.icalibrate.file.io.DatasetHeader;
+
+/**
+ * A table model for holding archive index entries.
+ *
+ * @author ryans
+ */
+public class ArchiveTableModel extends AbstractTableModel {
+
+    private final List<String> columnNames = Arrays.asList(new String[]{"File", "Hall", "Target",
+        "Pass", "Calibrated Date", "Calibrated By", "Ion Chambers"});
+    private final SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    private List<ArchiveEntry> rows = new ArrayList<>();
+
+    /**
+     * Replace the rows.
+     *
+     * @param rows The entries
+     */
+    public void setRows(List<ArchiveEntry> rows) {
+        this.rows = new ArrayList<>(rows);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Return the entry at the specified row.
+     *
+     * @param index The row index
+     * @return The entry
+     */
+    public ArchiveEntry getRow(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return columnNames.get(columnIndex);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnIndex == 6 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        ArchiveEntry entry = rows.get(rowIndex);
+        DatasetHeader header = entry.getHeader();
+        Object value = null;
+
+        switch (columnIndex) {
+            case 0:
+                value = entry.getFile().getName();
+                break;
+            case 1:
+                value = header.getHall() == null ? null : header.getHall().name();
+                break;
+            case 2:
+                value = header.getTarget();
+                break;
+            case 3:
+                value = header.getPass();
+                break;
+            case 4:
+                value = header.getCalibratedDate() == null ? null : formatter.format(
+                        header.getCalibratedDate());
+                break;
+            case 5:
+                value = header.getCalibratedBy();
+                break;
+            case 6:
+                value = header.getIonChamberNameList().size();
+                break;
+        }
+
+        return value;
+    }
+}
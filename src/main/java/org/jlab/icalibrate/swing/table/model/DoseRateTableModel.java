@@ -6,18 +6,41 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import javax.swing.table.AbstractTableModel;
 import org.jlab.icalibrate.model.DoseRateMeasurement;
+import org.jlab.icalibrate.model.MeasurementColumns;
 
 /**
  * A table model for holding dose rate measurements.
  *
+ * The rows are backed by MeasurementColumns and cells are read directly from the primitive
+ * columns, so showing an ion chamber with setColumns copies nothing.
+ *
  * @author ryans
  */
 public class DoseRateTableModel extends AbstractTableModel {
 
     private final List<String> columnNames = Arrays.asList(new String[]{"<html><center>Current<br/>(microAmps)</center></html>",
         "<html><center>Dose Rate<br/>(rads/hr)</center></html>"});
-    List<DoseRateMeasurement> rows = new ArrayList<>();
-    
+    private MeasurementColumns columns = MeasurementColumns.EMPTY;
+
+    /**
+     * Return the rows as measurement columns.
+     *
+     * @return The columns
+     */
+    public MeasurementColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Replace the rows with the specified immutable measurement columns. Nothing is copied.
+     *
+     * @param columns The columns
+     */
+    public void setColumns(MeasurementColumns columns) {
+        this.columns = columns == null ? MeasurementColumns.EMPTY : columns;
+        fireTableDataChanged();
+    }
+
     /**
      * Return the ordered set of rows.
      *
@@ -26,7 +49,7 @@ public class DoseRateTableModel extends AbstractTableModel {
     public LinkedHashSet<DoseRateMeasurement> getRows() {
         // We make a copy
         // (bad performance, but we don't worry about outside changes)        
-        return new LinkedHashSet<>(rows);
+        return new LinkedHashSet<>(columns.asList());
     }
 
     public void setCurrentUnits(String units) {
@@ -42,10 +65,9 @@ public class DoseRateTableModel extends AbstractTableModel {
     public void setRows(LinkedHashSet<DoseRateMeasurement> rows) {
         // We make a copy 
         // (bad performance, but we don't worry about outside changes)
-        // We also store internally as list, but require a linkedhashset
+        // We also store internally as columns, but require a linkedhashset
         // to ensure it at least comes in unique and ordered
-        this.rows = new ArrayList<>(rows);
-        fireTableDataChanged();
+        setColumns(MeasurementColumns.of(new ArrayList<>(rows)));
     }
 
     /**
@@ -54,8 +76,9 @@ public class DoseRateTableModel extends AbstractTableModel {
      * @param options The list of OptionRows to add
      */
     public void addAll(LinkedHashSet<DoseRateMeasurement> options) {
-        this.rows.addAll(options);
-        fireTableDataChanged();
+        List<DoseRateMeasurement> rows = new ArrayList<>(columns.asList());
+        rows.addAll(options);
+        setColumns(MeasurementColumns.of(rows));
     }
 
     /**
@@ -64,9 +87,8 @@ public class DoseRateTableModel extends AbstractTableModel {
      * @return The list of OptionRows
      */
     public LinkedHashSet<DoseRateMeasurement> removeAll() {
-        LinkedHashSet<DoseRateMeasurement> result = new LinkedHashSet<>(rows);
-        rows.clear();
-        fireTableDataChanged();
+        LinkedHashSet<DoseRateMeasurement> result = getRows();
+        setColumns(MeasurementColumns.EMPTY);
         return result;
     }
 
@@ -76,8 +98,9 @@ public class DoseRateTableModel extends AbstractTableModel {
      * @param row The OptionRow to add
      */
     public void add(DoseRateMeasurement row) {
+        List<DoseRateMeasurement> rows = new ArrayList<>(columns.asList());
         rows.add(row);
-        fireTableDataChanged();
+        setColumns(MeasurementColumns.of(rows));
     }
 
     /**
@@ -87,19 +110,28 @@ public class DoseRateTableModel extends AbstractTableModel {
      * @return The OptionRow or null if not found
      */
     public DoseRateMeasurement remove(int index) {
+        List<DoseRateMeasurement> rows = new ArrayList<>(columns.asList());
         DoseRateMeasurement result = rows.remove(index);
-        fireTableDataChanged();
+        setColumns(MeasurementColumns.of(rows));
         return result;
     }
 
     /**
-     * Return the index of the specified DoseRateMeasurement.
+     * Return the index of the first row with the same current and dose rate as the specified
+     * DoseRateMeasurement.
      *
      * @param row The DoseRateMeasurement to search for
      * @return The index of the row or -1 if not found
      */
     public int findRowIndex(DoseRateMeasurement row) {
-        return rows.indexOf(row);
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.getCurrent(i) == row.getCurrent()
+                    && columns.getDoseRateRadsPerHour(i) == row.getDoseRateRadsPerHour()) {
+                return i;
+            }
+        }
+
+        return -1;
     }
 
     /**
@@ -115,7 +147,7 @@ public class DoseRateTableModel extends AbstractTableModel {
 
     @Override
     public int getRowCount() {
-        return rows.size();
+        return columns.size();
     }
 
     @Override
@@ -150,7 +182,7 @@ public class DoseRateTableModel extends AbstractTableModel {
     public void setValueAt(Object value, int rowIndex, int columnIndex) {
 
         // This collection may throw an IndexOutOfBoundsException
-        DoseRateMeasurement row = rows.get(rowIndex);
+        columns.getCurrent(rowIndex);
 
         // This collection may throw an IndexOutOfBoundsException
         columnNames.get(columnIndex);
@@ -160,18 +192,15 @@ public class DoseRateTableModel extends AbstractTableModel {
     public Object getValueAt(int rowIndex, int columnIndex) {
         Object value = null;
 
-        // This collection may throw an IndexOutOfBoundsException
-        DoseRateMeasurement row = rows.get(rowIndex);
-
         // This collection may throw an IndexOutOfBoundsException
         String column = columnNames.get(columnIndex);
 
         switch (columnIndex) {
             case 0:
-                value = row.getCurrent();
+                value = columns.getCurrent(rowIndex);
                 break;
             case 1:
-                value = row.getDoseRateRadsPerHour();
+                value = columns.getDoseRateRadsPerHour(rowIndex);
                 break;
         }
 
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 import org.jlab.icalibrate.model.IonChamber;
 
@@ -175,6 +176,23 @@ public class SetpointTableModel extends AbstractTableModel {
         }
     }
 
+    /**
+     * Replace the calculated setpoint of every row and fire a single table event.
+     *
+     * @param calculated The calculated setpoints in row order
+     */
+    public void setCalculatedAll(double[] calculated) {
+        int count = Math.min(calculated.length, rows.size());
+
+        for (int i = 0; i < count; i++) {
+            rows.get(i).setCalculated(calculated[i]);
+        }
+
+        if (count > 0) {
+            fireTableChanged(new TableModelEvent(this, 0, count - 1, 2));
+        }
+    }
+
     public void setLogAll() {
         for (int i = 0; i < rows.size(); i++) {
             SetpointRow row = rows.get(i);
@@ -0,0 +1,139 @@
+package org.jlab.icalibrate.swing.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.JFreeChart;
+import org.jlab.icalibrate.model.ChartDataset;
+
+/**
+ * Renders dose rate charts to PNG files off-screen.
+ *
+ * Each chart is created, drawn, and PNG encoded by its own task on a bounded thread pool, without
+ * any Swing component, so exporting a whole hall scales with the number of processors rather than
+ * running one chart at a time on a shared panel. The datasets must not be modified while
+ * rendering.
+ *
+ * @author ryans
+ */
+public class ChartImageRenderer {
+
+    /**
+     * The width of a rendered chart in pixels.
+     */
+    public static final int WIDTH = 400;
+
+    /**
+     * The height of a rendered chart in pixels.
+     */
+    public static final int HEIGHT = 300;
+
+    private final int parallelism;
+
+    /**
+     * Create a new ChartImageRenderer using every available processor.
+     */
+    public ChartImageRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new ChartImageRenderer.
+     *
+     * @param parallelism The maximum number of rendering threads
+     */
+    public ChartImageRenderer(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Render a PNG of each dataset into a directory. The files are named by position and chart
+     * title so they can not collide.
+     *
+     * @param datasetList The datasets
+     * @param currentUnits The current units
+     * @param directory The directory to write to
+     * @return The files, in the same order as the datasets
+     * @throws IOException If unable to render or write a chart
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public List<File> renderAll(List<ChartDataset> datasetList, String currentUnits,
+            File directory) throws IOException, InterruptedException {
+        List<File> fileList = new ArrayList<>(datasetList.size());
+
+        if (datasetList.isEmpty()) {
+            return fileList;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism,
+                datasetList.size()), r -> {
+            Thread t = new Thread(r, "ChartImageRenderer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Future<File>> futureList = new ArrayList<>(datasetList.size());
+
+            for (int i = 0; i < datasetList.size(); i++) {
+                ChartDataset dataset = datasetList.get(i);
+                String title = DoseRateChartFactory.getTitle(dataset);
+                File file = new File(directory, String.format("%02d-%s.png", i + 1,
+                        title.replaceAll("[^a-zA-Z0-9\\.\\-]", "_")));
+
+                futureList.add(pool.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws IOException {
+                        render(dataset, currentUnits, file);
+                        return file;
+                    }
+                }));
+            }
+
+            for (Future<File> future : futureList) {
+                fileList.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IOException("Unable to render chart", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return fileList;
+    }
+
+    /**
+     * Render a single chart to a PNG file.
+     *
+     * @param dataset The dataset
+     * @param currentUnits The current units
+     * @param file The file to write
+     * @throws IOException If unable to write
+     */
+    private void render(ChartDataset dataset, String currentUnits, File file) throws
+            IOException {
+        JFreeChart chart = DoseRateChartFactory.createChart(dataset, currentUnits);
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            ChartUtilities.writeChartAsPNG(out, chart, WIDTH, HEIGHT);
+        } finally {
+            chart.getXYPlot().setDataset(0, null); // Stop listening to the shared series data
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.jlab.icalibrate.swing.util;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.annotations.XYShapeAnnotation;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.function.LineFunction2D;
+import org.jfree.data.general.DatasetUtilities;
+import org.jfree.data.xy.XYDataset;
+import org.jlab.icalibrate.model.ChartDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+
+/**
+ * Creates JFreeChart dose rate vs current charts with fit and setpoint. Shared by the on-screen
+ * DoseRateChartPanel and off-screen rendering, which must not touch Swing components and may run
+ * on any thread; every chart created is independent.
+ *
+ * @author ryans
+ */
+public final class DoseRateChartFactory {
+
+    /**
+     * The number of points the fit line is sampled at.
+     */
+    public static final int FIT_SAMPLES = 100;
+
+    /**
+     * The fill of the fit range highlight.
+     */
+    public static final Color ANNOTATION_COLOR = new Color(255, 100, 100, 31);
+
+    private DoseRateChartFactory() {
+        // Not instantiable
+    }
+
+    /**
+     * Create an empty chart with the fit renderer installed.
+     *
+     * @return The chart
+     */
+    public static JFreeChart createChart() {
+        JFreeChart chart = ChartFactory.createScatterPlot(
+                "", // title
+                "Beam Current", // x axis label
+                "Dose Rate (rads/hr)", // y axis label
+                null, // points
+                PlotOrientation.VERTICAL,
+                true, // include legend
+                true, // tooltips
+                false // urls
+        );
+        chart.getXYPlot().getRangeAxis().setAutoRangeMinimumSize(2.0);
+
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, false);
+        renderer.setSeriesPaint(0, Color.YELLOW);
+        chart.getXYPlot().setRenderer(1, renderer);
+
+        return chart;
+    }
+
+    /**
+     * Create a complete chart of a dataset. The chart listens to the dataset's series data until
+     * its plot dataset is cleared.
+     *
+     * @param dataset The dataset
+     * @param currentUnits The current units
+     * @return The chart
+     */
+    public static JFreeChart createChart(ChartDataset dataset, String currentUnits) {
+        JFreeChart chart = createChart();
+
+        chart.setTitle(getTitle(dataset));
+        chart.getXYPlot().getDomainAxis().setLabel(getDomainLabel(currentUnits));
+        chart.getXYPlot().setDataset(0, dataset.getSeriesData());
+        chart.getXYPlot().setDataset(1, sampleFit(dataset));
+
+        Rectangle2D rect = getFitRange(dataset);
+
+        if (rect != null) {
+            chart.getXYPlot().addAnnotation(new XYShapeAnnotation(rect, null, null,
+                    ANNOTATION_COLOR));
+        }
+
+        return chart;
+    }
+
+    /**
+     * Return the chart title of a dataset.
+     *
+     * @param dataset The dataset
+     * @return The title
+     */
+    public static String getTitle(ChartDataset dataset) {
+        return dataset.getMeasuredDataset().getIonChamber().getFullName();
+    }
+
+    /**
+     * Return the x axis label.
+     *
+     * @param currentUnits The current units
+     * @return The label
+     */
+    public static String getDomainLabel(String currentUnits) {
+        return "Beam Current (" + currentUnits + ")";
+    }
+
+    /**
+     * Return the selected fit of a dataset.
+     *
+     * @param dataset The dataset
+     * @return The logarithmic fit if selected, otherwise the linear fit
+     */
+    public static LineFunction2D getSelectedFit(ChartDataset dataset) {
+        return dataset.isLogarithmicSelected() ? dataset.getLogarithmicFit()
+                : dataset.getLinearFit();
+    }
+
+    /**
+     * Return the largest current the fit line is drawn to: the largest sample or setpoint
+     * current.
+     *
+     * @param dataset The dataset
+     * @return The current
+     */
+    public static double getFitMaxX(ChartDataset dataset) {
+        return max(dataset.getSeriesData().getSamples().getMaxCurrent(),
+                dataset.getSeriesData().getSetpointX());
+    }
+
+    /**
+     * Sample the selected fit from zero to getFitMaxX.
+     *
+     * @param dataset The dataset
+     * @return The sampled fit line
+     */
+    public static XYDataset sampleFit(ChartDataset dataset) {
+        String fitLabel = dataset.isLogarithmicSelected() ? "Logarithmic Fit" : "Linear Fit";
+
+        return DatasetUtilities.sampleFunction2D(getSelectedFit(dataset), 0, getFitMaxX(dataset),
+                FIT_SAMPLES, fitLabel);
+    }
+
+    /**
+     * Return the area to highlight as the fit range. Only highlighted if not using all
+     * datapoints.
+     *
+     * @param dataset The dataset
+     * @return The rectangle, or null if every sample is fit
+     */
+    public static Rectangle2D getFitRange(ChartDataset dataset) {
+        MeasurementColumns samples = dataset.getSeriesData().getSamples(); // Sorted by current
+
+        if (dataset.getMinIndex() == 0 && dataset.getMaxIndex() == samples.size() - 1) {
+            return null;
+        }
+
+        double x = samples.getCurrent(dataset.getMinIndex());
+        double width = samples.getCurrent(dataset.getMaxIndex());
+        double y = samples.getMinDoseRate();
+        double height = samples.getMaxDoseRate();
+
+        return new Rectangle2D.Double(x, y, width - x, height - y);
+    }
+
+    /**
+     * Return the larger of two values, ignoring NaN as XYSeries.getMaxX does.
+     *
+     * @param a The first value
+     * @param b The second value
+     * @return The maximum, or NaN if both are NaN
+     */
+    private static double max(double a, double b) {
+        if (Double.isNaN(a)) {
+            return b;
+        }
+
+        if (Double.isNaN(b)) {
+            return a;
+        }
+
+        return Math.max(a, b);
+    }
+}
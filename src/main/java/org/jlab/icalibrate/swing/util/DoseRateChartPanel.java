@@ -1,25 +1,28 @@
 package org.jlab.icalibrate.swing.util;
 
 import java.awt.BorderLayout;
-import java.awt.Color;
 import java.awt.geom.Rectangle2D;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
 import javax.swing.JPanel;
-import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.annotations.XYShapeAnnotation;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
-import org.jfree.data.function.Function2D;
-import org.jfree.data.general.DatasetUtilities;
+import org.jfree.data.function.LineFunction2D;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.XYSeries;
 import org.jlab.icalibrate.model.ChartDataset;
 
 /**
  * A JPanel for displaying a JFreeChart dose rate vs current chart with linear
  * fit and setpoint.
  *
+ * A single chart, plot, and fit renderer are created on first use and reused:
+ * selecting a different ion chamber only swaps the plot datasets. The sampled
+ * fit line of each ion chamber is cached and only resampled when its fit
+ * coefficients or extent change. The chart itself is built by
+ * DoseRateChartFactory, which off-screen rendering shares.
+ *
  * @author ryans
  */
 public class DoseRateChartPanel extends JPanel {
@@ -28,7 +31,8 @@ public class DoseRateChartPanel extends JPanel {
     private JFreeChart chart;
     private ChartDataset dataset;
     private XYShapeAnnotation annotation;
-    private static final Color ANNOTATION_COLOR = new Color(255, 100, 100, 31);
+    private Rectangle2D annotationRect;
+    private final Map<ChartDataset, CachedFit> fitCache = new WeakHashMap<>();
 
     /**
      * Get the selected ChartDataset.
@@ -47,47 +51,47 @@ public class DoseRateChartPanel extends JPanel {
      */
     public void setDataset(ChartDataset dataset, String currentUnits) {
 
-        this.removeAll();
-
         this.dataset = dataset;
 
         if (dataset != null) {
-            this.chart = ChartFactory.createScatterPlot(
-                    dataset.getMeasuredDataset().getIonChamber().getFullName(), // title
-                    "Beam Current (" + currentUnits + ")", // x axis label
-                    "Dose Rate (rads/hr)", // y axis label
-                    dataset.getSeriesData(), // points
-                    PlotOrientation.VERTICAL,
-                    true, // include legend
-                    true, // tooltips
-                    false // urls
-            );
-            this.chart.getXYPlot().getRangeAxis().setAutoRangeMinimumSize(2.0);
-
-            this.chartPanel = new ChartPanel(this.chart);
-            this.setLayout(new BorderLayout());
-            this.add(chartPanel, BorderLayout.CENTER);
-
-            // Only hightlight fit range if not using all datapoints
-            if (dataset.getMinIndex() != 0 || dataset.getMaxIndex()
-                    != dataset.getMeasuredDataset().getMeasurementList().size() - 1) {
-                double x
-                        = dataset.getSeriesData().getSeries(0).getX(dataset.getMinIndex()).doubleValue();
-                double width
-                        = dataset.getSeriesData().getSeries(0).getX(dataset.getMaxIndex()).doubleValue();
-                double y = dataset.getSeriesData().getSeries(0).getMinY();
-                double height = dataset.getSeriesData().getSeries(0).getMaxY();
-                annotation = new XYShapeAnnotation(new Rectangle2D.Double(x, y, width - x, height
-                        - y),
-                        null, null, ANNOTATION_COLOR);
-                this.chart.getXYPlot().addAnnotation(annotation);
+            if (chart == null) {
+                createChart();
+            }
+
+            String title = DoseRateChartFactory.getTitle(dataset);
+            String xLabel = DoseRateChartFactory.getDomainLabel(currentUnits);
+
+            if (!title.equals(chart.getTitle().getText())) {
+                chart.setTitle(title);
             }
 
+            if (!xLabel.equals(chart.getXYPlot().getDomainAxis().getLabel())) {
+                chart.getXYPlot().getDomainAxis().setLabel(xLabel);
+            }
+
+            chart.getXYPlot().setDataset(0, dataset.getSeriesData());
+
             drawFit();
+
+            if (chartPanel.getParent() != this) {
+                this.add(chartPanel, BorderLayout.CENTER);
+                this.revalidate();
+            }
+        } else if (chartPanel != null && chartPanel.getParent() == this) {
+            this.remove(chartPanel);
+            this.revalidate();
         }
 
         this.repaint();
-        this.revalidate();
+    }
+
+    /**
+     * Create the chart, plot, panel, and fit renderer. Done once.
+     */
+    private void createChart() {
+        this.chart = DoseRateChartFactory.createChart();
+        this.chartPanel = new ChartPanel(this.chart);
+        this.setLayout(new BorderLayout());
     }
 
     /**
@@ -97,56 +101,97 @@ public class DoseRateChartPanel extends JPanel {
      */
     public void drawFit() {
 
-        //XYSeries series = dataset.getSeriesData().getSeries(0);
-        //double minX = series.getX(dataset.getMinIndex()).doubleValue();
-        //double maxX = series.getX(dataset.getMaxIndex()).doubleValue();
-        XYSeries series0 = dataset.getSeriesData().getSeries(0); // Samples
-        XYSeries series1 = dataset.getSeriesData().getSeries(1); // Setpoint
         double minX = 0;
-        double maxX = Math.max(series0.getMaxX(), series1.getMaxX());
-
-        Function2D func;
-        String fitLabel;
-        XYDataset fitData;
-
-        if (dataset.isLogarithmicSelected()) {
-            fitLabel = "Logarithmic Fit";
-            func = dataset.getLogarithmicFit();
-        } else {
-            fitLabel = "Linear Fit";
-            func = dataset.getLinearFit();
-        }
+        double maxX = DoseRateChartFactory.getFitMaxX(dataset);
+        LineFunction2D func = DoseRateChartFactory.getSelectedFit(dataset);
 
-        fitData = DatasetUtilities.sampleFunction2D(func, minX, maxX, 100,
-                fitLabel);
+        FitKey key = new FitKey(dataset.isLogarithmicSelected(), func.getSlope(),
+                func.getIntercept(), minX, maxX);
+        CachedFit cached = fitCache.get(dataset);
 
-        this.chart.getXYPlot().setDataset(1, fitData);
-        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, false);
-        renderer.setSeriesPaint(0, Color.YELLOW);
-        this.chart.getXYPlot().setRenderer(1, renderer);
+        if (cached == null || !cached.key.equals(key)) {
+            cached = new CachedFit(key, DoseRateChartFactory.sampleFit(dataset));
+            fitCache.put(dataset, cached);
+        }
 
-        if (annotation != null) {
-            this.chart.getXYPlot().removeAnnotation(annotation);
+        if (this.chart.getXYPlot().getDataset(1) != cached.fitData) {
+            this.chart.getXYPlot().setDataset(1, cached.fitData);
         }
 
         // Only hightlight fit range if not using all datapoints
-        if (dataset.getMinIndex() != 0 || dataset.getMaxIndex()
-                != dataset.getMeasuredDataset().getMeasurementList().size() - 1) {
-            double x
-                    = dataset.getSeriesData().getSeries(0).getX(dataset.getMinIndex()).doubleValue();
-            double width
-                    = dataset.getSeriesData().getSeries(0).getX(dataset.getMaxIndex()).doubleValue();
-            double y = dataset.getSeriesData().getSeries(0).getMinY();
-            double height = dataset.getSeriesData().getSeries(0).getMaxY();
-            annotation
-                    = new XYShapeAnnotation(new Rectangle2D.Double(x, y, width - x, height - y),
-                            null,
-                            null, ANNOTATION_COLOR);
-            this.chart.getXYPlot().addAnnotation(annotation);
+        Rectangle2D rect = DoseRateChartFactory.getFitRange(dataset);
+
+        if (rect == null ? annotationRect != null : !rect.equals(annotationRect)) {
+            if (annotation != null) {
+                this.chart.getXYPlot().removeAnnotation(annotation);
+                annotation = null;
+            }
+
+            if (rect != null) {
+                annotation = new XYShapeAnnotation(rect, null, null,
+                        DoseRateChartFactory.ANNOTATION_COLOR);
+                this.chart.getXYPlot().addAnnotation(annotation);
+            }
+
+            annotationRect = rect;
         }
     }
 
     public JFreeChart getChart() {
         return chart;
     }
+
+    /**
+     * Identifies a sampled fit line: the fit coefficients and the sampled extent.
+     */
+    private static final class FitKey {
+
+        private final boolean logarithmic;
+        private final double slope;
+        private final double intercept;
+        private final double minX;
+        private final double maxX;
+
+        FitKey(boolean logarithmic, double slope, double intercept, double minX, double maxX) {
+            this.logarithmic = logarithmic;
+            this.slope = slope;
+            this.intercept = intercept;
+            this.minX = minX;
+            this.maxX = maxX;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FitKey)) {
+                return false;
+            }
+
+            FitKey other = (FitKey) obj;
+
+            return logarithmic == other.logarithmic
+                    && Double.compare(slope, other.slope) == 0
+                    && Double.compare(intercept, other.intercept) == 0
+                    && Double.compare(minX, other.minX) == 0
+                    && Double.compare(maxX, other.maxX) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(logarithmic, slope, intercept, minX, maxX);
+        }
+    }
+
+    /**
+     * A sampled fit line and the key it was sampled for.
+     */
+    private static final class CachedFit {
+
+        private final FitKey key;
+        private final XYDataset fitData;
+
+        CachedFit(FitKey key, XYDataset fitData) {
+            this.key = key;
+            this.fitData = fitData;
+        }
+    }
 }
@@ -0,0 +1,202 @@
+package org.jlab.icalibrate.swing.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs computations requested by bursts of UI events (slider drags, spinner clicks) on a
+ * background thread and publishes only the latest result to the Event Dispatch Thread.
+ *
+ * Each request is stamped with a generation number. Requests which arrive while a computation is
+ * already queued replace it (coalesced), so at most one computation runs at a time and a long drag
+ * still shows intermediate frames. A result which reaches the EDT after a newer result has been
+ * published, or after cancel, is discarded (stale).
+ *
+ * @param <T> The result type
+ * @author ryans
+ */
+public class RecomputeScheduler<T> {
+
+    private static final Logger LOGGER = Logger.getLogger(RecomputeScheduler.class.getName());
+
+    private final ExecutorService executor;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Request<T>> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private long publishedGeneration = 0; // EDT only
+    private long cancelledGeneration = 0; // EDT only
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder computeNanosTotal = new LongAdder();
+    private final LongAccumulator computeNanosMax = new LongAccumulator(Long::max, 0);
+    private final LongAdder frameNanosTotal = new LongAdder();
+    private final LongAccumulator frameNanosMax = new LongAccumulator(Long::max, 0);
+    private final LongAdder latencyNanosTotal = new LongAdder();
+    private final LongAccumulator latencyNanosMax = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Create a new RecomputeScheduler with its own daemon worker thread.
+     *
+     * @param name The worker thread name
+     */
+    public RecomputeScheduler(String name) {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Request a computation. Must be called on the EDT. The computation runs on the worker thread
+     * and must only read state captured at request time or otherwise safe to read concurrently;
+     * the publisher runs on the EDT with the result unless it has been superseded or cancelled.
+     *
+     * @param computation The computation
+     * @param publisher The consumer of the result
+     */
+    public void request(Callable<T> computation, Consumer<T> publisher) {
+        requested.increment();
+
+        Request<T> request = new Request<>(generation.incrementAndGet(), computation, publisher);
+
+        if (latest.getAndSet(request) != null) {
+            coalesced.increment();
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Invalidate any outstanding request so that its result is never published. Must be called on
+     * the EDT.
+     */
+    public void cancel() {
+        cancelledGeneration = generation.incrementAndGet();
+
+        if (latest.getAndSet(null) != null) {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * Run the latest request, if any. Runs on the worker thread.
+     */
+    private void drain() {
+        scheduled.set(false);
+
+        Request<T> request = latest.getAndSet(null);
+
+        if (request == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        T result;
+
+        try {
+            result = request.computation.call();
+        } catch (Exception e) {
+            failed.increment();
+            LOGGER.log(Level.WARNING, "Unable to recompute", e);
+            return;
+        }
+
+        long computeNanos = System.nanoTime() - start;
+        computed.increment();
+        computeNanosTotal.add(computeNanos);
+        computeNanosMax.accumulate(computeNanos);
+
+        SwingUtilities.invokeLater(() -> publish(request, result));
+    }
+
+    /**
+     * Publish a result unless it has been superseded or cancelled. Runs on the EDT.
+     *
+     * @param request The request
+     * @param result The result
+     */
+    private void publish(Request<T> request, T result) {
+        if (request.generation <= publishedGeneration
+                || request.generation <= cancelledGeneration) {
+            stale.increment();
+            return;
+        }
+
+        publishedGeneration = request.generation;
+
+        long start = System.nanoTime();
+
+        try {
+            request.publisher.accept(result);
+        } catch (RuntimeException e) {
+            failed.increment();
+            LOGGER.log(Level.WARNING, "Unable to publish recompute result", e);
+            return;
+        }
+
+        long end = System.nanoTime();
+
+        published.increment();
+        frameNanosTotal.add(end - start);
+        frameNanosMax.accumulate(end - start);
+        latencyNanosTotal.add(end - request.requestedNanos);
+        latencyNanosMax.accumulate(end - request.requestedNanos);
+    }
+
+    /**
+     * Return a snapshot of the scheduler counters.
+     *
+     * @return The statistics
+     */
+    public RecomputeStatistics getStatistics() {
+        return new RecomputeStatistics(requested.sum(), computed.sum(), published.sum(),
+                coalesced.sum(), stale.sum(), failed.sum(), computeNanosTotal.sum(),
+                computeNanosMax.get(), frameNanosTotal.sum(), frameNanosMax.get(),
+                latencyNanosTotal.sum(), latencyNanosMax.get());
+    }
+
+    /**
+     * Stop the worker thread. Outstanding results are never published.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * A requested computation.
+     *
+     * @param <T> The result type
+     */
+    private static final class Request<T> {
+
+        private final long generation;
+        private final long requestedNanos = System.nanoTime();
+        private final Callable<T> computation;
+        private final Consumer<T> publisher;
+
+        Request(long generation, Callable<T> computation, Consumer<T> publisher) {
+            this.generation = generation;
+            this.computation = computation;
+            this.publisher = publisher;
+        }
+    }
+}
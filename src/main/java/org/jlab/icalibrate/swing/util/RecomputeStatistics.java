@@ -0,0 +1,195 @@
+package org.jlab.icalibrate.swing.util;
+
+/**
+ * An immutable snapshot of the RecomputeScheduler counters.
+ *
+ * @author ryans
+ */
+public final class RecomputeStatistics {
+
+    private final long requested;
+    private final long computed;
+    private final long published;
+    private final long coalesced;
+    private final long stale;
+    private final long failed;
+    private final long computeNanosTotal;
+    private final long computeNanosMax;
+    private final long frameNanosTotal;
+    private final long frameNanosMax;
+    private final long latencyNanosTotal;
+    private final long latencyNanosMax;
+
+    /**
+     * Create a new RecomputeStatistics.
+     *
+     * @param requested The number of requests
+     * @param computed The number of computations run
+     * @param published The number of results applied on the EDT
+     * @param coalesced The number of requests replaced by a newer request before running
+     * @param stale The number of results discarded because superseded or cancelled
+     * @param failed The number of computations or publications which threw an exception
+     * @param computeNanosTotal The sum of computation times in nanoseconds
+     * @param computeNanosMax The largest computation time in nanoseconds
+     * @param frameNanosTotal The sum of EDT publication times in nanoseconds
+     * @param frameNanosMax The largest EDT publication time in nanoseconds
+     * @param latencyNanosTotal The sum of request to publication times in nanoseconds
+     * @param latencyNanosMax The largest request to publication time in nanoseconds
+     */
+    RecomputeStatistics(long requested, long computed, long published, long coalesced,
+            long stale, long failed, long computeNanosTotal, long computeNanosMax,
+            long frameNanosTotal, long frameNanosMax, long latencyNanosTotal,
+            long latencyNanosMax) {
+        this.requested = requested;
+        this.computed = computed;
+        this.published = published;
+        this.coalesced = coalesced;
+        this.stale = stale;
+        this.failed = failed;
+        this.computeNanosTotal = computeNanosTotal;
+        this.computeNanosMax = computeNanosMax;
+        this.frameNanosTotal = frameNanosTotal;
+        this.frameNanosMax = frameNanosMax;
+        this.latencyNanosTotal = latencyNanosTotal;
+        this.latencyNanosMax = latencyNanosMax;
+    }
+
+    /**
+     * Return the number of requests.
+     *
+     * @return The requested count
+     */
+    public long getRequested() {
+        return requested;
+    }
+
+    /**
+     * Return the number of computations run.
+     *
+     * @return The computed count
+     */
+    public long getComputed() {
+        return computed;
+    }
+
+    /**
+     * Return the number of results applied on the EDT.
+     *
+     * @return The published count
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * Return the number of requests replaced by a newer request before they ran.
+     *
+     * @return The coalesced count
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Return the number of results discarded because superseded or cancelled.
+     *
+     * @return The stale count
+     */
+    public long getStale() {
+        return stale;
+    }
+
+    /**
+     * Return the number of UI events which never reached the screen: coalesced plus stale.
+     *
+     * @return The dropped count
+     */
+    public long getDropped() {
+        return coalesced + stale;
+    }
+
+    /**
+     * Return the number of computations or publications which threw an exception.
+     *
+     * @return The failed count
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Return the average background computation time in milliseconds.
+     *
+     * @return The average compute time, or NaN if nothing has been computed
+     */
+    public double getAverageComputeMillis() {
+        if (computed == 0) {
+            return Double.NaN;
+        }
+
+        return computeNanosTotal / (computed * 1000000.0d);
+    }
+
+    /**
+     * Return the largest background computation time in milliseconds.
+     *
+     * @return The max compute time
+     */
+    public double getMaxComputeMillis() {
+        return computeNanosMax / 1000000.0d;
+    }
+
+    /**
+     * Return the average time spent on the EDT applying a result in milliseconds.
+     *
+     * @return The average frame time, or NaN if nothing has been published
+     */
+    public double getAverageFrameMillis() {
+        if (published == 0) {
+            return Double.NaN;
+        }
+
+        return frameNanosTotal / (published * 1000000.0d);
+    }
+
+    /**
+     * Return the largest time spent on the EDT applying a result in milliseconds.
+     *
+     * @return The max frame time
+     */
+    public double getMaxFrameMillis() {
+        return frameNanosMax / 1000000.0d;
+    }
+
+    /**
+     * Return the average time from request to the result being applied in milliseconds.
+     *
+     * @return The average latency, or NaN if nothing has been published
+     */
+    public double getAverageLatencyMillis() {
+        if (published == 0) {
+            return Double.NaN;
+        }
+
+        return latencyNanosTotal / (published * 1000000.0d);
+    }
+
+    /**
+     * Return the largest time from request to the result being applied in milliseconds.
+     *
+     * @return The max latency
+     */
+    public double getMaxLatencyMillis() {
+        return latencyNanosMax / 1000000.0d;
+    }
+
+    @Override
+    public String toString() {
+        return "requested: " + requested + ", computed: " + computed + ", published: "
+                + published + ", coalesced: " + coalesced + ", stale: " + stale + ", failed: "
+                + failed + ", avg compute ms: " + getAverageComputeMillis()
+                + ", avg frame ms: " + getAverageFrameMillis() + ", max frame ms: "
+                + getMaxFrameMillis() + ", avg latency ms: " + getAverageLatencyMillis()
+                + ", max latency ms: " + getMaxLatencyMillis();
+    }
+}
@@ -7,7 +7,9 @@ import gov.aps.jca.dbr.DBRType;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
@@ -15,8 +17,11 @@ import java.util.logging.Logger;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.epics.BatchGetResult;
 import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.epics.MonitorSampleBuffer;
 import org.jlab.icalibrate.epics.PvListener;
+import org.jlab.icalibrate.epics.PvUnavailableException;
 import org.jlab.icalibrate.exception.AppException;
 import org.jlab.icalibrate.exception.FSDException;
 import org.jlab.icalibrate.model.DoseRateMeasurement;
@@ -24,7 +29,12 @@ import org.jlab.icalibrate.model.Hall;
 import org.jlab.icalibrate.model.HallCalibrationDataset;
 import org.jlab.icalibrate.model.IonChamber;
 import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
+import org.jlab.icalibrate.model.RunningStatistics;
 import org.jlab.icalibrate.model.CreateNewDatasetParameters;
+import org.jlab.icalibrate.model.SamplingMode;
+import org.jlab.icalibrate.model.SettleMode;
 import org.jlab.icalibrate.swing.ICalibrateFrame;
 import org.jlab.icalibrate.swing.dialog.CreateDatasetProgressDialog;
 import org.jlab.icalibrate.swing.worker.CreateNewDatasetWorker.IncrementalResultChunk;
@@ -34,6 +44,10 @@ import org.jlab.icalibrate.swing.worker.CreateNewDatasetWorker.IncrementalResult
  * calibration. The process includes ramping the attenuator in order to
  * incrementally step current and measure dose rate changes. At a given current
  * multiple samples are taken and averaged to obtain a more accurate measure.
+ * Samples are either polled once per sample period or, in monitor sampling
+ * mode, every monitor update received during the dwell window is averaged.
+ * After each attenuator change the beam either settles for a fixed time or, in
+ * adaptive settle mode, until the beam current and dose rates are stable.
  *
  * @author ryans
  */
@@ -47,6 +61,11 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
 
     public static final long SAMPLE_FREQUENCY_MILLIS = 1000;
 
+    /**
+     * How often the stability criterion is evaluated in adaptive settle mode.
+     */
+    public static final long SETTLE_CHECK_MILLIS = 100;
+
     private final CreateDatasetProgressDialog progressDialog;
     private final ICalibrateFrame frame;
     private final CreateNewDatasetParameters params;
@@ -54,6 +73,19 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
     private volatile boolean fsdTripThisInstant = false;
     private volatile boolean fsdTripDuringStep = false;
 
+    /**
+     * Records dose rate monitor updates when using monitor sampling mode; null
+     * otherwise.
+     */
+    private MonitorSampleBuffer sampleBuffer;
+
+    /**
+     * Records beam current and dose rate monitor updates when using adaptive
+     * settle mode; null otherwise.
+     */
+    private MonitorSampleBuffer settleBuffer;
+    private List<String> settlePvList;
+
     /**
      * If user aborts (via cancel button) worker thread 
      * (thread interrupt) then CancellationException is
@@ -66,8 +98,8 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
      * Create a new CreateNewDatasetWorker.
      *
      * @param params The process parameters
-     * @param progressDialog The progress dialog
-     * @param frame The parent frame
+     * @param progressDialog The progress dialog, or null if headless
+     * @param frame The parent frame, or null if headless (the caller obtains the result via get)
      */
     public CreateNewDatasetWorker(CreateNewDatasetParameters params,
             CreateDatasetProgressDialog progressDialog,
@@ -102,23 +134,50 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
     protected List<IonChamberDataset> doInBackground() throws Exception {
         try {
             synchronized (fsdConnectLock) {
-                frame.getChannelManager().addPv(this, loadMasterFsdPv());
+                params.getChannelManager().addPv(this, loadMasterFsdPv());
                 fsdConnectLock.wait();
             }
 
             List<IonChamber> icList = params.getIonChamberList();
             HallPvSet pvs = loadPvs();
 
+            if (params.getSamplingMode() == SamplingMode.MONITOR) {
+                Set<String> dosePvSet = new LinkedHashSet<>();
+
+                for (IonChamber ic : icList) {
+                    dosePvSet.add(ic.getDoseRateReadPvName());
+                }
+
+                sampleBuffer = new MonitorSampleBuffer(dosePvSet);
+                params.getChannelManager().addPvs(sampleBuffer, dosePvSet);
+            }
+
+            if (params.getSettleMode() == SettleMode.ADAPTIVE) {
+                Set<String> settlePvSet = new LinkedHashSet<>();
+
+                settlePvSet.add(pvs.hallBeamCurrentReadbackPv);
+
+                for (IonChamber ic : icList) {
+                    settlePvSet.add(ic.getDoseRateReadPvName());
+                }
+
+                settlePvList = new ArrayList<>(settlePvSet);
+                settleBuffer = new MonitorSampleBuffer(settlePvSet);
+                params.getChannelManager().addPvs(settleBuffer, settlePvSet);
+            }
+
             List<IonChamberDataset> datasetList = new ArrayList<>();
             List<List<DoseRateMeasurement>> measurementMatrix = new ArrayList<>();
+            List<RawSamples.Builder> sampleBuilderList = new ArrayList<>();
 
             // Populate matrix with empty rows
             icList.stream().forEach((item) -> {
                 measurementMatrix.add(new ArrayList<>());
+                sampleBuilderList.add(new RawSamples.Builder());
             });
 
             // Determine attenuator setting so we can restore it back where we found it later //
-            ChannelManager manager = frame.getChannelManager();
+            ChannelManager manager = params.getChannelManager();
             DBR dbr;
             double originalAttenuator;
 
@@ -146,7 +205,7 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
             LOGGER.log(Level.FINEST, "Initial attenuator value: {0}", attenuator);
 
             try {
-                doStepLoop(attenuator, icList, measurementMatrix, pvs);
+                doStepLoop(attenuator, icList, measurementMatrix, sampleBuilderList, pvs);
             } catch(InterruptedException e) {
                 LOGGER.log(Level.FINEST, "Background worker thread canceled / interrupted");
                 // Instead of allowing exception to bubble all the way up we catch it
@@ -160,7 +219,8 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
             for (int i = 0; i < icList.size(); i++) {
                 IonChamber ic = icList.get(i);
                 List<DoseRateMeasurement> measurementList = measurementMatrix.get(i);
-                IonChamberDataset dataset = new IonChamberDataset(ic, measurementList);
+                IonChamberDataset dataset = new IonChamberDataset(ic,
+                        MeasurementColumns.of(measurementList), sampleBuilderList.get(i).build());
                 datasetList.add(dataset);
             }
 
@@ -171,7 +231,15 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
             
             return datasetList;
         } finally {
-            frame.getChannelManager().removeListener(this);
+            params.getChannelManager().removeListener(this);
+
+            if (sampleBuffer != null) {
+                params.getChannelManager().removeListener(sampleBuffer);
+            }
+
+            if (settleBuffer != null) {
+                params.getChannelManager().removeListener(settleBuffer);
+            }
         }
     }
 
@@ -210,7 +278,7 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
             }        
     }
     
-    private void doStepLoop(int attenuator, List<IonChamber> icList, List<List<DoseRateMeasurement>> measurementMatrix, HallPvSet pvs) throws InterruptedException, AppException {
+    private void doStepLoop(int attenuator, List<IonChamber> icList, List<List<DoseRateMeasurement>> measurementMatrix, List<RawSamples.Builder> sampleBuilderList, HallPvSet pvs) throws InterruptedException, AppException {
             for (int i = 0; i <= params.getNumberOfSteps(); i++) {
                 boolean fsdExceptionEncountered;
 
@@ -218,7 +286,7 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
                     fsdExceptionEncountered = false;
                     setFsdTripDuringStep(false);               
                     try {
-                        doStep(i, attenuator, icList, measurementMatrix, pvs);
+                        doStep(i, attenuator, icList, measurementMatrix, sampleBuilderList, pvs);
                     } catch (FSDException e) {
                         LOGGER.log(Level.FINEST, "FSD Encountered");
                         fsdExceptionEncountered = true;
@@ -247,7 +315,8 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
     }
     
     private void doStep(int step, int attenuator, List<IonChamber> icList,
-            List<List<DoseRateMeasurement>> measurementMatrix, HallPvSet pvs) throws
+            List<List<DoseRateMeasurement>> measurementMatrix,
+            List<RawSamples.Builder> sampleBuilderList, HallPvSet pvs) throws
             InterruptedException,
             FSDException, AppException {
 
@@ -256,7 +325,7 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
         }
 
         DBR dbr;
-        ChannelManager manager = frame.getChannelManager();
+        ChannelManager manager = params.getChannelManager();
 
         LOGGER.log(Level.FINEST, "Step: {0}", step);
         publish(new IncrementalResultChunk(WorkerState.ADJUSTING, step, null));
@@ -283,7 +352,9 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
 
         publish(new IncrementalResultChunk(WorkerState.SETTLING, step, null));
 
-        Thread.sleep((long) (params.getSettleSeconds() * 1000));
+        double settleSeconds = settle();
+
+        LOGGER.log(Level.FINEST, "Settled after {0} seconds", settleSeconds);
 
         double current = 0.0d;
 
@@ -308,43 +379,115 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
         }
 
         //LOGGER.log(Level.FINEST, "Current Reading: {0}", current);
-        measure(icList, measurementMatrix, manager, current, step);       
+        measure(icList, measurementMatrix, sampleBuilderList, manager, current, settleSeconds,
+                step);
+    }
+
+    /**
+     * Wait for the beam to settle after an attenuator change. In fixed settle
+     * mode this always waits the configured settle time. In adaptive mode it
+     * returns as soon as every settle PV has been stable for the settle window,
+     * waiting no longer than the configured settle time. The window always
+     * starts after the attenuator put, and a PV must have received at least
+     * MonitorSampleBuffer.MIN_STABLE_UPDATES updates within it, so a PV which
+     * is not updating falls back to the full fixed settle time.
+     *
+     * @return The number of seconds actually spent settling
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private double settle() throws InterruptedException {
+        long maxMillis = params.getSettleSeconds() * 1000L;
+        long start = System.currentTimeMillis();
+
+        if (settleBuffer == null) {
+            Thread.sleep(maxMillis);
+        } else {
+            long windowMillis = (long) (params.getSettleWindowSeconds() * 1000);
+            long elapsed;
+
+            while ((elapsed = System.currentTimeMillis() - start) < maxMillis) {
+                if (elapsed >= windowMillis && isSettled(start + elapsed - windowMillis,
+                        start + elapsed)) {
+                    break;
+                }
+
+                Thread.sleep(Math.min(SETTLE_CHECK_MILLIS, maxMillis - elapsed));
+            }
+        }
+
+        return (System.currentTimeMillis() - start) / 1000.0d;
+    }
+
+    /**
+     * Check whether every settle PV was stable over the given window.
+     *
+     * @param fromMillis The start of the window
+     * @param toMillis The end of the window
+     * @return true if settled
+     */
+    private boolean isSettled(long fromMillis, long toMillis) {
+        for (String pv : settlePvList) {
+            if (!settleBuffer.isStable(pv, fromMillis, toMillis, params.getSettleTolerance())) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     private void measure(List<IonChamber> icList, List<List<DoseRateMeasurement>> measurementMatrix,
-            ChannelManager manager, double current, int step) throws AppException,
-            InterruptedException {
-        List<List<Double>> sampleMatrix = new ArrayList<>();
+            List<RawSamples.Builder> sampleBuilderList, ChannelManager manager, double current,
+            double settleSeconds, int step) throws AppException, InterruptedException {
+        // Discards the samples of an attempt of this step interrupted by an FSD trip
+        for (RawSamples.Builder builder : sampleBuilderList) {
+            builder.beginMeasurement();
+        }
 
-        // Populate matrix with empty rows
-        icList.stream().forEach((item) -> {
-            sampleMatrix.add(new ArrayList<>());
-        });
+        double[] monitorAverages = null;
 
-        sample(icList, sampleMatrix, manager, step);
+        if (sampleBuffer != null) {
+            monitorAverages = sampleMonitor(icList, sampleBuilderList, step);
+        } else {
+            sample(icList, sampleBuilderList, manager, step);
+        }
 
         // Note: once we've made it past sampling so we can calculate averages and add results to measurementLists
         // If FSD Trip happened, during sampling we don't get here as exception bubbles up
         for (int j = 0; j < icList.size(); j++) {
             IonChamber ic = icList.get(j);
-            List<Double> sampleList = sampleMatrix.get(j);
+            RawSamples.Builder builder = sampleBuilderList.get(j);
+            RunningStatistics statistics = builder.getStatistics();
+
+            // The running mean of the samples, or in monitor mode the time-weighted average
+            double doseRate = monitorAverages == null ? statistics.getMean()
+                    : monitorAverages[j];
+
+            if (monitorAverages == null && statistics.getCount() == 0) {
+                LOGGER.log(Level.WARNING, "Every dose rate sample missing for IC: {0}",
+                        ic.getEpicsName());
+            }
+
+            LOGGER.log(Level.FINEST, "IC {0}: mean {1}, std dev {2}, min {3}, max {4}, outliers {5}",
+                    new Object[]{ic.getEpicsName(), doseRate, statistics.getStandardDeviation(),
+                        statistics.getMin(), statistics.getMax(), statistics.getOutlierCount()});
 
-            /*for(int k = 0; k < datasetList.size(); k++) {
-                LOGGER.log(Level.FINEST, "Sample {0} = {1}", new Object[]{k, datasetList.get(k)});
-            }*/
-            // Calculate the average of the samples
-            double doseRate = sampleList.stream().mapToDouble(a -> a).average().orElse(Double.NaN);
+            builder.endMeasurement();
 
-            //LOGGER.log(Level.FINEST, "Average dose rate: {0}", doseRate);
-            DoseRateMeasurement measurement = new DoseRateMeasurement(current, doseRate);
+            DoseRateMeasurement measurement = new DoseRateMeasurement(current, doseRate,
+                    settleSeconds);
             List<DoseRateMeasurement> measurementList = measurementMatrix.get(j);
             measurementList.add(measurement);
         }
     }
 
-    private void sample(List<IonChamber> icList, List<List<Double>> sampleMatrix,
+    private void sample(List<IonChamber> icList, List<RawSamples.Builder> sampleBuilderList,
             ChannelManager manager, int step) throws AppException, InterruptedException {
         DBR dbr;
+        List<String> pvList = new ArrayList<>();
+
+        for (IonChamber ic : icList) {
+            pvList.add(ic.getDoseRateReadPvName());
+        }
 
         for (int i = 0; i < params.getSamplesPerStep(); i++) {
 
@@ -352,22 +495,35 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
 
             publish(new IncrementalResultChunk(WorkerState.SAMPLING, step, i + 1));
 
+            // Read all ion chambers at once so a sample costs one round-trip to the slowest IOC
+            BatchGetResult result;
+
+            try {
+                result = manager.getAll(pvList).get();
+            } catch (ExecutionException e) {
+                throw new AppException("Unable to perform EPICS CA Get of dose rate PVs - "
+                        + e.getMessage(), e);
+            }
+
             for (int j = 0; j < icList.size(); j++) {
                 IonChamber ic = icList.get(j);
                 double doseRate = 0.0;
 
+                // A chamber which can't be read is recorded as a missing (NaN) sample rather than
+                // aborting the run; the ChannelManager circuit breaker stops waiting on it
                 //LOGGER.log(Level.FINEST, "Dose Read PV: -{0}-", ic.getDoseRateReadPvName());
                 try {
-                    dbr = manager.get(ic.getDoseRateReadPvName());
+                    dbr = result.get(ic.getDoseRateReadPvName());
                     //dbr = manager.get(ic.getDoseRateSetpointReadPvName());
-                } catch (CAException e) {
-                    throw new AppException("Unable to perform EPICS CA Get of PV: "
-                            + ic.getDoseRateReadPvName()
-                            + " - " + e.getMessage(), e);
-                } catch (TimeoutException e) {
-                    throw new AppException("Timeout waiting for EPICS CA Get of PV: "
-                            + ic.getDoseRateReadPvName(),
-                            e);
+                } catch (PvUnavailableException e) {
+                    LOGGER.log(Level.FINE, "Skipping unavailable PV: {0}",
+                            ic.getDoseRateReadPvName());
+                    sampleBuilderList.get(j).add(Double.NaN);
+                    continue;
+                } catch (CAException | TimeoutException e) {
+                    LOGGER.log(Level.WARNING, "Dose rate sample missing: {0}", e.getMessage());
+                    sampleBuilderList.get(j).add(Double.NaN);
+                    continue;
                 }
 
                 if (dbr != null && dbr.isDOUBLE()) {
@@ -378,8 +534,10 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
                     LOGGER.log(Level.WARNING, "doseRate is null or not a double");
                 }
 
-                List<Double> sampleList = sampleMatrix.get(j);
-                sampleList.add(doseRate);
+                if (sampleBuilderList.get(j).add(doseRate)) {
+                    LOGGER.log(Level.FINE, "Outlier dose rate sample {0} of PV: {1}",
+                            new Object[]{doseRate, ic.getDoseRateReadPvName()});
+                }
                 //LOGGER.log(Level.FINEST, "IC {0}, Dose reading: {1}", new Object[]{ic.getFriendlyName(), doseRate});
             }
 
@@ -397,9 +555,54 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
         }
     }
 
+    private double[] sampleMonitor(List<IonChamber> icList,
+            List<RawSamples.Builder> sampleBuilderList, int step) throws InterruptedException,
+            FSDException {
+        long windowStart = System.currentTimeMillis();
+
+        // Dwell for the same total duration as the poll mode sample period while the
+        // monitors fill the buffer
+        for (int i = 0; i < params.getSamplesPerStep(); i++) {
+            publish(new IncrementalResultChunk(WorkerState.SAMPLING, step, i + 1));
+
+            Thread.sleep(SAMPLE_FREQUENCY_MILLIS);
+
+            if (this.isFsdTripDuringStep()) {
+                throw new FSDException("FSD Trip while sampling");
+            }
+        }
+
+        long windowEnd = System.currentTimeMillis();
+        double[] averages = new double[icList.size()];
+
+        for (int j = 0; j < icList.size(); j++) {
+            String pv = icList.get(j).getDoseRateReadPvName();
+            double doseRate = sampleBuffer.average(pv, windowStart, windowEnd);
+
+            LOGGER.log(Level.FINEST, "PV {0} had {1} monitor updates in dwell window",
+                    new Object[]{pv, sampleBuffer.count(pv, windowStart, windowEnd)});
+
+            if (Double.isNaN(doseRate)) {
+                LOGGER.log(Level.WARNING, "No dose rate monitor value for PV: {0}", pv);
+            }
+
+            RawSamples.Builder builder = sampleBuilderList.get(j);
+            sampleBuffer.forEach(pv, windowStart, windowEnd, builder::add);
+            averages[j] = doseRate;
+        }
+
+        return averages;
+    }
+
     @Override
     protected void done() {
-        progressDialog.setVisible(false);
+        if (progressDialog != null) {
+            progressDialog.setVisible(false);
+        }
+
+        if (frame == null) { // Headless run such as a benchmark; caller uses get()
+            return;
+        }
 
         Date calibratedDate = new Date();
         String calibratedBy = System.getProperty("user.name");
@@ -433,6 +636,13 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
                     params.getPass(), params.getNote(), calibratedDate, calibratedBy,
                     datasetList),
                     filename, false);
+
+            String missing = describeMissingSamples(datasetList);
+
+            if (missing != null) {
+                JOptionPane.showMessageDialog(frame, missing, "Dataset has missing samples",
+                        JOptionPane.WARNING_MESSAGE);
+            }
         } catch (CancellationException e) {
             LOGGER.log(Level.FINEST, "New dataset canceled, attempt to salvage partial results");
             
@@ -471,6 +681,57 @@ public class CreateNewDatasetWorker extends SwingWorker<List<IonChamberDataset>,
         }
     }
 
+    /**
+     * Describe the ion chambers which could not be read at some steps. A step is unavailable if
+     * no dose rate was obtained at all and partially sampled if some, but not all, of its raw
+     * samples are missing.
+     *
+     * @param datasetList The measured datasets
+     * @return The description, or null if every chamber was fully sampled
+     */
+    private String describeMissingSamples(List<IonChamberDataset> datasetList) {
+        StringBuilder builder = new StringBuilder();
+
+        for (IonChamberDataset dataset : datasetList) {
+            MeasurementColumns columns = dataset.getColumns();
+            RawSamples rawSamples = dataset.getRawSamples();
+            int unavailable = 0;
+            int partial = 0;
+
+            for (int i = 0; i < columns.size(); i++) {
+                if (Double.isNaN(columns.getDoseRateRadsPerHour(i))) {
+                    unavailable++;
+                } else if (rawSamples != null && rawSamples.getValidSampleCount(i)
+                        < rawSamples.getSampleCount(i)) {
+                    partial++;
+                }
+            }
+
+            if (unavailable > 0 || partial > 0) {
+                IonChamber ic = dataset.getIonChamber();
+
+                builder.append("\n").append(ic.getFriendlyName()).append(" (")
+                        .append(ic.getEpicsName()).append("): ");
+
+                if (unavailable > 0) {
+                    builder.append(unavailable).append(" of ").append(columns.size())
+                            .append(" steps unavailable");
+                }
+
+                if (partial > 0) {
+                    builder.append(unavailable > 0 ? ", " : "").append(partial).append(" of ")
+                            .append(columns.size()).append(" steps partially sampled");
+                }
+            }
+        }
+
+        if (builder.length() == 0) {
+            return null;
+        }
+
+        return "Some ion chambers could not be read at every step:\n" + builder;
+    }
+
     @Override
     public void process(List<IncrementalResultChunk> chunkList) {
         firePropertyChange("incremental", null, chunkList.get(chunkList.size() - 1));
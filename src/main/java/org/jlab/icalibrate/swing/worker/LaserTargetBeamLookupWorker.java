@@ -0,0 +1,368 @@
+package org.jlab.icalibrate.swing.worker;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JOptionPane;
+import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.epics.BatchGetResult;
+import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.exception.AppException;
+import org.jlab.icalibrate.model.CreateNewDatasetParameters;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.Laser;
+import org.jlab.icalibrate.wizard.Wizard;
+import org.jlab.icalibrate.wizard.page.LaserTargetBeamPage;
+
+/**
+ * This is a SwingWorker which looks up the injector laser, target, pass, and beam current for the
+ * selected hall. All of the PVs are read in a single batch so the lookup costs one round-trip to
+ * the slowest IOC. A failure to determine one value does not prevent the others from being
+ * displayed. The information gained from this worker is displayed on the LaserTargetBeamPage.
+ *
+ * @author ryans
+ */
+public class LaserTargetBeamLookupWorker extends
+        MinimumExecutionSwingWorker<LaserTargetBeamLookupWorker.LookupResult, Void> {
+
+    private static final Logger LOGGER = Logger.getLogger(
+            LaserTargetBeamLookupWorker.class.getName());
+
+    private final Wizard<CreateNewDatasetParameters> wizard;
+    private final LaserTargetBeamPage page;
+
+    /**
+     * Create a new LaserTargetBeamLookupWorker.
+     *
+     * @param wizard The wizard
+     * @param page The page
+     */
+    public LaserTargetBeamLookupWorker(Wizard<CreateNewDatasetParameters> wizard,
+            LaserTargetBeamPage page) {
+        this.wizard = wizard;
+        this.page = page;
+    }
+
+    @Override
+    protected LookupResult doWithMinimumExecution() throws Exception {
+        CreateNewDatasetParameters params = wizard.getParameters();
+
+        Hall hall = params.getHall();
+
+        String hallPrefix;
+
+        switch (hall) {
+            case A:
+                hallPrefix = "HALLA_";
+                break;
+            case C:
+                hallPrefix = "HALLC_";
+                break;
+            case D:
+                hallPrefix = "HALLD_";
+                break;
+            default:
+                throw new IllegalArgumentException("Hall must be one of A, C, D");
+        }
+
+        String laserAPv = loadPv(hallPrefix + "LASERA_PV");
+        String laserBPv = loadPv(hallPrefix + "LASERB_PV");
+        String laserCPv = loadPv(hallPrefix + "LASERC_PV");
+        String laserDPv = loadPv(hallPrefix + "LASERD_PV");
+        String targetPv = loadPv(hallPrefix + "TARGET_PV");
+        String passPv = loadPv(hallPrefix + "PASS_READ_PV");
+        String currentPv = loadPv(hallPrefix + "CURRENT_READ_PV");
+        String units = ICalibrateApp.APP_PROPERTIES.getProperty(hallPrefix + "CURRENT_UNITS");
+
+        List<String> pvList = new ArrayList<>(Arrays.asList(laserAPv, laserBPv, laserCPv,
+                laserDPv, targetPv, passPv, currentPv));
+
+        pvList.removeAll(Collections.singleton(null));
+
+        ChannelManager manager = params.getChannelManager();
+
+        BatchGetResult batch;
+
+        try {
+            batch = manager.getAll(pvList).get();
+        } catch (ExecutionException e) {
+            throw new AppException("Unable to perform EPICS CA Get of hall PVs - "
+                    + e.getMessage(), e);
+        }
+
+        LookupResult result = new LookupResult();
+
+        try {
+            result.laser = lookupLaser(hall, batch, laserAPv, laserBPv, laserCPv, laserDPv);
+        } catch (AppException | RuntimeException e) {
+            result.addError("Unable to lookup hall laser configuration", e);
+        }
+
+        try {
+            result.target = lookupTarget(batch, targetPv);
+        } catch (AppException | RuntimeException e) {
+            result.addError("Unable to lookup hall target configuration", e);
+        }
+
+        try {
+            result.pass = lookupPass(hall, batch, passPv);
+        } catch (AppException | RuntimeException e) {
+            result.addError("Unable to lookup hall pass configuration", e);
+        }
+
+        try {
+            result.beamEstablished = lookupBeamEstablished(batch, currentPv, units);
+        } catch (AppException | RuntimeException e) {
+            result.addError("Unable to lookup whether hall beam established", e);
+        }
+
+        return result;
+    }
+
+    private Laser lookupLaser(Hall hall, BatchGetResult batch, String laserAPv, String laserBPv,
+            String laserCPv, String laserDPv) throws AppException {
+        Laser laser = null;
+
+        int aVal = ((gov.aps.jca.dbr.DBR_Enum) getFromResult(batch, laserAPv)).getEnumValue()[0];
+        int bVal = ((gov.aps.jca.dbr.DBR_Enum) getFromResult(batch, laserBPv)).getEnumValue()[0];
+        int cVal = ((gov.aps.jca.dbr.DBR_Enum) getFromResult(batch, laserCPv)).getEnumValue()[0];
+        int dVal = ((gov.aps.jca.dbr.DBR_Enum) getFromResult(batch, laserDPv)).getEnumValue()[0];
+
+        LOGGER.log(Level.FINEST, "Laser A: {0}", aVal);
+        LOGGER.log(Level.FINEST, "Laser B: {0}", bVal);
+        LOGGER.log(Level.FINEST, "Laser C: {0}", cVal);
+        LOGGER.log(Level.FINEST, "Laser D: {0}", dVal);
+
+        int total = aVal + bVal + cVal + dVal;
+
+        if (total > 1) {
+            throw new AppException("More than one laser assigned to hall "
+                    + hall.name());
+        }
+
+        if (total < 1) {
+            throw new AppException("No laser assigned to hall " + hall.name());
+        }
+
+        if (aVal == 1) {
+            laser = Laser.A;
+        } else if (bVal == 1) {
+            laser = Laser.B;
+        } else if (cVal == 1) {
+            laser = Laser.C;
+        } else if (dVal == 1) {
+            laser = Laser.D;
+        }
+
+        return laser;
+    }
+
+    private String lookupTarget(BatchGetResult batch, String targetPv) throws AppException {
+        DBR targetRecord = getFromResult(batch, targetPv);
+
+        String target = ((gov.aps.jca.dbr.DBR_String) targetRecord).getStringValue()[0];
+
+        LOGGER.log(Level.FINEST, "Target: {0}", target);
+
+        return target;
+    }
+
+    private String lookupPass(Hall hall, BatchGetResult batch, String passPv) throws
+            AppException {
+        String pass;
+
+        DBR passValue = getFromResult(batch, passPv);
+
+        int passNum = ((gov.aps.jca.dbr.DBR_Enum) passValue).getEnumValue()[0];
+
+        if (hall == Hall.D) {
+            switch (passNum) {
+                case 1:
+                    pass = "0.5";
+                    break;
+                case 2:
+                    pass = "5.5";
+                    break;
+                default:
+                    throw new AppException("Expected Hall D Pass Enum to contain value 1 or 2");
+            }
+        } else {
+            pass = String.valueOf(passNum);
+        }
+
+        LOGGER.log(Level.FINEST, "Pass: {0}", pass);
+
+        return pass;
+    }
+
+    private String lookupBeamEstablished(BatchGetResult batch, String currentPv, String units)
+            throws AppException {
+        DBR currentValue = getFromResult(batch, currentPv);
+
+        double current = ((gov.aps.jca.dbr.DBR_Double) currentValue).getDoubleValue()[0];
+
+        LOGGER.log(Level.FINEST, "Current: {0}", current);
+
+        DecimalFormat formatter = new DecimalFormat("0.00");
+
+        return formatter.format(current) + " " + units + " detected";
+    }
+
+    private String loadPv(String property) {
+        String pv = ICalibrateApp.APP_PROPERTIES.getProperty(property);
+
+        if (pv != null) {
+            pv = pv.trim(); // Config file might have spaces!
+        }
+
+        return pv;
+    }
+
+    private DBR getFromResult(BatchGetResult batch, String pv) throws AppException {
+        if (pv == null) {
+            throw new AppException("PV not configured");
+        }
+
+        try {
+            return batch.get(pv);
+        } catch (CAException e) {
+            throw new AppException("Unable to perform EPICS CA Get of PV: " + pv
+                    + " - " + e.getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new AppException("Timeout waiting for EPICS CA Get of PV: " + pv,
+                    e);
+        }
+    }
+
+    @Override
+    protected void done() {
+        try {
+            LookupResult result = get(); // See if there were any exceptions
+
+            page.setLaser(result.laser);
+            page.setTarget(result.target);
+            page.setPass(result.pass);
+            page.setBeamEstablished(result.beamEstablished);
+
+            if (!result.errorMap.isEmpty()) {
+                String title = "Unable to lookup hall configuration";
+                StringBuilder message = new StringBuilder();
+
+                for (Map.Entry<String, String> entry : result.errorMap.entrySet()) {
+                    if (message.length() > 0) {
+                        message.append("\n");
+                    }
+
+                    message.append(entry.getKey()).append(": ").append(entry.getValue());
+                }
+
+                JOptionPane.showMessageDialog(wizard, message.toString(), title,
+                        JOptionPane.ERROR_MESSAGE);
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            page.setLaser(null);
+            page.setTarget("Unknown");
+            page.setPass("Unknown");
+            page.setBeamEstablished("Unknown");
+
+            String title = "Unable to lookup hall configuration";
+            String message = "Unexpected error";
+            LOGGER.log(Level.SEVERE, title, ex);
+
+            Throwable cause = ex.getCause();
+            if (cause != null) {
+                if (cause instanceof AppException) {
+                    message = cause.getMessage();
+                } else if (cause instanceof CAException) {
+                    message = cause.getMessage();
+                } else if (cause instanceof TimeoutException) {
+                    message = "Timeout waiting for response from EPICS";
+                }
+            }
+            JOptionPane.showMessageDialog(wizard, message, title,
+                    JOptionPane.ERROR_MESSAGE);
+        } finally {
+            wizard.hideModalWait();
+        }
+    }
+
+    /**
+     * The laser, target, pass, and beam established values for a hall. Values which could not be
+     * determined are null (laser) or "Unknown" and have an entry in the error map.
+     */
+    public static class LookupResult {
+
+        private Laser laser = null;
+        private String target = "Unknown";
+        private String pass = "Unknown";
+        private String beamEstablished = "Unknown";
+        private final Map<String, String> errorMap = new LinkedHashMap<>();
+
+        private void addError(String title, Exception e) {
+            LOGGER.log(Level.SEVERE, title, e);
+
+            String message = e.getMessage();
+
+            if (e instanceof RuntimeException) { // e.g. ClassCastException on unexpected type
+                message = "Unexpected error";
+            }
+
+            errorMap.put(title, message);
+        }
+
+        /**
+         * Return the laser.
+         *
+         * @return The laser, or null if unknown
+         */
+        public Laser getLaser() {
+            return laser;
+        }
+
+        /**
+         * Return the target.
+         *
+         * @return The target
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        /**
+         * Return the pass.
+         *
+         * @return The pass
+         */
+        public String getPass() {
+            return pass;
+        }
+
+        /**
+         * Return the beam established description.
+         *
+         * @return The beam established description
+         */
+        public String getBeamEstablished() {
+            return beamEstablished;
+        }
+
+        /**
+         * Return an unmodifiable map of lookup failure titles to messages.
+         *
+         * @return The error map
+         */
+        public Map<String, String> getErrorMap() {
+            return Collections.unmodifiableMap(errorMap);
+        }
+    }
+}
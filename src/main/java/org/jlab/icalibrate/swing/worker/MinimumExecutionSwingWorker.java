@@ -1,7 +1,5 @@
 package org.jlab.icalibrate.swing.worker;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.swing.SwingWorker;
 
@@ -22,8 +20,6 @@ public abstract class MinimumExecutionSwingWorker<T, V> extends SwingWorker<T, V
 
     public static final long DEFAULT_MIN_MILLISECONDS = 750L;
     private final long minimumMilliseconds;
-    private final Object waitLock = new Object();
-    private boolean minimumElapsed = false;
 
     /**
      * Creates a new MinimumExecutionSwingWorker with a default minimum
@@ -44,31 +40,17 @@ public abstract class MinimumExecutionSwingWorker<T, V> extends SwingWorker<T, V
 
     @Override
     protected T doInBackground() throws Exception {
-        T result = null;
-        ScheduledExecutorService service
-                = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
 
-        try {
-            service.schedule(new Runnable() {
+        T result = doWithMinimumExecution();
 
-                @Override
-                public void run() {
-                    synchronized (waitLock) {
-                        minimumElapsed = true;
-                        waitLock.notify();
-                    }
-                }
-            }, minimumMilliseconds, TimeUnit.MILLISECONDS);
+        // Sleep out whatever remains on this worker thread rather than scheduling a wake up on
+        // a new executor
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long remainingMillis = minimumMilliseconds - elapsedMillis;
 
-            result = doWithMinimumExecution();
-
-            synchronized (waitLock) {
-                while (!minimumElapsed) {
-                    waitLock.wait();
-                }
-            }
-        } finally {
-            service.shutdown();
+        if (remainingMillis > 0) {
+            Thread.sleep(remainingMillis);
         }
 
         return result;
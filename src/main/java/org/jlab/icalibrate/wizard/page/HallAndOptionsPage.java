@@ -1,8 +1,11 @@
 package org.jlab.icalibrate.wizard.page;
 
+import org.jlab.icalibrate.ICalibrateApp;
 import org.jlab.icalibrate.exception.ValidationException;
 import org.jlab.icalibrate.model.Hall;
 import org.jlab.icalibrate.model.CreateNewDatasetParameters;
+import org.jlab.icalibrate.model.SamplingMode;
+import org.jlab.icalibrate.model.SettleMode;
 import org.jlab.icalibrate.wizard.Wizard;
 import org.jlab.icalibrate.wizard.WizardPage;
 
@@ -227,9 +230,44 @@ public class HallAndOptionsPage extends WizardPage<CreateNewDatasetParameters> {
         int samplesPerStep = (Integer)samplesPerStepInput.getValue();
         params.setSamplesPerStep(samplesPerStep);
         
+        params.setSamplingMode(SamplingMode.fromConfig(
+                ICalibrateApp.APP_PROPERTIES.getProperty("DOSE_SAMPLING_MODE")));
+
+        params.setSettleMode(SettleMode.fromConfig(
+                ICalibrateApp.APP_PROPERTIES.getProperty("SETTLE_MODE")));
+        params.setSettleWindowSeconds(loadDoubleProperty("SETTLE_WINDOW_SECONDS",
+                CreateNewDatasetParameters.DEFAULT_SETTLE_WINDOW_SECONDS));
+        params.setSettleTolerance(loadDoubleProperty("SETTLE_TOLERANCE",
+                CreateNewDatasetParameters.DEFAULT_SETTLE_TOLERANCE));
+        
         params.checkOptionValidity();
-    }    
-    
+    }
+
+    /**
+     * Load a numeric configuration property, falling back to a default if it is missing.
+     *
+     * @param name The property name
+     * @param defaultValue The default value
+     * @return The value
+     * @throws ValidationException If the property is not a number
+     */
+    private double loadDoubleProperty(String name, double defaultValue) throws
+            ValidationException {
+        String value = ICalibrateApp.APP_PROPERTIES.getProperty(name);
+        double result = defaultValue;
+
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                result = Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                throw new ValidationException("Configuration property " + name
+                        + " must be a number");
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void reset() {
         hallARadioButton.setSelected(true);
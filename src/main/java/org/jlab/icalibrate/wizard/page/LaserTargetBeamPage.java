@@ -1,15 +1,10 @@
 package org.jlab.icalibrate.wizard.page;
 
-import java.util.concurrent.CountDownLatch;
-import javax.swing.SwingWorker;
 import org.jlab.icalibrate.exception.ValidationException;
 import org.jlab.icalibrate.model.Laser;
 import org.jlab.icalibrate.model.CreateNewDatasetParameters;
 import org.jlab.icalibrate.swing.document.SizeRestrictedDocument;
-import org.jlab.icalibrate.swing.worker.BeamEstablishedLookupWorker;
-import org.jlab.icalibrate.swing.worker.LaserLookupWorker;
-import org.jlab.icalibrate.swing.worker.PassLookupWorker;
-import org.jlab.icalibrate.swing.worker.TargetLookupWorker;
+import org.jlab.icalibrate.swing.worker.LaserTargetBeamLookupWorker;
 import org.jlab.icalibrate.wizard.Wizard;
 import org.jlab.icalibrate.wizard.WizardPage;
 
@@ -177,34 +172,11 @@ public class LaserTargetBeamPage extends WizardPage<CreateNewDatasetParameters>
     public void enter() {
         Wizard<CreateNewDatasetParameters> wizard = getWizard();
         
-        CountDownLatch doneLatch = new CountDownLatch(4);
-        
-        LaserLookupWorker laserWorker = new LaserLookupWorker(wizard, this, doneLatch);
-        TargetLookupWorker targetWorker = new TargetLookupWorker(wizard, this, doneLatch);
-        PassLookupWorker passWorker = new PassLookupWorker(wizard, this, doneLatch);
-        BeamEstablishedLookupWorker beamWorker = new BeamEstablishedLookupWorker(wizard, this,
-                doneLatch);
-        SwingWorker<Void, Void> doneWorker = new SwingWorker<Void, Void>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                doneLatch.await();
-                
-                return null;
-            }
-            
-            @Override
-            protected void done() {
-                wizard.hideModalWait();
-            }
-        };
+        LaserTargetBeamLookupWorker worker = new LaserTargetBeamLookupWorker(wizard, this);
         
         wizard.queueShowModalWait();
         
-        laserWorker.execute();
-        targetWorker.execute();
-        passWorker.execute();
-        beamWorker.execute();
-        doneWorker.execute();
+        worker.execute();
     }
     
     @Override
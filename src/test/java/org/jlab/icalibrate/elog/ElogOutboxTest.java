@@ -0,0 +1,226 @@
+package org.jlab.icalibrate.elog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jlab.elog.exception.LogCertificateException;
+import org.jlab.elog.exception.LogException;
+import org.jlab.elog.exception.LogIOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Exercises the ElogOutbox against a stub logbook client which is unreachable for a number of
+ * attempts and then accepts entries.
+ *
+ * @author ryans
+ */
+public class ElogOutboxTest {
+
+    private static final long LOGNUMBER = 3500000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRetriesThenSubmitsAndCleansSpool() throws Exception {
+        File spool = folder.newFolder("spool");
+        File image = folder.newFile("chart.png");
+        Files.write(image.toPath(), "png".getBytes(StandardCharsets.UTF_8));
+
+        StubClient client = new StubClient(2);
+        RecordingListener listener = new RecordingListener(1);
+
+        try (ElogOutbox outbox = new ElogOutbox(spool, client, 10, 50)) {
+            outbox.addListener(listener);
+            outbox.start();
+
+            OutboxEntry queued = outbox.enqueue("Test", "TLOG", "<p>body</p>",
+                    Arrays.asList(image));
+
+            assertTrue("Attachment must be copied into the spool",
+                    queued.getAttachmentList().get(0).getPath().startsWith(spool.getPath()));
+            assertTrue(image.delete()); // Caller is free to remove the original
+
+            assertTrue(listener.submitted.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(3, client.calls.get());
+        assertEquals(2, listener.failures.get());
+        assertEquals(LOGNUMBER, listener.lognumber);
+        assertEquals("Test", client.lastTitle);
+        assertEquals(Collections.singletonList("png"), client.lastAttachmentContent);
+        assertEquals(0, spool.listFiles().length);
+    }
+
+    @Test
+    public void testPendingEntrySurvivesRestart() throws Exception {
+        File spool = folder.newFolder("spool");
+
+        StubClient unreachable = new StubClient(Integer.MAX_VALUE);
+        RecordingListener failed = new RecordingListener(0);
+
+        try (ElogOutbox outbox = new ElogOutbox(spool, unreachable, 60000, 60000)) {
+            outbox.addListener(failed);
+            outbox.start();
+            outbox.enqueue("Durable", "TLOG", "<p>body</p>", new ArrayList<File>());
+
+            assertTrue(failed.failed.await(5, TimeUnit.SECONDS));
+
+            List<OutboxEntry> pending = outbox.getPendingEntries();
+            assertEquals(1, pending.size());
+            assertEquals(1, pending.get(0).getAttempts());
+            assertEquals("Server unavailable", pending.get(0).getLastError());
+        }
+
+        StubClient reachable = new StubClient(0);
+        RecordingListener listener = new RecordingListener(1);
+
+        try (ElogOutbox outbox = new ElogOutbox(spool, reachable, 10, 50)) {
+            outbox.addListener(listener);
+            outbox.start();
+
+            assertTrue(listener.submitted.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals("Durable", reachable.lastTitle);
+        assertEquals(0, spool.listFiles().length);
+    }
+
+    @Test
+    public void testFailingHeadBlocksLaterEntries() throws Exception {
+        File spool = folder.newFolder("spool");
+
+        StubClient client = new StubClient(2);
+        RecordingListener listener = new RecordingListener(2);
+
+        try (ElogOutbox outbox = new ElogOutbox(spool, client, 10, 50)) {
+            outbox.addListener(listener);
+            outbox.start();
+            outbox.enqueue("First", "TLOG", "<p>body</p>", new ArrayList<File>());
+            outbox.enqueue("Second", "TLOG", "<p>body</p>", new ArrayList<File>());
+
+            assertTrue(listener.submitted.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(Arrays.asList("First", "First", "First", "Second"), client.titleList);
+    }
+
+    @Test
+    public void testCertificateFailureParksEntry() throws Exception {
+        File spool = folder.newFolder("spool");
+
+        StubClient client = new StubClient(0);
+        RecordingListener listener = new RecordingListener(1);
+
+        try (ElogOutbox outbox = new ElogOutbox(spool, client, 10, 50)) {
+            outbox.addListener(listener);
+            outbox.start();
+            outbox.enqueue("Rejected", "TLOG", "<p>body</p>", new ArrayList<File>());
+            outbox.enqueue("Accepted", "TLOG", "<p>body</p>", new ArrayList<File>());
+
+            assertTrue(listener.submitted.await(5, TimeUnit.SECONDS));
+            assertTrue(listener.parked.await(5, TimeUnit.SECONDS));
+
+            assertEquals(0, outbox.getPendingEntries().size());
+
+            List<OutboxEntry> parked = outbox.getParkedEntries();
+            assertEquals(1, parked.size());
+            assertEquals("Rejected", parked.get(0).getTitle());
+            assertEquals("Certificate expired", parked.get(0).getLastError());
+        }
+
+        assertEquals(0, listener.failures.get());
+        assertEquals(Arrays.asList("Rejected", "Accepted"), client.titleList);
+    }
+
+    /**
+     * A logbook client which fails a number of times before accepting entries. An entry titled
+     * Rejected always fails with a certificate error.
+     */
+    private static class StubClient implements LogbookClient {
+
+        private final int failures;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<String> titleList = new CopyOnWriteArrayList<>();
+        private volatile String lastTitle;
+        private volatile List<String> lastAttachmentContent;
+
+        StubClient(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public long submit(OutboxEntry entry) throws LogException {
+            titleList.add(entry.getTitle());
+
+            if ("Rejected".equals(entry.getTitle())) {
+                throw new LogCertificateException("Certificate expired");
+            }
+
+            if (calls.incrementAndGet() <= failures) {
+                throw new LogIOException("Server unavailable");
+            }
+
+            List<String> contentList = new ArrayList<>();
+
+            try {
+                for (File attachment : entry.getAttachmentList()) {
+                    contentList.add(new String(Files.readAllBytes(attachment.toPath()),
+                            StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new LogIOException(e.getMessage());
+            }
+
+            lastTitle = entry.getTitle();
+            lastAttachmentContent = contentList;
+
+            return LOGNUMBER;
+        }
+    }
+
+    /**
+     * Records outbox notifications.
+     */
+    private static class RecordingListener implements OutboxListener {
+
+        private final CountDownLatch submitted;
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private final CountDownLatch parked = new CountDownLatch(1);
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long lognumber;
+
+        RecordingListener(int expectedSubmissions) {
+            submitted = new CountDownLatch(expectedSubmissions);
+        }
+
+        @Override
+        public void entrySubmitted(OutboxEntry entry, long lognumber) {
+            this.lognumber = lognumber;
+            submitted.countDown();
+        }
+
+        @Override
+        public void entryFailed(OutboxEntry entry, long retryMillis) {
+            failures.incrementAndGet();
+            failed.countDown();
+        }
+
+        @Override
+        public void entryParked(OutboxEntry entry) {
+            parked.countDown();
+        }
+    }
+}
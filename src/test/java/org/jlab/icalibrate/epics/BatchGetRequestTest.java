@@ -0,0 +1,87 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.CAException;
+import gov.aps.jca.JCALibrary;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.configuration.DefaultConfiguration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a batched CA-GET reports each PV's failure separately and releases every channel it
+ * acquired. A real CAJ context searching only the loopback interface is used so none of the PVs
+ * ever connect.
+ *
+ * @author ryans
+ */
+public class BatchGetRequestTest {
+
+    private CAJContext context;
+    private ScheduledExecutorService executor;
+    private ChannelCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        DefaultConfiguration config = new DefaultConfiguration("test");
+        config.setAttribute("class", JCALibrary.CHANNEL_ACCESS_JAVA);
+        config.setAttribute("addr_list", "127.0.0.1");
+        config.setAttribute("auto_addr_list", "false");
+
+        context = (CAJContext) JCALibrary.getInstance().createContext(config);
+        context.initialize();
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        cache = new ChannelCache(context, executor, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        executor.shutdownNow();
+        context.destroy();
+    }
+
+    @Test
+    public void testPartialFailureAndTimeout() throws Exception {
+        char[] longName = new char[20000];
+        Arrays.fill(longName, 'A');
+
+        String missing = "ICALIBRATE:BATCH:MISSING";
+        String empty = "";
+        String tooLong = new String(longName);
+
+        BatchGetResult result = new BatchGetRequest(context, cache).execute(
+                Arrays.asList(missing, empty, tooLong), executor, 0.2).get(5, TimeUnit.SECONDS);
+
+        Map<String, Exception> failureMap = result.getFailureMap();
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getDbrMap().isEmpty());
+        assertEquals(3, failureMap.size());
+        assertTrue(failureMap.get(missing) instanceof TimeoutException);
+        assertTrue(failureMap.get(empty) instanceof CAException);
+        assertTrue(failureMap.get(empty).getCause() instanceof IllegalArgumentException);
+        assertTrue(failureMap.get(tooLong) instanceof CAException);
+
+        try {
+            result.get(missing);
+            fail("Expected a timeout");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+
+        // The timed out PV was acquired before the bad names were seen; it must be released
+        Thread.sleep(20);
+        cache.evictIdle();
+
+        assertEquals(0, cache.getStatistics().getOpenChannels());
+    }
+}
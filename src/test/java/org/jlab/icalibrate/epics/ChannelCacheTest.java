@@ -0,0 +1,130 @@
+package org.jlab.icalibrate.epics;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import gov.aps.jca.JCALibrary;
+import gov.aps.jca.configuration.DefaultConfiguration;
+import gov.aps.jca.event.ConnectionEvent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the reference counting, eviction, and reconnect bookkeeping of the ChannelCache. A real
+ * CAJ context searching only the loopback interface is used; none of the PVs exist so channels
+ * never connect on their own and connection events are delivered by hand.
+ *
+ * @author ryans
+ */
+public class ChannelCacheTest {
+
+    private CAJContext context;
+    private ScheduledExecutorService executor;
+    private ChannelCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        DefaultConfiguration config = new DefaultConfiguration("test");
+        config.setAttribute("class", JCALibrary.CHANNEL_ACCESS_JAVA);
+        config.setAttribute("addr_list", "127.0.0.1");
+        config.setAttribute("auto_addr_list", "false");
+
+        context = (CAJContext) JCALibrary.getInstance().createContext(config);
+        context.initialize();
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        cache = new ChannelCache(context, executor, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        executor.shutdownNow();
+        context.destroy();
+    }
+
+    @Test
+    public void testHitAndMissCounting() throws Exception {
+        ChannelCache.CachedChannel first = cache.acquire("ICALIBRATE:CACHE:A");
+        ChannelCache.CachedChannel second = cache.acquire("ICALIBRATE:CACHE:A");
+        ChannelCache.CachedChannel other = cache.acquire("ICALIBRATE:CACHE:B");
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+
+        ChannelCacheStatistics stats = cache.getStatistics();
+
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(2, stats.getOpenChannels());
+
+        cache.release(first);
+        cache.release(second);
+        cache.release(other);
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        ChannelCache.CachedChannel idle = cache.acquire("ICALIBRATE:CACHE:IDLE");
+        ChannelCache.CachedChannel busy = cache.acquire("ICALIBRATE:CACHE:BUSY");
+
+        cache.release(idle);
+
+        Thread.sleep(20);
+
+        cache.evictIdle();
+
+        ChannelCacheStatistics stats = cache.getStatistics();
+
+        assertEquals(1, stats.getEvictions());
+        assertEquals(1, stats.getOpenChannels()); // Still referenced channel is kept
+
+        ChannelCache.CachedChannel again = cache.acquire("ICALIBRATE:CACHE:IDLE");
+
+        assertNotSame(idle, again);
+        assertEquals(3, cache.getStatistics().getMisses());
+
+        cache.release(again);
+        cache.release(busy);
+    }
+
+    @Test
+    public void testReconnectReplacesConnectionFuture() throws Exception {
+        ChannelCache.CachedChannel cached = cache.acquire("ICALIBRATE:CACHE:RECONNECT");
+        CAJChannel source = (CAJChannel) context.createChannel("ICALIBRATE:CACHE:SOURCE");
+
+        try {
+            CompletableFuture<CAJChannel> initial = cached.getConnection();
+
+            assertFalse(initial.isDone());
+
+            cached.connectionChanged(new ConnectionEvent(source, true));
+
+            assertSame(source, initial.getNow(null));
+            assertSame(source, cached.awaitConnection(0.1));
+
+            cached.connectionChanged(new ConnectionEvent(source, false));
+
+            CompletableFuture<CAJChannel> reconnecting = cached.getConnection();
+
+            assertNotSame(initial, reconnecting);
+            assertFalse(reconnecting.isDone());
+
+            cached.connectionChanged(new ConnectionEvent(source, true));
+
+            assertSame(source, reconnecting.getNow(null));
+
+            ChannelCacheStatistics stats = cache.getStatistics();
+
+            assertEquals(2, stats.getConnects());
+            assertEquals(1, stats.getReconnects());
+        } finally {
+            cache.release(cached);
+            source.destroy();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.jlab.icalibrate.epics;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the adaptive timeout and the circuit breaker transitions of a single PV.
+ *
+ * @author ryans
+ */
+public class ChannelHealthTest {
+
+    private static final String PV = "ICALIBRATE:HEALTH:PV";
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void testTimeoutAdaptsToP99() {
+        ChannelHealth health = new ChannelHealth(PV);
+
+        for (int i = 1; i < ChannelManager.MIN_LATENCY_SAMPLES; i++) {
+            health.recordSuccess(10 * MILLIS);
+        }
+
+        // Too few latencies to trust
+        assertEquals(ChannelManager.MAX_TIMEOUT_SECONDS, health.getTimeoutSeconds(), 0.0d);
+
+        health.recordSuccess(200 * MILLIS);
+
+        // The slowest of 20 is the 99th percentile
+        assertEquals(0.2d * ChannelManager.TIMEOUT_LATENCY_MULTIPLIER,
+                health.getTimeoutSeconds(), 1e-9);
+        assertEquals(200.0d, health.snapshot().getP99Millis(), 0.0d);
+        assertEquals(10.0d, health.snapshot().getMedianMillis(), 0.0d);
+
+        for (int i = 0; i < ChannelManager.LATENCY_WINDOW; i++) { // Push the slow one out
+            health.recordSuccess(1 * MILLIS);
+        }
+
+        assertEquals(ChannelManager.MIN_TIMEOUT_SECONDS, health.getTimeoutSeconds(), 0.0d);
+
+        for (int i = 0; i < ChannelManager.LATENCY_WINDOW; i++) {
+            health.recordSuccess(5000 * MILLIS);
+        }
+
+        assertEquals(ChannelManager.MAX_TIMEOUT_SECONDS, health.getTimeoutSeconds(), 0.0d);
+    }
+
+    @Test
+    public void testFailuresDoNotAffectTimeout() {
+        ChannelHealth health = new ChannelHealth(PV);
+
+        for (int i = 0; i < ChannelManager.MIN_LATENCY_SAMPLES; i++) {
+            health.recordSuccess(200 * MILLIS);
+            health.recordFailure();
+        }
+
+        assertEquals(0.8d, health.getTimeoutSeconds(), 1e-9);
+        assertEquals(CircuitState.CLOSED, health.snapshot().getState());
+    }
+
+    @Test
+    public void testBreakerOpensAndProbes() throws Exception {
+        ChannelHealth health = new ChannelHealth(PV, 50);
+
+        for (int i = 0; i < ChannelManager.BREAKER_FAILURE_THRESHOLD; i++) {
+            assertTrue(health.tryAcquire());
+            health.recordFailure();
+        }
+
+        assertEquals(CircuitState.OPEN, health.snapshot().getState());
+        assertFalse(health.tryAcquire());
+        assertEquals(1, health.snapshot().getRejections());
+
+        Thread.sleep(60);
+
+        assertTrue(health.tryAcquire()); // The probe
+        assertEquals(CircuitState.HALF_OPEN, health.snapshot().getState());
+        assertFalse(health.tryAcquire()); // Only one probe at a time
+
+        health.recordFailure();
+
+        assertEquals(CircuitState.OPEN, health.snapshot().getState());
+        assertFalse(health.tryAcquire());
+
+        Thread.sleep(60);
+
+        assertTrue(health.tryAcquire());
+        health.recordSuccess(1 * MILLIS);
+
+        ChannelHealthStatistics stats = health.snapshot();
+
+        assertEquals(CircuitState.CLOSED, stats.getState());
+        assertEquals(0, stats.getConsecutiveFailures());
+        assertEquals(1, stats.getSuccesses());
+        assertEquals(ChannelManager.BREAKER_FAILURE_THRESHOLD + 1, stats.getFailures());
+        assertEquals(3, stats.getRejections());
+        assertTrue(health.tryAcquire());
+    }
+}
@@ -0,0 +1,176 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Hammers the ChannelManager monitor registry from many threads at once. The PVs do not exist so
+ * no IOC is required; only the registry bookkeeping is exercised.
+ *
+ * @author ryans
+ */
+public class ChannelManagerStressTest {
+
+    private static final int PV_COUNT = 300;
+    private static final int THREAD_COUNT = 8;
+    private static final int ROUNDS = 200;
+
+    // Creating CA contexts is comparatively expensive so share a single manager across tests
+    private static ChannelManager manager;
+    private static List<String> pvList;
+
+    @BeforeClass
+    public static void setUpClass() {
+        manager = new ChannelManager();
+        pvList = new ArrayList<>();
+
+        for (int i = 0; i < PV_COUNT; i++) {
+            pvList.add("ICALIBRATE:STRESS:PV" + i);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        manager.close();
+    }
+
+    @Test
+    public void testConcurrentAddAndClear() throws Exception {
+        PvListener shared = new NoOpListener();
+        List<PvListener> listenerList = new ArrayList<>();
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            listenerList.add(new NoOpListener());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futureList = new ArrayList<>();
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            PvListener own = listenerList.get(i);
+            Random random = new Random(i);
+
+            futureList.add(pool.submit(() -> {
+                start.await();
+
+                for (int r = 0; r < ROUNDS; r++) {
+                    PvListener listener = random.nextBoolean() ? own : shared;
+                    Set<String> subset = randomSubset(random);
+
+                    if (random.nextInt(3) == 0) {
+                        manager.clearPvs(listener, subset);
+                    } else {
+                        manager.addPvs(listener, subset);
+                    }
+                }
+
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futureList) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        pool.shutdown();
+
+        assertRegistryConsistent();
+
+        manager.removeListener(shared);
+
+        for (PvListener listener : listenerList) {
+            manager.removeListener(listener);
+        }
+
+        assertTrue("Monitors leaked: " + manager.getPvToCountMap().size(),
+                manager.getPvToCountMap().isEmpty());
+        assertTrue(manager.getListenerToPvsMap().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentRemoveListener() throws Exception {
+        Set<String> all = new HashSet<>(pvList);
+        List<PvListener> listenerList = new ArrayList<>();
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            PvListener listener = new NoOpListener();
+            listenerList.add(listener);
+            manager.addPvs(listener, all);
+        }
+
+        for (Integer count : manager.getPvToCountMap().values()) {
+            assertEquals(THREAD_COUNT, count.intValue());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<?>> futureList = new ArrayList<>();
+
+        for (PvListener listener : listenerList) {
+            futureList.add(pool.submit(() -> manager.removeListener(listener)));
+        }
+
+        for (Future<?> future : futureList) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        pool.shutdown();
+
+        assertTrue(manager.getPvToCountMap().isEmpty());
+        assertTrue(manager.getListenerToPvsMap().isEmpty());
+    }
+
+    private Set<String> randomSubset(Random random) {
+        Set<String> subset = new HashSet<>();
+        int size = 1 + random.nextInt(50);
+
+        for (int i = 0; i < size; i++) {
+            subset.add(pvList.get(random.nextInt(PV_COUNT)));
+        }
+
+        return subset;
+    }
+
+    private void assertRegistryConsistent() {
+        Map<String, Integer> countMap = manager.getPvToCountMap();
+        Map<String, Integer> expectedMap = new HashMap<>();
+
+        for (Set<String> pvSet : manager.getListenerToPvsMap().values()) {
+            for (String pv : pvSet) {
+                expectedMap.merge(pv, 1, Integer::sum);
+            }
+        }
+
+        assertEquals(expectedMap, countMap);
+    }
+
+    private static class NoOpListener implements PvListener {
+
+        @Override
+        public void notifyPvInfo(String pv, boolean couldConnect, DBRType type, Integer count,
+                String[] enumLabels) {
+        }
+
+        @Override
+        public void notifyPvUpdate(String pv, DBR dbr) {
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that batched CA-GETs feed the per PV circuit breaker and adaptive timeout, and that a
+ * batch always completes normally with every admitted PV recorded, even when the backend fails
+ * the whole batch.
+ *
+ * @author ryans
+ */
+public class ChannelManagerTest {
+
+    private static final String LIVE_PV = "ICALIBRATE:LIVE:PV";
+    private static final String DEAD_PV = "ICALIBRATE:DEAD:PV";
+    private static final long BREAKER_OPEN_MILLIS = 100;
+    private static final double SHORT_TIMEOUT_SECONDS = 0.05d;
+
+    private SimulatedBackend simulated;
+    private FaultyBackend backend;
+    private ChannelManager manager;
+
+    @Before
+    public void setUp() {
+        simulated = new SimulatedBackend(1);
+        simulated.addPv(LIVE_PV, 42).setLatency(1, 0);
+        backend = new FaultyBackend(simulated);
+        manager = new ChannelManager(backend, BREAKER_OPEN_MILLIS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        manager.close();
+    }
+
+    @Test
+    public void testBreakerIsolatesDeadPv() throws Exception {
+        for (int i = 0; i < ChannelManager.BREAKER_FAILURE_THRESHOLD; i++) {
+            BatchGetResult result = getAll(SHORT_TIMEOUT_SECONDS, LIVE_PV, DEAD_PV);
+
+            assertTrue(result.getFailureMap().get(DEAD_PV) instanceof TimeoutException);
+            assertEquals(42.0d, DbrUtil.toDouble(result.get(LIVE_PV)), 0.0d);
+        }
+
+        BatchGetResult result = getAll(SHORT_TIMEOUT_SECONDS, LIVE_PV, DEAD_PV);
+
+        assertTrue(result.getFailureMap().get(DEAD_PV) instanceof PvUnavailableException);
+        assertEquals(CircuitState.OPEN, health(DEAD_PV).getState());
+        assertEquals(1, health(DEAD_PV).getRejections());
+        assertEquals(CircuitState.CLOSED, health(LIVE_PV).getState());
+
+        // A failed probe re-opens the circuit
+        Thread.sleep(BREAKER_OPEN_MILLIS + 20);
+
+        result = getAll(SHORT_TIMEOUT_SECONDS, DEAD_PV);
+
+        assertTrue(result.getFailureMap().get(DEAD_PV) instanceof TimeoutException);
+        assertEquals(CircuitState.OPEN, health(DEAD_PV).getState());
+
+        // The IOC comes back and the next probe closes the circuit
+        simulated.addPv(DEAD_PV, 7).setLatency(1, 0);
+        Thread.sleep(BREAKER_OPEN_MILLIS + 20);
+
+        result = getAll(SHORT_TIMEOUT_SECONDS, DEAD_PV);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(CircuitState.CLOSED, health(DEAD_PV).getState());
+        assertEquals(ChannelManager.BREAKER_FAILURE_THRESHOLD + 1,
+                health(DEAD_PV).getFailures());
+    }
+
+    @Test
+    public void testAdaptiveTimeoutCutsOffSlowPv() throws Exception {
+        for (int i = 0; i < ChannelManager.MIN_LATENCY_SAMPLES; i++) {
+            assertTrue(manager.getAll(Arrays.asList(LIVE_PV)).get(5, TimeUnit.SECONDS)
+                    .isSuccessful());
+        }
+
+        ChannelHealthStatistics stats = health(LIVE_PV);
+
+        assertEquals(ChannelManager.MIN_TIMEOUT_SECONDS, stats.getTimeoutSeconds(), 0.0d);
+        assertTrue(stats.getP99Millis() < 100);
+
+        // Well within the fixed worst case but far beyond what this IOC has taken so far
+        simulated.getPv(LIVE_PV).setLatency(1500, 0);
+
+        long start = System.nanoTime();
+        BatchGetResult result = manager.getAll(Arrays.asList(LIVE_PV)).get(5, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1.0e9;
+
+        assertTrue(result.getFailureMap().get(LIVE_PV) instanceof TimeoutException);
+        assertTrue("Waited " + seconds, seconds < 1.0d);
+    }
+
+    @Test
+    public void testSynchronousBackendFailureIsRecorded() throws Exception {
+        backend.throwing = true;
+
+        for (int i = 0; i < ChannelManager.BREAKER_FAILURE_THRESHOLD; i++) {
+            BatchGetResult result = getAll(SHORT_TIMEOUT_SECONDS, LIVE_PV, DEAD_PV);
+
+            for (String pv : Arrays.asList(LIVE_PV, DEAD_PV)) {
+                Exception failure = result.getFailureMap().get(pv);
+
+                assertTrue(failure instanceof CAException);
+                assertTrue(failure.getCause() instanceof IllegalStateException);
+            }
+        }
+
+        assertEquals(CircuitState.OPEN, health(LIVE_PV).getState());
+
+        // A probe which throws must not leave the circuit half-open forever
+        Thread.sleep(BREAKER_OPEN_MILLIS + 20);
+
+        getAll(SHORT_TIMEOUT_SECONDS, LIVE_PV);
+
+        assertEquals(CircuitState.OPEN, health(LIVE_PV).getState());
+
+        backend.throwing = false;
+        Thread.sleep(BREAKER_OPEN_MILLIS + 20);
+
+        assertTrue(getAll(SHORT_TIMEOUT_SECONDS, LIVE_PV).isSuccessful());
+        assertEquals(CircuitState.CLOSED, health(LIVE_PV).getState());
+    }
+
+    @Test
+    public void testExceptionalBackendFutureIsRecorded() throws Exception {
+        backend.failing = true;
+
+        BatchGetResult result = getAll(SHORT_TIMEOUT_SECONDS, LIVE_PV);
+
+        assertTrue(result.getFailureMap().get(LIVE_PV) instanceof TimeoutException);
+        assertEquals(1, health(LIVE_PV).getFailures());
+
+        List<ChannelStatistics> statsList = manager.getChannelStatistics();
+
+        assertEquals(1, statsList.size());
+        assertEquals(1, statsList.get(0).getGetTimeouts());
+    }
+
+    @Test
+    public void testPutAllReportsEachPv() throws Exception {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put(LIVE_PV, 7.5d);
+        values.put(DEAD_PV, 1.0d);
+
+        BatchPutResult result = manager.putAll(values, SHORT_TIMEOUT_SECONDS).get(5,
+                TimeUnit.SECONDS);
+
+        assertEquals(Collections.singleton(LIVE_PV), result.getConfirmedSet());
+        assertTrue(result.getFailureMap().get(DEAD_PV) instanceof TimeoutException);
+        assertEquals(7.5d, simulated.getPv(LIVE_PV).getDoubleValue(), 0.0d);
+
+        result.check(LIVE_PV);
+
+        try {
+            result.check(DEAD_PV);
+            fail("Expected a timeout");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+
+        List<ChannelStatistics> statsList = manager.getChannelStatistics();
+
+        assertEquals(2, statsList.size());
+
+        for (ChannelStatistics stats : statsList) {
+            boolean dead = DEAD_PV.equals(stats.getPv());
+
+            assertEquals(dead ? 1 : 0, stats.getPutTimeouts());
+            assertEquals(dead ? 0 : 1, stats.getPutLatency().getCount());
+        }
+
+        // Puts are never optional so they do not feed the circuit breaker
+        assertTrue(manager.getChannelHealthStatistics().isEmpty());
+    }
+
+    /**
+     * Perform a batch CA-GET, which must complete normally.
+     *
+     * @param timeoutSeconds The batch timeout
+     * @param pvs The EPICS CA PV names
+     * @return The result
+     * @throws Exception If the batch completes exceptionally or not at all
+     */
+    private BatchGetResult getAll(double timeoutSeconds, String... pvs) throws Exception {
+        return manager.getAll(Arrays.asList(pvs), timeoutSeconds).get(5, TimeUnit.SECONDS);
+    }
+
+    private ChannelHealthStatistics health(String pv) {
+        for (ChannelHealthStatistics stats : manager.getChannelHealthStatistics()) {
+            if (pv.equals(stats.getPv())) {
+                return stats;
+            }
+        }
+
+        throw new AssertionError("No health for PV: " + pv);
+    }
+
+    /**
+     * A backend which delegates to a simulated backend but can fail batch gets as a whole,
+     * either by throwing or with an exceptional future.
+     */
+    private static class FaultyBackend implements ChannelAccessBackend {
+
+        private final SimulatedBackend delegate;
+        private volatile boolean throwing = false;
+        private volatile boolean failing = false;
+
+        FaultyBackend(SimulatedBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public DBR get(String pv, double timeoutSeconds) throws CAException, TimeoutException {
+            return delegate.get(pv, timeoutSeconds);
+        }
+
+        @Override
+        public CompletableFuture<BatchGetResult> getAll(Collection<String> pvs,
+                double timeoutSeconds) {
+            if (throwing) {
+                throw new IllegalStateException("Context destroyed");
+            }
+
+            if (failing) {
+                CompletableFuture<BatchGetResult> future = new CompletableFuture<>();
+                future.completeExceptionally(new TimeoutException("Batch timed out"));
+                return future;
+            }
+
+            return delegate.getAll(pvs, timeoutSeconds);
+        }
+
+        @Override
+        public void put(String pv, String value) throws CAException, TimeoutException {
+            delegate.put(pv, value);
+        }
+
+        @Override
+        public void put(String pv, Number value) throws CAException, TimeoutException {
+            delegate.put(pv, value);
+        }
+
+        @Override
+        public CompletableFuture<BatchPutResult> putAll(Map<String, ? extends Number> values,
+                double timeoutSeconds) {
+            return delegate.putAll(values, timeoutSeconds);
+        }
+
+        @Override
+        public Closeable subscribe(String pv, MonitorCallback callback) {
+            return delegate.subscribe(pv, callback);
+        }
+
+        @Override
+        public void setConnectionObserver(ConnectionObserver observer) {
+            delegate.setConnectionObserver(observer);
+        }
+
+        @Override
+        public ChannelCacheStatistics getChannelCacheStatistics() {
+            return delegate.getChannelCacheStatistics();
+        }
+
+        @Override
+        public List<ContextStatistics> getContextStatistics() {
+            return delegate.getContextStatistics();
+        }
+
+        @Override
+        public LatencyStatistics getLeaseWaitStatistics() {
+            return delegate.getLeaseWaitStatistics();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.TimeoutException;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the per PV instrumentation and its aggregation by IOC.
+ *
+ * @author ryans
+ */
+public class ChannelMetricsTest {
+
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void testAggregatesByIoc() {
+        ChannelMetrics metrics = new ChannelMetrics();
+
+        metrics.channelConnected("a1", "ioc-a:5064", 3 * MILLIS);
+        metrics.channelConnected("a2", "ioc-a:5064", 4 * MILLIS);
+        metrics.channelConnected("b1", "ioc-b:5064", 40 * MILLIS);
+
+        for (int i = 0; i < 99; i++) {
+            metrics.getSucceeded("a1", 1 * MILLIS);
+        }
+
+        metrics.getSucceeded("a2", 300 * MILLIS);
+        metrics.getSucceeded("b1", 15 * MILLIS);
+        metrics.getFailed("b1", new TimeoutException("timeout"));
+        metrics.getFailed("never", new TimeoutException("timeout"));
+        metrics.putFailed("b1", new IllegalStateException("disconnected"));
+
+        List<IocStatistics> iocList = metrics.getIocStatistics();
+
+        assertEquals(3, iocList.size());
+
+        IocStatistics a = iocList.get(0);
+        assertEquals("ioc-a:5064", a.getHost());
+        assertEquals(2, a.getPvCount());
+        assertEquals(100, a.getGetLatency().getCount());
+        assertEquals(1.0d, a.getGetLatency().getP50Millis(), 0.0d);
+        assertEquals(300.0d, a.getGetLatency().getMaxMillis(), 0.0d);
+        assertEquals(4.0d, a.getConnectLatency().getMaxMillis(), 0.0d);
+
+        IocStatistics b = iocList.get(1);
+        assertEquals("ioc-b:5064", b.getHost());
+        assertEquals(1, b.getGetTimeouts());
+        assertEquals(0, b.getPutTimeouts());
+        assertEquals(1, b.getPutFailures());
+        assertEquals(15.0d, b.getGetLatency().getP99Millis(), 0.0d); // Bucket bound capped at max
+
+        IocStatistics unknown = iocList.get(2);
+        assertEquals(IocStatistics.UNKNOWN_HOST, unknown.getHost());
+        assertEquals(1, unknown.getGetTimeouts());
+        assertTrue(Double.isNaN(unknown.getGetLatency().getMeanMillis()));
+    }
+}
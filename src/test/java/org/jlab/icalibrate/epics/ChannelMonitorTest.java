@@ -0,0 +1,122 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+import gov.aps.jca.dbr.DBR_Double;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a ChannelMonitor coalesces updates for a plain PvListener but queues every update,
+ * with its receive time, for a QueuedPvListener.
+ *
+ * @author ryans
+ */
+public class ChannelMonitorTest {
+
+    private static final String PV = "ICALIBRATE:MONITOR:PV";
+
+    @Test
+    public void testQueuedListenerSeesEveryUpdate() throws Exception {
+        SimulatedBackend backend = new SimulatedBackend(1);
+        SimulatedPv simulated = backend.addPv(PV, 0);
+        HeldExecutor executor = new HeldExecutor();
+        MonitorDispatchCounters counters = new MonitorDispatchCounters();
+        RecordingListener latest = new RecordingListener();
+        RecordingQueuedListener every = new RecordingQueuedListener();
+
+        try (ChannelMonitor monitor = new ChannelMonitor(PV, backend, executor, counters,
+                new ChannelMetrics())) {
+            monitor.addListener(latest);
+            monitor.addListener(every);
+
+            long deadline = System.currentTimeMillis() + 5000;
+
+            while (executor.tasks.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            long before = System.currentTimeMillis();
+
+            for (int i = 1; i <= 5; i++) {
+                simulated.setValue(i);
+            }
+
+            executor.runAll();
+
+            assertEquals(1, latest.valueList.size());
+            assertEquals(5.0d, latest.valueList.get(0), 0.0d);
+
+            assertEquals(6, every.valueList.size());
+
+            for (int i = 0; i <= 5; i++) {
+                assertEquals(i, every.valueList.get(i), 0.0d);
+            }
+
+            for (int i = 1; i <= 5; i++) {
+                assertTrue(every.timeList.get(i) >= before);
+                assertTrue(every.timeList.get(i) >= every.timeList.get(i - 1));
+            }
+        } finally {
+            backend.close();
+        }
+    }
+
+    /**
+     * An Executor which holds tasks until asked to run them.
+     */
+    private static class HeldExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static class RecordingListener implements PvListener {
+
+        final List<Double> valueList = new ArrayList<>();
+
+        @Override
+        public void notifyPvInfo(String pv, boolean couldConnect, DBRType type, Integer count,
+                String[] enumLabels) {
+        }
+
+        @Override
+        public void notifyPvUpdate(String pv, DBR dbr) {
+            valueList.add(((DBR_Double) dbr).getDoubleValue()[0]);
+        }
+    }
+
+    private static class RecordingQueuedListener extends RecordingListener implements
+            QueuedPvListener {
+
+        final List<Long> timeList = new ArrayList<>();
+
+        @Override
+        public void notifyPvUpdate(String pv, DBR dbr) {
+            QueuedPvListener.super.notifyPvUpdate(pv, dbr);
+        }
+
+        @Override
+        public void notifyPvUpdate(String pv, DBR dbr, long receivedMillis) {
+            super.notifyPvUpdate(pv, dbr);
+            timeList.add(receivedMillis);
+        }
+    }
+}
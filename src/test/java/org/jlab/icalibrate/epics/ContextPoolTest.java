@@ -0,0 +1,197 @@
+package org.jlab.icalibrate.epics;
+
+import gov.aps.jca.CAException;
+import gov.aps.jca.configuration.DefaultConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the sizing, lease timeout, and viability replacement of the ContextPool. Contexts search
+ * only the loopback interface so no IOC is required.
+ *
+ * @author ryans
+ */
+public class ContextPoolTest {
+
+    private static final int MIN = 1;
+    private static final int MAX = 2;
+    private static final int TIMEOUT_MILLIS = 100;
+    private static final int CHECK_MILLIS = 100;
+
+    private ContextPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        DefaultConfiguration config = new DefaultConfiguration("test");
+        config.setAttribute("addr_list", "127.0.0.1");
+        config.setAttribute("auto_addr_list", "false");
+        config.setAttribute("pool_min", String.valueOf(MIN));
+        config.setAttribute("pool_max", String.valueOf(MAX));
+        config.setAttribute("pool_timeout", String.valueOf(TIMEOUT_MILLIS));
+        config.setAttribute("pool_check_interval", String.valueOf(CHECK_MILLIS));
+
+        pool = new ContextPool(config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.destroy();
+    }
+
+    @Test
+    public void testMinimumAndMaximumSize() throws Exception {
+        assertEquals(MIN, pool.getStatistics().size());
+
+        PooledContext first = pool.leaseContext();
+        PooledContext second = pool.leaseContext();
+
+        assertNotSame(first, second);
+        assertEquals(MAX, pool.getStatistics().size());
+
+        pool.returnContext(first);
+        pool.returnContext(second);
+
+        assertEquals(MAX, pool.getStatistics().size());
+    }
+
+    @Test
+    public void testLeaseTimesOutWhenExhausted() throws Exception {
+        PooledContext first = pool.leaseContext();
+        PooledContext second = pool.leaseContext();
+
+        long start = System.nanoTime();
+
+        try {
+            pool.leaseContext();
+            fail("Expected the lease to time out");
+        } catch (CAException e) {
+            // Expected
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Waited " + elapsedMillis + "ms", elapsedMillis >= TIMEOUT_MILLIS - 10);
+
+        pool.returnContext(first);
+
+        PooledContext third = pool.leaseContext();
+
+        assertSame(first, third);
+
+        pool.returnContext(second);
+        pool.returnContext(third);
+    }
+
+    @Test
+    public void testNonViableIdleContextIsReplaced() throws Exception {
+        PooledContext original = pool.leaseContext();
+        pool.returnContext(original);
+
+        original.getContext().destroy();
+
+        PooledContext replacement = awaitViableIdleContext(original.getId());
+
+        assertNotEquals(original.getId(), replacement.getId());
+        assertTrue(replacement.isViable());
+
+        pool.returnContext(replacement);
+    }
+
+    @Test
+    public void testNonViableLeasedContextIsReplacedOnReturn() throws Exception {
+        PooledContext leased = pool.leaseContext();
+
+        leased.getContext().destroy();
+
+        Thread.sleep(CHECK_MILLIS * 3);
+
+        assertTrue(leased.isRetired());
+
+        pool.returnContext(leased);
+
+        for (ContextStatistics stats : pool.getStatistics()) {
+            assertNotEquals(leased.getId(), stats.getId());
+        }
+
+        PooledContext replacement = pool.leaseContext();
+
+        assertTrue(replacement.isViable());
+
+        pool.returnContext(replacement);
+    }
+
+    @Test
+    public void testViabilityCheckNeverExceedsMaximum() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futureList = new ArrayList<>();
+        long end = System.currentTimeMillis() + CHECK_MILLIS * 5;
+
+        try {
+            for (int i = 0; i < 4; i++) {
+                futureList.add(executor.submit(() -> {
+                    while (System.currentTimeMillis() < end) {
+                        PooledContext pooled;
+
+                        try {
+                            pooled = pool.leaseContext(10);
+                        } catch (CAException e) {
+                            continue; // Exhausted; try again
+                        }
+
+                        assertTrue(pool.getStatistics().size() <= MAX);
+
+                        pool.returnContext(pooled);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futureList) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(pool.getStatistics().size() <= MAX);
+    }
+
+    /**
+     * Lease idle contexts until one other than the given context is handed out, allowing the
+     * background check time to run.
+     *
+     * @param staleId The id of the context which must not be returned
+     * @return A leased context
+     * @throws Exception If no replacement appears in a timely fashion
+     */
+    private PooledContext awaitViableIdleContext(int staleId) throws Exception {
+        long deadline = System.currentTimeMillis() + CHECK_MILLIS * 20;
+
+        while (System.currentTimeMillis() < deadline) {
+            boolean staleGone = true;
+
+            for (ContextStatistics stats : pool.getStatistics()) {
+                if (stats.getId() == staleId) {
+                    staleGone = false;
+                }
+            }
+
+            if (staleGone && pool.getStatistics().size() >= MIN) {
+                return pool.leaseContext();
+            }
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("Non-viable context was not replaced");
+    }
+}
@@ -0,0 +1,43 @@
+package org.jlab.icalibrate.epics;
+
+import java.util.Collections;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the stability criterion used for adaptive settling.
+ *
+ * @author ryans
+ */
+public class MonitorSampleBufferTest {
+
+    private static final String PV = "ICALIBRATE:SETTLE:PV";
+
+    @Test
+    public void testStableRequiresUpdatesInWindow() {
+        MonitorSampleBuffer buffer = new MonitorSampleBuffer(Collections.singleton(PV));
+
+        buffer.record(PV, 0, 100.0d); // Before the window only
+
+        assertFalse(buffer.isStable(PV, 1000, 2000, 0.02));
+
+        buffer.record(PV, 1500, 100.5d);
+
+        assertFalse(buffer.isStable(PV, 1000, 2000, 0.02));
+
+        buffer.record(PV, 1900, 100.2d);
+
+        assertTrue(buffer.isStable(PV, 1000, 2000, 0.02));
+    }
+
+    @Test
+    public void testRampIsNotStable() {
+        MonitorSampleBuffer buffer = new MonitorSampleBuffer(Collections.singleton(PV));
+
+        for (int i = 0; i <= 10; i++) {
+            buffer.record(PV, 1000 + i * 100, 100.0d + i);
+        }
+
+        assertFalse(buffer.isStable(PV, 1000, 2000, 0.02));
+    }
+}
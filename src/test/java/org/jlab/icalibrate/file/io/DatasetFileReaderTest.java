@@ -0,0 +1,352 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.model.DoseRateMeasurement;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamber;
+import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that HCD files survive conversion between the text and binary formats, that version 2
+ * binary files can still be read, and that corrupt binary column blocks are rejected when the
+ * file is opened rather than when a chamber is first looked at.
+ *
+ * @author ryans
+ */
+public class DatasetFileReaderTest {
+
+    private File file;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        if (!ICalibrateApp.APP_PROPERTIES.isEmpty()) {
+            return;
+        }
+
+        try (InputStream propStream = DatasetFileReaderTest.class.getClassLoader()
+                .getResourceAsStream("icalibrate.properties")) {
+            ICalibrateApp.APP_PROPERTIES.load(propStream);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("DatasetFileReaderTest", ".hcd");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testTextBinaryRoundTrip() throws Exception {
+        HallCalibrationDataset expected = createDataset();
+
+        new DatasetFileWriter().write(file, expected);
+        HallCalibrationDataset text = new DatasetFileReader().read(file);
+        assertDatasetEquals(expected, text);
+
+        new BinaryDatasetFileWriter(false).write(file, text);
+        assertTrue(HcdBinaryFormat.isBinary(file));
+        HallCalibrationDataset raw = new DatasetFileReader().read(file);
+        assertDatasetEquals(expected, raw);
+
+        new BinaryDatasetFileWriter(true).write(file, raw);
+        HallCalibrationDataset deflated = new DatasetFileReader().read(file);
+        assertDatasetEquals(expected, deflated);
+
+        new DatasetFileWriter().write(file, deflated);
+        assertFalse(HcdBinaryFormat.isBinary(file));
+        assertDatasetEquals(expected, new DatasetFileReader().read(file));
+    }
+
+    @Test
+    public void testReadVersion2() throws Exception {
+        byte[] metadata = concat(string("A"), string("Target"), string("1"), string(null),
+                longBytes(1234567890000L), string("ryans"));
+        double[] current = {10.0d, 20.0d, 30.0d};
+        double[] doseRate = {100.0d, 200.0d, 300.0d};
+        byte[] table = concat(string("IIC1H04A"), string("Target IC"), intBytes(current.length));
+        long blockOffset = HcdBinaryFormat.HEADER_BYTES + metadata.length + table.length
+                + 2 * (8 + 4 + 1) + (8 + 4 + 1);
+
+        table = concat(table,
+                longBytes(blockOffset), intBytes(current.length * 8),
+                new byte[]{HcdBinaryFormat.CODEC_RAW},
+                longBytes(blockOffset + current.length * 8), intBytes(doseRate.length * 8),
+                new byte[]{HcdBinaryFormat.CODEC_RAW},
+                longBytes(0), intBytes(0), new byte[]{HcdBinaryFormat.CODEC_ABSENT});
+
+        ByteBuffer header = ByteBuffer.allocate(HcdBinaryFormat.HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        header.put(HcdBinaryFormat.MAGIC);
+        header.putInt(2);
+        header.putInt(1);
+        header.putInt(0);
+        header.putInt(metadata.length);
+        header.putLong(HcdBinaryFormat.HEADER_BYTES + metadata.length);
+
+        Files.write(file.toPath(), concat(header.array(), metadata, table, doubles(current),
+                doubles(doseRate)));
+
+        HallCalibrationDataset dataset = new DatasetFileReader().read(file);
+
+        assertEquals(Hall.A, dataset.getHall());
+        assertEquals("Target", dataset.getTarget());
+        assertNull(dataset.getNote());
+        assertEquals(new Date(1234567890000L), dataset.getCalibratedDate());
+        assertEquals(1, dataset.getMeasuredDoseRateDataset().size());
+
+        IonChamberDataset ic = dataset.getMeasuredDoseRateDataset().get(0);
+        MeasurementColumns columns = ic.getColumns();
+
+        assertEquals("IIC1H04A", ic.getIonChamber().getEpicsName());
+        assertEquals(3, columns.size());
+        assertEquals(20.0d, columns.getCurrent(1), 0.0d);
+        assertEquals(300.0d, columns.getDoseRateRadsPerHour(2), 0.0d);
+        assertFalse(columns.hasSettleSeconds());
+        assertNull(ic.getRawSamples());
+    }
+
+    @Test
+    public void testTruncatedRawBlockIsRejected() throws Exception {
+        new BinaryDatasetFileWriter(false).write(file, createDataset());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int entry = columnEntry(bytes, HcdBinaryFormat.CURRENT_COLUMN);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(entry + 8, buffer.getInt(entry + 8) - 8);
+
+        assertRejected(bytes, "does not match count");
+    }
+
+    @Test
+    public void testTruncatedSamplesBlockIsRejected() throws Exception {
+        new BinaryDatasetFileWriter(false).write(file, createDataset());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int entry = columnEntry(bytes, HcdBinaryFormat.SAMPLES_COLUMN);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(entry + 8, buffer.getInt(entry + 8) - 8);
+
+        assertRejected(bytes, "does not match count");
+    }
+
+    @Test
+    public void testEmptyDeflateBlockIsRejected() throws Exception {
+        new BinaryDatasetFileWriter(true).write(file, createDataset());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int entry = columnEntry(bytes, HcdBinaryFormat.SAMPLES_COLUMN);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(HcdBinaryFormat.CODEC_DEFLATE, buffer.get(entry + 12));
+
+        buffer.putInt(entry + 8, 0);
+
+        assertRejected(bytes, "is empty");
+    }
+
+    @Test
+    public void testBlockOutsideFileIsRejected() throws Exception {
+        new BinaryDatasetFileWriter(false).write(file, createDataset());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        assertRejected(Arrays.copyOf(bytes, bytes.length - 8), "outside the file");
+    }
+
+    @Test
+    public void testBadCodecIsRejected() throws Exception {
+        new BinaryDatasetFileWriter(false).write(file, createDataset());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[columnEntry(bytes, HcdBinaryFormat.DOSE_RATE_COLUMN) + 12] = 7;
+
+        assertRejected(bytes, "codec 7");
+    }
+
+    /**
+     * Create a dataset of two chambers whose values survive the text format exactly: currents
+     * with two decimals, whole dose rates, settle seconds with one decimal, and raw samples
+     * including a missing (NaN) sample and a retried measurement.
+     *
+     * @return The dataset
+     * @throws Exception If unable to create the ion chambers
+     */
+    private static HallCalibrationDataset createDataset() throws Exception {
+        List<IonChamberDataset> datasetList = new ArrayList<>();
+
+        for (int c = 0; c < 2; c++) {
+            RawSamples.Builder builder = new RawSamples.Builder();
+            List<DoseRateMeasurement> measurementList = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                builder.beginMeasurement();
+
+                for (int k = 0; k < 3; k++) {
+                    builder.add(k == 1 && i == 2 ? Double.NaN : 100.0d * (i + 1) + k * 0.125d
+                            + c);
+                }
+
+                builder.endMeasurement();
+
+                measurementList.add(new DoseRateMeasurement(10.25d * (i + 1),
+                        100.0d * (i + 1) + c, 1.5d));
+            }
+
+            IonChamber ic = IonChamber.newInstance(Hall.A, "IIC1H0" + c, "IC " + c, null);
+
+            datasetList.add(new IonChamberDataset(ic, MeasurementColumns.of(measurementList),
+                    builder.build()));
+        }
+
+        return new HallCalibrationDataset(Hall.A, "Target", "1", "A note",
+                new Date(1234567890000L), "ryans", datasetList);
+    }
+
+    private static void assertDatasetEquals(HallCalibrationDataset expected,
+            HallCalibrationDataset actual) {
+        assertEquals(expected.getHall(), actual.getHall());
+        // The text header keeps the space after each colon
+        assertEquals(expected.getTarget(), actual.getTarget().trim());
+        assertEquals(expected.getPass(), actual.getPass().trim());
+        assertEquals(expected.getNote(), actual.getNote().trim());
+        assertEquals(expected.getCalibratedBy(), actual.getCalibratedBy().trim());
+        assertEquals(expected.getMeasuredDoseRateDataset().size(),
+                actual.getMeasuredDoseRateDataset().size());
+
+        for (int c = 0; c < expected.getMeasuredDoseRateDataset().size(); c++) {
+            IonChamberDataset e = expected.getMeasuredDoseRateDataset().get(c);
+            IonChamberDataset a = actual.getMeasuredDoseRateDataset().get(c);
+
+            assertEquals(e.getIonChamber().getEpicsName(), a.getIonChamber().getEpicsName());
+
+            MeasurementColumns ec = e.getColumns();
+            MeasurementColumns ac = a.getColumns();
+
+            assertEquals(ec.size(), ac.size());
+
+            for (int i = 0; i < ec.size(); i++) {
+                assertEquals(ec.getCurrent(i), ac.getCurrent(i), 0.0d);
+                assertEquals(ec.getDoseRateRadsPerHour(i), ac.getDoseRateRadsPerHour(i), 0.0d);
+                assertEquals(ec.getSettleSeconds(i), ac.getSettleSeconds(i), 0.0d);
+            }
+
+            RawSamples er = e.getRawSamples();
+            RawSamples ar = a.getRawSamples();
+
+            assertNotNull(ar);
+            assertEquals(er.size(), ar.size());
+
+            for (int i = 0; i < er.size(); i++) {
+                assertEquals(er.getSampleCount(i), ar.getSampleCount(i));
+                assertEquals(er.getValidSampleCount(i), ar.getValidSampleCount(i));
+
+                for (int k = 0; k < er.getSampleCount(i); k++) {
+                    assertEquals(er.getSample(i, k), ar.getSample(i, k), 0.0d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the bytes to the test file and check that opening it fails.
+     *
+     * @param bytes The file content
+     * @param message Text the failure message must contain
+     * @throws Exception If the file can not be written or fails for the wrong reason
+     */
+    private void assertRejected(byte[] bytes, String message) throws Exception {
+        Files.write(file.toPath(), bytes);
+
+        try {
+            new DatasetFileReader().read(file);
+            fail("Expected corrupt file to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    /**
+     * Return the position of a column entry (offset, length, codec) of the first chamber of a
+     * version 3 file.
+     *
+     * @param bytes The file content
+     * @param column The column index
+     * @return The position
+     */
+    private static int columnEntry(byte[] bytes, int column) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int position = (int) buffer.getLong(24); // Chamber table offset
+
+        position = position + 4 + buffer.getInt(position); // Epics name
+        position = position + 4 + buffer.getInt(position); // Friendly name
+        position = position + 4; // Measurement count
+
+        return position + column * (8 + 4 + 1);
+    }
+
+    private static byte[] string(String value) {
+        if (value == null) {
+            return intBytes(-1);
+        }
+
+        byte[] bytes = value.getBytes(HcdBinaryFormat.CHARSET);
+
+        return concat(intBytes(bytes.length), bytes);
+    }
+
+    private static byte[] intBytes(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+    }
+
+    private static byte[] doubles(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (double value : values) {
+            buffer.putDouble(value);
+        }
+
+        return buffer.array();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+
+        for (byte[] part : parts) {
+            length = length + part.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        for (byte[] part : parts) {
+            buffer.put(part);
+        }
+
+        return buffer.array();
+    }
+}
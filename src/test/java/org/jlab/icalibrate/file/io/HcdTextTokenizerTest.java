@@ -0,0 +1,231 @@
+package org.jlab.icalibrate.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.Random;
+import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.model.HallCalibrationDataset;
+import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the text HCD tokenizer parses numbers exactly as Double.parseDouble does, whichever
+ * path it takes, and reports malformed input at the right line and column.
+ *
+ * @author ryans
+ */
+public class HcdTextTokenizerTest {
+
+    private static final String HEADER = "--- Start HCD header\n"
+            + "Hall: A\n"
+            + "Target: Target\n"
+            + "Pass: 1\n"
+            + "Note: A note\n"
+            + "Calibrated Date: 2009-02-13T23:31\n"
+            + "Calibrated By: ryans\n"
+            + "File Format: Independent ICs\n"
+            + "--- End HCD header\n";
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        if (!ICalibrateApp.APP_PROPERTIES.isEmpty()) {
+            return;
+        }
+
+        try (InputStream propStream = HcdTextTokenizerTest.class.getClassLoader()
+                .getResourceAsStream("icalibrate.properties")) {
+            ICalibrateApp.APP_PROPERTIES.load(propStream);
+        }
+    }
+
+    @Test
+    public void testFastPathMatchesParseDouble() throws Exception {
+        String[] texts = {"0", "0.000", "-0.5", "+12", "123.45", "1017.25", "0.1", "999999.99",
+            "123456789012345", "1.5e3", "2E-4", "-7.25e+2", "4.9e-22"};
+
+        for (String text : texts) {
+            assertParsed(text);
+        }
+
+        Random random = new Random(1);
+
+        for (int i = 0; i < 10000; i++) { // Writer style decimals
+            assertParsed(String.format("%." + random.nextInt(4) + "f",
+                    random.nextDouble() * Math.pow(10, random.nextInt(8))));
+        }
+    }
+
+    @Test
+    public void testSlowPathMatchesParseDouble() throws Exception {
+        String[] texts = {"1.2345678901234567", "0.30000000000000004", "1234567890123456",
+            "1e400", "1e-400", "2.5e23", "1.0E-300", "0x1p3", "1d"};
+
+        for (String text : texts) {
+            assertParsed(text);
+        }
+
+        assertTrue(Double.isNaN(tokenizer("NaN").readDouble()));
+        assertEquals(Double.NEGATIVE_INFINITY, tokenizer("-Infinity").readDouble(), 0.0d);
+    }
+
+    @Test
+    public void testNumbersStopAtDelimiters() throws Exception {
+        HcdTextTokenizer tokenizer = tokenizer("1.5,2.5\t3.5 |");
+
+        assertEquals(1.5d, tokenizer.readDouble(), 0.0d);
+        tokenizer.expect(',');
+        assertEquals(2.5d, tokenizer.readDouble(), 0.0d);
+        tokenizer.skipSpaces();
+        assertEquals(3.5d, tokenizer.readDouble(), 0.0d);
+        tokenizer.skipSpaces();
+        assertEquals('|', tokenizer.peek());
+    }
+
+    @Test
+    public void testInvalidNumberReportsTokenStart() throws Exception {
+        HcdTextTokenizer tokenizer = tokenizer("1.0 , abc\n");
+
+        tokenizer.readDouble();
+        tokenizer.skipSpaces();
+        tokenizer.expect(',');
+        tokenizer.skipSpaces();
+
+        assertParseError(() -> tokenizer.readDouble(), 1, "line 1, column 7: invalid number 'abc'");
+    }
+
+    @Test
+    public void testTrailingGarbageReportsPosition() throws Exception {
+        HcdTextTokenizer tokenizer = tokenizer("1\r\n2 x\n");
+
+        tokenizer.readDouble();
+        tokenizer.endLine();
+
+        assertEquals(2, tokenizer.getLine());
+        assertEquals(1, tokenizer.getColumn());
+
+        tokenizer.readDouble();
+
+        assertParseError(() -> tokenizer.endLine(), 2, "line 2, column 3: unexpected 'x'");
+        assertParseError(() -> tokenizer.expect(','), 2, "line 2, column 3: expected ','");
+    }
+
+    @Test
+    public void testMissingNumberReportsPosition() throws Exception {
+        HcdTextTokenizer tokenizer = tokenizer("\n  ,\n");
+
+        tokenizer.endLine();
+        tokenizer.skipSpaces();
+
+        assertParseError(() -> tokenizer.readDouble(), 2, "line 2, column 3: expected number");
+    }
+
+    @Test
+    public void testIndependentICs() throws Exception {
+        HallCalibrationDataset dataset = read(HEADER
+                + "#IC: IIC1H04A Target IC\n"
+                + "10.00 100\n"
+                + "20.00 200 1.5\n"
+                + "\n"
+                + "30.00 NaN 2.0 | 1.0 NaN 3.0\n"
+                + "#IC: IIC1H05 \n"
+                + "10.00 5 | 4.5 5.5\r\n"
+                + "20.00 6 |\n");
+
+        assertEquals(2, dataset.getMeasuredDoseRateDataset().size());
+
+        IonChamberDataset first = dataset.getMeasuredDoseRateDataset().get(0);
+        MeasurementColumns columns = first.getColumns();
+        RawSamples samples = first.getRawSamples();
+
+        assertEquals("IIC1H04A", first.getIonChamber().getEpicsName());
+        assertEquals("Target IC", first.getIonChamber().getFriendlyName());
+        assertEquals(3, columns.size());
+        assertEquals(30.0d, columns.getCurrent(2), 0.0d);
+        assertTrue(Double.isNaN(columns.getDoseRateRadsPerHour(2)));
+        assertTrue(columns.hasSettleSeconds());
+        assertTrue(Double.isNaN(columns.getSettleSeconds(0))); // Settle column is optional
+        assertEquals(1.5d, columns.getSettleSeconds(1), 0.0d);
+        assertEquals(3, samples.size());
+        assertEquals(0, samples.getSampleCount(0));
+        assertEquals(3, samples.getSampleCount(2));
+        assertEquals(2, samples.getValidSampleCount(2));
+        assertEquals(3.0d, samples.getSample(2, 2), 0.0d);
+
+        IonChamberDataset second = dataset.getMeasuredDoseRateDataset().get(1);
+
+        assertEquals("IIC1H05", second.getIonChamber().getEpicsName());
+        assertFalse(second.getColumns().hasSettleSeconds());
+        assertEquals(2, second.getRawSamples().getSampleCount(0));
+        assertEquals(5.5d, second.getRawSamples().getSample(0, 1), 0.0d);
+        assertEquals(0, second.getRawSamples().getSampleCount(1));
+    }
+
+    @Test
+    public void testIndependentICsReportsFilePosition() throws Exception {
+        assertReadError(HEADER + "#IC: IIC1H04A Target IC\n10.00 1x0\n",
+                "HCD file line 11, column 7: invalid number '1x0'");
+        assertReadError(HEADER + "#IC: IIC1H04A Target IC\n10.00 100 1.5 2.5\n",
+                "HCD file line 11, column 15: expected '|'");
+        assertReadError(HEADER + "10.00 100\n",
+                "HCD file line 10, column 1: measurement before first '#IC:' line");
+        assertReadError(HEADER + "#ID: IIC1H04A\n",
+                "HCD file line 10, column 1: expected '#IC:'");
+    }
+
+    private static HcdTextTokenizer tokenizer(String text) {
+        return new HcdTextTokenizer(new StringReader(text));
+    }
+
+    private static void assertParsed(String text) throws Exception {
+        HcdTextTokenizer tokenizer = tokenizer(text);
+
+        assertEquals(text, Double.parseDouble(text), tokenizer.readDouble(), 0.0d);
+        assertTrue(text, tokenizer.isEof());
+    }
+
+    private interface ParseAction {
+
+        void run() throws IOException, ParseException;
+    }
+
+    private static void assertParseError(ParseAction action, int line, String message)
+            throws IOException {
+        try {
+            action.run();
+            fail("Expected ParseException: " + message);
+        } catch (ParseException e) {
+            assertEquals(line, e.getErrorOffset());
+            assertTrue(e.getMessage(), e.getMessage().endsWith(message));
+        }
+    }
+
+    private static HallCalibrationDataset read(String content) throws Exception {
+        File file = File.createTempFile("HcdTextTokenizerTest", ".hcd");
+
+        try {
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+            return new DatasetFileReader().read(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void assertReadError(String content, String message) throws Exception {
+        try {
+            read(content);
+            fail("Expected ParseException: " + message);
+        } catch (ParseException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
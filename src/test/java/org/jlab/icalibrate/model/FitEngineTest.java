@@ -0,0 +1,146 @@
+package org.jlab.icalibrate.model;
+
+import java.util.Random;
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the range fits of the FitEngine against a straightforward regression of the same points.
+ *
+ * @author ryans
+ */
+public class FitEngineTest {
+
+    private static final double TOLERANCE = 1e-7;
+
+    @Test
+    public void testLinearRangesMatchRegression() {
+        double[][] points = noisyLine(50, new Random(1));
+        FitEngine engine = new FitEngine(points[0], points[1]);
+
+        assertLinear(points, 0, 49, engine.linear(0, 49));
+        assertLinear(points, 10, 30, engine.linear(10, 30));
+        assertLinear(points, 48, 49, engine.linear(48, 49));
+    }
+
+    @Test
+    public void testSetMatchesRegression() {
+        double[][] points = noisyLine(50, new Random(2));
+        FitEngine engine = new FitEngine(points[0], points[1]);
+
+        points[0][7] = 200.0d;
+        points[1][7] = 900.0d;
+        engine.set(7, points[0][7], points[1][7]);
+
+        points[1][31] = points[1][31] * 2;
+        engine.set(31, points[0][31], points[1][31]);
+
+        assertEquals(200.0d, engine.getX(7), 0.0d);
+        assertLinear(points, 0, 49, engine.linear(0, 49));
+        assertLinear(points, 5, 35, engine.linear(5, 35));
+        assertLogarithmic(points, 0, 49, engine.logarithmic(0, 49));
+    }
+
+    @Test
+    public void testMissingValuesAreSkipped() {
+        double[][] points = noisyLine(20, new Random(3));
+        points[1][4] = Double.NaN;
+        points[1][12] = Double.NaN;
+
+        FitEngine engine = new FitEngine(points[0], points[1]);
+        FitEngine.Fit fit = engine.linear(0, 19);
+
+        assertEquals(18, fit.getCount());
+        assertLinear(points, 0, 19, fit);
+
+        // Restoring a missing value brings the point back into the sums
+        points[1][4] = 150.0d;
+        engine.set(4, points[0][4], points[1][4]);
+
+        assertEquals(19, engine.linear(0, 19).getCount());
+        assertLinear(points, 0, 19, engine.linear(0, 19));
+    }
+
+    @Test
+    public void testLogarithmicSkipsNonPositiveCurrent() {
+        double[][] points = noisyLine(20, new Random(4));
+        points[0][0] = 0.0d;
+        points[0][1] = -5.0d;
+
+        FitEngine engine = new FitEngine(points[0], points[1]);
+        FitEngine.Fit fit = engine.logarithmic(0, 19);
+
+        assertEquals(18, fit.getCount());
+        assertLogarithmic(points, 0, 19, fit);
+        assertEquals(20, engine.linear(0, 19).getCount());
+    }
+
+    @Test
+    public void testTooFewPointsHasNoFit() {
+        FitEngine engine = new FitEngine(new double[]{1, 2, 3}, new double[]{4, 5, 6});
+
+        FitEngine.Fit single = engine.linear(1, 1);
+
+        assertEquals(1, single.getCount());
+        assertTrue(Double.isNaN(single.getSlope()));
+        assertTrue(Double.isNaN(single.getIntercept()));
+
+        assertEquals(0, engine.linear(2, 1).getCount()); // Empty range
+        assertEquals(0, engine.linear(0, 3).getCount()); // Out of bounds
+    }
+
+    /**
+     * Create points along a noisy line with positive x.
+     *
+     * @param count The number of points
+     * @param random The random number generator
+     * @return The x values and the y values
+     */
+    private static double[][] noisyLine(int count, Random random) {
+        double[] x = new double[count];
+        double[] y = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            x[i] = 1 + i * 3 + random.nextDouble();
+            y[i] = 4.2 * x[i] + 17 + random.nextGaussian() * 5;
+        }
+
+        return new double[][]{x, y};
+    }
+
+    private static void assertLinear(double[][] points, int min, int max, FitEngine.Fit fit) {
+        SimpleRegression regression = new SimpleRegression();
+
+        for (int i = min; i <= max; i++) {
+            if (!Double.isNaN(points[1][i])) {
+                regression.addData(points[0][i], points[1][i]);
+            }
+        }
+
+        assertFit(regression, fit);
+    }
+
+    private static void assertLogarithmic(double[][] points, int min, int max,
+            FitEngine.Fit fit) {
+        SimpleRegression regression = new SimpleRegression();
+
+        for (int i = min; i <= max; i++) {
+            if (points[0][i] > 0 && !Double.isNaN(points[1][i])) {
+                regression.addData(Math.log(points[0][i]), points[1][i]);
+            }
+        }
+
+        assertFit(regression, fit);
+    }
+
+    private static void assertFit(SimpleRegression regression, FitEngine.Fit fit) {
+        assertEquals(regression.getN(), fit.getCount());
+        assertEquals(regression.getSlope(), fit.getSlope(), TOLERANCE);
+        assertEquals(regression.getIntercept(), fit.getIntercept(), TOLERANCE);
+
+        if (regression.getN() > 2) {
+            assertEquals(regression.getRSquare(), fit.getRSquare(), TOLERANCE);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.jlab.icalibrate.model;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that missing (NaN) samples are excluded from the statistics of RawSamples.
+ *
+ * @author ryans
+ */
+public class RawSamplesTest {
+
+    @Test
+    public void testStandardErrorIgnoresMissingSamples() {
+        RawSamples.Builder builder = new RawSamples.Builder();
+
+        builder.beginMeasurement();
+        builder.add(10.0d);
+        builder.add(Double.NaN);
+        builder.add(14.0d);
+        builder.add(Double.NaN);
+        builder.endMeasurement();
+
+        RawSamples samples = builder.build();
+
+        assertEquals(4, samples.getSampleCount(0));
+        assertEquals(2, samples.getValidSampleCount(0));
+        assertEquals(12.0d, samples.getMean(0), 0.0d);
+        assertEquals(samples.getStandardDeviation(0) / Math.sqrt(2),
+                samples.getStandardError(0), 1e-12);
+    }
+}
@@ -0,0 +1,69 @@
+package org.jlab.icalibrate.model;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the setpoints computed from linear and logarithmic fits.
+ *
+ * @author ryans
+ */
+public class SetpointCalculatorTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testLinearAndLogarithmic() {
+        SetpointCalculator calculator = new SetpointCalculator(2);
+        calculator.setFit(0, 2.0d, 5.0d, false);
+        calculator.setFit(1, 3.0d, 1.0d, true);
+
+        double[] setpoints = calculator.compute(100, 10);
+
+        assertEquals((2.0d * 100 + 5.0d) * 1.1d, setpoints[0], TOLERANCE);
+        assertEquals((3.0d * Math.log(100) + 1.0d) * 1.1d, setpoints[1], TOLERANCE);
+
+        setpoints = calculator.compute(100, -20); // Negative margin is below the fit
+
+        assertEquals((2.0d * 100 + 5.0d) * 0.8d, setpoints[0], TOLERANCE);
+        assertEquals((3.0d * Math.log(100) + 1.0d) * 0.8d, setpoints[1], TOLERANCE);
+    }
+
+    @Test
+    public void testMissingFitIsNaN() {
+        SetpointCalculator calculator = new SetpointCalculator(3);
+        calculator.setFit(0, Double.NaN, Double.NaN, false);
+        calculator.setFit(1, Double.NaN, Double.NaN, true);
+        calculator.setFit(2, 1.0d, 0.0d, false);
+
+        double[] setpoints = calculator.compute(50, 0);
+
+        assertTrue(Double.isNaN(setpoints[0]));
+        assertTrue(Double.isNaN(setpoints[1]));
+        assertEquals(50.0d, setpoints[2], TOLERANCE);
+    }
+
+    @Test
+    public void testZeroCurrent() {
+        SetpointCalculator calculator = new SetpointCalculator(2);
+        calculator.setFit(0, 2.0d, 5.0d, false);
+        calculator.setFit(1, 3.0d, 1.0d, true);
+
+        double[] setpoints = calculator.compute(0, 10);
+
+        assertEquals(5.0d * 1.1d, setpoints[0], TOLERANCE);
+        assertTrue(Double.isNaN(setpoints[1])); // ln(0) is undefined
+    }
+
+    @Test
+    public void testVersionCountsFitChanges() {
+        SetpointCalculator calculator = new SetpointCalculator(1);
+
+        assertEquals(0, calculator.getVersion());
+
+        calculator.setFit(0, 1.0d, 0.0d, false);
+        calculator.setFit(0, 1.0d, 0.0d, true);
+
+        assertEquals(2, calculator.getVersion());
+    }
+}
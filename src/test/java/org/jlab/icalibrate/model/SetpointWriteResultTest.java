@@ -0,0 +1,75 @@
+package org.jlab.icalibrate.model;
+
+import java.io.InputStream;
+import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.model.SetpointWriteResult.Status;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks how the outcome of writing a setpoint is classified from its readback.
+ *
+ * @author ryans
+ */
+public class SetpointWriteResultTest {
+
+    private static final double TOLERANCE = SetpointWriteResult.READBACK_TOLERANCE_RADS_PER_HOUR;
+
+    private static DoseRateTripSetpoint setpoint;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        if (ICalibrateApp.APP_PROPERTIES.isEmpty()) {
+            try (InputStream propStream = SetpointWriteResultTest.class.getClassLoader()
+                    .getResourceAsStream("icalibrate.properties")) {
+                ICalibrateApp.APP_PROPERTIES.load(propStream);
+            }
+        }
+
+        setpoint = new DoseRateTripSetpoint(IonChamber.newInstance(Hall.A, "IIC1H04A", "Target",
+                null), 500.0d);
+    }
+
+    @Test
+    public void testClassification() {
+        SetpointWriteResult result = new SetpointWriteResult();
+
+        result.add(setpoint, 500.0d, null);
+        result.add(setpoint, 500.0d + TOLERANCE, null); // IOC rounding is tolerated
+        result.add(setpoint, 500.0d - TOLERANCE, null);
+        result.add(setpoint, 500.0d + TOLERANCE * 1.01d, null);
+        result.add(setpoint, 0.0d, null);
+        result.add(setpoint, Double.NaN, null);
+        result.add(setpoint, 500.0d, "Timeout waiting for EPICS CA Get of PV: IIC1H04AMAx");
+
+        assertEquals(3, result.count(Status.CONFIRMED));
+        assertEquals(2, result.count(Status.MISMATCH));
+        assertEquals(2, result.count(Status.FAILED));
+        assertEquals(Status.MISMATCH, result.getChamberResultList().get(3).getStatus());
+        assertEquals(Status.FAILED, result.getChamberResultList().get(6).getStatus());
+        assertFalse(result.isSuccessful());
+    }
+
+    @Test
+    public void testDescribeProblems() {
+        SetpointWriteResult result = new SetpointWriteResult();
+
+        result.add(setpoint, 500.0d, null);
+
+        assertTrue(result.isSuccessful());
+        assertEquals("", result.describeProblems());
+
+        result.add(setpoint, 250.0d, null);
+        result.add(setpoint, Double.NaN, "Readback is null or not a number: IIC1H04AMAx");
+
+        assertEquals("Target: wrote 500.0 but read back 250.0\n"
+                + "Target: Readback is null or not a number: IIC1H04AMAx",
+                result.describeProblems());
+    }
+
+    @Test
+    public void testEmptyIsSuccessful() {
+        assertTrue(new SetpointWriteResult().isSuccessful());
+    }
+}
@@ -0,0 +1,126 @@
+package org.jlab.icalibrate.swing.action;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.epics.SimulatedBackend;
+import org.jlab.icalibrate.model.DoseRateTripSetpoint;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.IonChamber;
+import org.jlab.icalibrate.model.SetpointWriteResult;
+import org.jlab.icalibrate.model.SetpointWriteResult.ChamberResult;
+import org.jlab.icalibrate.model.SetpointWriteResult.Status;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that writing setpoints to EPICS classifies each readback, whatever the field type of the
+ * IOC record, against a simulated backend. The simulator does not link the write and read PVs
+ * so each readback PV is given the value the IOC would hold after processing the write.
+ *
+ * @author ryans
+ */
+public class ExportEpicsActionTest {
+
+    private final Properties saved = new Properties();
+    private SimulatedBackend backend;
+    private ChannelManager manager;
+    private final List<DoseRateTripSetpoint> setpointList = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        saved.putAll(ICalibrateApp.APP_PROPERTIES);
+
+        try (InputStream propStream = ExportEpicsActionTest.class.getClassLoader()
+                .getResourceAsStream("icalibrate.properties")) {
+            ICalibrateApp.APP_PROPERTIES.load(propStream);
+        }
+
+        backend = new SimulatedBackend(1);
+        manager = new ChannelManager(backend);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        manager.close();
+
+        ICalibrateApp.APP_PROPERTIES.clear();
+        ICalibrateApp.APP_PROPERTIES.putAll(saved);
+    }
+
+    @Test
+    public void testReadbackClassification() throws Exception {
+        // DOUBLE field holds the value exactly
+        IonChamber exact = add("IIC1H00", 500.0d);
+        backend.addPv(exact.getDoseRateSetpointReadPvName(), 500.0d);
+
+        // FLOAT field rounds to single precision, well within tolerance
+        IonChamber rounded = add("IIC1H05", 1234.56d);
+        backend.addFloatPv(rounded.getDoseRateSetpointReadPvName(), 1234.56d);
+
+        // SHORT field truncates the fraction, still within tolerance
+        IonChamber truncated = add("IIC1H04A", 1234.56d);
+        backend.addShortPv(truncated.getDoseRateSetpointReadPvName(), 1234.56d);
+
+        // SHORT field can not hold the value at all
+        IonChamber overflowed = add("IIC1P03", 40000.0d);
+        backend.addShortPv(overflowed.getDoseRateSetpointReadPvName(), 40000.0d);
+
+        // IOC did not process the write
+        IonChamber stale = add("IICD107", 500.0d);
+        backend.addPv(stale.getDoseRateSetpointReadPvName(), 10.0d);
+
+        // Readback is not numeric
+        IonChamber text = add("IICD107A", 500.0d);
+        backend.addStringPv(text.getDoseRateSetpointReadPvName(), "500");
+
+        SetpointWriteResult result = ExportEpicsAction.writeSetpoints(manager, setpointList);
+        List<ChamberResult> chamberResultList = result.getChamberResultList();
+
+        assertEquals(6, chamberResultList.size());
+        assertEquals(Status.CONFIRMED, chamberResultList.get(0).getStatus());
+        assertEquals(Status.CONFIRMED, chamberResultList.get(1).getStatus());
+        assertEquals(1234.56f, chamberResultList.get(1).getReadback(), 0.0d);
+        assertEquals(Status.CONFIRMED, chamberResultList.get(2).getStatus());
+        assertEquals(1234.0d, chamberResultList.get(2).getReadback(), 0.0d);
+        assertEquals(Status.MISMATCH, chamberResultList.get(3).getStatus());
+        assertEquals((short) 40000, chamberResultList.get(3).getReadback(), 0.0d);
+        assertEquals(Status.MISMATCH, chamberResultList.get(4).getStatus());
+        assertEquals(Status.FAILED, chamberResultList.get(5).getStatus());
+        assertTrue(chamberResultList.get(5).getFailure().contains("not a number"));
+
+        assertFalse(result.isSuccessful());
+        assertEquals(3, result.count(Status.CONFIRMED));
+        assertEquals(3, result.describeProblems().split("\n").length);
+
+        // Every write went out in the batch
+        for (DoseRateTripSetpoint setpoint : setpointList) {
+            assertEquals(setpoint.getDoseRateRadsPerHour(), backend.getPv(
+                    setpoint.getIonChamber().getDoseRateSetpointWritePvName())
+                    .getDoubleValue(), 0.0d);
+        }
+    }
+
+    /**
+     * Add a Hall A ion chamber setpoint along with its write PV.
+     *
+     * @param epicsName The ion chamber EPICS name
+     * @param doseRate The setpoint in rads per hour
+     * @return The ion chamber
+     * @throws Exception If the ion chamber can not be created
+     */
+    private IonChamber add(String epicsName, double doseRate) throws Exception {
+        IonChamber ic = IonChamber.newInstance(Hall.A, epicsName, null, null);
+
+        backend.addPv(ic.getDoseRateSetpointWritePvName(), 0.0d);
+        setpointList.add(new DoseRateTripSetpoint(ic, doseRate));
+
+        return ic;
+    }
+}
@@ -0,0 +1,157 @@
+package org.jlab.icalibrate.swing.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import javax.swing.SwingUtilities;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the RecomputeScheduler coalesces bursts of requests and never publishes a cancelled
+ * result. Requests are made on the Event Dispatch Thread as the frame makes them; the first
+ * computation of each test blocks the worker so that later requests queue up behind it.
+ *
+ * @author ryans
+ */
+public class RecomputeSchedulerTest {
+
+    private RecomputeScheduler<String> scheduler;
+    private final List<String> publishedList = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        scheduler = new RecomputeScheduler<>("RecomputeSchedulerTest");
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        SwingUtilities.invokeAndWait(() -> request("A", true));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        SwingUtilities.invokeAndWait(() -> {
+            request("B", false);
+            request("C", false);
+            request("D", false);
+        });
+
+        release.countDown();
+
+        RecomputeStatistics stats = awaitStatistics(s -> s.getPublished() == 2);
+
+        assertEquals(4, stats.getRequested());
+        assertEquals(2, stats.getComputed());
+        assertEquals(2, stats.getCoalesced());
+        assertEquals(0, stats.getStale());
+        assertEquals(2, stats.getDropped());
+        assertEquals(Arrays.asList("A", "D"), publishedList);
+    }
+
+    @Test
+    public void testCancelledResultIsStale() throws Exception {
+        SwingUtilities.invokeAndWait(() -> request("A", true));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        SwingUtilities.invokeAndWait(() -> scheduler.cancel());
+
+        release.countDown();
+
+        RecomputeStatistics stats = awaitStatistics(s -> s.getStale() == 1);
+
+        assertEquals(1, stats.getComputed());
+        assertEquals(0, stats.getPublished());
+        assertTrue(publishedList.isEmpty());
+    }
+
+    @Test
+    public void testCancelDropsQueuedRequest() throws Exception {
+        SwingUtilities.invokeAndWait(() -> request("A", true));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        SwingUtilities.invokeAndWait(() -> {
+            request("B", false);
+            scheduler.cancel();
+        });
+
+        release.countDown();
+
+        RecomputeStatistics stats = awaitStatistics(s -> s.getStale() == 1);
+
+        assertEquals(1, stats.getComputed()); // B never ran
+        assertEquals(1, stats.getCoalesced());
+        assertEquals(0, stats.getPublished());
+        assertTrue(publishedList.isEmpty());
+
+        // A request after the cancel is published as usual
+        SwingUtilities.invokeAndWait(() -> request("E", false));
+
+        awaitStatistics(s -> s.getPublished() == 1);
+
+        assertEquals(Arrays.asList("E"), publishedList);
+    }
+
+    /**
+     * Request a computation which returns the given value. Must be called on the EDT.
+     *
+     * @param value The value
+     * @param block true to hold the worker until released
+     */
+    private void request(String value, boolean block) {
+        assertTrue(SwingUtilities.isEventDispatchThread());
+
+        scheduler.request(() -> {
+            if (block) {
+                started.countDown();
+                release.await();
+            }
+
+            return value;
+        }, result -> {
+            assertTrue(SwingUtilities.isEventDispatchThread());
+            publishedList.add(result);
+        });
+    }
+
+    /**
+     * Wait for the statistics to satisfy a condition, then for the EDT to go idle so that any
+     * further publication would have happened.
+     *
+     * @param condition The condition
+     * @return The statistics
+     * @throws Exception If the condition is not met in a timely fashion
+     */
+    private RecomputeStatistics awaitStatistics(Predicate<RecomputeStatistics> condition)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.test(scheduler.getStatistics())) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out: " + scheduler.getStatistics());
+            }
+
+            Thread.sleep(5);
+        }
+
+        Thread.sleep(50);
+        SwingUtilities.invokeAndWait(() -> {
+            // Flush pending publications
+        });
+
+        return scheduler.getStatistics();
+    }
+}
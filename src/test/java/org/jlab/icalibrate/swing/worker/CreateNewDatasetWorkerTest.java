@@ -0,0 +1,144 @@
+package org.jlab.icalibrate.swing.worker;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.jlab.icalibrate.ICalibrateApp;
+import org.jlab.icalibrate.epics.ChannelManager;
+import org.jlab.icalibrate.epics.SimulatedBackend;
+import org.jlab.icalibrate.epics.SimulatedBeamModel;
+import org.jlab.icalibrate.model.CreateNewDatasetParameters;
+import org.jlab.icalibrate.model.Hall;
+import org.jlab.icalibrate.model.IonChamber;
+import org.jlab.icalibrate.model.IonChamberDataset;
+import org.jlab.icalibrate.model.Laser;
+import org.jlab.icalibrate.model.MeasurementColumns;
+import org.jlab.icalibrate.model.RawSamples;
+import org.jlab.icalibrate.model.SamplingMode;
+import org.jlab.icalibrate.model.SettleMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Runs a short headless calibration against the simulated backend with a beam model and checks
+ * the measured dataset follows the model.
+ *
+ * @author ryans
+ */
+public class CreateNewDatasetWorkerTest {
+
+    private static final String FSD_PV = "ISD0I011G";
+    private static final String ATTENUATOR_PV = "psub_aa_ipos";
+    private static final String MODE_PV = "IGL1I00HALLAMODE";
+    private static final String CURRENT_PV = "IBC1H04CRCUR2";
+    private static final double CURRENT_PER_ATTENUATOR = 2.0d;
+    private static final double ORIGINAL_ATTENUATOR = 5.0d;
+
+    private final Properties savedProperties = new Properties();
+    private SimulatedBackend backend;
+    private ChannelManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        savedProperties.putAll(ICalibrateApp.APP_PROPERTIES);
+
+        try (InputStream propStream = getClass().getClassLoader().getResourceAsStream(
+                "icalibrate.properties")) {
+            ICalibrateApp.APP_PROPERTIES.load(propStream);
+        }
+
+        ICalibrateApp.APP_PROPERTIES.setProperty("WRITE_ALLOWED", "true");
+
+        backend = new SimulatedBackend(42);
+        backend.addPv(FSD_PV, 0);
+        backend.addPv(ATTENUATOR_PV, ORIGINAL_ATTENUATOR);
+        backend.addPv(MODE_PV, 1);
+
+        SimulatedBeamModel model = new SimulatedBeamModel(ATTENUATOR_PV, CURRENT_PV,
+                CURRENT_PER_ATTENUATOR)
+                .addDoseRatePv("IIC1H00Pk", 3.0d, 1.0d)
+                .addDoseRatePv("IIC1H05Pk", 0.5d, 10.0d)
+                .setNoiseFraction(0.001d);
+
+        backend.setBeamModel(model);
+
+        backend.getPv(CURRENT_PV).setUpdateRate(50);
+        backend.getPv("IIC1H00Pk").setUpdateRate(50);
+        backend.getPv("IIC1H05Pk").setUpdateRate(50);
+
+        manager = new ChannelManager(backend);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        manager.close();
+
+        ICalibrateApp.APP_PROPERTIES.clear();
+        ICalibrateApp.APP_PROPERTIES.putAll(savedProperties);
+    }
+
+    @Test
+    public void testAdaptiveSettleFollowsBeamModel() throws Exception {
+        List<IonChamber> icList = new ArrayList<>();
+        icList.add(createIonChamber("IIC1H00"));
+        icList.add(createIonChamber("IIC1H05"));
+
+        CreateNewDatasetParameters params = new CreateNewDatasetParameters(manager);
+        params.setHall(Hall.A);
+        params.setLaser(Laser.A);
+        params.setTarget("Test Target");
+        params.setPass("1");
+        params.setMinAttenuator(10);
+        params.setMaxAttenuator(30);
+        params.setNumberOfSteps(2);
+        params.setSamplesPerStep(2);
+        params.setSettleSeconds(5);
+        params.setSamplingMode(SamplingMode.POLL);
+        params.setSettleMode(SettleMode.ADAPTIVE);
+        params.setSettleWindowSeconds(0.2d);
+        params.setIonChamberList(icList);
+
+        CreateNewDatasetWorker worker = new CreateNewDatasetWorker(params, null, null);
+        worker.execute();
+
+        List<IonChamberDataset> datasetList = worker.get(30, TimeUnit.SECONDS);
+
+        assertEquals(2, datasetList.size());
+
+        double[][] coefficients = {{3.0d, 1.0d}, {0.5d, 10.0d}};
+        int[] attenuators = {10, 20, 30};
+
+        for (int i = 0; i < datasetList.size(); i++) {
+            MeasurementColumns columns = datasetList.get(i).getColumns();
+            RawSamples rawSamples = datasetList.get(i).getRawSamples();
+
+            assertEquals(attenuators.length, columns.size());
+            assertEquals(attenuators.length, rawSamples.size());
+
+            for (int j = 0; j < attenuators.length; j++) {
+                double current = CURRENT_PER_ATTENUATOR * attenuators[j];
+                double doseRate = coefficients[i][0] * current + coefficients[i][1];
+
+                assertEquals(current, columns.getCurrent(j), current * 0.01);
+                assertEquals(doseRate, columns.getDoseRateRadsPerHour(j), doseRate * 0.01);
+                assertEquals(2, rawSamples.getValidSampleCount(j));
+
+                // The beam model updates instantly so adaptive settle ends long before the cap
+                assertTrue(columns.getSettleSeconds(j) < params.getSettleSeconds());
+            }
+        }
+
+        // Attenuator and laser mode are put back when done
+        assertEquals(ORIGINAL_ATTENUATOR, backend.getPv(ATTENUATOR_PV).getDoubleValue(), 0.0d);
+        assertEquals(0.0d, backend.getPv(MODE_PV).getDoubleValue(), 0.0d);
+    }
+
+    private static IonChamber createIonChamber(String name) {
+        return new IonChamber(name, name, name + " friendly", name + "Pk", name + "MAx",
+                name + "MAX", null);
+    }
+}